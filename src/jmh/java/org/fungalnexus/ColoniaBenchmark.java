@@ -0,0 +1,146 @@
+package org.fungalnexus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de los caminos calientes de GrafoColonia sobre colonias generadas.
+ *
+ * Uso: mvn -P jmh package && java -jar target/benchmarks.jar -rf json -rff target/jmh-resultados.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColoniaBenchmark {
+
+    private static final int MUESTRAS = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tamano;
+
+    @Param({"CADENA", "ARBUSTO"})
+    public GeneradorColonias.Topologia topologia;
+
+    private GrafoColonia grafo;
+    private Nodo[] nodosMuestra;
+    private int[] puntosX;
+    private int[] puntosY;
+    private int siguienteMuestra;
+
+    // Construcción: nuevas celdas en una fila fuera de la colonia, una a continuación de otra
+    private int filaConstruccion;
+    private int columnaConstruccion;
+
+    // Las partículas solo se cuentan, para que se calculen las rutas como en la ventana
+    private long largoRutasEmitidas;
+
+    @Setup(Level.Trial)
+    public void generarColonia() {
+        grafo = GeneradorColonias.generar(0, 0, tamano, topologia);
+        grafo.setOyente((origenX, origenY, ruta, tipo) -> largoRutasEmitidas += ruta.size());
+
+        Random random = new Random(42);
+        int lado = (int) Math.ceil(Math.sqrt(tamano));
+        nodosMuestra = new Nodo[MUESTRAS];
+        puntosX = new int[MUESTRAS];
+        puntosY = new int[MUESTRAS];
+        for (int i = 0; i < MUESTRAS; i++) {
+            nodosMuestra[i] = grafo.getAlmacen().vista(random.nextInt(tamano));
+            // Puntos de colocación plausibles: hasta dos celdas alrededor de un nodo existente
+            Nodo cercano = grafo.getAlmacen().vista(random.nextInt(tamano));
+            puntosX[i] = cercano.getX() + random.nextInt(5 * Configuracion.GRID_SIZE) - 2 * Configuracion.GRID_SIZE;
+            puntosY[i] = cercano.getY() + random.nextInt(5 * Configuracion.GRID_SIZE) - 2 * Configuracion.GRID_SIZE;
+        }
+
+        // 1% de la colonia infectada, sin daño ni propagación: el tick se mantiene estable entre llamadas
+        for (int i = 1; i < tamano; i += 100) {
+            grafo.infectar(grafo.getAlmacen().vista(i));
+        }
+
+        filaConstruccion = lado + 2;
+        columnaConstruccion = -lado;
+    }
+
+    private int siguiente() {
+        siguienteMuestra = (siguienteMuestra + 1) & (MUESTRAS - 1);
+        return siguienteMuestra;
+    }
+
+    @Benchmark
+    public double actualizarRecursos() {
+        // Siempre con espacio libre, para medir la extracción y la emisión de partículas
+        grafo.setNutrientesTotales(0);
+        grafo.actualizarRecursos();
+        return grafo.getNutrientesTotales() + largoRutasEmitidas;
+    }
+
+    @Benchmark
+    public int actualizarInfeccionYCombate() {
+        grafo.actualizarInfeccionYCombate(0.0, 0.0, Configuracion.COSTO_DEFENSA_POR_COMBATE, 0);
+        return grafo.getNodosInfectados().size();
+    }
+
+    @Benchmark
+    public int actualizarInfeccionYCombateParalelo() {
+        // Mismo resultado que el secuencial; solo reparte la fase de combate con fork/join
+        grafo.setModoParalelo(true);
+        grafo.actualizarInfeccionYCombate(0.0, 0.0, Configuracion.COSTO_DEFENSA_POR_COMBATE, 0);
+        return grafo.getNodosInfectados().size();
+    }
+
+    @Benchmark
+    public int actualizarInfeccionConInfeccionExterna() {
+        // Después del período de gracia: incluye la búsqueda de nodos periféricos.
+        // Los focos externos se acumulan, así que el conjunto infectado crece durante la medición.
+        grafo.actualizarInfeccionYCombate(0.0, 0.0, Configuracion.COSTO_DEFENSA_POR_COMBATE,
+                Configuracion.CICLO_GRACIA_INICIAL);
+        return grafo.getNodosInfectados().size();
+    }
+
+    @Benchmark
+    public Collection<Nodo> encontrarRutaAlNucleo() {
+        return grafo.encontrarRutaAlNucleo(nodosMuestra[siguiente()]);
+    }
+
+    @Benchmark
+    public List<Nodo> encontrarRutaDesdeDefensa() {
+        return grafo.encontrarRutaDesdeTipo(nodosMuestra[siguiente()], TipoNodo.DEFENSA);
+    }
+
+    @Benchmark
+    public List<Nodo> encontrarRutaDesdeAlmacenamiento() {
+        return grafo.encontrarRutaDesdeTipo(nodosMuestra[siguiente()], TipoNodo.ALMACENAMIENTO);
+    }
+
+    @Benchmark
+    public Nodo encontrarNodoMasCercano() {
+        int i = siguiente();
+        return grafo.encontrarNodoMasCercano(puntosX[i], puntosY[i]);
+    }
+
+    @Benchmark
+    public Nodo construirNuevoNodo() {
+        grafo.setNutrientesTotales(Double.MAX_VALUE);
+        int x = columnaConstruccion++ * Configuracion.GRID_SIZE;
+        int y = filaConstruccion * Configuracion.GRID_SIZE;
+        return grafo.construirNuevoNodo(x, y, TipoNodo.EXTRACTOR);
+    }
+}
@@ -0,0 +1,80 @@
+package org.fungalnexus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de un frame de partículas: reponer las que llegaron y mover todas un paso.
+ * Hay una partícula en vuelo por cada EXTRACTOR de la colonia generada. El reloj es sintético
+ * y avanza un frame de 60 Hz por invocación, así que la medida no depende del reloj real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParticulasBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int tamano;
+
+    @Param({"CADENA", "ARBUSTO"})
+    public GeneradorColonias.Topologia topologia;
+
+    private static final double SEGUNDOS_POR_FRAME = 1.0 / 60.0;
+
+    private List<int[]> rutas;
+    private SistemaParticulas particulas;
+    private int siguienteRuta;
+    private double ahora;
+
+    @Setup(Level.Trial)
+    public void generarRutas() {
+        GrafoColonia grafo = GeneradorColonias.generar(0, 0, tamano, topologia);
+        AlmacenNodos almacen = grafo.getAlmacen();
+        rutas = new ArrayList<>();
+        for (int id = 0; id < almacen.getCantidad(); id++) {
+            if (almacen.esTipo(id, TipoNodo.EXTRACTOR)) {
+                Collection<Nodo> ruta = grafo.encontrarRutaAlNucleo(almacen.vista(id));
+                int[] ids = new int[ruta.size()];
+                int i = 0;
+                for (Nodo nodo : ruta) {
+                    ids[i++] = nodo.getId();
+                }
+                rutas.add(ids);
+            }
+        }
+        particulas = new SistemaParticulas(new TablaRutas(almacen), rutas.size());
+        // Con el presupuesto al doble se aceptan todas: se mide el movimiento, no el muestreo
+        particulas.setPresupuesto(2 * rutas.size());
+        ahora = 0.0;
+    }
+
+    @Benchmark
+    public int avanzarFrame() {
+        while (particulas.getCantidadActivas() < rutas.size()) {
+            int[] ruta = rutas.get(siguienteRuta);
+            siguienteRuta = (siguienteRuta + 1) % rutas.size();
+            particulas.crear(ruta, TipoRecurso.NUTRIENTE, ahora);
+        }
+        ahora += SEGUNDOS_POR_FRAME;
+        particulas.avanzar(ahora);
+        return particulas.getCantidadActivas();
+    }
+}
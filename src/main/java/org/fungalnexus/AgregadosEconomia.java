@@ -0,0 +1,63 @@
+package org.fungalnexus;
+
+/**
+ * Totales de la economía por TipoNodo, mantenidos de forma incremental por AlmacenNodos:
+ * nodos vivos (no transformados en bacteria), producción y capacidad de nutrientes.
+ *
+ * Se actualizan al agregar un nodo y al transformarlo, así que la fase de recursos del tick
+ * lee sumas ya hechas en lugar de recorrer la colonia.
+ */
+public class AgregadosEconomia {
+
+    private static final TipoNodo[] TIPOS = TipoNodo.values();
+
+    private final int[] vivos = new int[TIPOS.length];
+    private final double[] produccion = new double[TIPOS.length];
+    private final double[] capacidad = new double[TIPOS.length];
+    private double capacidadTotal = 0.0;
+
+    // Un nodo nuevo (o recuperado) empieza a producir y a aportar su capacidad
+    void sumar(TipoNodo tipo, double tasa) {
+        int t = tipo.ordinal();
+        vivos[t]++;
+        produccion[t] += tasa;
+        capacidad[t] += tipo.getCapacidadNutriente();
+        capacidadTotal += tipo.getCapacidadNutriente();
+    }
+
+    // Un nodo transformado en bacteria pierde su función y su capacidad
+    void restar(TipoNodo tipo, double tasa) {
+        int t = tipo.ordinal();
+        vivos[t]--;
+        produccion[t] -= tasa;
+        capacidad[t] -= tipo.getCapacidadNutriente();
+        capacidadTotal -= tipo.getCapacidadNutriente();
+    }
+
+    /**
+     * Fija las sumas guardadas en una partida. Son sumas de punto flotante cuyo último bit depende
+     * del orden en que se fueron acumulando, así que al cargar se copian en vez de recalcularse.
+     */
+    void restaurarSumas(double[] produccionGuardada, double[] capacidadGuardada, double capacidadTotalGuardada) {
+        System.arraycopy(produccionGuardada, 0, produccion, 0, produccion.length);
+        System.arraycopy(capacidadGuardada, 0, capacidad, 0, capacidad.length);
+        capacidadTotal = capacidadTotalGuardada;
+    }
+
+    public int getVivos(TipoNodo tipo) {
+        return vivos[tipo.ordinal()];
+    }
+
+    // Suma de las tasas (nutrientes para EXTRACTOR, defensa para DEFENSA) de los nodos vivos del tipo
+    public double getProduccion(TipoNodo tipo) {
+        return produccion[tipo.ordinal()];
+    }
+
+    public double getCapacidad(TipoNodo tipo) {
+        return capacidad[tipo.ordinal()];
+    }
+
+    public double getCapacidadTotal() {
+        return capacidadTotal;
+    }
+}
@@ -0,0 +1,62 @@
+package org.fungalnexus;
+
+/**
+ * Generador pseudoaleatorio con semilla (SplitMix64).
+ *
+ * Toda la aleatoriedad de la simulación sale de una instancia que pertenece a GrafoColonia,
+ * así que la misma semilla y los mismos comandos reproducen exactamente la misma partida.
+ * A diferencia de java.util.Random, su estado es un único long que se puede leer y restaurar.
+ */
+public final class Aleatorio {
+
+    private static final long INCREMENTO = 0x9E3779B97F4A7C15L;
+
+    private long estado;
+
+    public Aleatorio(long semilla) {
+        this.estado = semilla;
+    }
+
+    public long siguienteLong() {
+        return mezclar(estado += INCREMENTO);
+    }
+
+    // Uniforme en [0, 1), con 53 bits de precisión
+    public double siguienteDouble() {
+        return (siguienteLong() >>> 11) * 0x1.0p-53;
+    }
+
+    // Uniforme en [0, limite)
+    public int siguienteInt(int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite debe ser positivo: " + limite);
+        }
+        // Multiplicación en 64 bits: sesgo despreciable para límites de tamaño de colonia
+        return (int) (((siguienteLong() >>> 32) * limite) >>> 32);
+    }
+
+    /**
+     * Primer double del flujo independiente número 'flujo' derivado de la semilla.
+     * Equivale a crear new Aleatorio(semilla + flujo * INCREMENTO) y pedir un double, sin crear objetos:
+     * permite que cada nodo tenga su propio flujo y que el resultado no dependa del orden
+     * ni del hilo en que se procese.
+     */
+    public static double doubleDelFlujo(long semilla, long flujo) {
+        return (mezclar(semilla + (flujo + 1) * INCREMENTO) >>> 11) * 0x1.0p-53;
+    }
+
+    public long getEstado() {
+        return estado;
+    }
+
+    public void setEstado(long estado) {
+        this.estado = estado;
+    }
+
+    // Función de mezcla final de SplitMix64
+    static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,530 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Almacenamiento compacto de la colonia.
+ *
+ * Cada nodo es un id entero denso (0, 1, 2...) y sus propiedades viven en arreglos
+ * primitivos paralelos. Las hifas se guardan como listas de adyacencia comprimidas
+ * dentro de un único arreglo compartido: cada nodo tiene un tramo [inicio, inicio + grado)
+ * y cuando se llena se reubica al final con el doble de capacidad. El arreglo compartido
+ * crece por bloques, así que un nodo ocupa decenas de bytes en lugar de cientos y
+ * los recorridos del tick son lineales en memoria.
+ *
+ * La interfaz gráfica sigue trabajando con Nodo, que es solo una vista (almacén + id).
+ */
+public class AlmacenNodos {
+
+    private static final int CAPACIDAD_INICIAL = 256;
+    private static final int GRADO_INICIAL = 2;
+    private static final TipoNodo[] TIPOS = TipoNodo.values();
+
+    private int cantidad = 0;
+
+    // --- Propiedades por nodo ---
+    private int[] x;
+    private int[] y;
+    private byte[] tipo;
+    private byte[] tipoOriginal;
+    private boolean[] bacteria;
+    private double[] salud;
+    private double[] infeccion;
+    private float[] tasa;
+
+    // --- Adyacencia comprimida: vecino y id de arista en paralelo ---
+    private int[] inicioAdyacencia;
+    private int[] grado;
+    private int[] capacidadAdyacencia;
+    private int[] adyacentes;
+    private int[] aristasAdyacentes;
+    private int usoAdyacencia = 0;
+
+    // --- Aristas (hifas), por id ---
+    private int cantidadAristas = 0;
+    private int[] extremoA;
+    private int[] extremoB;
+
+    // Vistas creadas bajo demanda para la interfaz
+    private Nodo[] vistas;
+
+    // Ids agrupados por tipo (el tipo no cambia al transformarse) y totales de la economía
+    private final ListaEnteros[] idsPorTipo = new ListaEnteros[TIPOS.length];
+    private final AgregadosEconomia agregados = new AgregadosEconomia();
+
+    // Conteos por bloques de la grilla, para dibujar la colonia de lejos
+    private final ResumenBloques resumenBloques = new ResumenBloques(Configuracion.GRID_SIZE);
+
+    // Periferia: hojas sanas (grado 1, sin infección, no bacteria, no núcleo), candidatas a infección externa
+    private final ConjuntoIndexado periferia = new ConjuntoIndexado();
+
+    // Cambios desde la última instantánea completa (ver ArchivoPartida): nodos y aristas de la base
+    // y los ids de la base cuyo estado se modificó después
+    private int cantidadBase = 0;
+    private int aristasBase = 0;
+    private final BitSet modificados = new BitSet();
+    private final ListaEnteros idsModificados = new ListaEnteros();
+
+    // Nodos con infección o bacteria cambiadas desde el último limpiarCambiosVista (ver HiloSimulacion);
+    // null mientras nadie los sigue
+    private BitSet cambiadosVista;
+    private final ListaEnteros idsCambiadosVista = new ListaEnteros();
+
+    public AlmacenNodos() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public AlmacenNodos(int capacidadInicial) {
+        int capacidad = Math.max(1, capacidadInicial);
+        x = new int[capacidad];
+        y = new int[capacidad];
+        tipo = new byte[capacidad];
+        tipoOriginal = new byte[capacidad];
+        bacteria = new boolean[capacidad];
+        salud = new double[capacidad];
+        infeccion = new double[capacidad];
+        tasa = new float[capacidad];
+        inicioAdyacencia = new int[capacidad];
+        grado = new int[capacidad];
+        capacidadAdyacencia = new int[capacidad];
+        vistas = new Nodo[capacidad];
+
+        adyacentes = new int[capacidad * GRADO_INICIAL];
+        aristasAdyacentes = new int[capacidad * GRADO_INICIAL];
+        extremoA = new int[capacidad];
+        extremoB = new int[capacidad];
+
+        for (int t = 0; t < TIPOS.length; t++) {
+            idsPorTipo[t] = new ListaEnteros();
+        }
+    }
+
+    /**
+     * Agrega un nodo con la salud base de su tipo y sin infección.
+     * @return el id del nuevo nodo.
+     */
+    public int agregar(int posX, int posY, TipoNodo tipoNodo, double tasaProduccion) {
+        if (cantidad == x.length) {
+            crecerNodos(x.length * 2);
+        }
+        int id = cantidad++;
+        x[id] = posX;
+        y[id] = posY;
+        tipo[id] = (byte) tipoNodo.ordinal();
+        tipoOriginal[id] = (byte) tipoNodo.ordinal();
+        bacteria[id] = false;
+        salud[id] = tipoNodo.getSaludBase();
+        infeccion[id] = 0.0;
+        tasa[id] = (float) tasaProduccion;
+
+        grado[id] = 0;
+        capacidadAdyacencia[id] = GRADO_INICIAL;
+        inicioAdyacencia[id] = reservarAdyacencia(GRADO_INICIAL);
+
+        idsPorTipo[tipoNodo.ordinal()].agregar(id);
+        agregados.sumar(tipoNodo, tasa[id]);
+        resumenBloques.agregarNodo(id, posX, posY, tipoNodo.ordinal(), false, 0.0);
+        actualizarPeriferia(id);
+        return id;
+    }
+
+    /**
+     * Crea una hifa bidireccional entre a y b.
+     * @return el id de la nueva arista, o -1 si ya estaban conectados (o a == b).
+     */
+    public int conectar(int a, int b) {
+        if (a == b || sonVecinos(a, b)) {
+            return -1;
+        }
+        if (cantidadAristas == extremoA.length) {
+            extremoA = Arrays.copyOf(extremoA, extremoA.length * 2);
+            extremoB = Arrays.copyOf(extremoB, extremoB.length * 2);
+        }
+        int arista = cantidadAristas++;
+        extremoA[arista] = a;
+        extremoB[arista] = b;
+        agregarAdyacente(a, b, arista);
+        agregarAdyacente(b, a, arista);
+        actualizarPeriferia(a);
+        actualizarPeriferia(b);
+        return arista;
+    }
+
+    // Revisa la lista del nodo de menor grado
+    public boolean sonVecinos(int a, int b) {
+        if (grado[b] < grado[a]) {
+            int temporal = a;
+            a = b;
+            b = temporal;
+        }
+        int inicio = inicioAdyacencia[a];
+        int fin = inicio + grado[a];
+        for (int i = inicio; i < fin; i++) {
+            if (adyacentes[i] == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --- Lectura ---
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public int getCantidadAristas() {
+        return cantidadAristas;
+    }
+
+    public int getX(int id) {
+        return x[id];
+    }
+
+    public int getY(int id) {
+        return y[id];
+    }
+
+    public TipoNodo getTipo(int id) {
+        return TIPOS[tipo[id]];
+    }
+
+    public TipoNodo getTipoOriginal(int id) {
+        return TIPOS[tipoOriginal[id]];
+    }
+
+    public boolean esTipo(int id, TipoNodo tipoNodo) {
+        return tipo[id] == tipoNodo.ordinal();
+    }
+
+    public boolean esBacteria(int id) {
+        return bacteria[id];
+    }
+
+    public double getSalud(int id) {
+        return salud[id];
+    }
+
+    public double getInfeccion(int id) {
+        return infeccion[id];
+    }
+
+    public double getTasa(int id) {
+        return tasa[id];
+    }
+
+    // El radio no se guarda: depende solo del tipo original
+    public double getRadio(int id) {
+        return tipoOriginal[id] == TipoNodo.NUCLEO.ordinal()
+                ? Configuracion.RADIO_NUCLEO_INICIAL
+                : Configuracion.RADIO_NODO_ESTANDAR;
+    }
+
+    // Ids de todos los nodos del tipo, incluidos los transformados (en orden de creación)
+    public ListaEnteros getIdsPorTipo(TipoNodo tipoNodo) {
+        return idsPorTipo[tipoNodo.ordinal()];
+    }
+
+    public AgregadosEconomia getAgregados() {
+        return agregados;
+    }
+
+    public ResumenBloques getResumenBloques() {
+        return resumenBloques;
+    }
+
+    // Hojas sanas de la colonia; se mantiene al conectar, infectar, curar y transformar
+    public ConjuntoIndexado getPeriferia() {
+        return periferia;
+    }
+
+    public int getGrado(int id) {
+        return grado[id];
+    }
+
+    // k-ésimo vecino del nodo (0 <= k < grado)
+    public int getVecino(int id, int k) {
+        return adyacentes[inicioAdyacencia[id] + k];
+    }
+
+    // Id de la arista que lleva al k-ésimo vecino
+    public int getAristaVecino(int id, int k) {
+        return aristasAdyacentes[inicioAdyacencia[id] + k];
+    }
+
+    public int getExtremoA(int arista) {
+        return extremoA[arista];
+    }
+
+    public int getExtremoB(int arista) {
+        return extremoB[arista];
+    }
+
+    // --- Escritura ---
+
+    public void setSalud(int id, double valor) {
+        salud[id] = valor;
+        marcarModificado(id);
+    }
+
+    public void recibirDano(int id, double dano) {
+        salud[id] = Math.max(0, salud[id] - dano);
+        marcarModificado(id);
+    }
+
+    // Asegura que esté entre 0 y 1
+    public void setInfeccion(int id, double valor) {
+        double nueva = Math.min(1.0, Math.max(0.0, valor));
+        resumenBloques.cambiarInfeccion(id, infeccion[id], nueva);
+        if (infeccion[id] != nueva) {
+            marcarCambioVista(id);
+        }
+        infeccion[id] = nueva;
+        actualizarPeriferia(id);
+        marcarModificado(id);
+    }
+
+    // Una vez transformado, pierde su función y capacidad de curación
+    public void setBacteria(int id, boolean estado) {
+        if (bacteria[id] != estado) {
+            marcarCambioVista(id);
+            resumenBloques.cambiarBacteria(id, estado);
+            if (estado) {
+                agregados.restar(getTipo(id), tasa[id]);
+            } else {
+                agregados.sumar(getTipo(id), 0f); // Vuelve a contar, pero sin producción
+            }
+        }
+        bacteria[id] = estado;
+        tasa[id] = 0f;
+        actualizarPeriferia(id);
+        marcarModificado(id);
+    }
+
+    // --- Cambios para la vista ---
+
+    /**
+     * Empieza a registrar los nodos cuya infección o estado de bacteria cambia. Los que ya
+     * difieren de un nodo recién construido quedan marcados, para que la vista los reciba.
+     */
+    void seguirCambiosVista() {
+        cambiadosVista = new BitSet(cantidad);
+        idsCambiadosVista.limpiar();
+        for (int id = 0; id < cantidad; id++) {
+            if (infeccion[id] != 0 || bacteria[id]) {
+                marcarCambioVista(id);
+            }
+        }
+    }
+
+    // Ids cambiados desde el último limpiarCambiosVista(), en orden de primer cambio
+    ListaEnteros getIdsCambiadosVista() {
+        return idsCambiadosVista;
+    }
+
+    void limpiarCambiosVista() {
+        for (int i = 0; i < idsCambiadosVista.size(); i++) {
+            cambiadosVista.clear(idsCambiadosVista.get(i));
+        }
+        idsCambiadosVista.limpiar();
+    }
+
+    // --- Instantáneas ---
+
+    /**
+     * Toma el estado actual como base de las instantáneas incrementales:
+     * a partir de aquí solo se registran los cambios de los nodos existentes.
+     */
+    void fijarBase() {
+        for (int i = 0; i < idsModificados.size(); i++) {
+            modificados.clear(idsModificados.get(i));
+        }
+        idsModificados.limpiar();
+        cantidadBase = cantidad;
+        aristasBase = cantidadAristas;
+    }
+
+    int getCantidadBase() {
+        return cantidadBase;
+    }
+
+    int getAristasBase() {
+        return aristasBase;
+    }
+
+    // Ids de la base modificados desde fijarBase(), en orden de primera modificación
+    ListaEnteros getIdsModificados() {
+        return idsModificados;
+    }
+
+    /**
+     * Llena un almacén vacío con una instantánea completa, columna por columna.
+     * Las hifas se ubican con un conteo previo de grados: cada nodo recibe un tramo justo, sin
+     * reubicaciones, y sus vecinos quedan en el mismo orden que al guardar (orden de arista).
+     * Los extremos de las aristas ya deben estar validados.
+     */
+    void cargarCompleta(InstantaneaColonia instantanea) {
+        if (cantidad != 0) {
+            throw new IllegalStateException("El almacén ya tiene " + cantidad + " nodos");
+        }
+        int n = instantanea.getRegistros();
+        if (n > x.length) {
+            crecerNodos(n);
+        }
+        System.arraycopy(instantanea.x, 0, x, 0, n);
+        System.arraycopy(instantanea.y, 0, y, 0, n);
+        System.arraycopy(instantanea.tipo, 0, tipo, 0, n);
+        System.arraycopy(instantanea.tipo, 0, tipoOriginal, 0, n);
+        System.arraycopy(instantanea.bacteria, 0, bacteria, 0, n);
+        System.arraycopy(instantanea.salud, 0, salud, 0, n);
+        System.arraycopy(instantanea.infeccion, 0, infeccion, 0, n);
+        System.arraycopy(instantanea.tasa, 0, tasa, 0, n);
+        cantidad = n;
+
+        for (int id = 0; id < n; id++) {
+            idsPorTipo[tipo[id]].agregar(id);
+            if (!bacteria[id]) {
+                agregados.sumar(TIPOS[tipo[id]], tasa[id]);
+            }
+            resumenBloques.agregarNodo(id, x[id], y[id], tipo[id], bacteria[id], infeccion[id]);
+        }
+
+        // Aristas y adyacencia: primero los grados, después un tramo por nodo, después los vecinos en orden
+        int aristas = instantanea.extremoA.length;
+        if (aristas > extremoA.length) {
+            extremoA = new int[aristas];
+            extremoB = new int[aristas];
+        }
+        System.arraycopy(instantanea.extremoA, 0, extremoA, 0, aristas);
+        System.arraycopy(instantanea.extremoB, 0, extremoB, 0, aristas);
+        cantidadAristas = aristas;
+
+        Arrays.fill(grado, 0, n, 0);
+        for (int arista = 0; arista < aristas; arista++) {
+            grado[extremoA[arista]]++;
+            grado[extremoB[arista]]++;
+        }
+        usoAdyacencia = 0;
+        for (int id = 0; id < n; id++) {
+            capacidadAdyacencia[id] = Math.max(GRADO_INICIAL, grado[id]);
+            inicioAdyacencia[id] = reservarAdyacencia(capacidadAdyacencia[id]);
+            grado[id] = 0;
+        }
+        for (int arista = 0; arista < aristas; arista++) {
+            agregarAdyacente(extremoA[arista], extremoB[arista], arista);
+            agregarAdyacente(extremoB[arista], extremoA[arista], arista);
+        }
+
+        for (int id = 0; id < n; id++) {
+            actualizarPeriferia(id);
+        }
+    }
+
+    /**
+     * Fija el estado guardado de un nodo ya agregado (al cargar una partida).
+     * La tasa no se pasa: solo cambia al transformarse, y setBacteria ya la deja en 0.
+     */
+    void restaurarNodo(int id, boolean esBacteria, double valorSalud, double valorInfeccion) {
+        if (bacteria[id] != esBacteria) {
+            setBacteria(id, esBacteria);
+        }
+        salud[id] = valorSalud;
+        resumenBloques.cambiarInfeccion(id, infeccion[id], valorInfeccion);
+        infeccion[id] = valorInfeccion;
+        actualizarPeriferia(id);
+    }
+
+    /**
+     * Reordena la periferia como estaba al guardar: la infección externa elige por posición,
+     * así que el orden forma parte del estado reproducible.
+     */
+    void restaurarOrdenPeriferia(int[] orden) {
+        periferia.limpiar();
+        for (int id : orden) {
+            periferia.agregar(id);
+        }
+    }
+
+    /**
+     * Vista Nodo del id, creada la primera vez que se pide y reutilizada después.
+     */
+    public Nodo vista(int id) {
+        if (id < 0 || id >= cantidad) {
+            throw new IndexOutOfBoundsException("Nodo " + id + " inexistente (hay " + cantidad + ")");
+        }
+        Nodo vista = vistas[id];
+        if (vista == null) {
+            vista = new Nodo(this, id);
+            vistas[id] = vista;
+        }
+        return vista;
+    }
+
+    // --- Internos ---
+
+    private void marcarCambioVista(int id) {
+        if (cambiadosVista != null && !cambiadosVista.get(id)) {
+            cambiadosVista.set(id);
+            idsCambiadosVista.agregar(id);
+        }
+    }
+
+    private void marcarModificado(int id) {
+        if (id < cantidadBase && !modificados.get(id)) {
+            modificados.set(id);
+            idsModificados.agregar(id);
+        }
+    }
+
+    private void actualizarPeriferia(int id) {
+        boolean esHojaSana = grado[id] == 1 && infeccion[id] == 0 && !bacteria[id]
+                && tipo[id] != TipoNodo.NUCLEO.ordinal();
+        if (esHojaSana) {
+            periferia.agregar(id);
+        } else {
+            periferia.quitar(id);
+        }
+    }
+
+    private void agregarAdyacente(int nodo, int vecino, int arista) {
+        if (grado[nodo] == capacidadAdyacencia[nodo]) {
+            // Reubicar el tramo al final con el doble de capacidad
+            int nuevaCapacidad = capacidadAdyacencia[nodo] * 2;
+            int nuevoInicio = reservarAdyacencia(nuevaCapacidad);
+            System.arraycopy(adyacentes, inicioAdyacencia[nodo], adyacentes, nuevoInicio, grado[nodo]);
+            System.arraycopy(aristasAdyacentes, inicioAdyacencia[nodo], aristasAdyacentes, nuevoInicio, grado[nodo]);
+            inicioAdyacencia[nodo] = nuevoInicio;
+            capacidadAdyacencia[nodo] = nuevaCapacidad;
+        }
+        int posicion = inicioAdyacencia[nodo] + grado[nodo]++;
+        adyacentes[posicion] = vecino;
+        aristasAdyacentes[posicion] = arista;
+    }
+
+    private int reservarAdyacencia(int espacios) {
+        if (usoAdyacencia + espacios > adyacentes.length) {
+            int nuevoLargo = Math.max(adyacentes.length + (adyacentes.length >> 1), usoAdyacencia + espacios);
+            adyacentes = Arrays.copyOf(adyacentes, nuevoLargo);
+            aristasAdyacentes = Arrays.copyOf(aristasAdyacentes, nuevoLargo);
+        }
+        int inicio = usoAdyacencia;
+        usoAdyacencia += espacios;
+        return inicio;
+    }
+
+    private void crecerNodos(int nuevaCapacidad) {
+        x = Arrays.copyOf(x, nuevaCapacidad);
+        y = Arrays.copyOf(y, nuevaCapacidad);
+        tipo = Arrays.copyOf(tipo, nuevaCapacidad);
+        tipoOriginal = Arrays.copyOf(tipoOriginal, nuevaCapacidad);
+        bacteria = Arrays.copyOf(bacteria, nuevaCapacidad);
+        salud = Arrays.copyOf(salud, nuevaCapacidad);
+        infeccion = Arrays.copyOf(infeccion, nuevaCapacidad);
+        tasa = Arrays.copyOf(tasa, nuevaCapacidad);
+        inicioAdyacencia = Arrays.copyOf(inicioAdyacencia, nuevaCapacidad);
+        grado = Arrays.copyOf(grado, nuevaCapacidad);
+        capacidadAdyacencia = Arrays.copyOf(capacidadAdyacencia, nuevaCapacidad);
+        vistas = Arrays.copyOf(vistas, nuevaCapacidad);
+    }
+}
@@ -0,0 +1,412 @@
+package org.fungalnexus;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Bosque BFS persistente de rutas más cortas hacia un conjunto de raíces
+ * (el núcleo, o todos los nodos DEFENSA vivos).
+ *
+ * En lugar de lanzar un BFS por cada extractor en cada tick, se guarda el padre y la
+ * distancia de cada nodo conectado, y se actualizan cuando la colonia agrega hifas o raíces.
+ * Consultar una ruta cuesta O(largo de la ruta) y las rutas comparten su tramo final:
+ * la ruta de un nodo es él mismo seguido de la ruta (ya cacheada) de su padre. Por eso una
+ * ruta solo se recorre en orden, sin acceso por índice: cachear todas cuesta O(nodos) y no
+ * la suma de sus largos.
+ *
+ * Los nodos bacteria están bloqueados: no reciben distancia ni se atraviesan. Cuando un nodo
+ * se transforma, {@link #nodoBloqueado(int, ListaEnteros)} corta solo el subárbol que colgaba
+ * de él y lo vuelve a hacer crecer desde el borde intacto. Los nodos con hifas que se quedan
+ * sin camino a ninguna raíz se llevan en {@link #getAislados()}.
+ */
+public class ArbolRutas {
+
+    private static final int SIN_PADRE = -1;
+    private static final int DESCONECTADO = -1;
+
+    private final AlmacenNodos almacen;
+
+    // Indexados por id de nodo; crecen junto con el almacén
+    private int[] padres = new int[0];
+    private int[] distancias = new int[0];
+    private Ruta[] rutasCacheadas = new Ruta[0];
+
+    // Ids con ruta cacheada: invalidar cuesta lo que se cacheó, no el tamaño de la colonia
+    private final ListaEnteros idsCacheados = new ListaEnteros();
+
+    // Nodos no bloqueados, con al menos una hifa, sin camino a ninguna raíz
+    private final ConjuntoIndexado aislados = new ConjuntoIndexado();
+
+    // Cola del BFS reutilizada entre llamadas
+    private int[] cola = new int[16];
+
+    // Reparación tras un bloqueo: el subárbol cortado y sus semillas (distancia << 32 | posición)
+    private final ListaEnteros region = new ListaEnteros();
+    private long[] semillas = new long[16];
+
+    // Se activa si cambió el camino de un nodo ya enrutado; el caché se vacía una vez al terminar
+    private boolean rutasInvalidas = false;
+
+    public ArbolRutas(AlmacenNodos almacen) {
+        this.almacen = almacen;
+    }
+
+    public ArbolRutas(AlmacenNodos almacen, int raiz) {
+        this(almacen);
+        agregarRaiz(raiz);
+    }
+
+    /**
+     * Agrega una raíz (distancia 0) y propaga solo las distancias que mejoran.
+     */
+    public void agregarRaiz(int raiz) {
+        asegurarCapacidad();
+        if (mejorar(raiz, SIN_PADRE, 0)) {
+            cola[0] = raiz;
+            propagar(1);
+        }
+    }
+
+    /**
+     * Descarta el bosque y lo recalcula con un único BFS multi-origen desde las raíces dadas.
+     * Se usa cuando una raíz deja de serlo (p. ej. una DEFENSA destruida).
+     */
+    public void reiniciar(ListaEnteros raices) {
+        asegurarCapacidad();
+        int cantidad = almacen.getCantidad();
+        Arrays.fill(padres, 0, cantidad, SIN_PADRE);
+        Arrays.fill(distancias, 0, cantidad, DESCONECTADO);
+        vaciarCache();
+        aislados.limpiar();
+
+        int enCola = 0;
+        for (int i = 0; i < raices.size(); i++) {
+            int raiz = raices.get(i);
+            if (mejorar(raiz, SIN_PADRE, 0)) {
+                encolar(enCola++, raiz);
+            }
+        }
+        propagar(enCola);
+
+        for (int id = 0; id < cantidad; id++) {
+            marcarSiAislado(id);
+        }
+    }
+
+    /**
+     * Registra una nueva hifa bidireccional entre a y b y propaga las distancias que mejoren.
+     * Cuando b es un nodo recién construido (una hoja) el costo es O(1).
+     */
+    public void aristaAgregada(int a, int b) {
+        asegurarCapacidad();
+        relajar(a, b);
+        relajar(b, a);
+        marcarSiAislado(a);
+        marcarSiAislado(b);
+    }
+
+    /**
+     * El nodo dejó de conducir (se transformó en bacteria). Se desconecta el subárbol que
+     * colgaba de él y se vuelve a enrutar con un BFS que parte del borde intacto de ese subárbol,
+     * en orden de distancia, así que cada nodo se asienta una sola vez. El resto del bosque no
+     * cambia: quitar un nodo no acorta ningún camino. Cuesta O(subárbol + sus hifas).
+     * @param salidaAislados si no es null, recibe los nodos que se quedaron sin camino.
+     * @return cuántos nodos se quedaron sin camino a ninguna raíz.
+     */
+    public int nodoBloqueado(int nodo, ListaEnteros salidaAislados) {
+        asegurarCapacidad();
+        aislados.quitar(nodo);
+        if (!estaConectado(nodo)) {
+            return 0;
+        }
+
+        // 1. El subárbol: los hijos de un nodo son los vecinos que lo tienen como padre
+        region.limpiar();
+        region.agregar(nodo);
+        for (int i = 0; i < region.size(); i++) {
+            int actual = region.get(i);
+            int grado = almacen.getGrado(actual);
+            for (int k = 0; k < grado; k++) {
+                int vecino = almacen.getVecino(actual, k);
+                if (padres[vecino] == actual) {
+                    region.agregar(vecino);
+                }
+            }
+        }
+
+        // 2. Desconectarlo. Solo las rutas de estos nodos pasaban por 'nodo'
+        for (int i = 0; i < region.size(); i++) {
+            int id = region.get(i);
+            distancias[id] = DESCONECTADO;
+            padres[id] = SIN_PADRE;
+            rutasCacheadas[id] = null;
+        }
+
+        // 3. Semillas: los nodos del subárbol con un vecino enrutado fuera de él
+        int cantidadSemillas = 0;
+        for (int i = 1; i < region.size(); i++) {
+            int id = region.get(i);
+            int padre = mejorVecinoEnrutado(id);
+            if (padre != SIN_PADRE && !almacen.esBacteria(id)) {
+                if (cantidadSemillas == semillas.length) {
+                    semillas = Arrays.copyOf(semillas, semillas.length * 2);
+                }
+                semillas[cantidadSemillas++] = ((long) (distancias[padre] + 1) << 32) | i;
+            }
+        }
+        Arrays.sort(semillas, 0, cantidadSemillas);
+        repararRegion(cantidadSemillas);
+
+        // 4. Lo que no se alcanzó quedó aislado
+        int cortados = 0;
+        for (int i = 1; i < region.size(); i++) {
+            int id = region.get(i);
+            if (marcarSiAislado(id)) {
+                cortados++;
+                if (salidaAislados != null) {
+                    salidaAislados.agregar(id);
+                }
+            }
+        }
+        return cortados;
+    }
+
+    /**
+     * El nodo vuelve a conducir: adopta a su mejor vecino enrutado y propaga lo que mejore.
+     * Los nodos aislados que recuperan camino salen de {@link #getAislados()}.
+     */
+    public void nodoDesbloqueado(int nodo) {
+        asegurarCapacidad();
+        int padre = mejorVecinoEnrutado(nodo);
+        if (padre != SIN_PADRE && mejorar(nodo, padre, distancias[padre] + 1)) {
+            cola[0] = nodo;
+            propagar(1);
+        }
+        marcarSiAislado(nodo);
+    }
+
+    // Conjunto vivo: se actualiza con cada cambio del bosque
+    public ConjuntoIndexado getAislados() {
+        return aislados;
+    }
+
+    /**
+     * Devuelve la ruta más corta desde el nodo hasta su raíz más cercana, incluyendo ambos extremos,
+     * o null si el nodo no está conectado. La ruta es inmutable y compartida; se recorre en orden
+     * [inicio, ..., raíz], O(1) por paso.
+     */
+    public Collection<Nodo> rutaHaciaRaiz(int inicio) {
+        if (!estaConectado(inicio)) {
+            return null;
+        }
+        Ruta cacheada = rutasCacheadas[inicio];
+        if (cacheada != null) {
+            return cacheada;
+        }
+
+        // Subir por los padres hasta encontrar un tramo ya cacheado (o la raíz)
+        ListaEnteros pendientes = new ListaEnteros();
+        int paso = inicio;
+        Ruta resto = null;
+        while (paso != SIN_PADRE) {
+            resto = rutasCacheadas[paso];
+            if (resto != null) {
+                break;
+            }
+            pendientes.agregar(paso);
+            paso = padres[paso];
+        }
+
+        // Construir desde el extremo cercano a la raíz hacia el inicio, reutilizando cada tramo
+        for (int i = pendientes.size() - 1; i >= 0; i--) {
+            int nodo = pendientes.get(i);
+            resto = new Ruta(almacen.vista(nodo), resto);
+            rutasCacheadas[nodo] = resto;
+            idsCacheados.agregar(nodo);
+        }
+        return resto;
+    }
+
+    public boolean estaConectado(int nodo) {
+        return nodo < distancias.length && distancias[nodo] != DESCONECTADO;
+    }
+
+    public int getDistancia(int nodo) {
+        return nodo < distancias.length ? distancias[nodo] : DESCONECTADO;
+    }
+
+    // Siguiente nodo hacia la raíz, o -1 si es raíz o no está conectado
+    public int getPadre(int nodo) {
+        return nodo < padres.length ? padres[nodo] : SIN_PADRE;
+    }
+
+    // Si 'desde' ofrece un camino más corto hacia una raíz, lo adopta 'hacia' y se propaga por BFS
+    private void relajar(int desde, int hacia) {
+        if (estaConectado(desde) && mejorar(hacia, desde, distancias[desde] + 1)) {
+            cola[0] = hacia;
+            propagar(1);
+        }
+    }
+
+    // BFS que solo avanza por los nodos cuya distancia mejora; la cola ya tiene 'enCola' elementos
+    private void propagar(int enCola) {
+        int frente = 0;
+        while (frente < enCola) {
+            int actual = cola[frente++];
+            int siguienteDistancia = distancias[actual] + 1;
+            int grado = almacen.getGrado(actual);
+            for (int k = 0; k < grado; k++) {
+                int vecino = almacen.getVecino(actual, k);
+                if (mejorar(vecino, actual, siguienteDistancia)) {
+                    encolar(enCola++, vecino);
+                }
+            }
+        }
+        if (rutasInvalidas) {
+            vaciarCache();
+            rutasInvalidas = false;
+        }
+    }
+
+    /**
+     * BFS sobre la región cortada que mezcla las semillas (ordenadas por distancia) con la cola,
+     * que también avanza en orden de distancia: cada nodo recibe su distancia final la primera
+     * vez que se alcanza, y ninguna ruta ya cacheada fuera de la región cambia.
+     */
+    private void repararRegion(int cantidadSemillas) {
+        int frente = 0;
+        int enCola = 0;
+        int s = 0;
+        while (frente < enCola || s < cantidadSemillas) {
+            int actual;
+            int distanciaSemilla = s < cantidadSemillas ? (int) (semillas[s] >>> 32) : Integer.MAX_VALUE;
+            if (frente == enCola || distanciaSemilla <= distancias[cola[frente]]) {
+                actual = region.get((int) semillas[s++]);
+                if (!mejorar(actual, mejorVecinoEnrutado(actual), distanciaSemilla)) {
+                    continue; // Ya alcanzado desde otra semilla
+                }
+            } else {
+                actual = cola[frente++];
+            }
+            int siguienteDistancia = distancias[actual] + 1;
+            int grado = almacen.getGrado(actual);
+            for (int k = 0; k < grado; k++) {
+                int vecino = almacen.getVecino(actual, k);
+                if (mejorar(vecino, actual, siguienteDistancia)) {
+                    encolar(enCola++, vecino);
+                }
+            }
+        }
+    }
+
+    // Vecino enrutado de menor distancia, o SIN_PADRE
+    private int mejorVecinoEnrutado(int nodo) {
+        int mejor = SIN_PADRE;
+        int grado = almacen.getGrado(nodo);
+        for (int k = 0; k < grado; k++) {
+            int vecino = almacen.getVecino(nodo, k);
+            if (estaConectado(vecino) && (mejor == SIN_PADRE || distancias[vecino] < distancias[mejor])) {
+                mejor = vecino;
+            }
+        }
+        return mejor;
+    }
+
+    // Mantiene el invariante de 'aislados'; true si el nodo entró ahora
+    private boolean marcarSiAislado(int nodo) {
+        if (distancias[nodo] == DESCONECTADO && !almacen.esBacteria(nodo) && almacen.getGrado(nodo) > 0) {
+            return aislados.agregar(nodo);
+        }
+        return false;
+    }
+
+    private void vaciarCache() {
+        for (int i = 0; i < idsCacheados.size(); i++) {
+            rutasCacheadas[idsCacheados.get(i)] = null;
+        }
+        idsCacheados.limpiar();
+    }
+
+    private void encolar(int posicion, int nodo) {
+        if (posicion == cola.length) {
+            cola = Arrays.copyOf(cola, cola.length * 2);
+        }
+        cola[posicion] = nodo;
+    }
+
+    private boolean mejorar(int nodo, int padre, int distancia) {
+        if (almacen.esBacteria(nodo)) {
+            return false;
+        }
+        int actual = distancias[nodo];
+        if (actual != DESCONECTADO && actual <= distancia) {
+            return false;
+        }
+        if (actual != DESCONECTADO) {
+            // Cambió el camino de un nodo que ya tenía ruta: las rutas cacheadas pueden pasar por él
+            rutasInvalidas = true;
+        }
+        distancias[nodo] = distancia;
+        padres[nodo] = padre;
+        aislados.quitar(nodo);
+        return true;
+    }
+
+    // Los arreglos siguen el tamaño del almacén; los nodos nuevos empiezan desconectados
+    private void asegurarCapacidad() {
+        int cantidad = almacen.getCantidad();
+        if (cantidad <= distancias.length) {
+            return;
+        }
+        int anterior = distancias.length;
+        int nuevaCapacidad = Math.max(cantidad, anterior * 2);
+        padres = Arrays.copyOf(padres, nuevaCapacidad);
+        distancias = Arrays.copyOf(distancias, nuevaCapacidad);
+        rutasCacheadas = Arrays.copyOf(rutasCacheadas, nuevaCapacidad);
+        Arrays.fill(padres, anterior, nuevaCapacidad, SIN_PADRE);
+        Arrays.fill(distancias, anterior, nuevaCapacidad, DESCONECTADO);
+    }
+
+    // Lista enlazada inmutable: comparte la cola con la ruta del padre
+    private static final class Ruta extends AbstractCollection<Nodo> {
+        private final Nodo nodo;
+        private final Ruta resto;
+        private final int tamano;
+
+        Ruta(Nodo nodo, Ruta resto) {
+            this.nodo = nodo;
+            this.resto = resto;
+            this.tamano = resto == null ? 1 : resto.tamano + 1;
+        }
+
+        @Override
+        public int size() {
+            return tamano;
+        }
+
+        @Override
+        public Iterator<Nodo> iterator() {
+            return new Iterator<>() {
+                private Ruta actual = Ruta.this;
+
+                @Override
+                public boolean hasNext() {
+                    return actual != null;
+                }
+
+                @Override
+                public Nodo next() {
+                    if (actual == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Nodo nodo = actual.nodo;
+                    actual = actual.resto;
+                    return nodo;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.fungalnexus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Guardar y cargar partidas en binario (el formato está en InstantaneaColonia).
+ *
+ * Se guarda todo lo que decide el futuro de la partida: nodos, hifas, salud, infección,
+ * recursos, tick, estado del generador y el orden interno de infectados y periferia.
+ * Una partida cargada sigue exactamente igual que si no se hubiera interrumpido.
+ */
+public final class ArchivoPartida {
+
+    private static final TipoNodo[] TIPOS = TipoNodo.values();
+
+    private ArchivoPartida() {
+    }
+
+    /**
+     * Escribe una instantánea completa en el hilo que llama.
+     * Para guardar sin detener la simulación, ver AutoGuardado.
+     */
+    public static void guardar(MotorSimulacion motor, Path archivo) throws IOException {
+        InstantaneaColonia.capturarCompleta(motor, nuevoIdBase()).escribir(archivo);
+    }
+
+    public static MotorSimulacion cargar(Path archivo, OyenteSimulacion oyente) throws IOException {
+        return cargar(archivo, null, oyente);
+    }
+
+    /**
+     * Carga una instantánea completa y, si existe y pertenece a esa misma base, aplica la delta encima.
+     * Una delta de otra base (p. ej. anterior a la última completa) se ignora con un aviso.
+     */
+    public static MotorSimulacion cargar(Path completa, Path delta, OyenteSimulacion oyente) throws IOException {
+        InstantaneaColonia base = InstantaneaColonia.leer(completa);
+        if (base.esDelta || base.getRegistros() != base.cantidadNodos) {
+            throw new IOException("Se esperaba una instantánea completa: " + completa);
+        }
+
+        InstantaneaColonia ultima = base;
+        if (delta != null && Files.exists(delta)) {
+            InstantaneaColonia cambios = InstantaneaColonia.leer(delta);
+            if (cambios.esDelta && cambios.idBase == base.idBase) {
+                ultima = cambios;
+            } else {
+                RegistroEventos.global().aviso(RegistroEventos.Categoria.SISTEMA,
+                        "La delta " + delta + " no corresponde a " + completa + "; se ignora.");
+            }
+        }
+
+        validar(base, completa);
+        AlmacenNodos almacen = new AlmacenNodos(ultima.cantidadNodos);
+        almacen.cargarCompleta(base);
+        if (ultima != base) {
+            validar(ultima, delta);
+            aplicar(almacen, ultima, delta);
+        }
+        if (almacen.getCantidad() != ultima.cantidadNodos) {
+            throw new IOException("Faltan nodos en la partida guardada: " + completa);
+        }
+        if (almacen.getCantidad() == 0 || almacen.getTipo(0) != TipoNodo.NUCLEO) {
+            throw new IOException("La partida guardada no empieza por el núcleo: " + completa);
+        }
+        almacen.restaurarOrdenPeriferia(ultima.periferia);
+        almacen.getAgregados().restaurarSumas(ultima.produccion, ultima.capacidad, ultima.capacidadTotal);
+
+        GrafoColonia grafo = new GrafoColonia(almacen, oyente, ultima.semilla,
+                ParametrosSimulacion.desdeValores(ultima.parametros));
+        grafo.restaurarEstado(ultima.estadoAleatorio, ultima.nutrientes, ultima.defensas,
+                ultima.contadorPropagacion, ultima.infeccionInicialActivada, ultima.gameOver, ultima.infectados);
+
+        // Lo cargado es la nueva base de las deltas
+        almacen.fijarBase();
+        return new MotorSimulacion(grafo, ultima.tick);
+    }
+
+    // Identificador de una instantánea completa; no sale del azar de la partida
+    static long nuevoIdBase() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    // Tipos e ids dentro de rango, antes de tocar el almacén
+    private static void validar(InstantaneaColonia instantanea, Path archivo) throws IOException {
+        for (int r = 0; r < instantanea.getRegistros(); r++) {
+            int id = instantanea.getId(r);
+            if (id < 0 || id >= instantanea.cantidadNodos) {
+                throw new IOException("Nodo " + id + " fuera de rango en " + archivo);
+            }
+            if (instantanea.tipo[r] < 0 || instantanea.tipo[r] >= TIPOS.length) {
+                throw new IOException("Tipo de nodo desconocido (" + instantanea.tipo[r] + ") en " + archivo);
+            }
+        }
+        for (int i = 0; i < instantanea.extremoA.length; i++) {
+            int a = instantanea.extremoA[i];
+            int b = instantanea.extremoB[i];
+            if (a < 0 || b < 0 || a >= instantanea.cantidadNodos || b >= instantanea.cantidadNodos || a == b) {
+                throw new IOException("Hifa inválida " + a + "-" + b + " en " + archivo);
+            }
+        }
+    }
+
+    // Delta: agrega los nodos nuevos (en orden de id), fija el estado de los modificados y conecta las hifas nuevas en orden
+    private static void aplicar(AlmacenNodos almacen, InstantaneaColonia instantanea, Path archivo) throws IOException {
+        for (int r = 0; r < instantanea.getRegistros(); r++) {
+            int id = instantanea.getId(r);
+            if (id == almacen.getCantidad()) {
+                almacen.agregar(instantanea.x[r], instantanea.y[r], TIPOS[instantanea.tipo[r]], instantanea.tasa[r]);
+            } else if (id > almacen.getCantidad()) {
+                throw new IOException("Nodo " + id + " fuera de orden en " + archivo);
+            }
+            almacen.restaurarNodo(id, instantanea.bacteria[r], instantanea.salud[r], instantanea.infeccion[r]);
+        }
+
+        if (instantanea.primeraArista != almacen.getCantidadAristas()) {
+            throw new IOException("Las hifas de " + archivo + " no continúan las de su base");
+        }
+        for (int i = 0; i < instantanea.extremoA.length; i++) {
+            if (almacen.conectar(instantanea.extremoA[i], instantanea.extremoB[i]) < 0) {
+                throw new IOException("Hifa repetida " + instantanea.extremoA[i] + "-" + instantanea.extremoB[i] + " en " + archivo);
+            }
+        }
+    }
+}
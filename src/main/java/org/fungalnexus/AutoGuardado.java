@@ -0,0 +1,118 @@
+package org.fungalnexus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guardado periódico en segundo plano: cada cierto número de ticks escribe una delta
+ * con lo que cambió desde la última instantánea completa, y cada tantas deltas una completa nueva.
+ *
+ * En el hilo de la simulación solo se copia el estado (arreglos primitivos; en una delta, solo
+ * los nodos modificados); la escritura a disco va en un hilo propio. Si la escritura anterior
+ * todavía no terminó, el guardado de ese tick se omite en lugar de esperar.
+ *
+ * En el directorio quedan dos archivos: la completa y la delta más reciente sobre ella.
+ */
+public class AutoGuardado implements AutoCloseable {
+
+    public static final String ARCHIVO_COMPLETA = "partida.fnx";
+    public static final String ARCHIVO_DELTA = "partida-delta.fnx";
+
+    private final Path completa;
+    private final Path delta;
+    private final int ticksEntreGuardados;
+    private final int deltasPorCompleta;
+
+    private final ExecutorService escritor = Executors.newSingleThreadExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "autoguardado");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private Future<?> escrituraPendiente;
+
+    private boolean hayCompleta = false;
+    private long idBase;
+    private int deltasDesdeCompleta = 0;
+    private int guardadosOmitidos = 0;
+
+    public AutoGuardado(Path directorio, int ticksEntreGuardados, int deltasPorCompleta) {
+        if (ticksEntreGuardados <= 0 || deltasPorCompleta < 0) {
+            throw new IllegalArgumentException("Frecuencias de guardado inválidas: "
+                    + ticksEntreGuardados + " ticks, " + deltasPorCompleta + " deltas");
+        }
+        this.completa = directorio.resolve(ARCHIVO_COMPLETA);
+        this.delta = directorio.resolve(ARCHIVO_DELTA);
+        this.ticksEntreGuardados = ticksEntreGuardados;
+        this.deltasPorCompleta = deltasPorCompleta;
+    }
+
+    /**
+     * Carga lo último que se guardó automáticamente en el directorio.
+     */
+    public static MotorSimulacion cargarUltima(Path directorio, OyenteSimulacion oyente) throws IOException {
+        return ArchivoPartida.cargar(directorio.resolve(ARCHIVO_COMPLETA), directorio.resolve(ARCHIVO_DELTA), oyente);
+    }
+
+    /**
+     * Se llama desde el hilo de la simulación después de cada tick.
+     */
+    public void despuesDelTick(MotorSimulacion motor) {
+        int tick = motor.getCiclosTranscurridos();
+        if (tick == 0 || tick % ticksEntreGuardados != 0) {
+            return;
+        }
+        if (escrituraPendiente != null && !escrituraPendiente.isDone()) {
+            guardadosOmitidos++;
+            return;
+        }
+
+        final InstantaneaColonia instantanea;
+        final Path destino;
+        if (!hayCompleta || deltasDesdeCompleta >= deltasPorCompleta) {
+            idBase = ArchivoPartida.nuevoIdBase();
+            instantanea = InstantaneaColonia.capturarCompleta(motor, idBase);
+            motor.getGrafoColonia().getAlmacen().fijarBase();
+            destino = completa;
+            hayCompleta = true;
+            deltasDesdeCompleta = 0;
+        } else {
+            instantanea = InstantaneaColonia.capturarDelta(motor, idBase);
+            destino = delta;
+            deltasDesdeCompleta++;
+        }
+
+        escrituraPendiente = escritor.submit(() -> {
+            try {
+                instantanea.escribir(destino);
+            } catch (IOException e) {
+                RegistroEventos.global().error(RegistroEventos.Categoria.SISTEMA,
+                        "No se pudo guardar la partida en " + destino + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // Guardados que se saltaron porque el anterior todavía se estaba escribiendo
+    public int getGuardadosOmitidos() {
+        return guardadosOmitidos;
+    }
+
+    /**
+     * Espera a que termine la escritura en curso y libera el hilo.
+     */
+    @Override
+    public void close() {
+        escritor.shutdown();
+        try {
+            if (!escritor.awaitTermination(30, TimeUnit.SECONDS)) {
+                RegistroEventos.global().aviso(RegistroEventos.Categoria.SISTEMA,
+                        "El autoguardado no terminó de escribir a tiempo.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package org.fungalnexus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Corre muchas simulaciones headless independientes a la vez, para ajustar el balance:
+ * una grilla de parámetros (producto cartesiano) por un rango de semillas.
+ *
+ * Uso: BarridoSimulaciones [--semillas desde-hasta] [--ticks N] [--nodos N] [--cpus N]
+ *                          [--param NOMBRE=v1,v2,...]... [--salida corridas.csv]
+ *
+ * Cada corrida es una tarea: en un hilo virtual si la JVM los tiene (Java 21+), si no en un
+ * pool fijo. Un semáforo limita cuántas simulan a la vez a --cpus, así que miles de corridas
+ * pendientes no compiten por los núcleos. Cada corrida tiene su propio GrafoColonia con sus
+ * ParametrosSimulacion y su semilla, sin estado compartido, y da el mismo resultado que si
+ * corriera sola. Al final se imprime un informe por combinación: supervivencia, pico de
+ * infección y ticks por segundo.
+ */
+public class BarridoSimulaciones {
+
+    // Lo que queda de una corrida
+    public static final class Resultado {
+        private final int combinacion;
+        private final long semilla;
+        private final int ticks;
+        private final boolean sobrevivio;
+        private final int infectadosPico;
+        private final double fraccionInfectadaPico;
+        private final int nodos;
+        private final long nanos;
+
+        Resultado(int combinacion, long semilla, int ticks, boolean sobrevivio, int infectadosPico,
+                  double fraccionInfectadaPico, int nodos, long nanos) {
+            this.combinacion = combinacion;
+            this.semilla = semilla;
+            this.ticks = ticks;
+            this.sobrevivio = sobrevivio;
+            this.infectadosPico = infectadosPico;
+            this.fraccionInfectadaPico = fraccionInfectadaPico;
+            this.nodos = nodos;
+            this.nanos = nanos;
+        }
+
+        public int getCombinacion() {
+            return combinacion;
+        }
+
+        public long getSemilla() {
+            return semilla;
+        }
+
+        // Ticks ejecutados: hasta el fin de la partida o hasta el límite si sobrevivió
+        public int getTicks() {
+            return ticks;
+        }
+
+        public boolean isSobrevivio() {
+            return sobrevivio;
+        }
+
+        public int getInfectadosPico() {
+            return infectadosPico;
+        }
+
+        public double getFraccionInfectadaPico() {
+            return fraccionInfectadaPico;
+        }
+
+        public int getNodos() {
+            return nodos;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    private final int ticksMaximos;
+    private final int nodosObjetivo;
+    private final int cpus;
+
+    public BarridoSimulaciones(int ticksMaximos, int nodosObjetivo, int cpus) {
+        this.ticksMaximos = ticksMaximos;
+        this.nodosObjetivo = nodosObjetivo;
+        this.cpus = cpus;
+    }
+
+    /**
+     * Corre cada combinación con cada semilla de [semillaDesde, semillaHasta].
+     * @return los resultados ordenados por combinación y luego por semilla.
+     */
+    public List<Resultado> ejecutar(List<ParametrosSimulacion> combinaciones, long semillaDesde, long semillaHasta)
+            throws InterruptedException {
+        int semillas = (int) (semillaHasta - semillaDesde + 1);
+        Resultado[] resultados = new Resultado[combinaciones.size() * semillas];
+        Semaphore permisos = new Semaphore(cpus);
+
+        List<Future<?>> tareas = new ArrayList<>(resultados.length);
+        ExecutorService ejecutor = crearEjecutor(cpus);
+        try {
+            for (int c = 0; c < combinaciones.size(); c++) {
+                for (int s = 0; s < semillas; s++) {
+                    int combinacion = c;
+                    int indice = c * semillas + s;
+                    long semilla = semillaDesde + s;
+                    ParametrosSimulacion parametros = combinaciones.get(c);
+                    tareas.add(ejecutor.submit(() -> {
+                        permisos.acquireUninterruptibly();
+                        try {
+                            resultados[indice] = simular(combinacion, parametros, semilla, ticksMaximos, nodosObjetivo);
+                        } finally {
+                            permisos.release();
+                        }
+                    }));
+                }
+            }
+            for (Future<?> tarea : tareas) {
+                try {
+                    tarea.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Una corrida del barrido falló", e.getCause());
+                }
+            }
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Una corrida headless: apertura automática en espiral y ticks hasta el límite o el fin de la partida.
+     */
+    static Resultado simular(int combinacion, ParametrosSimulacion parametros, long semilla, int ticksMaximos, int nodosObjetivo) {
+        int centroX = Configuracion.MAPA_WIDTH / 2;
+        int centroY = Configuracion.MAPA_HEIGHT / 2;
+        int nucleoX = ((centroX / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE) + Configuracion.GRID_SIZE / 2;
+        int nucleoY = ((centroY / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE) + Configuracion.GRID_SIZE / 2;
+
+        long inicio = System.nanoTime();
+        GrafoColonia grafo = new GrafoColonia(nucleoX, nucleoY, null, semilla, parametros);
+        MotorSimulacion motor = new MotorSimulacion(grafo);
+        int construidos = 1;
+        int infectadosPico = 0;
+        double fraccionPico = 0.0;
+        while (motor.getCiclosTranscurridos() < ticksMaximos && !grafo.isGameOver()) {
+            construidos = GeneradorColonias.abrirEnEspiral(motor, nucleoX, nucleoY, construidos, nodosObjetivo);
+            motor.tick();
+            int infectados = grafo.getNodosInfectados().size();
+            infectadosPico = Math.max(infectadosPico, infectados);
+            fraccionPico = Math.max(fraccionPico, (double) infectados / grafo.getCantidadNodos());
+        }
+        return new Resultado(combinacion, semilla, motor.getCiclosTranscurridos(), !grafo.isGameOver(),
+                infectadosPico, fraccionPico, grafo.getCantidadNodos(), System.nanoTime() - inicio);
+    }
+
+    /**
+     * Producto cartesiano de los valores de cada parámetro, sobre los valores por defecto.
+     * El primer parámetro del mapa es el que varía más lento.
+     */
+    public static List<ParametrosSimulacion> grilla(Map<ParametrosSimulacion.Parametro, double[]> valores) {
+        List<ParametrosSimulacion> combinaciones = new ArrayList<>();
+        combinaciones.add(ParametrosSimulacion.PREDETERMINADOS);
+        for (Map.Entry<ParametrosSimulacion.Parametro, double[]> entrada : valores.entrySet()) {
+            List<ParametrosSimulacion> siguientes = new ArrayList<>(combinaciones.size() * entrada.getValue().length);
+            for (ParametrosSimulacion base : combinaciones) {
+                for (double valor : entrada.getValue()) {
+                    siguientes.add(base.con(entrada.getKey(), valor));
+                }
+            }
+            combinaciones = siguientes;
+        }
+        return combinaciones;
+    }
+
+    /**
+     * Un hilo virtual por tarea si la JVM los tiene (se busca por reflexión: el proyecto compila
+     * para Java 17); si no, un pool fijo de 'cpus' hilos.
+     */
+    static ExecutorService crearEjecutor(int cpus) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newFixedThreadPool(cpus);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long semillaDesde = 1;
+        long semillaHasta = 100;
+        int ticks = 5_000;
+        int nodos = 150;
+        int cpus = Runtime.getRuntime().availableProcessors();
+        Path archivoSalida = null;
+        Map<ParametrosSimulacion.Parametro, double[]> valores = new EnumMap<>(ParametrosSimulacion.Parametro.class);
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--semillas": {
+                    String[] rango = args[++i].split("-");
+                    semillaDesde = Long.parseLong(rango[0]);
+                    semillaHasta = rango.length > 1 ? Long.parseLong(rango[1]) : semillaDesde;
+                    break;
+                }
+                case "--ticks":
+                    ticks = Integer.parseInt(args[++i]);
+                    break;
+                case "--nodos":
+                    nodos = Integer.parseInt(args[++i]);
+                    break;
+                case "--cpus":
+                    cpus = Integer.parseInt(args[++i]);
+                    break;
+                case "--salida":
+                    archivoSalida = Path.of(args[++i]);
+                    break;
+                case "--param": {
+                    String[] partes = args[++i].split("=", 2);
+                    String[] lista = partes[1].split(",");
+                    double[] numeros = new double[lista.length];
+                    for (int k = 0; k < lista.length; k++) {
+                        numeros[k] = Double.parseDouble(lista[k]);
+                    }
+                    valores.put(ParametrosSimulacion.Parametro.valueOf(partes[0]), numeros);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        // Miles de partidas a la vez: a la consola solo los errores
+        RegistroEventos registro = RegistroEventos.configurarGlobal(null,
+                RegistroEventos.Nivel.ERROR, RegistroEventos.Nivel.ERROR);
+
+        List<ParametrosSimulacion> combinaciones = grilla(valores);
+        BarridoSimulaciones barrido = new BarridoSimulaciones(ticks, nodos, cpus);
+        long inicio = System.nanoTime();
+        List<Resultado> resultados = barrido.ejecutar(combinaciones, semillaDesde, semillaHasta);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        registro.close();
+
+        long ticksTotales = 0;
+        for (Resultado resultado : resultados) {
+            ticksTotales += resultado.getTicks();
+        }
+        System.out.printf("%d corridas (%d combinaciones x %d semillas) en %.1f s con %d CPU: %.0f ticks/s%n",
+                resultados.size(), combinaciones.size(), semillaHasta - semillaDesde + 1, segundos, cpus,
+                ticksTotales / segundos);
+        System.out.print(informe(combinaciones, resultados, ticks));
+
+        if (archivoSalida != null) {
+            escribirCsv(archivoSalida, combinaciones, resultados);
+            System.out.println("Corridas escritas en " + archivoSalida);
+        }
+    }
+
+    /**
+     * Tabla con una fila por combinación: corridas, % que sobrevivió a 'ticksMaximos', ticks
+     * hasta el fin (promedio, mediana y mínimo), pico de infección promedio y ticks/s por corrida.
+     */
+    public static String informe(List<ParametrosSimulacion> combinaciones, List<Resultado> resultados, int ticksMaximos) {
+        StringBuilder texto = new StringBuilder(String.format(Locale.ROOT, "%4s %8s %8s %10s %9s %9s %9s %9s %10s  %s%n",
+                "#", "corridas", "sobrev%", "ticks_prom", "ticks_p50", "ticks_min", "inf_pico", "inf_pico%", "ticks/s", "parametros"));
+        for (int c = 0; c < combinaciones.size(); c++) {
+            List<Integer> ticks = new ArrayList<>();
+            int sobrevivientes = 0;
+            double sumaPico = 0;
+            double sumaFraccionPico = 0;
+            long ticksTotales = 0;
+            long nanosTotales = 0;
+            for (Resultado resultado : resultados) {
+                if (resultado.getCombinacion() != c) {
+                    continue;
+                }
+                ticks.add(resultado.getTicks());
+                if (resultado.isSobrevivio()) {
+                    sobrevivientes++;
+                }
+                sumaPico += resultado.getInfectadosPico();
+                sumaFraccionPico += resultado.getFraccionInfectadaPico();
+                ticksTotales += resultado.getTicks();
+                nanosTotales += resultado.getNanos();
+            }
+            if (ticks.isEmpty()) {
+                continue;
+            }
+            ticks.sort(null);
+            int n = ticks.size();
+            texto.append(String.format(Locale.ROOT, "%4d %8d %8.1f %10.1f %9d %9d %9.1f %9.1f %10.0f  %s%n",
+                    c, n, 100.0 * sobrevivientes / n, (double) ticksTotales / n, ticks.get((n - 1) / 2), ticks.get(0),
+                    sumaPico / n, 100.0 * sumaFraccionPico / n, ticksTotales / (nanosTotales / 1e9),
+                    combinaciones.get(c)));
+        }
+        texto.append(String.format(Locale.ROOT, "(sobrevive quien llega a %d ticks)%n", ticksMaximos));
+        return texto.toString();
+    }
+
+    private static void escribirCsv(Path archivo, List<ParametrosSimulacion> combinaciones, List<Resultado> resultados)
+            throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        try (BufferedWriter escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            escritor.write("combinacion,parametros,semilla,ticks,sobrevivio,infectados_pico,fraccion_infectada_pico,nodos,ms");
+            escritor.newLine();
+            for (Resultado resultado : resultados) {
+                escritor.write(String.format(Locale.ROOT, "%d,\"%s\",%d,%d,%b,%d,%.4f,%d,%.1f",
+                        resultado.getCombinacion(), combinaciones.get(resultado.getCombinacion()),
+                        resultado.getSemilla(), resultado.getTicks(), resultado.isSobrevivio(),
+                        resultado.getInfectadosPico(), resultado.getFraccionInfectadaPico(),
+                        resultado.getNodos(), resultado.getNanos() / 1e6));
+                escritor.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.fungalnexus;
+
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Texturas de los nodos, decodificadas una sola vez al crear la vista.
+ * Se indexan por TipoNodo y por estado (sano o transformado en bacteria),
+ * así los frames nunca vuelven a leer ni decodificar un PNG.
+ */
+public class CacheSprites {
+
+    private final Map<TipoNodo, Image> sanos = new EnumMap<>(TipoNodo.class);
+    private final Map<TipoNodo, Image> bacterias = new EnumMap<>(TipoNodo.class);
+
+    public CacheSprites() {
+        sanos.put(TipoNodo.NUCLEO, cargar("/pmushroom.png"));
+        sanos.put(TipoNodo.EXTRACTOR, cargar("/gmushroom.png"));
+        sanos.put(TipoNodo.DEFENSA, cargar("/bmushroom.png"));
+        sanos.put(TipoNodo.ALMACENAMIENTO, cargar("/ymushroom.png"));
+
+        bacterias.put(TipoNodo.NUCLEO, cargar("/pmushroom_bug.png"));
+        bacterias.put(TipoNodo.EXTRACTOR, cargar("/gmushroom_bug.png"));
+        bacterias.put(TipoNodo.DEFENSA, cargar("/bmushroom_bug.png"));
+        bacterias.put(TipoNodo.ALMACENAMIENTO, cargar("/ymushroom_bug.png"));
+    }
+
+    /**
+     * Imagen que corresponde al estado visual actual del nodo.
+     * Una bacteria se dibuja según su tipo original; un nodo sano según su tipo actual.
+     */
+    public Image obtener(Nodo nodo) {
+        if (nodo.esBacteriaCompletada()) {
+            return bacterias.getOrDefault(nodo.getTipoOriginal(), bacterias.get(TipoNodo.EXTRACTOR));
+        }
+        return sanos.getOrDefault(nodo.getTipo(), sanos.get(TipoNodo.EXTRACTOR));
+    }
+
+    // Igual, leyendo el estado directamente del almacén (sin crear la vista Nodo)
+    public Image obtener(AlmacenNodos almacen, int id) {
+        if (almacen.esBacteria(id)) {
+            return bacterias.getOrDefault(almacen.getTipoOriginal(id), bacterias.get(TipoNodo.EXTRACTOR));
+        }
+        return sanos.getOrDefault(almacen.getTipo(id), sanos.get(TipoNodo.EXTRACTOR));
+    }
+
+    private Image cargar(String ruta) {
+        try (InputStream entrada = getClass().getResourceAsStream(ruta)) {
+            if (entrada == null) {
+                throw new IllegalStateException("Textura no encontrada: " + ruta);
+            }
+            return new Image(entrada);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer la textura " + ruta, e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.fungalnexus;
+
+/**
+ * Cámara 2D sobre el mundo: desplazamiento y zoom, sin depender de JavaFX.
+ *
+ * El mundo no tiene bordes; la cámara guarda qué coordenada del mundo queda en la esquina
+ * superior izquierda de la pantalla y cuántos píxeles de pantalla ocupa un píxel del mundo.
+ * PanelJuegoFX la usa para transformar el dibujo y para preguntar al índice espacial solo
+ * por el rectángulo visible.
+ */
+public class Camara {
+
+    public static final double ZOOM_MINIMO = 0.02;
+    public static final double ZOOM_MAXIMO = 4.0;
+
+    private double origenX; // Coordenada del mundo en el borde izquierdo de la pantalla
+    private double origenY; // Coordenada del mundo en el borde superior
+    private double zoom = 1.0;
+
+    public Camara() {
+        this(0, 0);
+    }
+
+    public Camara(double origenX, double origenY) {
+        this.origenX = origenX;
+        this.origenY = origenY;
+    }
+
+    /**
+     * Mueve la vista en píxeles de pantalla (arrastrar hacia la derecha muestra lo que está a la izquierda).
+     */
+    public void desplazar(double dxPantalla, double dyPantalla) {
+        origenX -= dxPantalla / zoom;
+        origenY -= dyPantalla / zoom;
+    }
+
+    /**
+     * Multiplica el zoom por el factor, dejando fijo el punto del mundo bajo (pantallaX, pantallaY).
+     */
+    public void acercar(double factor, double pantallaX, double pantallaY) {
+        double mundoX = aMundoX(pantallaX);
+        double mundoY = aMundoY(pantallaY);
+        zoom = Math.max(ZOOM_MINIMO, Math.min(ZOOM_MAXIMO, zoom * factor));
+        origenX = mundoX - pantallaX / zoom;
+        origenY = mundoY - pantallaY / zoom;
+    }
+
+    // Pone el punto del mundo en el centro de una pantalla del tamaño dado
+    public void centrarEn(double mundoX, double mundoY, double anchoPantalla, double altoPantalla) {
+        origenX = mundoX - anchoPantalla / (2 * zoom);
+        origenY = mundoY - altoPantalla / (2 * zoom);
+    }
+
+    public double aMundoX(double pantallaX) {
+        return origenX + pantallaX / zoom;
+    }
+
+    public double aMundoY(double pantallaY) {
+        return origenY + pantallaY / zoom;
+    }
+
+    public double aPantallaX(double mundoX) {
+        return (mundoX - origenX) * zoom;
+    }
+
+    public double aPantallaY(double mundoY) {
+        return (mundoY - origenY) * zoom;
+    }
+
+    public double getOrigenX() {
+        return origenX;
+    }
+
+    public double getOrigenY() {
+        return origenY;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+}
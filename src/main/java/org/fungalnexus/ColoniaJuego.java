@@ -5,25 +5,50 @@ import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
 public class ColoniaJuego extends Application {
 
     private GrafoColonia grafoColonia;
+    private MotorSimulacion motorSimulacion;
     private PanelJuegoFX panelJuego;
     private ConstruccionManager construccionManager;
+    private AutoGuardado autoGuardado;
+    private HiloSimulacion hiloSimulacion;
+
+    // Un tick de simulación por segundo
+    private static final long INTERVALO_TICK_NANOS = 1_000_000_000L;
+
+    // Autoguardado: una delta cada 30 ticks (30 s de juego) y una instantánea completa cada 10 deltas
+    private static final Path DIRECTORIO_AUTOGUARDADO = Path.of("partidas", "autoguardado");
+    private static final int TICKS_ENTRE_GUARDADOS = 30;
+    private static final int DELTAS_POR_COMPLETA = 10;
+
+    // El perfil de fases se vuelca a partidas/perfil-<fecha>.csv cada 10 s; el de los frames,
+    // medido en el hilo de JavaFX con su propio PerfilTick, a partidas/perfil-vista-<fecha>.csv
+    private static final long INTERVALO_VOLCADO_PERFIL_MS = 10_000;
+    private final PerfilTick perfilVista = new PerfilTick();
+
+    // Registro de eventos: todo a partidas/eventos-<fecha>.log, a la consola solo desde INFO
+    private RegistroEventos registro;
+    private final String marcaInicio = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
 
     private Label lblNutrientes;
     private Label lblDefensas;
     private Label lblSaludNucleo;
 
-    private int ciclosTranscurridos = 0;
-    private final int cicloDeInfeccionInicial = Configuracion.CICLO_GRACIA_INICIAL;
-
     @Override
     public void start(Stage primaryStage) {
+        this.registro = RegistroEventos.configurarGlobal(Path.of("partidas", "eventos-" + marcaInicio + ".log"),
+                RegistroEventos.Nivel.DEPURACION, RegistroEventos.Nivel.INFO);
 
         // Inicialización de gestores y el modelo central
         int centroX = Configuracion.MAPA_WIDTH / 2;
@@ -34,11 +59,28 @@ public class ColoniaJuego extends Application {
 
         this.construccionManager = new ConstruccionManager();
 
-        this.panelJuego = new PanelJuegoFX(null, construccionManager);
+        this.panelJuego = new PanelJuegoFX(construccionManager);
 
-        this.grafoColonia = new GrafoColonia(nucleoX, nucleoY, panelJuego);
+        // --cargar=directorio continúa la partida autoguardada en ese directorio
+        String directorioCarga = getParameters().getNamed().get("cargar");
+        if (directorioCarga != null) {
+            cargarPartida(Path.of(directorioCarga));
+        }
+        if (motorSimulacion == null) {
+            // El oyente de partículas lo pone HiloSimulacion
+            this.grafoColonia = new GrafoColonia(nucleoX, nucleoY, null);
+            this.motorSimulacion = new MotorSimulacion(grafoColonia);
+            abrirDiario(nucleoX, nucleoY);
+        }
+        this.autoGuardado = new AutoGuardado(DIRECTORIO_AUTOGUARDADO, TICKS_ENTRE_GUARDADOS, DELTAS_POR_COMPLETA);
+        motorSimulacion.getPerfil().setVolcadoCsv(
+                Path.of("partidas", "perfil-" + marcaInicio + ".csv"), INTERVALO_VOLCADO_PERFIL_MS);
+        perfilVista.setVolcadoCsv(
+                Path.of("partidas", "perfil-vista-" + marcaInicio + ".csv"), INTERVALO_VOLCADO_PERFIL_MS);
 
-        this.panelJuego.setGrafoColonia(grafoColonia);
+        // A partir de aquí el motor solo se toca desde el hilo de simulación
+        this.hiloSimulacion = new HiloSimulacion(motorSimulacion, INTERVALO_TICK_NANOS, autoGuardado);
+        this.panelJuego.setHiloSimulacion(hiloSimulacion);
 
         // Configuración de la Interfaz
         BorderPane root = new BorderPane();
@@ -54,10 +96,57 @@ public class ColoniaJuego extends Application {
         primaryStage.setScene(scene);
         primaryStage.show();
 
-        // Iniciar el Game Loop
+        // Iniciar la simulación y el Game Loop
+        panelJuego.iniciarCronometro();
+        hiloSimulacion.iniciar();
         iniciarGameLoop();
     }
 
+    // Si la carga falla se empieza una partida nueva. El diario no se abre: reproduce desde el tick 0
+    private void cargarPartida(Path directorio) {
+        try {
+            this.motorSimulacion = AutoGuardado.cargarUltima(directorio, null);
+            this.grafoColonia = motorSimulacion.getGrafoColonia();
+            registro.info(RegistroEventos.Categoria.PARTIDA,
+                    "Partida cargada desde " + directorio + " en el tick " + motorSimulacion.getCiclosTranscurridos());
+        } catch (IOException e) {
+            registro.error(RegistroEventos.Categoria.SISTEMA, "No se pudo cargar la partida de " + directorio + ": " + e.getMessage());
+        }
+    }
+
+    // Cada partida deja un diario en partidas/ para poder reproducirla con SimulacionHeadless --reproducir
+    private void abrirDiario(int nucleoX, int nucleoY) {
+        String nombre = "partida-" + marcaInicio + ".diario";
+        try {
+            motorSimulacion.setDiario(DiarioComandos.crearArchivo(
+                    Path.of("partidas", nombre), grafoColonia.getSemilla(), nucleoX, nucleoY,
+                    grafoColonia.getParametros()));
+        } catch (IOException e) {
+            registro.error(RegistroEventos.Categoria.SISTEMA, "No se pudo crear el diario de la partida: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Primero se detiene la simulación: después el motor ya no cambia
+        if (hiloSimulacion != null) {
+            hiloSimulacion.detener();
+        }
+        if (autoGuardado != null) {
+            autoGuardado.close();
+        }
+        if (motorSimulacion != null) {
+            motorSimulacion.getPerfil().volcarCsv();
+        }
+        perfilVista.volcarCsv();
+        if (motorSimulacion != null && motorSimulacion.getDiario() != null) {
+            motorSimulacion.getDiario().cerrar(motorSimulacion.getCiclosTranscurridos());
+        }
+        if (registro != null) {
+            registro.close();
+        }
+    }
+
     private HBox crearControlPanel() {
         HBox hbox = new HBox(20); // Aumentamos el espacio a 20
         hbox.setStyle("-fx-padding: 10; -fx-background-color: #222;"); // Fondo oscuro para el panel de control
@@ -87,6 +176,10 @@ public class ColoniaJuego extends Application {
         btnAlmacenamiento.setOnAction(e -> construccionManager.seleccionarConstruccion(TipoNodo.ALMACENAMIENTO));
         btnDefensa.setOnAction(e -> construccionManager.seleccionarConstruccion(TipoNodo.DEFENSA));
 
+        // Alterna entre partículas (una muestra) y el flujo dibujado sobre las hifas
+        ToggleButton btnFlujo = new ToggleButton("Flujo");
+        btnFlujo.setOnAction(e -> panelJuego.setModoFlujo(btnFlujo.isSelected()));
+
         hbox.getChildren().addAll(
                 lblSaludNucleo,
                 lblNutrientes,
@@ -94,17 +187,18 @@ public class ColoniaJuego extends Application {
                 new Label("|"), // Separador visual
                 btnExtractor,
                 btnAlmacenamiento,
-                btnDefensa
+                btnDefensa,
+                btnFlujo
         );
         return hbox;
     }
 
-    private void actualizarEtiquetasUI() {
-        double saludNucleo = grafoColonia.getNucleo().getSalud();
+    private void actualizarEtiquetasUI(EstadoVista estado) {
+        double saludNucleo = estado.getSaludNucleo();
         double saludBaseNucleo = TipoNodo.NUCLEO.getSaludBase(); // Obtener la salud máxima
-        double nutrientes = grafoColonia.getNutrientesTotales();
-        double capacidad = grafoColonia.getCapacidadNutrienteTotal();
-        double defensas = grafoColonia.getDefensasTotales();
+        double nutrientes = estado.getNutrientes();
+        double capacidad = estado.getCapacidadNutrientes();
+        double defensas = estado.getDefensas();
 
         // Calcular el porcentaje de salud
         double porcentajeSalud = (saludNucleo / saludBaseNucleo) * 100.0;
@@ -115,14 +209,16 @@ public class ColoniaJuego extends Application {
             lblNutrientes.setText(String.format("Nutrientes: %.1f / %.0f (Lleno)", nutrientes, capacidad));
             lblNutrientes.setStyle("-fx-text-fill: yellow; -fx-font-size: 14px;");
         } else {
-            lblNutrientes.setText(String.format("Nutrientes: %.1f / %.0f", nutrientes, capacidad));
+            // Lo que las hifas llevan al núcleo por tick (flujo máximo)
+            lblNutrientes.setText(String.format("Nutrientes: %.1f / %.0f (+%.0f)", nutrientes, capacidad,
+                    estado.getProduccionEntregada()));
             lblNutrientes.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
         }
 
         lblDefensas.setText(String.format("Defensas: %.1f", defensas));
 
         // Lógica de Derrota: Si el núcleo muere (salud <= 0)
-        if (grafoColonia.isGameOver()) { // Usar la bandera de Game Over
+        if (estado.isGameOver()) { // Usar la bandera de Game Over
             lblSaludNucleo.setText("Núcleo: BACTERIA");
             lblSaludNucleo.setStyle("-fx-text-fill: red; -fx-font-size: 14px; -fx-font-weight: bold;");
         }
@@ -130,49 +226,36 @@ public class ColoniaJuego extends Application {
 
     private void iniciarGameLoop() {
         new AnimationTimer() {
-            private long lastUpdate = 0;
-            private final long updateInterval = 1_000_000_000; // 1 segundo en nanosegundos
-
             @Override
             public void handle(long now) {
 
-                // Si el juego ha terminado, detenemos el juego
-                if (grafoColonia.isGameOver()) {
-                    this.stop();
-                    System.out.println("¡Juego Detenido! (AnimationTimer Stop)");
-                    panelJuego.detenerCronometro();
-                    panelJuego.mostrarPantallaGameOver();
-                    return;
-                }
-
-                // --- LÓGICA DE JUEGO (LENTA: 1 FPS) ---
-                if (now - lastUpdate >= updateInterval) {
-
-                    // 1. Lógica del Modelo (Recursos, Combate, etc.)
-                    grafoColonia.actualizarRecursos();
-
-                    // Lógica de inicio de infección
-                    if (ciclosTranscurridos >= cicloDeInfeccionInicial) {
-                        grafoColonia.iniciarPrimeraInfeccion();
-                    }
-
-                    grafoColonia.actualizarInfeccionYCombate(
-                            Configuracion.FACTOR_PROPAGACION_BACTERIA,
-                            Configuracion.DANO_BACTERIA_POR_CICLO,
-                            Configuracion.COSTO_DEFENSA_POR_COMBATE,
-                            ciclosTranscurridos
-                    );
+                // --- ESTADO DE LA SIMULACIÓN (corre en su propio hilo) ---
+                // Solo hay estado nuevo después de un tick o de una construcción
+                EstadoVista estado = hiloSimulacion.tomarEstadoNuevo();
+                if (estado != null) {
+                    panelJuego.aplicarEstado(estado);
 
                     // Actualizar la interfaz de usuario que no requiere 60 FPS
-                    actualizarEtiquetasUI();
-                    ciclosTranscurridos++;
-                    lastUpdate = now;
+                    perfilVista.iniciar(PerfilTick.Fase.ETIQUETAS_UI);
+                    actualizarEtiquetasUI(estado);
+                    perfilVista.terminar(PerfilTick.Fase.ETIQUETAS_UI);
+
+                    // Si el juego ha terminado, detenemos el juego
+                    if (estado.isGameOver()) {
+                        this.stop();
+                        registro.info(RegistroEventos.Categoria.PARTIDA, "¡Juego Detenido! (AnimationTimer Stop)");
+                        panelJuego.detenerCronometro();
+                        panelJuego.mostrarPantallaGameOver();
+                        return;
+                    }
                 }
 
                 // --- MOVIMIENTO Y DIBUJO (RÁPIDO: 60 FPS) ---
                 // El movimiento de partículas está en actualizarVista().
                 // Se llama en CADA frame, independientemente de la lógica de 1 segundo.
+                perfilVista.iniciarFrame();
                 panelJuego.actualizarVista();
+                perfilVista.terminarFrame(panelJuego.getParticulasActivas());
             }
         }.start();
     }
@@ -11,6 +11,7 @@ public final class Configuracion {
     public static final double RADIO_NUCLEO_INICIAL = 15.0;
 
     // --- Configuración de Juego/Balance ---
+    // Valores por defecto: cada simulación usa los de su ParametrosSimulacion
     public static final double FACTOR_PROPAGACION_BACTERIA = 0.01; // Probabilidad de propagación por ciclo
     public static final double DANO_BACTERIA_POR_CICLO = 4.0; // Daño al nodo infectado
     public static final double COSTO_DEFENSA_POR_COMBATE = 6.0;
@@ -18,6 +19,7 @@ public final class Configuracion {
     public static final double TASA_SANACION_INFECCION = 0.02;
     public static final double PROBABILIDAD_INFECCION_EXTERNA = 0.024;
     public static final int CICLO_GRACIA_INICIAL = 60;
+    public static final double CAPACIDAD_HIFA = 40.0; // Nutrientes por tick que puede llevar una hifa
     public static final double NODO_RADIO = 10;
 
     private Configuracion() {
@@ -0,0 +1,113 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Conjunto de ids de nodos con alta, baja y pertenencia en O(1).
+ *
+ * Los miembros viven en un arreglo denso (se pueden recorrer o elegir uno al azar por índice)
+ * y cada id guarda su posición en ese arreglo. Quitar de a uno mueve el último miembro al
+ * hueco, así que el orden de recorrido cambia, pero siempre de la misma forma para la misma
+ * secuencia de operaciones. {@link #quitarSi} quita varios en una pasada y conserva el orden
+ * de alta de los que quedan.
+ */
+public class ConjuntoIndexado {
+
+    private static final int AUSENTE = -1;
+
+    private int[] miembros;
+    private int[] posiciones = new int[0]; // Indexado por id; AUSENTE si no pertenece
+    private int tamano = 0;
+
+    public ConjuntoIndexado() {
+        this(16);
+    }
+
+    public ConjuntoIndexado(int capacidadInicial) {
+        this.miembros = new int[Math.max(1, capacidadInicial)];
+    }
+
+    /**
+     * @return false si el id ya pertenecía.
+     */
+    public boolean agregar(int id) {
+        if (contiene(id)) {
+            return false;
+        }
+        if (id >= posiciones.length) {
+            int anterior = posiciones.length;
+            posiciones = Arrays.copyOf(posiciones, Math.max(id + 1, anterior * 2));
+            Arrays.fill(posiciones, anterior, posiciones.length, AUSENTE);
+        }
+        if (tamano == miembros.length) {
+            miembros = Arrays.copyOf(miembros, miembros.length * 2);
+        }
+        posiciones[id] = tamano;
+        miembros[tamano++] = id;
+        return true;
+    }
+
+    /**
+     * @return false si el id no pertenecía.
+     */
+    public boolean quitar(int id) {
+        if (!contiene(id)) {
+            return false;
+        }
+        int posicion = posiciones[id];
+        int ultimo = miembros[--tamano];
+        miembros[posicion] = ultimo;
+        posiciones[ultimo] = posicion;
+        posiciones[id] = AUSENTE;
+        return true;
+    }
+
+    /**
+     * Quita los miembros que cumplen la condición compactando el arreglo denso en una sola
+     * pasada, O(size()): los que quedan conservan su orden relativo.
+     * @return cuántos se quitaron.
+     */
+    public int quitarSi(IntPredicate condicion) {
+        int quedan = 0;
+        for (int i = 0; i < tamano; i++) {
+            int id = miembros[i];
+            if (condicion.test(id)) {
+                posiciones[id] = AUSENTE;
+            } else {
+                posiciones[id] = quedan;
+                miembros[quedan++] = id;
+            }
+        }
+        int quitados = tamano - quedan;
+        tamano = quedan;
+        return quitados;
+    }
+
+    public boolean contiene(int id) {
+        return id >= 0 && id < posiciones.length && posiciones[id] != AUSENTE;
+    }
+
+    // Miembro en la posición dada del arreglo denso (0 <= indice < size())
+    public int get(int indice) {
+        if (indice >= tamano) {
+            throw new IndexOutOfBoundsException("Índice " + indice + " fuera del conjunto de " + tamano);
+        }
+        return miembros[indice];
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    public void limpiar() {
+        for (int i = 0; i < tamano; i++) {
+            posiciones[miembros[i]] = AUSENTE;
+        }
+        tamano = 0;
+    }
+}
@@ -22,14 +22,15 @@ public class ConstruccionManager {
             this.tasaProduccion = 0.0;
         }
 
-        System.out.println("Modo Construcción Activado: " + tipo + ". Costo: " + costoSeleccionado);
+        RegistroEventos.global().depuracion(RegistroEventos.Categoria.CONSTRUCCION,
+                "Modo Construcción Activado: " + tipo + ". Costo: " + costoSeleccionado);
     }
 
     public void cancelarConstruccion() {
         this.nodoSeleccionado = null;
         this.costoSeleccionado = 0.0;
         this.tasaProduccion = 0.0;
-        System.out.println("Modo Construcción Desactivado.");
+        RegistroEventos.global().depuracion(RegistroEventos.Categoria.CONSTRUCCION, "Modo Construcción Desactivado.");
     }
 
     public boolean estaEnModoConstruccion() {
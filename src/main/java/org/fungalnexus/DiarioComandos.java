@@ -0,0 +1,208 @@
+package org.fungalnexus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Diario de solo anexado con todo lo necesario para reproducir una partida:
+ * la semilla, la posición del núcleo, los parámetros de balance y cada comando del jugador
+ * con el tick en que se dio.
+ *
+ * Formato de texto, una entrada por línea:
+ * <pre>
+ * inicio &lt;semilla&gt; &lt;nucleoX&gt; &lt;nucleoY&gt;
+ * parametros [NOMBRE=valor]...      (solo los distintos de los por defecto; opcional al leer)
+ * construir &lt;tick&gt; &lt;x&gt; &lt;y&gt; &lt;TipoNodo&gt;
+ * fin &lt;tick&gt;
+ * </pre>
+ * Cada línea se escribe y se vacía al momento, así que un diario sobrevive a un cierre abrupto
+ * (solo le faltará la línea "fin").
+ */
+public class DiarioComandos {
+
+    public static final class Comando {
+        private final int tick;
+        private final int x;
+        private final int y;
+        private final TipoNodo tipo;
+
+        Comando(int tick, int x, int y, TipoNodo tipo) {
+            this.tick = tick;
+            this.x = x;
+            this.y = y;
+            this.tipo = tipo;
+        }
+
+        public int getTick() {
+            return tick;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public TipoNodo getTipo() {
+            return tipo;
+        }
+    }
+
+    public static final int SIN_FIN = -1;
+
+    private final long semilla;
+    private final int nucleoX;
+    private final int nucleoY;
+    private ParametrosSimulacion parametros;
+    private final List<Comando> comandos = new ArrayList<>();
+    private int tickFinal = SIN_FIN;
+
+    // Destino en disco (null: diario solo en memoria)
+    private BufferedWriter escritor;
+
+    public DiarioComandos(long semilla, int nucleoX, int nucleoY) {
+        this(semilla, nucleoX, nucleoY, ParametrosSimulacion.PREDETERMINADOS);
+    }
+
+    public DiarioComandos(long semilla, int nucleoX, int nucleoY, ParametrosSimulacion parametros) {
+        this.semilla = semilla;
+        this.nucleoX = nucleoX;
+        this.nucleoY = nucleoY;
+        this.parametros = parametros;
+    }
+
+    public static DiarioComandos crearArchivo(Path archivo, long semilla, int nucleoX, int nucleoY) throws IOException {
+        return crearArchivo(archivo, semilla, nucleoX, nucleoY, ParametrosSimulacion.PREDETERMINADOS);
+    }
+
+    /**
+     * Crea el archivo del diario (falla si ya existe) y escribe la cabecera con los parámetros.
+     */
+    public static DiarioComandos crearArchivo(Path archivo, long semilla, int nucleoX, int nucleoY,
+                                              ParametrosSimulacion parametros) throws IOException {
+        if (archivo.getParent() != null) {
+            Files.createDirectories(archivo.getParent());
+        }
+        DiarioComandos diario = new DiarioComandos(semilla, nucleoX, nucleoY, parametros);
+        diario.escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
+        diario.escribir("inicio " + semilla + " " + nucleoX + " " + nucleoY);
+        diario.escribir(("parametros " + parametros.describirCambios()).trim());
+        return diario;
+    }
+
+    public static DiarioComandos leer(Path archivo) throws IOException {
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea = lector.readLine();
+            if (linea == null || !linea.startsWith("inicio ")) {
+                throw new IOException("Diario sin cabecera 'inicio': " + archivo);
+            }
+            String[] cabecera = linea.trim().split("\\s+");
+            DiarioComandos diario = new DiarioComandos(
+                    Long.parseLong(cabecera[1]), Integer.parseInt(cabecera[2]), Integer.parseInt(cabecera[3]));
+
+            int numeroLinea = 1;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                String[] partes = linea.trim().split("\\s+");
+                try {
+                    switch (partes[0]) {
+                        case "parametros":
+                            // Los diarios anteriores no la tienen: se juegan con los por defecto
+                            for (int i = 1; i < partes.length; i++) {
+                                diario.parametros = diario.parametros.con(partes[i]);
+                            }
+                            break;
+                        case "construir":
+                            diario.comandos.add(new Comando(
+                                    Integer.parseInt(partes[1]), Integer.parseInt(partes[2]),
+                                    Integer.parseInt(partes[3]), TipoNodo.valueOf(partes[4])));
+                            break;
+                        case "fin":
+                            diario.tickFinal = Integer.parseInt(partes[1]);
+                            break;
+                        case "":
+                            break;
+                        default:
+                            throw new IOException("Entrada desconocida en la línea " + numeroLinea + ": " + linea);
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException("Línea " + numeroLinea + " mal formada: " + linea, e);
+                }
+            }
+            return diario;
+        }
+    }
+
+    public void registrarConstruccion(int tick, int x, int y, TipoNodo tipo) {
+        comandos.add(new Comando(tick, x, y, tipo));
+        escribir("construir " + tick + " " + x + " " + y + " " + tipo.name());
+    }
+
+    /**
+     * Marca el tick en que terminó la sesión y cierra el archivo, si lo hay.
+     */
+    public void cerrar(int tick) {
+        tickFinal = tick;
+        escribir("fin " + tick);
+        if (escritor != null) {
+            try {
+                escritor.close();
+            } catch (IOException e) {
+                RegistroEventos.global().error(RegistroEventos.Categoria.SISTEMA,
+                        "No se pudo cerrar el diario: " + e.getMessage());
+            }
+            escritor = null;
+        }
+    }
+
+    // Un error de disco no debe detener la partida: el diario sigue completo en memoria
+    private void escribir(String linea) {
+        if (escritor == null) {
+            return;
+        }
+        try {
+            escritor.write(linea);
+            escritor.newLine();
+            escritor.flush();
+        } catch (IOException e) {
+            RegistroEventos.global().error(RegistroEventos.Categoria.SISTEMA,
+                    "No se pudo escribir el diario, se continúa sin archivo: " + e.getMessage());
+            escritor = null;
+        }
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    public int getNucleoX() {
+        return nucleoX;
+    }
+
+    public int getNucleoY() {
+        return nucleoY;
+    }
+
+    public ParametrosSimulacion getParametros() {
+        return parametros;
+    }
+
+    public List<Comando> getComandos() {
+        return Collections.unmodifiableList(comandos);
+    }
+
+    // Tick en que se cerró la sesión, o SIN_FIN si el diario quedó abierto
+    public int getTickFinal() {
+        return tickFinal;
+    }
+}
@@ -0,0 +1,146 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Copia del estado de la colonia que la simulación le pasa a la vista (ver HiloSimulacion).
+ *
+ * Se reutiliza dentro de un TripleBufer: la simulación la llena entre ticks y, una vez
+ * publicada, la vista solo la lee. Las posiciones, tipos e hifas nunca cambian, así que al
+ * reutilizarla solo se copian los nodos e hifas nuevos desde la última vez que se llenó esta
+ * misma copia. El estado que sí cambia (infección, bacteria y flujo por hifa) no viaja aquí:
+ * va en los lotes de HiloSimulacion.CambiosVista, así que llenarla nunca recorre la colonia.
+ */
+public final class EstadoVista {
+
+    private long secuencia;
+    private int tick;
+    private double nutrientes;
+    private double capacidadNutrientes;
+    private double defensas;
+    private double saludNucleo;
+    private boolean gameOver;
+    private int idNucleo;
+    private double produccionEntregada;
+    private double capacidadHifa;
+
+    private int cantidadNodos = 0;
+    private int[] x = new int[0];
+    private int[] y = new int[0];
+    private byte[] tipo = new byte[0];
+
+    private int cantidadAristas = 0;
+    private int[] extremoA = new int[0];
+    private int[] extremoB = new int[0];
+
+    // Lo llama el hilo de simulación, entre ticks
+    void capturar(MotorSimulacion motor, long secuencia) {
+        GrafoColonia grafo = motor.getGrafoColonia();
+        AlmacenNodos almacen = grafo.getAlmacen();
+        this.secuencia = secuencia;
+        this.tick = motor.getCiclosTranscurridos();
+        this.nutrientes = grafo.getNutrientesTotales();
+        this.capacidadNutrientes = grafo.getCapacidadNutrienteTotal();
+        this.defensas = grafo.getDefensasTotales();
+        this.saludNucleo = grafo.getNucleo().getSalud();
+        this.gameOver = grafo.isGameOver();
+        this.idNucleo = grafo.getNucleo().getId();
+        this.produccionEntregada = grafo.getProduccionEntregada();
+        this.capacidadHifa = grafo.getParametros().getCapacidadHifa();
+
+        int n = almacen.getCantidad();
+        if (n > x.length) {
+            int capacidad = Math.max(n, x.length * 2);
+            x = Arrays.copyOf(x, capacidad);
+            y = Arrays.copyOf(y, capacidad);
+            tipo = Arrays.copyOf(tipo, capacidad);
+        }
+        for (int id = cantidadNodos; id < n; id++) {
+            x[id] = almacen.getX(id);
+            y[id] = almacen.getY(id);
+            tipo[id] = (byte) almacen.getTipoOriginal(id).ordinal();
+        }
+        cantidadNodos = n;
+
+        int aristas = almacen.getCantidadAristas();
+        if (aristas > extremoA.length) {
+            int capacidad = Math.max(aristas, extremoA.length * 2);
+            extremoA = Arrays.copyOf(extremoA, capacidad);
+            extremoB = Arrays.copyOf(extremoB, capacidad);
+        }
+        for (int arista = cantidadAristas; arista < aristas; arista++) {
+            extremoA[arista] = almacen.getExtremoA(arista);
+            extremoB[arista] = almacen.getExtremoB(arista);
+        }
+        cantidadAristas = aristas;
+    }
+
+    // Número de publicación (crece con cada estado publicado)
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public double getNutrientes() {
+        return nutrientes;
+    }
+
+    public double getCapacidadNutrientes() {
+        return capacidadNutrientes;
+    }
+
+    public double getDefensas() {
+        return defensas;
+    }
+
+    public double getSaludNucleo() {
+        return saludNucleo;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getIdNucleo() {
+        return idNucleo;
+    }
+
+    public double getProduccionEntregada() {
+        return produccionEntregada;
+    }
+
+    public double getCapacidadHifa() {
+        return capacidadHifa;
+    }
+
+    public int getCantidadNodos() {
+        return cantidadNodos;
+    }
+
+    public int getX(int id) {
+        return x[id];
+    }
+
+    public int getY(int id) {
+        return y[id];
+    }
+
+    public byte getTipo(int id) {
+        return tipo[id];
+    }
+
+    public int getCantidadAristas() {
+        return cantidadAristas;
+    }
+
+    public int getExtremoA(int arista) {
+        return extremoA[arista];
+    }
+
+    public int getExtremoB(int arista) {
+        return extremoB[arista];
+    }
+}
@@ -0,0 +1,63 @@
+package org.fungalnexus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eventos de JDK Flight Recorder emitidos por PerfilTick.
+ *
+ * Sin una grabación activa no cuestan más que crear un objeto que no escapa.
+ * Para grabar: java -XX:StartFlightRecording=filename=partida.jfr ... y abrir el archivo
+ * con JDK Mission Control (categoría "Fungal Nexus") o con "jfr print --events org.fungalnexus.*".
+ */
+final class EventosPerfil {
+
+    private EventosPerfil() {
+    }
+
+    @Name("org.fungalnexus.FaseTick")
+    @Label("Fase del tick")
+    @Description("Duración de una fase de la simulación dentro de un tick")
+    @Category("Fungal Nexus")
+    @StackTrace(false)
+    static final class FaseTick extends Event {
+        @Label("Fase")
+        String fase;
+
+        @Label("Tick")
+        int tick;
+    }
+
+    @Name("org.fungalnexus.Frame")
+    @Label("Frame")
+    @Description("Actualización de la vista en un frame (partículas, sprites, opacidades)")
+    @Category("Fungal Nexus")
+    @StackTrace(false)
+    static final class Frame extends Event {
+        @Label("Partículas en vuelo")
+        int particulas;
+    }
+
+    @Name("org.fungalnexus.Contadores")
+    @Label("Contadores del tick")
+    @Description("Estado de la colonia al terminar un tick")
+    @Category("Fungal Nexus")
+    @StackTrace(false)
+    static final class Contadores extends Event {
+        @Label("Tick")
+        int tick;
+
+        @Label("Nodos infectados")
+        int infectados;
+
+        @Label("Partículas emitidas")
+        long particulas;
+
+        @Label("Búsquedas BFS")
+        long busquedasBfs;
+    }
+}
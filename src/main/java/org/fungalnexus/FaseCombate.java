@@ -0,0 +1,195 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fase de daño, curación, transformación y propagación del tick, con doble búfer.
+ *
+ * El cálculo solo lee el almacén (el estado del tick anterior) y escribe el estado siguiente
+ * de cada nodo infectado en arreglos indexados por su posición en la lista de infectados.
+ * Como ningún nodo lee lo que escribe otro, la lista se puede repartir en bloques entre
+ * varios hilos (fork/join) y el resultado es idéntico al del recorrido secuencial:
+ * - el presupuesto de defensa se reparte antes, en orden de la lista (ver GrafoColonia);
+ * - el azar de cada nodo sale de su propio flujo (semilla del tick + id), no de un generador compartido;
+ * - los candidatos a contagio se juntan bloque por bloque en el orden de la lista.
+ * Los eventos (partículas, transformaciones) se emiten después, en el hilo que llama.
+ */
+final class FaseCombate {
+
+    // Tamaño fijo de bloque: el reparto no depende de la cantidad de núcleos
+    private static final int TAMANO_BLOQUE = 1024;
+
+    private final AlmacenNodos almacen;
+    private final double tasaSanacion;
+
+    // --- Estado siguiente, por posición en la lista de infectados ---
+    private double[] saludSiguiente = new double[0];
+    private double[] infeccionSiguiente = new double[0];
+    private boolean[] transformado = new boolean[0];
+    private boolean[] curado = new boolean[0];
+
+    // Candidatos a contagio de cada bloque (pueden repetirse; se deduplican al unirlos)
+    private ListaEnteros[] candidatosPorBloque = new ListaEnteros[0];
+
+    // Parámetros del tick en curso
+    private ConjuntoIndexado infectados;
+    private double factorPropagacion;
+    private double factorDano;
+    private boolean esMomentoDePropagar;
+    private long semillaTick;
+
+    FaseCombate(AlmacenNodos almacen, double tasaSanacion) {
+        this.almacen = almacen;
+        this.tasaSanacion = tasaSanacion;
+    }
+
+    /**
+     * Prepara los búferes para 'cantidad' infectados y limpia las marcas de curación.
+     * Después de llamarlo, GrafoColonia marca con {@link #marcarCurado(int)} a quienes alcanza la defensa.
+     */
+    void preparar(int cantidad) {
+        if (saludSiguiente.length < cantidad) {
+            int capacidad = Math.max(cantidad, saludSiguiente.length * 2);
+            saludSiguiente = new double[capacidad];
+            infeccionSiguiente = new double[capacidad];
+            transformado = new boolean[capacidad];
+            curado = new boolean[capacidad];
+        }
+        Arrays.fill(curado, 0, cantidad, false);
+
+        int bloques = (cantidad + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE;
+        if (candidatosPorBloque.length < bloques) {
+            int anterior = candidatosPorBloque.length;
+            candidatosPorBloque = Arrays.copyOf(candidatosPorBloque, Math.max(bloques, anterior * 2));
+            for (int b = anterior; b < candidatosPorBloque.length; b++) {
+                candidatosPorBloque[b] = new ListaEnteros();
+            }
+        }
+    }
+
+    void marcarCurado(int posicion) {
+        curado[posicion] = true;
+    }
+
+    /**
+     * Calcula el estado siguiente de los 'cantidad' primeros ids de 'infectados'.
+     * @param pool null para el recorrido secuencial en el hilo actual.
+     */
+    void calcular(ConjuntoIndexado infectados, int cantidad, double factorPropagacion, double factorDano,
+                  boolean esMomentoDePropagar, long semillaTick, ForkJoinPool pool) {
+        this.infectados = infectados;
+        this.factorPropagacion = factorPropagacion;
+        this.factorDano = factorDano;
+        this.esMomentoDePropagar = esMomentoDePropagar;
+        this.semillaTick = semillaTick;
+
+        int bloques = (cantidad + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE;
+        if (pool == null || bloques <= 1) {
+            for (int b = 0; b < bloques; b++) {
+                calcularBloque(b, cantidad);
+            }
+        } else {
+            pool.invoke(new TareaBloques(0, bloques, cantidad));
+        }
+        this.infectados = null;
+    }
+
+    private void calcularBloque(int bloque, int cantidad) {
+        ListaEnteros candidatos = candidatosPorBloque[bloque];
+        candidatos.limpiar();
+        int desde = bloque * TAMANO_BLOQUE;
+        int hasta = Math.min(cantidad, desde + TAMANO_BLOQUE);
+
+        for (int i = desde; i < hasta; i++) {
+            int id = infectados.get(i);
+            boolean bacteria = almacen.esBacteria(id);
+            double salud = almacen.getSalud(id);
+            double infeccion = almacen.getInfeccion(id);
+
+            // 1. Daño
+            if (!bacteria) {
+                salud = Math.max(0, salud - factorDano);
+            }
+
+            // 2. Curación (el presupuesto ya se repartió)
+            if (curado[i]) {
+                infeccion = Math.max(0, infeccion - tasaSanacion);
+            }
+
+            // 3. Transformación
+            boolean seTransforma = salud <= 0 && !bacteria;
+            if (seTransforma) {
+                bacteria = true;
+                salud = 0;
+                infeccion = 1.0;
+            }
+            saludSiguiente[i] = salud;
+            infeccionSiguiente[i] = infeccion;
+            transformado[i] = seTransforma;
+
+            // 4. Propagación: los vecinos se leen del estado anterior
+            if (bacteria || (esMomentoDePropagar && Aleatorio.doubleDelFlujo(semillaTick, id) < factorPropagacion)) {
+                int grado = almacen.getGrado(id);
+                for (int k = 0; k < grado; k++) {
+                    int vecino = almacen.getVecino(id, k);
+                    if (almacen.getInfeccion(vecino) == 0 && !almacen.esBacteria(vecino)) {
+                        candidatos.agregar(vecino);
+                    }
+                }
+            }
+        }
+    }
+
+    // --- Resultados ---
+
+    double getSaludSiguiente(int posicion) {
+        return saludSiguiente[posicion];
+    }
+
+    double getInfeccionSiguiente(int posicion) {
+        return infeccionSiguiente[posicion];
+    }
+
+    boolean seTransformo(int posicion) {
+        return transformado[posicion];
+    }
+
+    boolean fueCurado(int posicion) {
+        return curado[posicion];
+    }
+
+    int getCantidadBloques(int cantidad) {
+        return (cantidad + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE;
+    }
+
+    ListaEnteros getCandidatos(int bloque) {
+        return candidatosPorBloque[bloque];
+    }
+
+    // Divide el rango de bloques por la mitad hasta llegar a un bloque por tarea
+    private final class TareaBloques extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int desde;
+        private final int hasta;
+        private final int cantidad;
+
+        TareaBloques(int desde, int hasta, int cantidad) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.cantidad = cantidad;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde == 1) {
+                calcularBloque(desde, cantidad);
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaBloques(desde, medio, cantidad), new TareaBloques(medio, hasta, cantidad));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Cuánto nutriente y cuánta defensa pasa últimamente por cada hifa.
+ *
+ * Cada recurso emitido suma 1 al contador de cada hifa de su ruta, con signo según el sentido
+ * (positivo de extremoA a extremoB). Los contadores decaen exponencialmente con el tiempo,
+ * de forma perezosa: cada arista guarda su valor y el instante en que se actualizó, y el
+ * decaimiento se aplica solo al leerla o al sumarle. Así no hay que recorrer todas las hifas
+ * en cada frame, y la vista puede dibujar el flujo de una colonia de cualquier tamaño sin
+ * tener una partícula por recurso.
+ */
+public class FlujoHifas {
+
+    private static final int TIPOS_RECURSO = TipoRecurso.values().length;
+
+    private final AlmacenNodos almacen;
+    private final double mediaVida; // Segundos en que un contador pierde la mitad de su valor
+
+    // Por arista y tipo de recurso (arista * TIPOS_RECURSO + tipo)
+    private double[] valor = new double[0];
+    private double[] instante = new double[0];
+
+    public FlujoHifas(AlmacenNodos almacen, double mediaVidaSegundos) {
+        this.almacen = almacen;
+        this.mediaVida = mediaVidaSegundos;
+    }
+
+    /**
+     * Suma el paso de un recurso por cada hifa de la ruta [origen, ..., destino].
+     * Pares consecutivos que no son vecinos (no debería pasar) se ignoran.
+     */
+    public void registrarRuta(Collection<Nodo> ruta, TipoRecurso tipo, double ahoraSegundos) {
+        int[] ids = new int[ruta.size()];
+        int i = 0;
+        for (Nodo nodo : ruta) {
+            ids[i++] = nodo.getId();
+        }
+        registrarRuta(ids, tipo, ahoraSegundos);
+    }
+
+    // Igual que registrarRuta(Collection), con la ruta como ids de nodos
+    public void registrarRuta(int[] ruta, TipoRecurso tipo, double ahoraSegundos) {
+        asegurarCapacidad();
+        for (int i = 0; i + 1 < ruta.length; i++) {
+            int desde = ruta[i];
+            int hasta = ruta[i + 1];
+            int arista = aristaEntre(desde, hasta);
+            if (arista < 0) {
+                continue;
+            }
+            int indice = arista * TIPOS_RECURSO + tipo.ordinal();
+            double signo = almacen.getExtremoA(arista) == desde ? 1.0 : -1.0;
+            valor[indice] = decaido(indice, ahoraSegundos) + signo;
+            instante[indice] = ahoraSegundos;
+        }
+    }
+
+    /**
+     * Flujo reciente del recurso por la hifa: positivo si va de extremoA a extremoB.
+     */
+    public double getFlujo(int arista, TipoRecurso tipo, double ahoraSegundos) {
+        int indice = arista * TIPOS_RECURSO + tipo.ordinal();
+        if (indice >= valor.length) {
+            return 0.0;
+        }
+        return decaido(indice, ahoraSegundos);
+    }
+
+    private double decaido(int indice, double ahora) {
+        double v = valor[indice];
+        if (v == 0.0) {
+            return 0.0;
+        }
+        double transcurrido = ahora - instante[indice];
+        return transcurrido <= 0 ? v : v * Math.pow(0.5, transcurrido / mediaVida);
+    }
+
+    // Id de la hifa entre dos vecinos, recorriendo la adyacencia del primero (grado chico)
+    private int aristaEntre(int a, int b) {
+        for (int k = 0; k < almacen.getGrado(a); k++) {
+            if (almacen.getVecino(a, k) == b) {
+                return almacen.getAristaVecino(a, k);
+            }
+        }
+        return -1;
+    }
+
+    private void asegurarCapacidad() {
+        int necesario = almacen.getCantidadAristas() * TIPOS_RECURSO;
+        if (necesario > valor.length) {
+            int capacidad = Math.max(necesario, valor.length * 2);
+            valor = Arrays.copyOf(valor, capacidad);
+            instante = Arrays.copyOf(instante, capacidad);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Flujo máximo de nutrientes desde los extractores hasta el núcleo, con capacidad por hifa.
+ *
+ * La red: una fuente virtual alimenta cada EXTRACTOR vivo con su tasa de producción, cada hifa
+ * lleva hasta capacidadHifa por tick en cualquiera de los dos sentidos y el sumidero es el núcleo.
+ * Los nodos bacteria no conducen. El flujo de cada hifa se guarda con signo, positivo de
+ * extremoA a extremoB, como en FlujoHifas.
+ *
+ * Se resuelve con Dinic partiendo del flujo anterior. Agregar una hifa o un extractor solo
+ * puede aumentar el máximo, así que basta con buscar los caminos de aumento nuevos. Cuando un
+ * nodo se transforma, el flujo que pasaba por él se cancela siguiendo las hifas con flujo:
+ * el exceso hacia atrás hasta los extractores, el faltante hacia adelante hasta el núcleo.
+ * Después se vuelve a aumentar. Los niveles de cada fase se miden desde el núcleo (BFS inverso
+ * por el residual): con las hifas cercanas al núcleo saturadas, una fase solo recorre la parte
+ * de la colonia que todavía puede llegar a él. Los cambios se acumulan y se resuelven una vez
+ * por tick, en {@link #actualizar()}.
+ */
+public class FlujoMaximo {
+
+    private static final double EPSILON = 1e-9;
+    private static final int SIN_NIVEL = -1;
+
+    private final AlmacenNodos almacen;
+    private final int sumidero;
+    private final double capacidadHifa;
+
+    private double[] flujo = new double[0];        // Por arista, con signo
+    private double[] desdeFuente = new double[0];  // Por nodo: lo que entrega cada extractor
+    private double total = 0.0;
+    private boolean pendiente = true;
+    private long fases = 0;
+
+    // --- Estructuras de trabajo, por nodo y reutilizadas ---
+    private int[] nivel = new int[0];        // Distancia al núcleo en el residual, SIN_NIVEL si no llega
+    private int[] arco = new int[0];         // Próxima hifa a probar en la fase (arco actual de Dinic)
+    private double[] desbalance = new double[0]; // Entrada - salida mientras se cancela un bloqueo
+    private final ListaEnteros visitados = new ListaEnteros();
+    private final ListaEnteros desbalanceados = new ListaEnteros();
+    private int[] pilaNodos = new int[16];
+    private int[] pilaAristas = new int[16];
+
+    // Hifas con flujo cambiado desde el último limpiarCambios (ver HiloSimulacion); null si nadie las sigue
+    private BitSet cambiadas;
+    private final ListaEnteros idsCambiadas = new ListaEnteros();
+
+    public FlujoMaximo(AlmacenNodos almacen, int sumidero, double capacidadHifa) {
+        this.almacen = almacen;
+        this.sumidero = sumidero;
+        this.capacidadHifa = capacidadHifa;
+    }
+
+    // Una hifa nueva (y con ella, quizá un extractor nuevo): se aprovecha en el próximo actualizar()
+    public void aristaAgregada() {
+        pendiente = true;
+    }
+
+    /**
+     * El nodo dejó de conducir. Su flujo se anula y el desbalance que deja en sus vecinos se
+     * cancela por las hifas con flujo, así que cuesta lo que miden esos caminos. La ruta
+     * alternativa, si la hay, se busca en el próximo {@link #actualizar()}.
+     */
+    public void nodoBloqueado(int nodo) {
+        asegurarCapacidad();
+        pendiente = true;
+        total -= desdeFuente[nodo];
+        desdeFuente[nodo] = 0.0;
+
+        int grado = almacen.getGrado(nodo);
+        for (int k = 0; k < grado; k++) {
+            int arista = almacen.getAristaVecino(nodo, k);
+            double saliente = flujoDesde(nodo, arista);
+            if (saliente != 0.0) {
+                int vecino = almacen.getVecino(nodo, k);
+                flujo[arista] = 0.0;
+                marcarCambio(arista);
+                desbalance[vecino] -= saliente;
+                desbalanceados.agregar(vecino);
+            }
+        }
+        cancelarDesbalances();
+    }
+
+    // El nodo vuelve a conducir: como una hifa nueva, solo puede aumentar el máximo
+    public void nodoDesbloqueado(int nodo) {
+        pendiente = true;
+    }
+
+    /**
+     * Resuelve los cambios acumulados desde la última llamada.
+     * @return los nutrientes por tick que llegan al núcleo.
+     */
+    public double actualizar() {
+        if (!pendiente) {
+            return total;
+        }
+        pendiente = false;
+        asegurarCapacidad();
+        while (calcularNiveles()) {
+            fases++;
+            aumentarFase();
+        }
+        limpiarNiveles();
+        return total;
+    }
+
+    // Nutrientes por tick que llegan al núcleo según el último actualizar()
+    public double getTotal() {
+        return total;
+    }
+
+    // Flujo de la hifa: positivo si va de extremoA a extremoB
+    public double getFlujo(int arista) {
+        return arista < flujo.length ? flujo[arista] : 0.0;
+    }
+
+    public double getCapacidadHifa() {
+        return capacidadHifa;
+    }
+
+    /**
+     * Empieza a registrar las hifas cuyo flujo cambia. Las que ya llevan flujo quedan marcadas.
+     */
+    public void seguirCambios() {
+        cambiadas = new BitSet(flujo.length);
+        idsCambiadas.limpiar();
+        for (int arista = 0; arista < flujo.length; arista++) {
+            if (flujo[arista] != 0.0) {
+                marcarCambio(arista);
+            }
+        }
+    }
+
+    // Hifas cambiadas desde el último limpiarCambios(), en orden de primer cambio
+    public ListaEnteros getCambiadas() {
+        return idsCambiadas;
+    }
+
+    public void limpiarCambios() {
+        for (int i = 0; i < idsCambiadas.size(); i++) {
+            cambiadas.clear(idsCambiadas.get(i));
+        }
+        idsCambiadas.limpiar();
+    }
+
+    // Fases de Dinic acumuladas (para perfilar)
+    public long getFases() {
+        return fases;
+    }
+
+    // --- Dinic ---
+
+    /**
+     * BFS inverso desde el núcleo por las hifas con residual hacia él.
+     * @return true si algún nodo alcanzado todavía puede recibir más de la fuente.
+     */
+    private boolean calcularNiveles() {
+        limpiarNiveles();
+        if (almacen.esBacteria(sumidero)) {
+            return false;
+        }
+        boolean alcanzaFuente = false;
+        nivel[sumidero] = 0;
+        visitados.agregar(sumidero);
+        for (int i = 0; i < visitados.size(); i++) {
+            int actual = visitados.get(i);
+            if (residualFuente(actual) > EPSILON) {
+                alcanzaFuente = true;
+            }
+            int grado = almacen.getGrado(actual);
+            for (int k = 0; k < grado; k++) {
+                int vecino = almacen.getVecino(actual, k);
+                if (nivel[vecino] == SIN_NIVEL && !almacen.esBacteria(vecino)
+                        && residual(vecino, almacen.getAristaVecino(actual, k)) > EPSILON) {
+                    nivel[vecino] = nivel[actual] + 1;
+                    visitados.agregar(vecino);
+                }
+            }
+        }
+        return alcanzaFuente;
+    }
+
+    // Flujo bloqueante: cada extractor alcanzado empuja lo que pueda por hifas que bajan un nivel
+    private void aumentarFase() {
+        for (int i = 0; i < visitados.size(); i++) {
+            int nodo = visitados.get(i);
+            double restante = residualFuente(nodo);
+            while (restante > EPSILON && nivel[nodo] != SIN_NIVEL) {
+                double empujado = aumentarDesde(nodo, restante);
+                if (empujado <= 0.0) {
+                    break;
+                }
+                desdeFuente[nodo] += empujado;
+                total += empujado;
+                restante -= empujado;
+            }
+        }
+    }
+
+    /**
+     * Busca un camino admisible desde 'origen' hasta el núcleo (DFS iterativo, las colonias
+     * pueden ser muy profundas) y le suma su cuello de botella, como mucho 'limite'.
+     * Los nodos sin salida pierden su nivel y no se vuelven a visitar en la fase.
+     */
+    private double aumentarDesde(int origen, double limite) {
+        int profundidad = 0;
+        pilaNodos[0] = origen;
+        while (true) {
+            int actual = pilaNodos[profundidad];
+            if (actual == sumidero) {
+                double cuello = limite;
+                for (int d = 0; d < profundidad; d++) {
+                    cuello = Math.min(cuello, residual(pilaNodos[d], pilaAristas[d]));
+                }
+                for (int d = 0; d < profundidad; d++) {
+                    int arista = pilaAristas[d];
+                    flujo[arista] += almacen.getExtremoA(arista) == pilaNodos[d] ? cuello : -cuello;
+                    marcarCambio(arista);
+                }
+                return cuello;
+            }
+
+            int grado = almacen.getGrado(actual);
+            boolean avanzo = false;
+            for (; arco[actual] < grado; arco[actual]++) {
+                int k = arco[actual];
+                int vecino = almacen.getVecino(actual, k);
+                int arista = almacen.getAristaVecino(actual, k);
+                if (nivel[vecino] != SIN_NIVEL && nivel[vecino] == nivel[actual] - 1
+                        && residual(actual, arista) > EPSILON) {
+                    if (profundidad + 1 == pilaNodos.length) {
+                        pilaNodos = Arrays.copyOf(pilaNodos, pilaNodos.length * 2);
+                        pilaAristas = Arrays.copyOf(pilaAristas, pilaAristas.length * 2);
+                    }
+                    pilaAristas[profundidad] = arista;
+                    pilaNodos[++profundidad] = vecino;
+                    avanzo = true;
+                    break;
+                }
+            }
+            if (!avanzo) {
+                nivel[actual] = SIN_NIVEL;
+                if (profundidad == 0) {
+                    return 0.0;
+                }
+                profundidad--;
+                arco[pilaNodos[profundidad]]++;
+            }
+        }
+    }
+
+    private void limpiarNiveles() {
+        for (int i = 0; i < visitados.size(); i++) {
+            int id = visitados.get(i);
+            nivel[id] = SIN_NIVEL;
+            arco[id] = 0;
+        }
+        visitados.limpiar();
+    }
+
+    // --- Cancelación tras un bloqueo ---
+
+    // Los excesos vuelven hacia los extractores y los faltantes siguen hasta el núcleo, que absorbe
+    private void cancelarDesbalances() {
+        for (int i = 0; i < desbalanceados.size(); i++) {
+            int nodo = desbalanceados.get(i);
+            double restante = desbalance[nodo];
+            desbalance[nodo] = 0.0;
+            if (nodo == sumidero || Math.abs(restante) <= EPSILON) {
+                continue;
+            }
+            if (restante > 0) {
+                double deFuente = Math.min(restante, desdeFuente[nodo]);
+                desdeFuente[nodo] -= deFuente;
+                total -= deFuente;
+                restante -= deFuente;
+            }
+            int grado = almacen.getGrado(nodo);
+            for (int k = 0; k < grado && Math.abs(restante) > EPSILON; k++) {
+                int arista = almacen.getAristaVecino(nodo, k);
+                // Exceso: se reduce lo que entra; faltante: se reduce lo que sale
+                double saliente = flujoDesde(nodo, arista);
+                double reducir = restante > 0 ? Math.min(restante, -saliente) : Math.min(-restante, saliente);
+                if (reducir <= 0) {
+                    continue;
+                }
+                int vecino = almacen.getVecino(nodo, k);
+                boolean desdeA = almacen.getExtremoA(arista) == nodo;
+                if (restante > 0) {
+                    // El vecino enviaba hacia este nodo: envía menos y le queda exceso
+                    flujo[arista] += desdeA ? reducir : -reducir;
+                    marcarCambio(arista);
+                    desbalance[vecino] += reducir;
+                    restante -= reducir;
+                } else {
+                    flujo[arista] -= desdeA ? reducir : -reducir;
+                    marcarCambio(arista);
+                    desbalance[vecino] -= reducir;
+                    restante += reducir;
+                }
+                desbalanceados.agregar(vecino);
+            }
+        }
+        desbalanceados.limpiar();
+    }
+
+    private void marcarCambio(int arista) {
+        if (cambiadas != null && !cambiadas.get(arista)) {
+            cambiadas.set(arista);
+            idsCambiadas.agregar(arista);
+        }
+    }
+
+    // --- Residuales ---
+
+    private double flujoDesde(int nodo, int arista) {
+        return almacen.getExtremoA(arista) == nodo ? flujo[arista] : -flujo[arista];
+    }
+
+    private double residual(int desde, int arista) {
+        return capacidadHifa - flujoDesde(desde, arista);
+    }
+
+    private double residualFuente(int nodo) {
+        if (almacen.esBacteria(nodo) || almacen.getTipoOriginal(nodo) != TipoNodo.EXTRACTOR) {
+            return 0.0;
+        }
+        return almacen.getTasa(nodo) - desdeFuente[nodo];
+    }
+
+    private void asegurarCapacidad() {
+        int aristas = almacen.getCantidadAristas();
+        if (aristas > flujo.length) {
+            flujo = Arrays.copyOf(flujo, Math.max(aristas, flujo.length * 2));
+        }
+        int cantidad = almacen.getCantidad();
+        if (cantidad > nivel.length) {
+            int anterior = nivel.length;
+            int capacidad = Math.max(cantidad, anterior * 2);
+            nivel = Arrays.copyOf(nivel, capacidad);
+            arco = Arrays.copyOf(arco, capacidad);
+            desdeFuente = Arrays.copyOf(desdeFuente, capacidad);
+            desbalance = Arrays.copyOf(desbalance, capacidad);
+            Arrays.fill(nivel, anterior, capacidad, SIN_NIVEL);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.fungalnexus;
+
+/**
+ * Construye colonias sintéticas de tamaño arbitrario, sin costo de nutrientes,
+ * para pruebas, benchmarks y el modo headless.
+ *
+ * Los tipos se reparten igual que en la apertura automática del modo headless:
+ * cada 5º nodo es ALMACENAMIENTO, cada 4º DEFENSA y el resto EXTRACTOR.
+ */
+public final class GeneradorColonias {
+
+    private static final long SEMILLA = 42L;
+
+    public enum Topologia {
+        // Un único camino serpenteante: rutas al núcleo tan largas como la colonia
+        CADENA,
+        // Espiral alrededor del núcleo, cada nodo cuelga del más cercano: árbol ancho y poco profundo
+        ARBUSTO
+    }
+
+    private GeneradorColonias() {
+    }
+
+    /**
+     * Genera una colonia con el núcleo en (nucleoX, nucleoY) y cantidadNodos nodos en total.
+     */
+    public static GrafoColonia generar(int nucleoX, int nucleoY, int cantidadNodos, Topologia topologia) {
+        // Semilla fija: las corridas sobre la misma colonia generada son reproducibles
+        GrafoColonia grafo = new GrafoColonia(nucleoX, nucleoY, null, SEMILLA);
+        Nodo anterior = grafo.getNucleo();
+
+        // Ancho del serpentín de la cadena: la colonia queda aproximadamente cuadrada
+        int ancho = (int) Math.ceil(Math.sqrt(cantidadNodos));
+
+        for (int i = 1; i < cantidadNodos; i++) {
+            int celdaX;
+            int celdaY;
+            if (topologia == Topologia.CADENA) {
+                int fila = i / ancho;
+                int columna = i % ancho;
+                celdaX = (fila % 2 == 0) ? columna : ancho - 1 - columna;
+                celdaY = fila;
+            } else {
+                int[] celda = celdaEnEspiral(i);
+                celdaX = celda[0];
+                celdaY = celda[1];
+            }
+
+            int x = nucleoX + celdaX * Configuracion.GRID_SIZE;
+            int y = nucleoY + celdaY * Configuracion.GRID_SIZE;
+            TipoNodo tipo = tipoPorIndice(i);
+            if (topologia == Topologia.CADENA) {
+                anterior = grafo.colocarNodo(x, y, tipo, anterior);
+            } else {
+                grafo.colocarNodo(x, y, tipo, grafo.encontrarNodoMasCercano(x, y));
+            }
+        }
+        return grafo;
+    }
+
+    /**
+     * Apertura automática del modo headless: ocupa las siguientes celdas de la espiral, pagando
+     * cada nodo, mientras alcancen los nutrientes y no se llegue a nodosObjetivo.
+     * @param construidos posiciones de la espiral ya ocupadas (el núcleo cuenta como la 0).
+     * @return las posiciones ocupadas después de construir.
+     */
+    public static int abrirEnEspiral(MotorSimulacion motor, int nucleoX, int nucleoY, int construidos, int nodosObjetivo) {
+        GrafoColonia grafo = motor.getGrafoColonia();
+        while (construidos < nodosObjetivo) {
+            TipoNodo tipo = tipoPorIndice(construidos);
+            if (grafo.getNutrientesTotales() < tipo.getCosto()) {
+                break;
+            }
+            int[] celda = celdaEnEspiral(construidos);
+            motor.construir(
+                    nucleoX + celda[0] * Configuracion.GRID_SIZE,
+                    nucleoY + celda[1] * Configuracion.GRID_SIZE,
+                    tipo);
+            construidos++;
+        }
+        return construidos;
+    }
+
+    // Reparto de tipos de la apertura automática
+    public static TipoNodo tipoPorIndice(int indice) {
+        return (indice % 5 == 0) ? TipoNodo.ALMACENAMIENTO
+                : (indice % 4 == 0) ? TipoNodo.DEFENSA
+                : TipoNodo.EXTRACTOR;
+    }
+
+    /**
+     * Desplazamiento (en celdas) de la posición indice dentro de una espiral cuadrada
+     * centrada en el origen: 0 es el centro, 1..8 el primer anillo, 9..24 el segundo...
+     */
+    public static int[] celdaEnEspiral(int indice) {
+        if (indice == 0) {
+            return new int[]{0, 0};
+        }
+        // El anillo r contiene los índices [(2r-1)^2, (2r+1)^2), donde floor(sqrt(indice)) es 2r-1 o 2r
+        int anillo = ((int) Math.sqrt(indice) + 1) / 2;
+        int lado = 2 * anillo - 1;
+        int posicion = indice - lado * lado;
+
+        int largoTramo = 2 * anillo;
+        int tramo = posicion / largoTramo;
+        int paso = posicion % largoTramo;
+        switch (tramo) {
+            case 0:
+                return new int[]{-anillo + paso, -anillo};
+            case 1:
+                return new int[]{anillo, -anillo + paso};
+            case 2:
+                return new int[]{anillo - paso, anillo};
+            default:
+                return new int[]{-anillo, anillo - paso};
+        }
+    }
+}
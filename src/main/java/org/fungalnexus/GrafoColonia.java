@@ -1,52 +1,163 @@
 package org.fungalnexus;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 public class GrafoColonia {
 
     // --- Estructura del Grafo ---
-    // Mantiene la lista de todos los nodos para fácil iteración
-    private final Set<Nodo> nodosColonia;
+    // Todos los nodos viven en arreglos primitivos indexados por id (ver AlmacenNodos)
+    private final AlmacenNodos almacen;
+    private final int idNucleo;
     private final Nodo nucleo; // Referencia directa y constante al nodo central
 
+    // Grilla de celdas GRID_SIZE: ocupación O(1) y vecino más cercano por anillos
+    private final IndiceEspacial indiceEspacial;
+
+    // Árbol BFS de rutas hacia el núcleo, se mantiene al agregar hifas y al transformarse nodos
+    private final ArbolRutas arbolRutasNucleo;
+
+    // Campo multi-origen "DEFENSA viva más cercana": cada nodo apunta hacia su defensor más próximo.
+    // Un defensor solo muere al transformarse, y eso se repara en el momento como cualquier bloqueo.
+    private final ArbolRutas campoDefensas;
+
+    // Flujo máximo extractores -> núcleo con capacidad por hifa: lo que de verdad llega al núcleo
+    private final FlujoMaximo flujoNutrientes;
+
     // --- Recursos Globales del Juego ---
     private double nutrientesTotales;
     private double defensasTotales;
 
-    // Capacidad: Se recalcula cada vez que se construye o destruye un nodo ALMACENAMIENTO.
-    private double capacidadNutrienteTotal;
+    // La capacidad y las tasas de producción salen de los agregados del almacén (AgregadosEconomia)
+    private final AgregadosEconomia economia;
 
     // --- Estado de la Amenaza ---
-    private final List<Nodo> nodosInfectados;
+    // Ids de los nodos infectados: alta, baja y pertenencia en O(1)
+    private final ConjuntoIndexado nodosInfectados;
 
     private boolean infeccionInicialActivada = false;
 
-    private PanelJuegoFX panelJuegoFX;
+    // Receptor de eventos de la simulación (puede ser null en modo headless)
+    private OyenteSimulacion oyente;
 
     private boolean gameOver = false;
 
+    // Única fuente de azar de la simulación: misma semilla + mismos comandos = misma partida
+    private final long semilla;
+    private final Aleatorio aleatorio;
+
+    // Constantes de balance de esta partida (por defecto, las de Configuracion)
+    private final ParametrosSimulacion parametros;
+
     private int contadorPropagacion = 0;
+
+    // Contadores acumulados para el perfil del tick (ver PerfilTick)
+    private long particulasEmitidas = 0;
+    private long busquedasBfs = 0;
     private final int FRECUENCIA_PROPAGACION = 5;
 
+    // Estructuras temporales del tick, reutilizadas para no asignar memoria en cada ciclo
+    private final ListaEnteros nuevosInfectados = new ListaEnteros();
+    private final ListaEnteros nuevosAislados = new ListaEnteros();
+    private final BitSet marcados = new BitSet();
+
+    // Fase de combate con doble búfer; en modo paralelo se reparte en bloques con fork/join
+    private final FaseCombate faseCombate;
+    private boolean modoParalelo = false;
+    private ForkJoinPool poolParalelo = ForkJoinPool.commonPool();
+    private static final int MINIMO_INFECTADOS_PARALELO = 4096;
+
     // --- Constructor ---
-    public GrafoColonia(int nucleoX, int nucleoY, PanelJuegoFX panelJuegoFX) {
-        this.nodosColonia = new HashSet<>();
-        this.nodosInfectados = new ArrayList<>();
+    public GrafoColonia(int nucleoX, int nucleoY) {
+        this(nucleoX, nucleoY, null);
+    }
+
+    public GrafoColonia(int nucleoX, int nucleoY, OyenteSimulacion oyente) {
+        this(nucleoX, nucleoY, oyente, System.nanoTime());
+    }
+
+    public GrafoColonia(int nucleoX, int nucleoY, OyenteSimulacion oyente, long semilla) {
+        this(nucleoX, nucleoY, oyente, semilla, ParametrosSimulacion.PREDETERMINADOS);
+    }
+
+    public GrafoColonia(int nucleoX, int nucleoY, OyenteSimulacion oyente, long semilla, ParametrosSimulacion parametros) {
+        this.semilla = semilla;
+        this.aleatorio = new Aleatorio(semilla);
+        this.parametros = parametros;
+        this.almacen = new AlmacenNodos();
+        this.economia = almacen.getAgregados();
+        this.faseCombate = new FaseCombate(almacen, parametros.getTasaSanacionInfeccion());
+        this.nodosInfectados = new ConjuntoIndexado();
+        this.indiceEspacial = new IndiceEspacial(almacen);
 
         // Inicialización del Núcleo (asumimos tasa de producción 0, ya que solo almacena)
-        this.nucleo = new Nodo(nucleoX, nucleoY, Configuracion.RADIO_NUCLEO_INICIAL, TipoNodo.NUCLEO, TipoNodo.NUCLEO.getTasaProduccion());
+        this.idNucleo = almacen.agregar(nucleoX, nucleoY, TipoNodo.NUCLEO, TipoNodo.NUCLEO.getTasaProduccion());
+        this.nucleo = almacen.vista(idNucleo);
+        this.arbolRutasNucleo = new ArbolRutas(almacen, idNucleo);
+        this.campoDefensas = new ArbolRutas(almacen);
+        this.flujoNutrientes = new FlujoMaximo(almacen, idNucleo, parametros.getCapacidadHifa());
 
         // Inicialización de recursos y capacidad
         this.nutrientesTotales = 100.0;
         this.defensasTotales = 0.0;
 
-        this.panelJuegoFX = panelJuegoFX;
+        this.oyente = oyente;
+
+        // Registrar el núcleo en los índices
+        registrarNodo(idNucleo);
+    }
 
-        // El núcleo proporciona la capacidad base
-        this.capacidadNutrienteTotal = TipoNodo.NUCLEO.getCapacidadNutriente();
+    /**
+     * Reconstruye la colonia sobre un almacén ya poblado (partida cargada, ver ArchivoPartida).
+     * El núcleo es el id 0. El índice espacial y los árboles de rutas se arman de una vez,
+     * con un BFS cada uno, en lugar de nodo por nodo; el resto del estado se fija con restaurarEstado.
+     * Los parámetros de balance son los que se guardaron con la partida.
+     */
+    GrafoColonia(AlmacenNodos almacen, OyenteSimulacion oyente, long semilla, ParametrosSimulacion parametros) {
+        this.semilla = semilla;
+        this.aleatorio = new Aleatorio(semilla);
+        this.parametros = parametros;
+        this.almacen = almacen;
+        this.economia = almacen.getAgregados();
+        this.faseCombate = new FaseCombate(almacen, parametros.getTasaSanacionInfeccion());
+        this.nodosInfectados = new ConjuntoIndexado();
+        this.indiceEspacial = new IndiceEspacial(almacen, Configuracion.GRID_SIZE, almacen.getCantidad());
+
+        this.idNucleo = 0;
+        this.nucleo = almacen.vista(idNucleo);
+        for (int id = 0; id < almacen.getCantidad(); id++) {
+            indiceEspacial.agregar(id);
+        }
+
+        ListaEnteros raiz = new ListaEnteros();
+        raiz.agregar(idNucleo);
+        this.arbolRutasNucleo = new ArbolRutas(almacen);
+        this.arbolRutasNucleo.reiniciar(raiz);
+        this.campoDefensas = new ArbolRutas(almacen);
+        recalcularCampoDefensas();
+        // Se resuelve desde cero en el primer tick
+        this.flujoNutrientes = new FlujoMaximo(almacen, idNucleo, parametros.getCapacidadHifa());
+
+        this.oyente = oyente;
+    }
+
+    // Estado global guardado junto con los nodos; los infectados van en el orden en que se guardaron
+    void restaurarEstado(long estadoAleatorio, double nutrientes, double defensas, int contadorPropagacion,
+                         boolean infeccionInicialActivada, boolean gameOver, int[] infectados) {
+        this.aleatorio.setEstado(estadoAleatorio);
+        this.nutrientesTotales = nutrientes;
+        this.defensasTotales = defensas;
+        this.contadorPropagacion = contadorPropagacion;
+        this.infeccionInicialActivada = infeccionInicialActivada;
+        this.gameOver = gameOver;
+        nodosInfectados.limpiar();
+        for (int id : infectados) {
+            nodosInfectados.agregar(id);
+        }
+    }
 
-        // Agregar el núcleo al conjunto de nodos
-        agregarNodo(nucleo);
+    public void setOyente(OyenteSimulacion oyente) {
+        this.oyente = oyente;
     }
 
     public double getNutrientesTotales() {
@@ -54,31 +165,103 @@ public class GrafoColonia {
     }
 
     public double getCapacidadNutrienteTotal() {
-        return capacidadNutrienteTotal;
+        return economia.getCapacidadTotal();
     }
 
     public double getDefensasTotales() {
         return defensasTotales;
     }
 
-    public void agregarNodo(Nodo nodo) {
-        nodosColonia.add(nodo);
+    /**
+     * Activa el cálculo paralelo de la fase de combate (solo se usa con muchos infectados).
+     * El resultado es idéntico al del modo secuencial para la misma semilla.
+     */
+    public void setModoParalelo(boolean modoParalelo) {
+        this.modoParalelo = modoParalelo;
+    }
+
+    public void setModoParalelo(boolean modoParalelo, ForkJoinPool pool) {
+        this.modoParalelo = modoParalelo;
+        this.poolParalelo = pool;
+    }
+
+    public boolean isModoParalelo() {
+        return modoParalelo;
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    public ParametrosSimulacion getParametros() {
+        return parametros;
+    }
+
+    public int getCantidadNodos() {
+        return almacen.getCantidad();
+    }
 
-        // Si es un nodo de Almacenamiento, actualiza la capacidad global
-        if (nodo.getTipo() == TipoNodo.ALMACENAMIENTO) {
-            recalcularCapacidadTotal();
+    // Acceso directo al almacenamiento compacto (para vistas, generadores y benchmarks)
+    public AlmacenNodos getAlmacen() {
+        return almacen;
+    }
+
+    // Actualiza los índices y agregados con un nodo recién creado en el almacén
+    private void registrarNodo(int id) {
+        indiceEspacial.agregar(id);
+
+        if (almacen.esTipo(id, TipoNodo.DEFENSA) && almacen.getSalud(id) > 0) {
+            campoDefensas.agregarRaiz(id);
+        }
+    }
+
+    /**
+     * Transforma el nodo en bacteria o lo sana, y actualiza todo lo que depende de qué nodos
+     * conducen: las rutas al núcleo, el campo de defensas y el flujo de nutrientes. Al transformarse
+     * solo se reenruta lo que pasaba por él; los nodos que se quedan sin camino al núcleo se suman
+     * a los aislados del tick, y si era un ALMACENAMIENTO lo que ya no cabe en la capacidad que
+     * queda se pierde. Al sanar recupera la salud base de su tipo y vuelve a conducir, sin
+     * producción, y una DEFENSA vuelve a ser raíz del campo de defensas.
+     */
+    public void setBacteria(int id, boolean bacteria) {
+        if (almacen.esBacteria(id) == bacteria) {
+            return;
+        }
+        almacen.setBacteria(id, bacteria);
+        if (bacteria) {
+            this.nutrientesTotales = Math.min(this.nutrientesTotales, economia.getCapacidadTotal());
+            arbolRutasNucleo.nodoBloqueado(id, nuevosAislados);
+            campoDefensas.nodoBloqueado(id, null);
+            flujoNutrientes.nodoBloqueado(id);
+            return;
+        }
+        almacen.setSalud(id, almacen.getTipoOriginal(id).getSaludBase());
+        almacen.setInfeccion(id, 0.0);
+        arbolRutasNucleo.nodoDesbloqueado(id);
+        if (almacen.esTipo(id, TipoNodo.DEFENSA)) {
+            campoDefensas.agregarRaiz(id);
+        } else {
+            campoDefensas.nodoDesbloqueado(id);
         }
+        flujoNutrientes.nodoDesbloqueado(id);
     }
 
     //Conecta dos nodos (A y B) para crear una hifa bidireccional
     public void conectarNodos(Nodo nodoA, Nodo nodoB) {
-        if (nodoA != null && nodoB != null && !nodoA.getVecinos().contains(nodoB)) {
-            nodoA.agregarVecino(nodoB);
-            nodoB.agregarVecino(nodoA);
+        if (nodoA != null && nodoB != null) {
+            conectar(nodoA.getId(), nodoB.getId());
         }
     }
 
-    //Lógica central para la construcción del nuevo nodo en el juego. Devuelve el nuevo nodo o null si falló (ej. sin nutrientes).
+    private void conectar(int a, int b) {
+        if (almacen.conectar(a, b) >= 0) {
+            arbolRutasNucleo.aristaAgregada(a, b);
+            campoDefensas.aristaAgregada(a, b);
+            flujoNutrientes.aristaAgregada();
+        }
+    }
+
+    //Lógica central para la construcción del nuevo nodo en el juego. Devuelve el nuevo nodo o null si falló (ej. sin nutrientes o celda ocupada).
     public Nodo construirNuevoNodo(int x, int y, TipoNodo tipo) {
 
         double costoNutrientes = tipo.getCosto();
@@ -88,179 +271,271 @@ public class GrafoColonia {
             return null;
         }
 
-        Nodo nodoPadre = encontrarNodoMasCercano(x, y);
-        if (nodoPadre == null) {
+        // Un nodo por celda: no se cobra una construcción que no se puede colocar
+        if (indiceEspacial.estaOcupada(x, y)) {
             return null;
         }
 
-        Nodo nuevoNodo = new Nodo(x, y, Configuracion.RADIO_NODO_ESTANDAR, tipo, tasa);
+        int idPadre = indiceEspacial.masCercano(x, y);
+        if (idPadre == IndiceEspacial.SIN_NODO) {
+            return null;
+        }
 
         this.nutrientesTotales -= costoNutrientes;
-        agregarNodo(nuevoNodo);
-        conectarNodos(nodoPadre, nuevoNodo);
+        return almacen.vista(colocar(x, y, tipo, tasa, idPadre));
+    }
+
+    /**
+     * Coloca un nodo sin cobrar nutrientes y lo conecta al padre indicado.
+     * Lo usan los generadores de colonias (pruebas y benchmarks) para fijar la topología.
+     * @return el nuevo nodo, o null si la celda ya está ocupada.
+     */
+    Nodo colocarNodo(int x, int y, TipoNodo tipo, Nodo padre) {
+        if (indiceEspacial.estaOcupada(x, y)) {
+            return null;
+        }
+        double tasa = (tipo == TipoNodo.EXTRACTOR) ? tipo.getTasaProduccion() : tipo.getTasaDefensa();
+        return almacen.vista(colocar(x, y, tipo, tasa, padre.getId()));
+    }
 
-        return nuevoNodo;
+    private int colocar(int x, int y, TipoNodo tipo, double tasa, int idPadre) {
+        int idNuevo = almacen.agregar(x, y, tipo, tasa);
+        registrarNodo(idNuevo);
+        conectar(idPadre, idNuevo);
+        return idNuevo;
     }
 
-    //Reimplementacion del metodo auxiliar del nodo mas cercano
+    // Fija los nutrientes disponibles (escenarios de prueba y benchmarks)
+    void setNutrientesTotales(double nutrientesTotales) {
+        this.nutrientesTotales = nutrientesTotales;
+    }
+
+    // Siembra una infección en el nodo sin pasar por el azar del tick (escenarios de prueba y benchmarks)
+    void infectar(Nodo nodo) {
+        int id = nodo.getId();
+        if (almacen.getInfeccion(id) == 0 && !almacen.esBacteria(id)) {
+            almacen.setInfeccion(id, 0.1);
+            nodosInfectados.agregar(id);
+        }
+    }
+
+    //Nodo más cercano al punto, usando el índice espacial (búsqueda por anillos de celdas)
     public Nodo encontrarNodoMasCercano(int xNuevo, int yNuevo) {
-        Nodo masCercano = null;
-        double menorDistancia = Double.MAX_VALUE;
+        int id = indiceEspacial.masCercano(xNuevo, yNuevo);
+        return id == IndiceEspacial.SIN_NODO ? null : almacen.vista(id);
+    }
 
-        for (Nodo nodoExistente : nodosColonia) {
-            double distancia = Math.sqrt(Math.pow(xNuevo - nodoExistente.getX(), 2) + Math.pow(yNuevo - nodoExistente.getY(), 2));
+    // Indica si la celda del grid que contiene el punto ya tiene un nodo
+    public boolean estaCeldaOcupada(int x, int y) {
+        return indiceEspacial.estaOcupada(x, y);
+    }
 
-            if (distancia < menorDistancia) {
-                menorDistancia = distancia;
-                masCercano = nodoExistente;
+    // Ids de los nodos dentro del rectángulo del mundo (la vista solo dibuja lo que ve la cámara)
+    public void nodosEnRectangulo(int minX, int minY, int maxX, int maxY, ListaEnteros salida) {
+        indiceEspacial.consultarRectangulo(minX, minY, maxX, maxY, salida);
+    }
+
+    /**
+     * Ruta desde el nodo vivo del tipo buscado más cercano hasta el destino: [origen, ..., destino].
+     * Para DEFENSA se recorre el campo multi-origen (O(largo de la ruta)); otros tipos usan un BFS.
+     */
+    public List<Nodo> encontrarRutaDesdeTipo(Nodo destino, TipoNodo tipoBuscado) {
+        if (tipoBuscado == TipoNodo.DEFENSA) {
+            return encontrarRutaDesdeDefensa(destino.getId());
+        }
+        return buscarRutaDesdeTipo(destino.getId(), tipoBuscado);
+    }
+
+    private List<Nodo> encontrarRutaDesdeDefensa(int destino) {
+        Collection<Nodo> haciaDefensa = campoDefensas.rutaHaciaRaiz(destino);
+        if (haciaDefensa == null) return null;
+
+        List<Nodo> ruta = new ArrayList<>(haciaDefensa);
+        Collections.reverse(ruta); // [Defensa, ..., Destino]
+        return ruta;
+    }
+
+    // Un único BFS multi-origen desde todas las DEFENSA vivas
+    private void recalcularCampoDefensas() {
+        ListaEnteros defensores = new ListaEnteros();
+        int cantidad = almacen.getCantidad();
+        for (int id = 0; id < cantidad; id++) {
+            if (almacen.esTipo(id, TipoNodo.DEFENSA) && almacen.getSalud(id) > 0) {
+                defensores.agregar(id);
             }
         }
-        return masCercano;
+        campoDefensas.reiniciar(defensores);
+        busquedasBfs++;
     }
 
-    public List<Nodo> encontrarRutaDesdeTipo(Nodo destino, TipoNodo tipoBuscado) {
-        Map<Nodo, Nodo> padres = new HashMap<>();
-        Queue<Nodo> cola = new LinkedList<>();
-        Set<Nodo> visitados = new HashSet<>();
-        Nodo nodoOrigenEncontrado = null;
+    private List<Nodo> buscarRutaDesdeTipo(int destino, TipoNodo tipoBuscado) {
+        busquedasBfs++;
+        int[] padres = new int[almacen.getCantidad()];
+        Arrays.fill(padres, -1);
+        BitSet visitados = new BitSet(almacen.getCantidad());
+        ListaEnteros cola = new ListaEnteros();
+        int nodoOrigenEncontrado = -1;
 
         // Empezamos la búsqueda desde el destino (el nodo infectado)
-        cola.add(destino);
-        visitados.add(destino);
+        cola.agregar(destino);
+        visitados.set(destino);
 
-        while (!cola.isEmpty()) {
-            Nodo actual = cola.poll();
+        for (int frente = 0; frente < cola.size(); frente++) {
+            int actual = cola.get(frente);
 
             // Condición de parada: Encontrar el nodo DEFENSA más cercano y activo
-            if (actual.getTipo() == tipoBuscado && actual.getSalud() > 0) {
+            if (almacen.esTipo(actual, tipoBuscado) && almacen.getSalud(actual) > 0) {
                 nodoOrigenEncontrado = actual;
                 break;
             }
 
-            // Si es el núcleo, podría ser una fuente de emergencia, pero
-            // por ahora solo buscamos nodos DEFENSA.
-
-            for (Nodo vecino : actual.getVecinos()) {
-                if (!visitados.contains(vecino)) {
-                    visitados.add(vecino);
-                    padres.put(vecino, actual);
-                    cola.add(vecino);
+            // Los nodos bacteria no conducen recursos
+            int grado = almacen.getGrado(actual);
+            for (int k = 0; k < grado; k++) {
+                int vecino = almacen.getVecino(actual, k);
+                if (!visitados.get(vecino) && !almacen.esBacteria(vecino)) {
+                    visitados.set(vecino);
+                    padres[vecino] = actual;
+                    cola.agregar(vecino);
                 }
             }
         }
 
-        if (nodoOrigenEncontrado == null) return null;
+        if (nodoOrigenEncontrado == -1) return null;
 
-        // Reconstruir la ruta al revés
-        List<Nodo> ruta = new LinkedList<>();
-        Nodo paso = destino;
-        while (paso != null && padres.containsKey(paso)) {
-            ruta.add(0, paso); // Agrega al inicio
-            paso = padres.get(paso);
+        // Recorrer desde el origen encontrado hasta el destino siguiendo los padres del BFS
+        List<Nodo> ruta = new ArrayList<>();
+        for (int paso = nodoOrigenEncontrado; paso != -1; paso = padres[paso]) {
+            ruta.add(almacen.vista(paso));
         }
-        // Añadir el nodo DEFENSA encontrado como punto de partida
-        ruta.add(0, nodoOrigenEncontrado);
-
         return ruta;
     }
 
     /**
-     * Encuentra la ruta más corta desde el nodo inicial hasta el Núcleo usando BFS.
+     * Encuentra la ruta más corta desde el nodo inicial hasta el Núcleo.
+     * Usa el árbol BFS persistente, así que el costo es O(largo de la ruta) y no O(colonia).
      * @param inicio El nodo extractor de origen.
-     * @return Una lista de nodos que forman la ruta, incluyendo el inicio y el núcleo, o null si no hay ruta.
+     * @return Los nodos de la ruta, inmutables y en orden [inicio, ..., núcleo], o null si no hay ruta.
+     *         Se recorren en orden; no hay acceso por índice (las rutas comparten su tramo final).
      */
-    public List<Nodo> encontrarRutaAlNucleo(Nodo inicio) {
-        if (inicio == nucleo) return List.of(nucleo);
-
-        // Almacena el nodo previo en la ruta para reconstruirla
-        Map<Nodo, Nodo> padres = new HashMap<>();
-        Queue<Nodo> cola = new LinkedList<>();
-        Set<Nodo> visitados = new HashSet<>();
-
-        cola.add(inicio);
-        visitados.add(inicio);
-
-        while (!cola.isEmpty()) {
-            Nodo actual = cola.poll();
-
-            if (actual == nucleo) {
-                // Reconstruir y retornar la ruta
-                List<Nodo> ruta = new LinkedList<>();
-                Nodo paso = nucleo;
-                while (paso != null) {
-                    ruta.add(0, paso); // Añadir al inicio para invertir la ruta
-                    paso = padres.get(paso);
-                }
-                return ruta;
-            }
+    public Collection<Nodo> encontrarRutaAlNucleo(Nodo inicio) {
+        return rutaAlNucleo(inicio.getId());
+    }
 
-            for (Nodo vecino : actual.getVecinos()) {
-                if (!visitados.contains(vecino)) {
-                    visitados.add(vecino);
-                    padres.put(vecino, actual);
-                    cola.add(vecino);
-                }
-            }
-        }
-        return null; // No se encontró ruta
+    private Collection<Nodo> rutaAlNucleo(int inicio) {
+        if (inicio == idNucleo) return List.of(nucleo);
+        return arbolRutasNucleo.rutaHaciaRaiz(inicio);
     }
 
-    // Recalcula la capacidad de almacenamiento global sumando la capacidad de todos los nodos.
-    private void recalcularCapacidadTotal() {
-        this.capacidadNutrienteTotal = 0;
-        for (Nodo nodo : nodosColonia) {
-            if (nodo.getTipo() == TipoNodo.NUCLEO || nodo.getTipo() == TipoNodo.ALMACENAMIENTO) {
-                this.capacidadNutrienteTotal += nodo.getTipo().getCapacidadNutriente();
-            }
-        }
+    // False para los nodos bacteria y para los que una bacteria dejó sin camino al núcleo
+    public boolean estaConectadoAlNucleo(Nodo nodo) {
+        return arbolRutasNucleo.estaConectado(nodo.getId());
+    }
+
+    /**
+     * Nodos sanos con hifas que no tienen camino al núcleo porque bacterias cortaron la colonia.
+     * Se actualiza en el mismo tick en que se transforman los nodos; es de solo lectura.
+     */
+    public ConjuntoIndexado getNodosAislados() {
+        return arbolRutasNucleo.getAislados();
+    }
+
+    /**
+     * Nutrientes por tick que llegaron al núcleo en el último tick: el flujo máximo desde los
+     * extractores, limitado por la capacidad de las hifas. Nunca supera la producción de los extractores.
+     */
+    public double getProduccionEntregada() {
+        return flujoNutrientes.getTotal();
     }
 
+    // Flujo de nutrientes por la hifa en el último tick: positivo si va de extremoA a extremoB
+    public double getFlujoNutrientes(int arista) {
+        return flujoNutrientes.getFlujo(arista);
+    }
+
+    /**
+     * Empieza a registrar lo que la vista necesita recibir (ver HiloSimulacion): nodos con
+     * infección o bacteria cambiadas e hifas con otro flujo. Lo que ya difiere del estado
+     * de un nodo o una hifa recién construidos queda marcado.
+     */
+    void seguirCambiosVista() {
+        almacen.seguirCambiosVista();
+        flujoNutrientes.seguirCambios();
+    }
+
+    ListaEnteros getNodosCambiadosVista() {
+        return almacen.getIdsCambiadosVista();
+    }
+
+    ListaEnteros getAristasCambiadasVista() {
+        return flujoNutrientes.getCambiadas();
+    }
+
+    void limpiarCambiosVista() {
+        almacen.limpiarCambiosVista();
+        flujoNutrientes.limpiarCambios();
+    }
+
+    /**
+     * Fase de recursos del tick. Entra lo que el flujo máximo lleva hasta el núcleo, que solo se
+     * vuelve a resolver si la red cambió; las tasas de defensa ya están sumadas por tipo.
+     * Con oyente se recorren los extractores para emitir sus partículas.
+     */
     public void actualizarRecursos() {
+        double capacidad = economia.getCapacidadTotal();
         double extraccionNeta = 0.0;
-        double produccionDefensaNeta = 0.0; // Lo mantenemos por claridad
-
-        for (Nodo nodo : nodosColonia) {
-            if (nodo.getSalud() > 0) {
-                if (nodo.getTipo() == TipoNodo.EXTRACTOR) {
-
-                    // **LÓGICA DE PAUSA: SOLO EXTRAER SI HAY ESPACIO**
-                    if (this.nutrientesTotales < this.capacidadNutrienteTotal) {
-
-                        // 1. EXTRAER (SOLO si no está lleno)
-                        extraccionNeta += nodo.getTasaProduccion();
-
-                        // 2. CREAR PARTÍCULA (SOLO si no está lleno)
-                        if (panelJuegoFX != null) {
-                            List<Nodo> rutaRecorrido = encontrarRutaAlNucleo(nodo);
-                            if (rutaRecorrido != null && rutaRecorrido.size() > 1) {
-                                panelJuegoFX.crearParticula(
-                                        nodo.getX(), nodo.getY(),
-                                        rutaRecorrido,
-                                        TipoRecurso.NUTRIENTE
-                                );
-                            }
-                        }
-                    }
-                    // Ya no hay 'else' ni código fuera de este 'if' para los extractores
-                } else if (nodo.getTipo() == TipoNodo.DEFENSA) {
-                    produccionDefensaNeta += nodo.getTasaDefensa();
-                }
+        double entregado = flujoNutrientes.actualizar();
+
+        // **LÓGICA DE PAUSA: SOLO EXTRAER SI HAY ESPACIO**
+        if (this.nutrientesTotales < capacidad) {
+
+            // 1. EXTRAER (SOLO si no está lleno)
+            extraccionNeta = entregado;
+
+            // 2. CREAR PARTÍCULA (SOLO si no está lleno)
+            if (oyente != null) {
+                emitirParticulasNutriente();
             }
         }
+        double produccionDefensaNeta = economia.getProduccion(TipoNodo.DEFENSA);
 
         double nuevoTotal = this.nutrientesTotales + extraccionNeta;
-        this.nutrientesTotales = Math.min(nuevoTotal, this.capacidadNutrienteTotal);
-
-        // Si hubo exceso, puedes imprimir un mensaje:
-        if (nuevoTotal > this.capacidadNutrienteTotal) {
-            System.out.println("Almacenamiento lleno. Exceso de " + (nuevoTotal - this.capacidadNutrienteTotal) + " perdido.");
+        this.nutrientesTotales = Math.min(nuevoTotal, capacidad);
+
+        // Exceso perdido: se repite en cada tick mientras el almacenamiento siga lleno
+        if (nuevoTotal > capacidad) {
+            RegistroEventos registro = RegistroEventos.global();
+            if (registro.admite(RegistroEventos.Nivel.DEPURACION, RegistroEventos.Categoria.RECURSOS)) {
+                registro.publicar(RegistroEventos.Nivel.DEPURACION, RegistroEventos.Categoria.RECURSOS,
+                        "Almacenamiento lleno. Exceso de " + (nuevoTotal - capacidad) + " perdido.");
+            }
         }
 
         double nuevoTotalDefensa = this.defensasTotales + produccionDefensaNeta;
-        this.defensasTotales = Math.min(nuevoTotalDefensa, Configuracion.CAPACIDAD_MAXIMA_DEFENSA);
+        this.defensasTotales = Math.min(nuevoTotalDefensa, parametros.getCapacidadMaximaDefensa());
 
     }
 
+    // Una partícula por extractor vivo, desde el extractor hasta el núcleo
+    private void emitirParticulasNutriente() {
+        ListaEnteros extractores = almacen.getIdsPorTipo(TipoNodo.EXTRACTOR);
+        for (int i = 0; i < extractores.size(); i++) {
+            int id = extractores.get(i);
+            if (almacen.esBacteria(id)) {
+                continue;
+            }
+            Collection<Nodo> rutaRecorrido = rutaAlNucleo(id);
+            if (rutaRecorrido != null && rutaRecorrido.size() > 1) {
+                particulasEmitidas++;
+                oyente.particulaCreada(
+                        almacen.getX(id), almacen.getY(id),
+                        rutaRecorrido,
+                        TipoRecurso.NUTRIENTE
+                );
+            }
+        }
+    }
+
     public void actualizarInfeccionYCombate(
             double factorPropagacion,
             double factorDano,
@@ -270,129 +545,194 @@ public class GrafoColonia {
         if (gameOver) return;
         contadorPropagacion++;
         boolean esMomentoDePropagar = (contadorPropagacion >= FRECUENCIA_PROPAGACION);
-        Set<Nodo> nuevosInfectados = new HashSet<>();
+        nuevosInfectados.limpiar();
+        nuevosAislados.limpiar();
 
-        for (Nodo nodoInfectado : nodosInfectados) {
-            // 1. Infligir daño al nodo
-            if (!nodoInfectado.esBacteriaCompletada()) {
-                nodoInfectado.recibirDano(factorDano);
-            }
-
-            // Logica de defensa
-            if (!nodoInfectado.esBacteriaCompletada() && this.defensasTotales >= costoDefensa) {
+        int cantidadInfectados = nodosInfectados.size();
+        faseCombate.preparar(cantidadInfectados);
 
+        // Logica de defensa: el presupuesto alcanza a los primeros infectados (no bacteria) de la lista,
+        // que está en orden de infección.
+        // Se reparte antes del cálculo para que el resultado no dependa del orden de los hilos.
+        for (int i = 0; i < cantidadInfectados && this.defensasTotales >= costoDefensa; i++) {
+            if (!almacen.esBacteria(nodosInfectados.get(i))) {
                 this.defensasTotales -= costoDefensa;
-                nodoInfectado.setNivelInfeccion(
-                        Math.max(0, nodoInfectado.getNivelInfeccion() - Configuracion.TASA_SANACION_INFECCION)
-                );
-
-                if (panelJuegoFX != null) {
-
-                    // 1. **DECLARACIÓN** de la ruta (fuera de los ifs anidados)
-                    List<Nodo> rutaDefensa = encontrarRutaDesdeTipo(nodoInfectado, TipoNodo.DEFENSA);
-
-                    // 2. Lógica de Respaldo: Si no se encuentra DEFENSA (ruta == null)
-                    if (rutaDefensa == null || rutaDefensa.size() < 2) {
-
-                        // Usar el NÚCLEO como origen de respaldo
-                        List<Nodo> rutaInversa = encontrarRutaAlNucleo(nodoInfectado);
-
-                        if (rutaInversa != null && rutaInversa.size() > 1) {
-                            rutaDefensa = new ArrayList<>(rutaInversa);
-                            Collections.reverse(rutaDefensa); // [Nucleo, ..., Infectado]
-                        } else {
-                            rutaDefensa = null; // No hay ruta de conexión
-                        }
-                    }
+                faseCombate.marcarCurado(i);
+            }
+        }
 
-                    // 3. Si finalmente tenemos una ruta válida (desde DEFENSA o NUCLEO)
-                    if (rutaDefensa != null && rutaDefensa.size() > 1) {
-                        Nodo origenParticula = rutaDefensa.get(0);
+        // 1-4. Daño, curación, transformación y candidatos a contagio, leyendo el estado anterior
+        ForkJoinPool pool = (modoParalelo && cantidadInfectados >= MINIMO_INFECTADOS_PARALELO) ? poolParalelo : null;
+        faseCombate.calcular(nodosInfectados, cantidadInfectados, factorPropagacion, factorDano,
+                esMomentoDePropagar, aleatorio.siguienteLong(), pool);
+
+        // Volcar el estado siguiente al almacén
+        for (int i = 0; i < cantidadInfectados; i++) {
+            int infectado = nodosInfectados.get(i);
+            almacen.setSalud(infectado, faseCombate.getSaludSiguiente(i));
+            almacen.setInfeccion(infectado, faseCombate.getInfeccionSiguiente(i));
+            if (faseCombate.seTransformo(i)) {
+                setBacteria(infectado, true);
+            }
+        }
+        if (!nuevosAislados.isEmpty()) {
+            avisarNodosAislados();
+        }
 
-                        // DIAGNÓSTICO: Esto debería imprimirse si la ruta es válida
-                        System.out.println("Partícula de Defensa CREADA. Origen: " + origenParticula.getTipo() + " -> Destino: " + nodoInfectado.getTipo());
+        // Emitir los eventos en el orden de la lista, ya con el estado nuevo
+        for (int i = 0; i < cantidadInfectados; i++) {
+            int infectado = nodosInfectados.get(i);
 
-                        panelJuegoFX.crearParticula(
-                                origenParticula.getX(), origenParticula.getY(),
-                                rutaDefensa,
-                                TipoRecurso.DEFENSA
-                        );
-                    }
-                }
+            if (faseCombate.fueCurado(i) && oyente != null) {
+                emitirParticulaDefensa(infectado);
             }
+
             // 3. Lógica de Transformación:
-            if (nodoInfectado.getSalud() <= 0 && !nodoInfectado.esBacteriaCompletada()) {
-                nodoInfectado.setEsBacteriaCompletada(true);
-                nodoInfectado.setSalud(0);
-                nodoInfectado.setNivelInfeccion(1.0);
-
-                System.out.println("Nodo " + nodoInfectado.getTipo() + " se ha TRANSFORMADO en Nodo Bacteria (Salud 0).");
-                if (nodoInfectado.getTipo() == TipoNodo.NUCLEO) {
-                    System.out.println(">>> ¡DERROTA! El Núcleo se ha transformado en un Núcleo Bacterial. <<<");
+            if (faseCombate.seTransformo(i)) {
+                RegistroEventos registro = RegistroEventos.global();
+                if (registro.admite(RegistroEventos.Nivel.INFO, RegistroEventos.Categoria.COMBATE)) {
+                    registro.publicar(RegistroEventos.Nivel.INFO, RegistroEventos.Categoria.COMBATE,
+                            "Nodo " + almacen.getTipo(infectado) + " se ha TRANSFORMADO en Nodo Bacteria (Salud 0).");
+                }
+                if (oyente != null) {
+                    oyente.nodoTransformado(almacen.vista(infectado));
+                }
+                if (infectado == idNucleo) {
+                    registro.aviso(RegistroEventos.Categoria.PARTIDA, ">>> ¡DERROTA! El Núcleo se ha transformado en un Núcleo Bacterial. <<<");
                     this.gameOver = true;
                 }
             }
+        }
 
-            // 4. Propagación de la Bacteria
-            // La propagación ocurre si el nodo está infectado Y si es una Bacteria COMPLETADA
-            if (nodoInfectado.esBacteriaCompletada() || (esMomentoDePropagar && Math.random() < factorPropagacion)) {
-                for (Nodo vecino : nodoInfectado.getVecinos()) {
-                    if (vecino.getNivelInfeccion() == 0 && !vecino.esBacteriaCompletada()) {
-                        nuevosInfectados.add(vecino);
-                    }
+        // 4. Propagación: unir los candidatos de cada bloque en orden, sin repetir
+        for (int b = 0; b < faseCombate.getCantidadBloques(cantidadInfectados); b++) {
+            ListaEnteros candidatos = faseCombate.getCandidatos(b);
+            for (int k = 0; k < candidatos.size(); k++) {
+                int vecino = candidatos.get(k);
+                if (!marcados.get(vecino)) {
+                    marcados.set(vecino);
+                    nuevosInfectados.agregar(vecino);
                 }
             }
+        }
 
-            if (esMomentoDePropagar) {
-                contadorPropagacion = 0; // Resetear el contador para el siguiente ciclo de 5 segundos
-            }
+        if (esMomentoDePropagar && cantidadInfectados > 0) {
+            contadorPropagacion = 0; // Resetear el contador para el siguiente ciclo de 5 segundos
         }
 
-        if (ciclosTranscurridos >= Configuracion.CICLO_GRACIA_INICIAL) {
-            for (Nodo nodo : nodosColonia) {
+        if (ciclosTranscurridos >= parametros.getCicloGraciaInicial()) {
+            infeccionExterna();
+        }
 
-                if (nodo.getTipo() == TipoNodo.NUCLEO) {
-                    continue;
-                }
+        // 2. APLICAR NUEVAS INFECCIONES
+        for (int i = 0; i < nuevosInfectados.size(); i++) {
+            int nuevoInfectado = nuevosInfectados.get(i);
+            marcados.clear(nuevoInfectado);
+            if (!nodosInfectados.contiene(nuevoInfectado)) {
+                almacen.setInfeccion(nuevoInfectado, 0.1); // Refuerza el nivel de infección
+                nodosInfectados.agregar(nuevoInfectado);
+            }
+        }
 
-                if (nodo.getNivelInfeccion() == 0 && !nodo.esBacteriaCompletada()) {
+        // 3. VERIFICACIÓN DE FIN DE JUEGO
+        verificarGameOver();
 
-                    // B. IDENTIFICAR NODO EXTERIOR: Solo infecta nodos que tengan exactamente 1 vecino (en la periferia).
-                    // Si tienes nodos de inicio que tienen más de 1 vecino, ajusta esta condición.
-                    if (nodo.getVecinos().size() == 1) {
+        // Quitar los nodos curados en una pasada que conserva el orden de infección: el presupuesto
+        // de defensa del próximo tick sigue llegando primero a los infectados más antiguos
+        nodosInfectados.quitarSi(id -> almacen.getInfeccion(id) <= 0 && !almacen.esBacteria(id));
+    }
 
-                        // C. Aplicar la probabilidad de infección aleatoria
-                        if (Math.random() < Configuracion.PROBABILIDAD_INFECCION_EXTERNA) {
+    // Los extractores aislados dejan de entregar: el flujo máximo ya no tiene camino desde ellos
+    private void avisarNodosAislados() {
+        RegistroEventos registro = RegistroEventos.global();
+        if (!registro.admite(RegistroEventos.Nivel.AVISO, RegistroEventos.Categoria.INFECCION)) {
+            return;
+        }
+        int extractores = 0;
+        int defensas = 0;
+        for (int i = 0; i < nuevosAislados.size(); i++) {
+            int id = nuevosAislados.get(i);
+            if (almacen.esTipo(id, TipoNodo.EXTRACTOR)) {
+                extractores++;
+            } else if (almacen.esTipo(id, TipoNodo.DEFENSA)) {
+                defensas++;
+            }
+        }
+        registro.publicar(RegistroEventos.Nivel.AVISO, RegistroEventos.Categoria.INFECCION,
+                "La colonia se partió: " + nuevosAislados.size() + " nodos sin ruta al núcleo ("
+                        + extractores + " extractores, " + defensas + " defensas).");
+    }
 
-                            // 1. Aplicar la infección inicial
-                            nodo.setNivelInfeccion(0.1);
+    /**
+     * Infección externa: cada hoja sana (nodo periférico con exactamente 1 vecino) tiene
+     * PROBABILIDAD_INFECCION_EXTERNA de ser atacada, y como mucho se infecta una por tick.
+     * En vez de tirar un dado por hoja, se decide primero si hay ataque, con probabilidad
+     * 1 - (1 - p)^hojas, y luego se elige la hoja al azar en el índice de periferia: O(1).
+     */
+    private void infeccionExterna() {
+        ConjuntoIndexado periferia = almacen.getPeriferia();
+        int hojas = periferia.size();
+        if (hojas == 0) {
+            return;
+        }
+        double probabilidadAtaque = 1.0 - Math.pow(1.0 - parametros.getProbabilidadInfeccionExterna(), hojas);
+        if (aleatorio.siguienteDouble() >= probabilidadAtaque) {
+            return;
+        }
+        int id = periferia.get(aleatorio.siguienteInt(hojas));
 
-                            // 2. Añadir a la lista de seguimiento para que entre en combate/propagación en el siguiente tick
-                            nodosInfectados.add(nodo);
+        // 1. Aplicar la infección inicial (la hoja sale de la periferia)
+        almacen.setInfeccion(id, 0.1);
 
-                            System.out.println("> INFECCIÓN EXTERNA detectada en nodo "
-                                    + nodo.getTipo() + " en (" + nodo.getX() + ", " + nodo.getY() + ")");
+        // 2. Añadir a la lista de seguimiento para que entre en combate/propagación en el siguiente tick
+        nodosInfectados.agregar(id);
 
-                            // Ya encontramos un nuevo foco de infección. Podemos salir del bucle.
-                            break;
-                        }
-                    }
-                }
-            }
+        RegistroEventos registro = RegistroEventos.global();
+        if (registro.admite(RegistroEventos.Nivel.INFO, RegistroEventos.Categoria.INFECCION)) {
+            registro.publicar(RegistroEventos.Nivel.INFO, RegistroEventos.Categoria.INFECCION, "> INFECCIÓN EXTERNA detectada en nodo "
+                    + almacen.getTipo(id) + " en (" + almacen.getX(id) + ", " + almacen.getY(id) + ")");
         }
+        if (oyente != null) {
+            oyente.infeccionIniciada(almacen.vista(id));
+        }
+    }
 
-        // 2. APLICAR NUEVAS INFECCIONES
-        for (Nodo nuevoInfectado : nuevosInfectados) {
-            if (!nodosInfectados.contains(nuevoInfectado)) {
-                nuevoInfectado.setNivelInfeccion(0.1); // Refuerza el nivel de infección
-                nodosInfectados.add(nuevoInfectado);
+    // Envía una partícula de defensa al nodo curado: desde la DEFENSA más cercana o, si no hay, desde el núcleo
+    private void emitirParticulaDefensa(int infectado) {
+        // 1. **DECLARACIÓN** de la ruta (fuera de los ifs anidados)
+        List<Nodo> rutaDefensa = encontrarRutaDesdeDefensa(infectado);
+
+        // 2. Lógica de Respaldo: Si no se encuentra DEFENSA (ruta == null)
+        if (rutaDefensa == null || rutaDefensa.size() < 2) {
+
+            // Usar el NÚCLEO como origen de respaldo
+            Collection<Nodo> rutaInversa = rutaAlNucleo(infectado);
+
+            if (rutaInversa != null && rutaInversa.size() > 1) {
+                rutaDefensa = new ArrayList<>(rutaInversa);
+                Collections.reverse(rutaDefensa); // [Nucleo, ..., Infectado]
+            } else {
+                rutaDefensa = null; // No hay ruta de conexión
             }
         }
 
-        // 3. VERIFICACIÓN DE FIN DE JUEGO
-        verificarGameOver();
+        // 3. Si finalmente tenemos una ruta válida (desde DEFENSA o NUCLEO)
+        if (rutaDefensa != null && rutaDefensa.size() > 1) {
+            Nodo origenParticula = rutaDefensa.get(0);
+
+            RegistroEventos registro = RegistroEventos.global();
+            if (registro.admite(RegistroEventos.Nivel.DEPURACION, RegistroEventos.Categoria.PARTICULAS)) {
+                registro.publicar(RegistroEventos.Nivel.DEPURACION, RegistroEventos.Categoria.PARTICULAS,
+                        "Partícula de Defensa CREADA. Origen: " + origenParticula.getTipo() + " -> Destino: " + almacen.getTipo(infectado));
+            }
 
-        nodosInfectados.removeIf(nodo -> nodo.getNivelInfeccion() <= 0 && !nodo.esBacteriaCompletada());
+            particulasEmitidas++;
+            oyente.particulaCreada(
+                    origenParticula.getX(), origenParticula.getY(),
+                    rutaDefensa,
+                    TipoRecurso.DEFENSA
+            );
+        }
     }
 
     public boolean isGameOver() {
@@ -400,9 +740,12 @@ public class GrafoColonia {
     }
 
     private void verificarGameOver() {
-        if (nucleo.esBacteriaCompletada()) {
+        if (almacen.esBacteria(idNucleo)) {
             this.gameOver = true;
         }
+        if (gameOver && oyente != null) {
+            oyente.partidaTerminada();
+        }
     }
 
     public void iniciarPrimeraInfeccion() {
@@ -415,31 +758,31 @@ public class GrafoColonia {
             return;
         }
 
-        // 1. Crear una lista de candidatos (todos los nodos EXCEPTO el núcleo)
-        List<Nodo> candidatos = new ArrayList<>();
-        for (Nodo nodo : nodosColonia) {
-            if (nodo.getTipo() != TipoNodo.NUCLEO) {
-                candidatos.add(nodo);
-            }
-        }
+        // 1. Los candidatos son todos los nodos EXCEPTO el núcleo (id 0): ids 1..cantidad-1
+        int candidatos = almacen.getCantidad() - 1;
 
         // 2. Verificar si hay nodos para infectar
-        if (candidatos.isEmpty()) {
+        if (candidatos <= 0) {
             // La colonia aún no se ha expandido, la infección debe esperar.
             return;
         }
 
         // 3. Elegir un nodo de expansión aleatorio para el punto inicial de infección
-        Random random = new Random();
-        Nodo nodoInicial = candidatos.get(random.nextInt(candidatos.size()));
+        int nodoInicial = 1 + aleatorio.siguienteInt(candidatos);
 
-        System.out.println("--- ¡ALERTA! Infección PERIFÉRICA iniciada en nodo "
-                + nodoInicial.getTipo() + " en ("
-                + nodoInicial.getX() + ", " + nodoInicial.getY() + ") ---");
+        RegistroEventos registro = RegistroEventos.global();
+        if (registro.admite(RegistroEventos.Nivel.INFO, RegistroEventos.Categoria.INFECCION)) {
+            registro.publicar(RegistroEventos.Nivel.INFO, RegistroEventos.Categoria.INFECCION,
+                    "--- ¡ALERTA! Infección PERIFÉRICA iniciada en nodo " + almacen.getTipo(nodoInicial) + " en ("
+                            + almacen.getX(nodoInicial) + ", " + almacen.getY(nodoInicial) + ") ---");
+        }
 
         // 4. Aplicar la infección y añadirlo a la lista de seguimiento
-        nodoInicial.setNivelInfeccion(0.1);
-        nodosInfectados.add(nodoInicial);
+        almacen.setInfeccion(nodoInicial, 0.1);
+        nodosInfectados.agregar(nodoInicial);
+        if (oyente != null) {
+            oyente.infeccionIniciada(almacen.vista(nodoInicial));
+        }
 
         this.infeccionInicialActivada = true;
     }
@@ -447,10 +790,48 @@ public class GrafoColonia {
     //Devuelve la lista actual de nodos que se encuentran infectados por bacterias.
     //Es crucial para la lógica de inicio de infección en el Game Loop.
     public List<Nodo> getNodosInfectados() {
-        return nodosInfectados;
+        return new AbstractList<>() {
+            @Override
+            public Nodo get(int indice) {
+                return almacen.vista(nodosInfectados.get(indice));
+            }
+
+            @Override
+            public int size() {
+                return nodosInfectados.size();
+            }
+        };
     }
 
     public Nodo getNucleo() {
         return nucleo;
     }
-}
\ No newline at end of file
+
+    // Partículas enviadas al oyente desde el inicio de la partida
+    public long getParticulasEmitidas() {
+        return particulasEmitidas;
+    }
+
+    // Recorridos completos del grafo: BFS de respaldo por tipo y recálculos del campo de defensas
+    public long getBusquedasBfs() {
+        return busquedasBfs;
+    }
+
+    // --- Estado interno que se guarda en las instantáneas (ver InstantaneaColonia) ---
+
+    long getEstadoAleatorio() {
+        return aleatorio.getEstado();
+    }
+
+    int getContadorPropagacion() {
+        return contadorPropagacion;
+    }
+
+    boolean isInfeccionInicialActivada() {
+        return infeccionInicialActivada;
+    }
+
+    ConjuntoIndexado getIdsInfectados() {
+        return nodosInfectados;
+    }
+}
@@ -0,0 +1,335 @@
+package org.fungalnexus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Corre la simulación en su propio hilo, separada del hilo de JavaFX.
+ *
+ * - Las construcciones llegan por una cola sin locks (varios productores) y se aplican entre
+ *   ticks; encolar despierta al hilo, así que no esperan al tick siguiente.
+ * - Después de cada tick o construcción se publica una copia del estado en un triple búfer:
+ *   la vista toma la última cuando quiere, sin esperar ni bloquear a la simulación. La copia
+ *   solo lleva los nodos e hifas nuevos y los totales; la infección, las bacterias y el flujo
+ *   que cambiaron van en una cola de lotes (CambiosVista), uno por publicación, que la vista
+ *   aplica en orden aunque se haya salteado estados. Publicar cuesta lo que cambió, no la colonia.
+ * - Las partículas que emite el grafo se pasan por otra cola, como ids de nodos, marcadas con
+ *   el número de la publicación que las incluye (para no dibujar nodos que la vista aún no tiene).
+ *   Los nutrientes (una partícula por extractor y tick) se muestrean antes de copiar la ruta:
+ *   entre dos publicaciones se guardan solo referencias a las rutas compartidas, como mucho
+ *   tantas como la vista pueda mostrar (setCupoParticulas), elegidas al azar entre todas.
+ *
+ * Un tick lento solo retrasa al siguiente tick; la vista sigue a su ritmo.
+ */
+public class HiloSimulacion implements OyenteSimulacion {
+
+    // Un recurso en viaje, listo para que la vista cree su partícula
+    public static final class EventoParticula {
+        private final long secuencia;
+        private final double origenX;
+        private final double origenY;
+        private final int[] ruta;
+        private final TipoRecurso tipo;
+
+        EventoParticula(long secuencia, double origenX, double origenY, int[] ruta, TipoRecurso tipo) {
+            this.secuencia = secuencia;
+            this.origenX = origenX;
+            this.origenY = origenY;
+            this.ruta = ruta;
+            this.tipo = tipo;
+        }
+
+        public double getOrigenX() {
+            return origenX;
+        }
+
+        public double getOrigenY() {
+            return origenY;
+        }
+
+        // Ids de los nodos de la ruta [origen, ..., destino]
+        public int[] getRuta() {
+            return ruta;
+        }
+
+        public TipoRecurso getTipo() {
+            return tipo;
+        }
+    }
+
+    /**
+     * Lo que cambió entre dos publicaciones: infección y bacteria de nodos y flujo de hifas,
+     * con los valores al momento de publicar. Aplicados en orden, dejan la réplica igual que
+     * la colonia en la publicación 'secuencia'.
+     */
+    public static final class CambiosVista {
+        private final long secuencia;
+        private final int[] nodos;
+        private final float[] infeccion;
+        private final boolean[] bacteria;
+        private final int[] aristas;
+        private final float[] flujoNutrientes;
+
+        CambiosVista(long secuencia, GrafoColonia grafo) {
+            this.secuencia = secuencia;
+            AlmacenNodos almacen = grafo.getAlmacen();
+            ListaEnteros ids = grafo.getNodosCambiadosVista();
+            nodos = new int[ids.size()];
+            infeccion = new float[nodos.length];
+            bacteria = new boolean[nodos.length];
+            for (int i = 0; i < nodos.length; i++) {
+                int id = ids.get(i);
+                nodos[i] = id;
+                infeccion[i] = (float) almacen.getInfeccion(id);
+                bacteria[i] = almacen.esBacteria(id);
+            }
+            ListaEnteros hifas = grafo.getAristasCambiadasVista();
+            aristas = new int[hifas.size()];
+            flujoNutrientes = new float[aristas.length];
+            for (int i = 0; i < aristas.length; i++) {
+                aristas[i] = hifas.get(i);
+                flujoNutrientes[i] = (float) grafo.getFlujoNutrientes(aristas[i]);
+            }
+        }
+
+        public int getCantidadNodos() {
+            return nodos.length;
+        }
+
+        public int getNodo(int i) {
+            return nodos[i];
+        }
+
+        public float getInfeccion(int i) {
+            return infeccion[i];
+        }
+
+        public boolean esBacteria(int i) {
+            return bacteria[i];
+        }
+
+        public int getCantidadAristas() {
+            return aristas.length;
+        }
+
+        public int getArista(int i) {
+            return aristas[i];
+        }
+
+        // Nutrientes por tick por la hifa: positivo de extremoA a extremoB
+        public float getFlujoNutrientes(int i) {
+            return flujoNutrientes[i];
+        }
+    }
+
+    private static final class ComandoConstruir {
+        final int x;
+        final int y;
+        final TipoNodo tipo;
+
+        ComandoConstruir(int x, int y, TipoNodo tipo) {
+            this.x = x;
+            this.y = y;
+            this.tipo = tipo;
+        }
+    }
+
+    // Nutriente candidato a partícula; la ruta es la compartida del árbol, todavía sin copiar
+    private static final class Candidata {
+        final double origenX;
+        final double origenY;
+        final Collection<Nodo> ruta;
+
+        Candidata(double origenX, double origenY, Collection<Nodo> ruta) {
+            this.origenX = origenX;
+            this.origenY = origenY;
+            this.ruta = ruta;
+        }
+    }
+
+    private final MotorSimulacion motor;
+    private final long intervaloTickNanos;
+    private final AutoGuardado autoGuardado; // Puede ser null
+
+    private final ConcurrentLinkedQueue<ComandoConstruir> comandos = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<EventoParticula> particulas = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<CambiosVista> cambios = new ConcurrentLinkedQueue<>();
+    private final TripleBufer<EstadoVista> estados = new TripleBufer<>(EstadoVista::new);
+
+    private long secuencia = 0; // Publicaciones hechas; solo lo toca el hilo de simulación
+
+    // Muestra uniforme (reservoir sampling) de los nutrientes desde la última publicación
+    private volatile int cupoParticulas = SistemaParticulas.PRESUPUESTO_POR_DEFECTO;
+    private final ArrayList<Candidata> muestra = new ArrayList<>();
+    private int cupoMuestra = cupoParticulas;
+    private int ofrecidas = 0;
+    // Azar propio: no toca el generador de la simulación
+    private final Aleatorio aleatorio = new Aleatorio(0x51A7_C0DEL);
+    private final Thread hilo;
+    private volatile boolean detenido = false;
+
+    public HiloSimulacion(MotorSimulacion motor, long intervaloTickNanos, AutoGuardado autoGuardado) {
+        this.motor = motor;
+        this.intervaloTickNanos = intervaloTickNanos;
+        this.autoGuardado = autoGuardado;
+        this.hilo = new Thread(this::ejecutar, "simulacion");
+        this.hilo.setDaemon(true);
+        motor.getGrafoColonia().setOyente(this);
+        // Desde aquí se registra lo que cambia; lo que ya cambió sale con la primera publicación
+        motor.getGrafoColonia().seguirCambiosVista();
+    }
+
+    /**
+     * Publica el estado inicial (ya visible al volver) y arranca el hilo.
+     */
+    public void iniciar() {
+        publicar();
+        hilo.start();
+    }
+
+    /**
+     * Detiene el hilo y espera a que termine el tick en curso. Después de esto el motor
+     * se puede usar desde el hilo que llama (p. ej. para cerrar el diario).
+     */
+    public void detener() {
+        detenido = true;
+        LockSupport.unpark(hilo);
+        try {
+            hilo.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Desde cualquier hilo ---
+
+    public void encolarConstruccion(int x, int y, TipoNodo tipo) {
+        comandos.offer(new ComandoConstruir(x, y, tipo));
+        LockSupport.unpark(hilo);
+    }
+
+    // --- Desde el hilo de la vista ---
+
+    // Cuántas partículas de nutrientes más puede mostrar la vista; rige desde la próxima publicación
+    public void setCupoParticulas(int cupo) {
+        this.cupoParticulas = Math.max(0, cupo);
+    }
+
+    // El último estado publicado que la vista todavía no tomó, o null
+    public EstadoVista tomarEstadoNuevo() {
+        return estados.tomarNuevo();
+    }
+
+    // El próximo lote de cambios incluido en el estado (o en uno anterior), o null. Se aplican todos, en orden
+    public CambiosVista siguientesCambios(EstadoVista estado) {
+        CambiosVista lote = cambios.peek();
+        if (lote == null || lote.secuencia > estado.getSecuencia()) {
+            return null;
+        }
+        return cambios.poll();
+    }
+
+    // La próxima partícula ya incluida en el estado 'secuencia' (o uno anterior), o null
+    public EventoParticula siguienteParticula(EstadoVista estado) {
+        EventoParticula evento = particulas.peek();
+        if (evento == null || evento.secuencia > estado.getSecuencia()) {
+            return null;
+        }
+        return particulas.poll();
+    }
+
+    // --- Hilo de simulación ---
+
+    @Override
+    public void particulaCreada(double origenX, double origenY, Collection<Nodo> ruta, TipoRecurso tipo) {
+        if (tipo == TipoRecurso.DEFENSA) {
+            // Pocas por tick (las limita el presupuesto de defensa) y la vista cuenta todas: sale entera
+            particulas.offer(new EventoParticula(secuencia + 1, origenX, origenY, copiarIds(ruta), tipo));
+            return;
+        }
+        // La i-ésima ofrecida reemplaza a una de la muestra con probabilidad cupo / i
+        ofrecidas++;
+        if (muestra.size() < cupoMuestra) {
+            muestra.add(new Candidata(origenX, origenY, ruta));
+        } else if (cupoMuestra > 0) {
+            int posicion = aleatorio.siguienteInt(ofrecidas);
+            if (posicion < cupoMuestra) {
+                muestra.set(posicion, new Candidata(origenX, origenY, ruta));
+            }
+        }
+    }
+
+    private static int[] copiarIds(Collection<Nodo> ruta) {
+        int[] ids = new int[ruta.size()];
+        int i = 0;
+        for (Nodo nodo : ruta) {
+            ids[i++] = nodo.getId();
+        }
+        return ids;
+    }
+
+    private void ejecutar() {
+        long proximoTick = System.nanoTime();
+        try {
+            while (!detenido && !motor.getGrafoColonia().isGameOver()) {
+                boolean cambios = aplicarComandos();
+
+                long ahora = System.nanoTime();
+                if (ahora - proximoTick >= 0) {
+                    motor.tick();
+                    if (autoGuardado != null) {
+                        autoGuardado.despuesDelTick(motor);
+                    }
+                    // Si el tick tardó más que el intervalo no se acumulan ticks atrasados
+                    proximoTick = Math.max(proximoTick + intervaloTickNanos, System.nanoTime());
+                    cambios = true;
+                }
+                if (cambios) {
+                    publicar();
+                }
+                LockSupport.parkNanos(this, proximoTick - System.nanoTime());
+            }
+        } catch (RuntimeException e) {
+            RegistroEventos.global().error(RegistroEventos.Categoria.SISTEMA, "La simulación se detuvo por un error: " + e);
+            throw e;
+        }
+    }
+
+    private boolean aplicarComandos() {
+        boolean aplicados = false;
+        ComandoConstruir comando;
+        while ((comando = comandos.poll()) != null) {
+            if (motor.getGrafoColonia().isGameOver()) {
+                continue;
+            }
+            if (motor.construir(comando.x, comando.y, comando.tipo) == null) {
+                RegistroEventos.global().info(RegistroEventos.Categoria.CONSTRUCCION,
+                        "No se puede construir. Nutrientes insuficientes o celda ocupada.");
+            }
+            aplicados = true;
+        }
+        return aplicados;
+    }
+
+    private void publicar() {
+        secuencia++;
+        GrafoColonia grafo = motor.getGrafoColonia();
+        if (!grafo.getNodosCambiadosVista().isEmpty() || !grafo.getAristasCambiadasVista().isEmpty()) {
+            cambios.offer(new CambiosVista(secuencia, grafo));
+            grafo.limpiarCambiosVista();
+        }
+        // Solo las rutas de la muestra se copian: el costo sigue al cupo y no a la colonia
+        for (int i = 0; i < muestra.size(); i++) {
+            Candidata candidata = muestra.get(i);
+            particulas.offer(new EventoParticula(secuencia, candidata.origenX, candidata.origenY,
+                    copiarIds(candidata.ruta), TipoRecurso.NUTRIENTE));
+        }
+        muestra.clear();
+        ofrecidas = 0;
+        cupoMuestra = cupoParticulas;
+        estados.paraEscribir().capturar(motor, secuencia);
+        estados.publicar();
+    }
+}
@@ -0,0 +1,167 @@
+package org.fungalnexus;
+
+/**
+ * Índice espacial de grilla uniforme: cada celda de Configuracion.GRID_SIZE píxeles
+ * guarda como máximo un nodo (su id en AlmacenNodos).
+ *
+ * Permite saber en O(1) si una celda está ocupada y buscar el nodo más cercano
+ * expandiendo anillos de celdas alrededor del punto, en lugar de recorrer toda la colonia.
+ */
+public class IndiceEspacial {
+
+    public static final int SIN_NODO = -1;
+
+    private final AlmacenNodos almacen;
+    private final int tamanoCelda;
+    private final MapaLongEntero celdas;
+
+    // Rectángulo (en celdas) que contiene a todos los nodos, para acotar la búsqueda por anillos
+    private int minCeldaX = Integer.MAX_VALUE;
+    private int minCeldaY = Integer.MAX_VALUE;
+    private int maxCeldaX = Integer.MIN_VALUE;
+    private int maxCeldaY = Integer.MIN_VALUE;
+
+    public IndiceEspacial(AlmacenNodos almacen) {
+        this(almacen, Configuracion.GRID_SIZE);
+    }
+
+    public IndiceEspacial(AlmacenNodos almacen, int tamanoCelda) {
+        this(almacen, tamanoCelda, 64);
+    }
+
+    // Con la cantidad de nodos esperada, para indexar una colonia grande sin rehashes intermedios
+    public IndiceEspacial(AlmacenNodos almacen, int tamanoCelda, int nodosEsperados) {
+        this.almacen = almacen;
+        this.tamanoCelda = tamanoCelda;
+        this.celdas = new MapaLongEntero(nodosEsperados * 2); // El mapa se mantiene a media carga
+    }
+
+    /**
+     * Registra el nodo en la celda que contiene su posición.
+     * @return false si la celda ya estaba ocupada (el nodo no se agrega).
+     */
+    public boolean agregar(int id) {
+        int celdaX = celda(almacen.getX(id));
+        int celdaY = celda(almacen.getY(id));
+        if (celdas.putSiAusente(clave(celdaX, celdaY), id) != MapaLongEntero.AUSENTE) {
+            return false;
+        }
+        minCeldaX = Math.min(minCeldaX, celdaX);
+        minCeldaY = Math.min(minCeldaY, celdaY);
+        maxCeldaX = Math.max(maxCeldaX, celdaX);
+        maxCeldaY = Math.max(maxCeldaY, celdaY);
+        return true;
+    }
+
+    public boolean estaOcupada(int x, int y) {
+        return celdas.contiene(clave(celda(x), celda(y)));
+    }
+
+    // Id del nodo que ocupa la celda del punto, o SIN_NODO
+    public int obtener(int x, int y) {
+        return celdas.get(clave(celda(x), celda(y)));
+    }
+
+    public int size() {
+        return celdas.size();
+    }
+
+    /**
+     * Busca el id del nodo más cercano (distancia euclidiana) al punto dado, o SIN_NODO.
+     * Recorre anillos de celdas de radio creciente y se detiene cuando ningún anillo
+     * restante puede contener un nodo más cercano que el mejor encontrado.
+     */
+    public int masCercano(int x, int y) {
+        if (celdas.isEmpty()) {
+            return SIN_NODO;
+        }
+
+        int centroX = celda(x);
+        int centroY = celda(y);
+
+        // Primer anillo que toca el rectángulo ocupado, y último anillo que aún lo toca
+        int radioInicial = Math.max(
+                Math.max(minCeldaX - centroX, centroX - maxCeldaX),
+                Math.max(minCeldaY - centroY, centroY - maxCeldaY));
+        radioInicial = Math.max(0, radioInicial);
+        int radioFinal = Math.max(
+                Math.max(centroX - minCeldaX, maxCeldaX - centroX),
+                Math.max(centroY - minCeldaY, maxCeldaY - centroY));
+
+        int masCercano = SIN_NODO;
+        long menorDistancia = Long.MAX_VALUE;
+
+        for (int radio = radioInicial; radio <= radioFinal; radio++) {
+            // Cualquier celda del anillo está al menos (radio - 1) celdas completas de distancia
+            long cotaInferior = (long) Math.max(0, radio - 1) * tamanoCelda;
+            if (masCercano != SIN_NODO && cotaInferior * cotaInferior >= menorDistancia) {
+                break;
+            }
+
+            int desdeX = Math.max(centroX - radio, minCeldaX);
+            int hastaX = Math.min(centroX + radio, maxCeldaX);
+            int desdeY = Math.max(centroY - radio, minCeldaY);
+            int hastaY = Math.min(centroY + radio, maxCeldaY);
+
+            for (int celdaY = desdeY; celdaY <= hastaY; celdaY++) {
+                boolean filaBorde = celdaY == centroY - radio || celdaY == centroY + radio;
+                // En las filas intermedias solo se visitan las dos columnas del borde del anillo
+                int paso = filaBorde ? 1 : 2 * radio;
+                int inicioX = filaBorde ? desdeX : centroX - radio;
+                for (int celdaX = inicioX; celdaX <= hastaX; celdaX += Math.max(1, paso)) {
+                    if (celdaX < desdeX) {
+                        continue;
+                    }
+                    int candidato = celdas.get(clave(celdaX, celdaY));
+                    if (candidato != SIN_NODO) {
+                        long dx = almacen.getX(candidato) - x;
+                        long dy = almacen.getY(candidato) - y;
+                        long distancia = dx * dx + dy * dy;
+                        if (distancia < menorDistancia) {
+                            menorDistancia = distancia;
+                            masCercano = candidato;
+                        }
+                    }
+                }
+            }
+        }
+        return masCercano;
+    }
+
+    /**
+     * Agrega a 'salida' los ids de los nodos cuya posición cae dentro del rectángulo (bordes incluidos).
+     * Recorre solo las celdas del rectángulo que tocan la zona ocupada: el costo depende del área
+     * consultada, no del tamaño de la colonia.
+     */
+    public void consultarRectangulo(int minX, int minY, int maxX, int maxY, ListaEnteros salida) {
+        if (celdas.isEmpty() || minX > maxX || minY > maxY) {
+            return;
+        }
+        int desdeX = Math.max(celda(minX), minCeldaX);
+        int hastaX = Math.min(celda(maxX), maxCeldaX);
+        int desdeY = Math.max(celda(minY), minCeldaY);
+        int hastaY = Math.min(celda(maxY), maxCeldaY);
+
+        for (int celdaY = desdeY; celdaY <= hastaY; celdaY++) {
+            for (int celdaX = desdeX; celdaX <= hastaX; celdaX++) {
+                int id = celdas.get(clave(celdaX, celdaY));
+                if (id != SIN_NODO) {
+                    int x = almacen.getX(id);
+                    int y = almacen.getY(id);
+                    // Las celdas del borde pueden tener el nodo justo fuera del rectángulo
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        salida.agregar(id);
+                    }
+                }
+            }
+        }
+    }
+
+    private int celda(int coordenada) {
+        return Math.floorDiv(coordenada, tamanoCelda);
+    }
+
+    private static long clave(int celdaX, int celdaY) {
+        return ((long) celdaX << 32) | (celdaY & 0xFFFFFFFFL);
+    }
+}
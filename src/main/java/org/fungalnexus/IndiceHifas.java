@@ -0,0 +1,160 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Índice espacial de hifas: cada hifa se registra en todas las celdas de la grilla que cruza
+ * su segmento, así que una consulta por rectángulo la encuentra aunque sus dos extremos queden
+ * lejos de él.
+ *
+ * Cada celda guarda una lista enlazada de entradas en arreglos primitivos (la cabeza vive en
+ * un MapaLongEntero). Una hifa ocupa tantas entradas como celdas cruza: agregarla cuesta su
+ * longitud en celdas y consultar cuesta el área del rectángulo más las hifas que la tocan, sin
+ * depender de la hifa más larga de la colonia.
+ */
+public class IndiceHifas {
+
+    private static final int SIN_ENTRADA = MapaLongEntero.AUSENTE;
+
+    private final AlmacenNodos almacen;
+    private final int tamanoCelda;
+    private final MapaLongEntero primeraEntrada = new MapaLongEntero();
+
+    // Entradas: la hifa y la siguiente entrada de la misma celda
+    private int[] aristaEntrada = new int[64];
+    private int[] siguienteEntrada = new int[64];
+    private int entradas = 0;
+
+    // Marca por hifa de la última consulta que la devolvió, para no repetirla
+    private int[] marcas = new int[64];
+    private int consulta = 0;
+
+    // Rectángulo (en celdas) que contiene a todas las hifas
+    private int minCeldaX = Integer.MAX_VALUE;
+    private int minCeldaY = Integer.MAX_VALUE;
+    private int maxCeldaX = Integer.MIN_VALUE;
+    private int maxCeldaY = Integer.MIN_VALUE;
+
+    public IndiceHifas(AlmacenNodos almacen, int tamanoCelda) {
+        this.almacen = almacen;
+        this.tamanoCelda = tamanoCelda;
+    }
+
+    /**
+     * Registra la hifa en las celdas que cruza, recorriéndolas en orden a lo largo del segmento
+     * (como un rayo por una grilla). Si el segmento pasa justo por una esquina se registran
+     * también las dos celdas que la comparten.
+     */
+    public void agregar(int arista) {
+        int a = almacen.getExtremoA(arista);
+        int b = almacen.getExtremoB(arista);
+        int x0 = almacen.getX(a);
+        int y0 = almacen.getY(a);
+        int x1 = almacen.getX(b);
+        int y1 = almacen.getY(b);
+
+        int celdaX = celda(x0);
+        int celdaY = celda(y0);
+        int pasosX = Math.abs(celda(x1) - celdaX);
+        int pasosY = Math.abs(celda(y1) - celdaY);
+        int pasoX = Integer.signum(x1 - x0);
+        int pasoY = Integer.signum(y1 - y0);
+
+        // Fracción del segmento en la que se cruza el próximo borde vertical / horizontal
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double proximoX = pasoX == 0 ? Double.POSITIVE_INFINITY
+                : ((long) (pasoX > 0 ? celdaX + 1 : celdaX) * tamanoCelda - x0) / dx;
+        double proximoY = pasoY == 0 ? Double.POSITIVE_INFINITY
+                : ((long) (pasoY > 0 ? celdaY + 1 : celdaY) * tamanoCelda - y0) / dy;
+        double deltaX = pasoX == 0 ? Double.POSITIVE_INFINITY : tamanoCelda / Math.abs(dx);
+        double deltaY = pasoY == 0 ? Double.POSITIVE_INFINITY : tamanoCelda / Math.abs(dy);
+
+        registrar(arista, celdaX, celdaY);
+        while (pasosX > 0 || pasosY > 0) {
+            if (pasosY == 0 || (pasosX > 0 && proximoX < proximoY)) {
+                celdaX += pasoX;
+                proximoX += deltaX;
+                pasosX--;
+            } else if (pasosX == 0 || proximoY < proximoX) {
+                celdaY += pasoY;
+                proximoY += deltaY;
+                pasosY--;
+            } else {
+                // Por la esquina: las dos celdas vecinas la tocan
+                registrar(arista, celdaX + pasoX, celdaY);
+                registrar(arista, celdaX, celdaY + pasoY);
+                celdaX += pasoX;
+                celdaY += pasoY;
+                proximoX += deltaX;
+                proximoY += deltaY;
+                pasosX--;
+                pasosY--;
+            }
+            registrar(arista, celdaX, celdaY);
+        }
+    }
+
+    /**
+     * Agrega a 'salida' las hifas registradas en alguna celda que toca el rectángulo, cada una
+     * una sola vez. Puede incluir hifas que pasan cerca sin tocarlo; el llamador descarta las
+     * que no le sirven.
+     */
+    public void consultarRectangulo(int minX, int minY, int maxX, int maxY, ListaEnteros salida) {
+        if (entradas == 0 || minX > maxX || minY > maxY) {
+            return;
+        }
+        consulta++;
+        if (consulta == 0) {
+            // Desborde del contador: ninguna marca vieja puede coincidir con la nueva consulta
+            Arrays.fill(marcas, 0);
+            consulta = 1;
+        }
+        int desdeX = Math.max(celda(minX), minCeldaX);
+        int hastaX = Math.min(celda(maxX), maxCeldaX);
+        int desdeY = Math.max(celda(minY), minCeldaY);
+        int hastaY = Math.min(celda(maxY), maxCeldaY);
+
+        for (int celdaY = desdeY; celdaY <= hastaY; celdaY++) {
+            for (int celdaX = desdeX; celdaX <= hastaX; celdaX++) {
+                int entrada = primeraEntrada.get(clave(celdaX, celdaY));
+                while (entrada != SIN_ENTRADA) {
+                    int arista = aristaEntrada[entrada];
+                    if (marcas[arista] != consulta) {
+                        marcas[arista] = consulta;
+                        salida.agregar(arista);
+                    }
+                    entrada = siguienteEntrada[entrada];
+                }
+            }
+        }
+    }
+
+    private void registrar(int arista, int celdaX, int celdaY) {
+        if (entradas == aristaEntrada.length) {
+            aristaEntrada = Arrays.copyOf(aristaEntrada, entradas * 2);
+            siguienteEntrada = Arrays.copyOf(siguienteEntrada, entradas * 2);
+        }
+        if (arista >= marcas.length) {
+            marcas = Arrays.copyOf(marcas, Math.max(arista + 1, marcas.length * 2));
+        }
+        long clave = clave(celdaX, celdaY);
+        aristaEntrada[entradas] = arista;
+        siguienteEntrada[entradas] = primeraEntrada.get(clave);
+        primeraEntrada.put(clave, entradas);
+        entradas++;
+
+        minCeldaX = Math.min(minCeldaX, celdaX);
+        minCeldaY = Math.min(minCeldaY, celdaY);
+        maxCeldaX = Math.max(maxCeldaX, celdaX);
+        maxCeldaY = Math.max(maxCeldaY, celdaY);
+    }
+
+    private int celda(int coordenada) {
+        return Math.floorDiv(coordenada, tamanoCelda);
+    }
+
+    private static long clave(int celdaX, int celdaY) {
+        return ((long) celdaX << 32) | (celdaY & 0xFFFFFFFFL);
+    }
+}
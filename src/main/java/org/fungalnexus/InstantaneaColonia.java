@@ -0,0 +1,450 @@
+package org.fungalnexus;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Copia del estado de una partida (completa, o solo lo que cambió desde una completa)
+ * en arreglos primitivos listos para escribir en binario.
+ *
+ * Se captura en el hilo de la simulación, donde solo se copian arreglos, y se puede escribir
+ * desde otro hilo sin tocar la colonia. Formato little-endian, por columnas, para que al cargar
+ * cada campo se lea de un solo golpe desde el archivo mapeado:
+ * <pre>
+ * cabecera:  FNXS version tipo(0 completa, 1 delta) idBase tick semilla estadoAleatorio
+ *            nutrientes defensas contadorPropagacion infeccionInicial gameOver
+ *            cantidadParametros parametros[]   (por ordinal de ParametrosSimulacion.Parametro)
+ * economía:  produccion[TipoNodo] capacidad[TipoNodo] capacidadTotal
+ * nodos:     cantidadNodos registros [ids, solo en delta] x[] y[] tipo[] bacteria[] salud[] infeccion[] tasa[]
+ * aristas:   primeraArista cantidadAristas extremoA[] extremoB[]
+ * conjuntos: infectados[] periferia[]   (cada uno precedido de su tamaño, en su orden interno)
+ * </pre>
+ * Una delta lleva los nodos de la base que se modificaron, los nodos y aristas nuevos y todo
+ * el estado global, así que para cargar basta la completa y su última delta.
+ */
+final class InstantaneaColonia {
+
+    private static final int MAGIA = 0x53584E46; // "FNXS" leído en little-endian
+    private static final int VERSION = 2;
+    private static final byte COMPLETA = 0;
+    private static final byte DELTA = 1;
+    private static final TipoNodo[] TIPOS = TipoNodo.values();
+
+    // --- Cabecera ---
+    boolean esDelta;
+    long idBase; // Identifica la instantánea completa; una delta lleva el de su base
+    int tick;
+    long semilla;
+    long estadoAleatorio;
+    double nutrientes;
+    double defensas;
+    int contadorPropagacion;
+    boolean infeccionInicialActivada;
+    boolean gameOver;
+    double[] parametros; // ParametrosSimulacion por ordinal
+
+    // --- Sumas de AgregadosEconomia, por TipoNodo ---
+    double[] produccion;
+    double[] capacidad;
+    double capacidadTotal;
+
+    // --- Nodos, uno por registro ---
+    int cantidadNodos;
+    int[] ids; // null en una completa: el registro r es el nodo r
+    int[] x;
+    int[] y;
+    byte[] tipo;
+    boolean[] bacteria;
+    double[] salud;
+    double[] infeccion;
+    float[] tasa;
+
+    // --- Aristas desde primeraArista hasta cantidadAristas ---
+    int primeraArista;
+    int cantidadAristas;
+    int[] extremoA;
+    int[] extremoB;
+
+    // --- Orden interno de los conjuntos (el azar elige por posición) ---
+    int[] infectados;
+    int[] periferia;
+
+    private InstantaneaColonia() {
+    }
+
+    static InstantaneaColonia capturarCompleta(MotorSimulacion motor, long id) {
+        return capturar(motor, false, id);
+    }
+
+    // Lo modificado desde el último AlmacenNodos.fijarBase(), que corresponde a la completa 'idBase'
+    static InstantaneaColonia capturarDelta(MotorSimulacion motor, long idBase) {
+        return capturar(motor, true, idBase);
+    }
+
+    private static InstantaneaColonia capturar(MotorSimulacion motor, boolean esDelta, long idBase) {
+        GrafoColonia grafo = motor.getGrafoColonia();
+        AlmacenNodos almacen = grafo.getAlmacen();
+        InstantaneaColonia instantanea = new InstantaneaColonia();
+
+        instantanea.esDelta = esDelta;
+        instantanea.idBase = idBase;
+        instantanea.tick = motor.getCiclosTranscurridos();
+        instantanea.semilla = grafo.getSemilla();
+        instantanea.estadoAleatorio = grafo.getEstadoAleatorio();
+        instantanea.nutrientes = grafo.getNutrientesTotales();
+        instantanea.defensas = grafo.getDefensasTotales();
+        instantanea.contadorPropagacion = grafo.getContadorPropagacion();
+        instantanea.infeccionInicialActivada = grafo.isInfeccionInicialActivada();
+        instantanea.gameOver = grafo.isGameOver();
+        instantanea.parametros = grafo.getParametros().getValores();
+
+        AgregadosEconomia economia = almacen.getAgregados();
+        instantanea.produccion = new double[TIPOS.length];
+        instantanea.capacidad = new double[TIPOS.length];
+        for (TipoNodo tipoNodo : TIPOS) {
+            instantanea.produccion[tipoNodo.ordinal()] = economia.getProduccion(tipoNodo);
+            instantanea.capacidad[tipoNodo.ordinal()] = economia.getCapacidad(tipoNodo);
+        }
+        instantanea.capacidadTotal = economia.getCapacidadTotal();
+
+        int cantidad = almacen.getCantidad();
+        instantanea.cantidadNodos = cantidad;
+        int registros = cantidad;
+        if (esDelta) {
+            // Primero los modificados de la base, después los nuevos en orden de id
+            ListaEnteros modificados = almacen.getIdsModificados();
+            int primeroNuevo = almacen.getCantidadBase();
+            registros = modificados.size() + (cantidad - primeroNuevo);
+            instantanea.ids = new int[registros];
+            int r = 0;
+            for (int i = 0; i < modificados.size(); i++) {
+                instantanea.ids[r++] = modificados.get(i);
+            }
+            for (int id = primeroNuevo; id < cantidad; id++) {
+                instantanea.ids[r++] = id;
+            }
+        }
+
+        instantanea.reservarNodos(registros);
+        for (int r = 0; r < registros; r++) {
+            int id = instantanea.getId(r);
+            instantanea.x[r] = almacen.getX(id);
+            instantanea.y[r] = almacen.getY(id);
+            instantanea.tipo[r] = (byte) almacen.getTipo(id).ordinal();
+            instantanea.bacteria[r] = almacen.esBacteria(id);
+            instantanea.salud[r] = almacen.getSalud(id);
+            instantanea.infeccion[r] = almacen.getInfeccion(id);
+            instantanea.tasa[r] = (float) almacen.getTasa(id);
+        }
+
+        instantanea.primeraArista = esDelta ? almacen.getAristasBase() : 0;
+        instantanea.cantidadAristas = almacen.getCantidadAristas();
+        int aristas = instantanea.cantidadAristas - instantanea.primeraArista;
+        instantanea.extremoA = new int[aristas];
+        instantanea.extremoB = new int[aristas];
+        for (int i = 0; i < aristas; i++) {
+            instantanea.extremoA[i] = almacen.getExtremoA(instantanea.primeraArista + i);
+            instantanea.extremoB[i] = almacen.getExtremoB(instantanea.primeraArista + i);
+        }
+
+        instantanea.infectados = copiar(grafo.getIdsInfectados());
+        instantanea.periferia = copiar(almacen.getPeriferia());
+        return instantanea;
+    }
+
+    int getRegistros() {
+        return x.length;
+    }
+
+    // Id del nodo del registro r
+    int getId(int registro) {
+        return ids == null ? registro : ids[registro];
+    }
+
+    /**
+     * Escribe en un archivo temporal junto al destino y lo mueve encima al terminar,
+     * así que un corte a mitad de escritura nunca deja un archivo a medias.
+     */
+    void escribir(Path destino) throws IOException {
+        if (destino.getParent() != null) {
+            Files.createDirectories(destino.getParent());
+        }
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Escritor escritor = new Escritor(canal);
+
+            escritor.putInt(MAGIA);
+            escritor.putInt(VERSION);
+            escritor.putByte(esDelta ? DELTA : COMPLETA);
+            escritor.putLong(idBase);
+            escritor.putInt(tick);
+            escritor.putLong(semilla);
+            escritor.putLong(estadoAleatorio);
+            escritor.putDouble(nutrientes);
+            escritor.putDouble(defensas);
+            escritor.putInt(contadorPropagacion);
+            escritor.putByte((byte) (infeccionInicialActivada ? 1 : 0));
+            escritor.putByte((byte) (gameOver ? 1 : 0));
+            escritor.putInt(parametros.length);
+            escritor.putDoubles(parametros);
+
+            escritor.putDoubles(produccion);
+            escritor.putDoubles(capacidad);
+            escritor.putDouble(capacidadTotal);
+
+            escritor.putInt(cantidadNodos);
+            escritor.putInt(getRegistros());
+            if (esDelta) {
+                escritor.putInts(ids);
+            }
+            escritor.putInts(x);
+            escritor.putInts(y);
+            escritor.putBytes(tipo);
+            escritor.putBooleans(bacteria);
+            escritor.putDoubles(salud);
+            escritor.putDoubles(infeccion);
+            escritor.putFloats(tasa);
+
+            escritor.putInt(primeraArista);
+            escritor.putInt(cantidadAristas);
+            escritor.putInts(extremoA);
+            escritor.putInts(extremoB);
+
+            escritor.putInt(infectados.length);
+            escritor.putInts(infectados);
+            escritor.putInt(periferia.length);
+            escritor.putInts(periferia);
+
+            escritor.vaciar();
+            canal.force(false);
+        }
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Lee una instantánea mapeando el archivo en memoria; las columnas se copian en bloque
+     * a los arreglos, sin pasar valor por valor.
+     */
+    static InstantaneaColonia leer(Path archivo) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        try {
+            if (buffer.getInt() != MAGIA) {
+                throw new IOException("No es una partida guardada: " + archivo);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Versión de partida no soportada (" + version + "): " + archivo);
+            }
+
+            InstantaneaColonia instantanea = new InstantaneaColonia();
+            instantanea.esDelta = buffer.get() == DELTA;
+            instantanea.idBase = buffer.getLong();
+            instantanea.tick = buffer.getInt();
+            instantanea.semilla = buffer.getLong();
+            instantanea.estadoAleatorio = buffer.getLong();
+            instantanea.nutrientes = buffer.getDouble();
+            instantanea.defensas = buffer.getDouble();
+            instantanea.contadorPropagacion = buffer.getInt();
+            instantanea.infeccionInicialActivada = buffer.get() != 0;
+            instantanea.gameOver = buffer.get() != 0;
+            instantanea.parametros = leerDoubles(buffer, buffer.getInt());
+
+            instantanea.produccion = leerDoubles(buffer, TIPOS.length);
+            instantanea.capacidad = leerDoubles(buffer, TIPOS.length);
+            instantanea.capacidadTotal = buffer.getDouble();
+
+            instantanea.cantidadNodos = buffer.getInt();
+            int registros = buffer.getInt();
+            if (instantanea.esDelta) {
+                instantanea.ids = leerInts(buffer, registros);
+            }
+            instantanea.x = leerInts(buffer, registros);
+            instantanea.y = leerInts(buffer, registros);
+            instantanea.tipo = leerBytes(buffer, registros);
+            instantanea.bacteria = leerBooleans(buffer, registros);
+            instantanea.salud = leerDoubles(buffer, registros);
+            instantanea.infeccion = leerDoubles(buffer, registros);
+            instantanea.tasa = leerFloats(buffer, registros);
+
+            instantanea.primeraArista = buffer.getInt();
+            instantanea.cantidadAristas = buffer.getInt();
+            int aristas = instantanea.cantidadAristas - instantanea.primeraArista;
+            instantanea.extremoA = leerInts(buffer, aristas);
+            instantanea.extremoB = leerInts(buffer, aristas);
+
+            instantanea.infectados = leerInts(buffer, buffer.getInt());
+            instantanea.periferia = leerInts(buffer, buffer.getInt());
+            return instantanea;
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Partida guardada truncada o dañada: " + archivo, e);
+        }
+    }
+
+    // --- Internos ---
+
+    private void reservarNodos(int registros) {
+        x = new int[registros];
+        y = new int[registros];
+        tipo = new byte[registros];
+        bacteria = new boolean[registros];
+        salud = new double[registros];
+        infeccion = new double[registros];
+        tasa = new float[registros];
+    }
+
+    private static int[] copiar(ConjuntoIndexado conjunto) {
+        int[] miembros = new int[conjunto.size()];
+        for (int i = 0; i < miembros.length; i++) {
+            miembros[i] = conjunto.get(i);
+        }
+        return miembros;
+    }
+
+    private static int[] leerInts(ByteBuffer buffer, int cantidad) {
+        int[] valores = new int[cantidad];
+        buffer.asIntBuffer().get(valores);
+        buffer.position(buffer.position() + cantidad * Integer.BYTES);
+        return valores;
+    }
+
+    private static double[] leerDoubles(ByteBuffer buffer, int cantidad) {
+        double[] valores = new double[cantidad];
+        buffer.asDoubleBuffer().get(valores);
+        buffer.position(buffer.position() + cantidad * Double.BYTES);
+        return valores;
+    }
+
+    private static float[] leerFloats(ByteBuffer buffer, int cantidad) {
+        float[] valores = new float[cantidad];
+        buffer.asFloatBuffer().get(valores);
+        buffer.position(buffer.position() + cantidad * Float.BYTES);
+        return valores;
+    }
+
+    private static byte[] leerBytes(ByteBuffer buffer, int cantidad) {
+        byte[] valores = new byte[cantidad];
+        buffer.get(valores);
+        return valores;
+    }
+
+    private static boolean[] leerBooleans(ByteBuffer buffer, int cantidad) {
+        byte[] bytes = leerBytes(buffer, cantidad);
+        boolean[] valores = new boolean[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            valores[i] = bytes[i] != 0;
+        }
+        return valores;
+    }
+
+    /**
+     * Escritura por bloques a través de un búfer directo reutilizado: las columnas se copian
+     * en bloque al búfer y el canal recibe trozos grandes.
+     */
+    private static final class Escritor {
+        private static final int TAMANO_BUFER = 1 << 16;
+
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFER).order(ByteOrder.LITTLE_ENDIAN);
+
+        Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void putByte(byte valor) throws IOException {
+            asegurar(Byte.BYTES);
+            buffer.put(valor);
+        }
+
+        void putInt(int valor) throws IOException {
+            asegurar(Integer.BYTES);
+            buffer.putInt(valor);
+        }
+
+        void putLong(long valor) throws IOException {
+            asegurar(Long.BYTES);
+            buffer.putLong(valor);
+        }
+
+        void putDouble(double valor) throws IOException {
+            asegurar(Double.BYTES);
+            buffer.putDouble(valor);
+        }
+
+        void putInts(int[] valores) throws IOException {
+            for (int i = 0; i < valores.length; ) {
+                asegurar(Integer.BYTES);
+                int trozo = Math.min(valores.length - i, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(valores, i, trozo);
+                buffer.position(buffer.position() + trozo * Integer.BYTES);
+                i += trozo;
+            }
+        }
+
+        void putDoubles(double[] valores) throws IOException {
+            for (int i = 0; i < valores.length; ) {
+                asegurar(Double.BYTES);
+                int trozo = Math.min(valores.length - i, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(valores, i, trozo);
+                buffer.position(buffer.position() + trozo * Double.BYTES);
+                i += trozo;
+            }
+        }
+
+        void putFloats(float[] valores) throws IOException {
+            for (int i = 0; i < valores.length; ) {
+                asegurar(Float.BYTES);
+                int trozo = Math.min(valores.length - i, buffer.remaining() / Float.BYTES);
+                buffer.asFloatBuffer().put(valores, i, trozo);
+                buffer.position(buffer.position() + trozo * Float.BYTES);
+                i += trozo;
+            }
+        }
+
+        void putBytes(byte[] valores) throws IOException {
+            for (int i = 0; i < valores.length; ) {
+                asegurar(Byte.BYTES);
+                int trozo = Math.min(valores.length - i, buffer.remaining());
+                buffer.put(valores, i, trozo);
+                i += trozo;
+            }
+        }
+
+        void putBooleans(boolean[] valores) throws IOException {
+            for (boolean valor : valores) {
+                putByte((byte) (valor ? 1 : 0));
+            }
+        }
+
+        // Vacía el búfer al canal si no quedan 'bytes' libres
+        private void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                vaciar();
+            }
+        }
+
+        void vaciar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
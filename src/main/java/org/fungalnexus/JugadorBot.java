@@ -0,0 +1,203 @@
+package org.fungalnexus;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Jugador automático para el modo headless: hace crecer colonias grandes y con forma realista
+ * (cientos de miles de nodos) para perfilar y para pruebas de regresión bajo carga.
+ *
+ * En cada turno construye mientras alcancen los nutrientes, siguiendo las estrategias activas:
+ * - EXPANSION_EXTRACTORES: extractores en celdas libres junto a un nodo sano elegido al azar
+ *   (crecimiento tipo Eden: una mancha compacta de borde irregular, con ramas);
+ * - ANILLOS_DEFENSA: mientras haya infección, defensas a dos celdas de un infectado, hasta una
+ *   defensa por cada 1/defensasPorInfectado infectados (sin pasar lo que el tope de defensa aprovecha);
+ * - ALMACEN_AL_LLENARSE: un almacén cuando los nutrientes, con la producción del próximo tick,
+ *   llegarían al umbral de la capacidad.
+ *
+ * Construye a través del motor, así que los comandos quedan en el diario si hay uno y la
+ * partida se puede reproducir. El azar sale de su propio generador: misma semilla del bot y
+ * misma partida = mismas construcciones.
+ */
+public class JugadorBot {
+
+    public enum Estrategia {
+        EXPANSION_EXTRACTORES,
+        ANILLOS_DEFENSA,
+        ALMACEN_AL_LLENARSE
+    }
+
+    // Las 8 celdas vecinas y el anillo de celdas a distancia 2 (en celdas de la grilla)
+    private static final int[][] VECINAS = {
+            {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}
+    };
+    private static final int[][] ANILLO = anilloDeRadio(2);
+
+    // Intentos de encontrar celda libre alrededor de un infectado antes de construir en la frontera
+    private static final int INTENTOS_ANILLO = 4;
+
+    private final MotorSimulacion motor;
+    private final GrafoColonia grafo;
+    private final AlmacenNodos almacen;
+    private final Set<Estrategia> estrategias;
+    private final Aleatorio aleatorio;
+
+    // Nodos que todavía pueden tener celdas libres alrededor; se descartan al llenarse o infectarse
+    private final ListaEnteros brotes = new ListaEnteros();
+    private int nodosIncorporados = 0;
+
+    private double umbralAlmacen = 0.9;
+    private double defensasPorInfectado = 0.5;
+
+    private long construidos = 0;
+
+    public JugadorBot(MotorSimulacion motor, long semilla) {
+        this(motor, semilla, EnumSet.allOf(Estrategia.class));
+    }
+
+    public JugadorBot(MotorSimulacion motor, long semilla, Set<Estrategia> estrategias) {
+        this.motor = motor;
+        this.grafo = motor.getGrafoColonia();
+        this.almacen = grafo.getAlmacen();
+        this.estrategias = EnumSet.copyOf(estrategias);
+        this.aleatorio = new Aleatorio(semilla);
+    }
+
+    // Fracción de la capacidad a partir de la cual se construye un almacén
+    public void setUmbralAlmacen(double umbralAlmacen) {
+        this.umbralAlmacen = umbralAlmacen;
+    }
+
+    public void setDefensasPorInfectado(double defensasPorInfectado) {
+        this.defensasPorInfectado = defensasPorInfectado;
+    }
+
+    /**
+     * Construye mientras alcancen los nutrientes y haya dónde, sin pasar de nodosObjetivo.
+     * @return cuántos nodos construyó.
+     */
+    public int jugarTurno(int nodosObjetivo) {
+        int hechas = 0;
+        while (grafo.getCantidadNodos() < nodosObjetivo && !grafo.isGameOver()) {
+            // Lo recién construido ya puede brotar en el mismo turno
+            incorporarNodosNuevos();
+            TipoNodo tipo = elegirTipo();
+            if (tipo == null || grafo.getNutrientesTotales() < tipo.getCosto()) {
+                break;
+            }
+            boolean construido = (tipo == TipoNodo.DEFENSA && construirCercaDeInfeccion())
+                    || construirEnFrontera(tipo);
+            if (!construido) {
+                break;
+            }
+            hechas++;
+        }
+        construidos += hechas;
+        return hechas;
+    }
+
+    /**
+     * Juega un turno antes de cada tick hasta llegar a nodosObjetivo y ejecutar 'ticks' ticks,
+     * o hasta que termine la partida.
+     * @return el número de ticks ejecutados.
+     */
+    public int jugar(int ticks, int nodosObjetivo) {
+        int ejecutados = 0;
+        while (ejecutados < ticks && !grafo.isGameOver()) {
+            jugarTurno(nodosObjetivo);
+            motor.tick();
+            ejecutados++;
+        }
+        return ejecutados;
+    }
+
+    public long getConstruidos() {
+        return construidos;
+    }
+
+    // --- Estrategias ---
+
+    private TipoNodo elegirTipo() {
+        // Se mira lo que habrá después del próximo tick: si lo entregado no cabe, se pierde.
+        // Sin producción, un almacén solo gasta lo que haría falta para el primer extractor
+        double produccion = grafo.getProduccionEntregada();
+        if (estrategias.contains(Estrategia.ALMACEN_AL_LLENARSE) && produccion > 0
+                && grafo.getNutrientesTotales() + produccion >= umbralAlmacen * grafo.getCapacidadNutrienteTotal()) {
+            return TipoNodo.ALMACENAMIENTO;
+        }
+        if (estrategias.contains(Estrategia.ANILLOS_DEFENSA)) {
+            int infectados = grafo.getNodosInfectados().size();
+            // Más defensa por tick de la que cabe en el tope no sirve de nada
+            int maximo = (int) grafo.getParametros().getCapacidadMaximaDefensa();
+            int deseadas = Math.min(maximo, (int) Math.ceil(infectados * defensasPorInfectado));
+            if (almacen.getIdsPorTipo(TipoNodo.DEFENSA).size() < deseadas) {
+                return TipoNodo.DEFENSA;
+            }
+        }
+        return estrategias.contains(Estrategia.EXPANSION_EXTRACTORES) ? TipoNodo.EXTRACTOR : null;
+    }
+
+    // Celda libre a dos celdas de un infectado al azar: las defensas rodean el foco
+    private boolean construirCercaDeInfeccion() {
+        List<Nodo> infectados = grafo.getNodosInfectados();
+        for (int intento = 0; intento < INTENTOS_ANILLO && !infectados.isEmpty(); intento++) {
+            Nodo infectado = infectados.get(aleatorio.siguienteInt(infectados.size()));
+            if (construirAlrededor(infectado.getX(), infectado.getY(), ANILLO, TipoNodo.DEFENSA)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Celda libre junto a un brote sano al azar; los brotes sin lugar o infectados se descartan
+    private boolean construirEnFrontera(TipoNodo tipo) {
+        while (!brotes.isEmpty()) {
+            int indice = aleatorio.siguienteInt(brotes.size());
+            int id = brotes.get(indice);
+            if (!almacen.esBacteria(id) && almacen.getInfeccion(id) == 0
+                    && construirAlrededor(almacen.getX(id), almacen.getY(id), VECINAS, tipo)) {
+                return true;
+            }
+            // Quitar en O(1): el último ocupa su lugar
+            brotes.set(indice, brotes.get(brotes.size() - 1));
+            brotes.truncar(brotes.size() - 1);
+        }
+        return false;
+    }
+
+    // Prueba las celdas desplazadas desde (x, y), empezando por una al azar
+    private boolean construirAlrededor(int x, int y, int[][] desplazamientos, TipoNodo tipo) {
+        int inicio = aleatorio.siguienteInt(desplazamientos.length);
+        for (int k = 0; k < desplazamientos.length; k++) {
+            int[] d = desplazamientos[(inicio + k) % desplazamientos.length];
+            int celdaX = x + d[0] * Configuracion.GRID_SIZE;
+            int celdaY = y + d[1] * Configuracion.GRID_SIZE;
+            if (!grafo.estaCeldaOcupada(celdaX, celdaY)) {
+                return motor.construir(celdaX, celdaY, tipo) != null;
+            }
+        }
+        return false;
+    }
+
+    // Los nodos construidos desde la última vez (por el bot o no) pasan a ser brotes
+    private void incorporarNodosNuevos() {
+        for (int id = nodosIncorporados; id < almacen.getCantidad(); id++) {
+            brotes.agregar(id);
+        }
+        nodosIncorporados = almacen.getCantidad();
+    }
+
+    private static int[][] anilloDeRadio(int radio) {
+        int[][] celdas = new int[8 * radio][];
+        int n = 0;
+        for (int dy = -radio; dy <= radio; dy++) {
+            for (int dx = -radio; dx <= radio; dx++) {
+                if (Math.max(Math.abs(dx), Math.abs(dy)) == radio) {
+                    celdas[n++] = new int[]{dx, dy};
+                }
+            }
+        }
+        return celdas;
+    }
+}
@@ -0,0 +1,72 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Lista creciente de enteros primitivos (sin boxing), usada para ids de nodos,
+ * colas de BFS y listas temporales dentro del tick.
+ */
+public class ListaEnteros {
+
+    private int[] valores;
+    private int tamano = 0;
+
+    public ListaEnteros() {
+        this(16);
+    }
+
+    public ListaEnteros(int capacidadInicial) {
+        this.valores = new int[Math.max(1, capacidadInicial)];
+    }
+
+    public void agregar(int valor) {
+        if (tamano == valores.length) {
+            valores = Arrays.copyOf(valores, valores.length * 2);
+        }
+        valores[tamano++] = valor;
+    }
+
+    public int get(int indice) {
+        if (indice >= tamano) {
+            throw new IndexOutOfBoundsException("Índice " + indice + " fuera de la lista de " + tamano);
+        }
+        return valores[indice];
+    }
+
+    public void set(int indice, int valor) {
+        if (indice >= tamano) {
+            throw new IndexOutOfBoundsException("Índice " + indice + " fuera de la lista de " + tamano);
+        }
+        valores[indice] = valor;
+    }
+
+    public boolean contiene(int valor) {
+        for (int i = 0; i < tamano; i++) {
+            if (valores[i] == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Conserva solo los primeros 'nuevoTamano' elementos
+    public void truncar(int nuevoTamano) {
+        tamano = Math.min(tamano, Math.max(0, nuevoTamano));
+    }
+
+    public void limpiar() {
+        tamano = 0;
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    public int[] aArreglo() {
+        return Arrays.copyOf(valores, tamano);
+    }
+}
@@ -0,0 +1,154 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Tabla hash de direccionamiento abierto (sondeo lineal) de claves long a valores int.
+ * Evita el boxing de HashMap&lt;Long, Integer&gt; en índices con muchas entradas,
+ * como las celdas del índice espacial.
+ */
+public class MapaLongEntero {
+
+    private static final long VACIA = Long.MIN_VALUE; // Nunca es una clave válida de celda
+    public static final int AUSENTE = -1;
+
+    private long[] claves;
+    private int[] valores;
+    private int tamano = 0;
+    private int mascara;
+
+    public MapaLongEntero() {
+        this(64);
+    }
+
+    public MapaLongEntero(int capacidadInicial) {
+        int capacidad = Integer.highestOneBit(Math.max(4, capacidadInicial * 2 - 1));
+        inicializar(capacidad);
+    }
+
+    // Valor asociado a la clave, o AUSENTE
+    public int get(long clave) {
+        int posicion = posicion(clave);
+        while (claves[posicion] != VACIA) {
+            if (claves[posicion] == clave) {
+                return valores[posicion];
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        return AUSENTE;
+    }
+
+    public boolean contiene(long clave) {
+        return get(clave) != AUSENTE;
+    }
+
+    /**
+     * Inserta la clave si no existía.
+     * @return el valor previo, o AUSENTE si se insertó.
+     */
+    public int putSiAusente(long clave, int valor) {
+        int posicion = posicion(clave);
+        while (claves[posicion] != VACIA) {
+            if (claves[posicion] == clave) {
+                return valores[posicion];
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        claves[posicion] = clave;
+        valores[posicion] = valor;
+        if (++tamano * 2 > claves.length) {
+            redimensionar();
+        }
+        return AUSENTE;
+    }
+
+    // Inserta o reemplaza
+    public void put(long clave, int valor) {
+        int posicion = posicion(clave);
+        while (claves[posicion] != VACIA) {
+            if (claves[posicion] == clave) {
+                valores[posicion] = valor;
+                return;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        claves[posicion] = clave;
+        valores[posicion] = valor;
+        if (++tamano * 2 > claves.length) {
+            redimensionar();
+        }
+    }
+
+    /**
+     * Quita la clave si estaba. Las claves siguientes del mismo racimo se corren hacia atrás
+     * para no cortar su sondeo (sin marcas de borrado).
+     * @return el valor que tenía, o AUSENTE.
+     */
+    public int quitar(long clave) {
+        int posicion = posicion(clave);
+        while (claves[posicion] != VACIA) {
+            if (claves[posicion] == clave) {
+                int valor = valores[posicion];
+                int hueco = posicion;
+                int siguiente = (hueco + 1) & mascara;
+                while (claves[siguiente] != VACIA) {
+                    // Se puede mover si el hueco queda entre su posición ideal y donde está
+                    int ideal = posicion(claves[siguiente]);
+                    if (((siguiente - ideal) & mascara) >= ((siguiente - hueco) & mascara)) {
+                        claves[hueco] = claves[siguiente];
+                        valores[hueco] = valores[siguiente];
+                        hueco = siguiente;
+                    }
+                    siguiente = (siguiente + 1) & mascara;
+                }
+                claves[hueco] = VACIA;
+                tamano--;
+                return valor;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        return AUSENTE;
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    private int posicion(long clave) {
+        // Mezcla final de MurmurHash3 para repartir claves de celdas contiguas
+        long h = clave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mascara;
+    }
+
+    private void inicializar(int capacidad) {
+        claves = new long[capacidad];
+        Arrays.fill(claves, VACIA);
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+    }
+
+    private void redimensionar() {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        inicializar(claves.length * 2);
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != VACIA) {
+                int posicion = posicion(clavesAnteriores[i]);
+                while (claves[posicion] != VACIA) {
+                    posicion = (posicion + 1) & mascara;
+                }
+                claves[posicion] = clavesAnteriores[i];
+                valores[posicion] = valoresAnteriores[i];
+            }
+        }
+    }
+}
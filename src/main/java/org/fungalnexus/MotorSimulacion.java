@@ -0,0 +1,145 @@
+package org.fungalnexus;
+
+import java.util.List;
+
+/**
+ * Avanza la simulación de una colonia sin depender de JavaFX.
+ * Agrupa las fases de un tick (recursos, infección inicial, combate) en el mismo
+ * orden que usaba el game loop, de modo que la ventana y el modo headless
+ * ejecutan exactamente la misma lógica.
+ */
+public class MotorSimulacion {
+
+    private final GrafoColonia grafoColonia;
+    private int ciclosTranscurridos = 0;
+
+    // Diario donde se anotan los comandos del jugador (null: no se registran)
+    private DiarioComandos diario;
+
+    // Duración de cada fase del tick (histogramas, eventos JFR y CSV opcional)
+    private final PerfilTick perfil;
+
+    public MotorSimulacion(GrafoColonia grafoColonia) {
+        this(grafoColonia, 0);
+    }
+
+    // Continúa una partida cargada desde el tick en que se guardó (ver ArchivoPartida)
+    MotorSimulacion(GrafoColonia grafoColonia, int ciclosTranscurridos) {
+        this.grafoColonia = grafoColonia;
+        this.ciclosTranscurridos = ciclosTranscurridos;
+        this.perfil = new PerfilTick(grafoColonia);
+    }
+
+    public void setDiario(DiarioComandos diario) {
+        this.diario = diario;
+    }
+
+    public DiarioComandos getDiario() {
+        return diario;
+    }
+
+    /**
+     * Comando del jugador: construir un nodo. Se anota en el diario con el tick actual,
+     * haya tenido éxito o no, para que la reproducción pase exactamente por los mismos estados.
+     * @return el nuevo nodo, o null si no se pudo construir.
+     */
+    public Nodo construir(int x, int y, TipoNodo tipo) {
+        if (diario != null) {
+            diario.registrarConstruccion(ciclosTranscurridos, x, y, tipo);
+        }
+        return grafoColonia.construirNuevoNodo(x, y, tipo);
+    }
+
+    /**
+     * Ejecuta un único tick de la simulación.
+     * @return false si la partida ya había terminado y no se avanzó.
+     */
+    public boolean tick() {
+        if (grafoColonia.isGameOver()) {
+            return false;
+        }
+
+        perfil.iniciar(PerfilTick.Fase.TICK);
+
+        // 1. Lógica del Modelo (Recursos, Combate, etc.)
+        perfil.iniciar(PerfilTick.Fase.RECURSOS);
+        grafoColonia.actualizarRecursos();
+        perfil.terminar(PerfilTick.Fase.RECURSOS);
+
+        // Lógica de inicio de infección
+        ParametrosSimulacion parametros = grafoColonia.getParametros();
+        if (ciclosTranscurridos >= parametros.getCicloGraciaInicial()) {
+            perfil.iniciar(PerfilTick.Fase.PRIMERA_INFECCION);
+            grafoColonia.iniciarPrimeraInfeccion();
+            perfil.terminar(PerfilTick.Fase.PRIMERA_INFECCION);
+        }
+
+        perfil.iniciar(PerfilTick.Fase.INFECCION_COMBATE);
+        grafoColonia.actualizarInfeccionYCombate(
+                parametros.getFactorPropagacionBacteria(),
+                parametros.getDanoBacteriaPorCiclo(),
+                parametros.getCostoDefensaPorCombate(),
+                ciclosTranscurridos
+        );
+        perfil.terminar(PerfilTick.Fase.INFECCION_COMBATE);
+
+        perfil.tickTerminado(ciclosTranscurridos);
+        ciclosTranscurridos++;
+        return true;
+    }
+
+    /**
+     * Ejecuta hasta {@code cantidad} ticks tan rápido como sea posible.
+     * Se detiene antes si la partida termina.
+     * @return el número de ticks realmente ejecutados.
+     */
+    public int ejecutarTicks(int cantidad) {
+        int ejecutados = 0;
+        while (ejecutados < cantidad && tick()) {
+            ejecutados++;
+        }
+        return ejecutados;
+    }
+
+    /**
+     * Vuelve a ejecutar una partida registrada, sin ventana y tan rápido como sea posible.
+     * Los comandos se aplican antes del tick en que fueron dados, igual que en la partida original.
+     * Se detiene en el tick final del diario (o en el último comando si quedó abierto)
+     * o cuando la partida termina.
+     */
+    public static MotorSimulacion reproducir(DiarioComandos diario, OyenteSimulacion oyente) {
+        GrafoColonia grafo = new GrafoColonia(diario.getNucleoX(), diario.getNucleoY(), oyente, diario.getSemilla(),
+                diario.getParametros());
+        MotorSimulacion motor = new MotorSimulacion(grafo);
+
+        List<DiarioComandos.Comando> comandos = diario.getComandos();
+        int tickFinal = diario.getTickFinal();
+        if (tickFinal == DiarioComandos.SIN_FIN) {
+            tickFinal = comandos.isEmpty() ? 0 : comandos.get(comandos.size() - 1).getTick();
+        }
+
+        int siguiente = 0;
+        while (true) {
+            while (siguiente < comandos.size() && comandos.get(siguiente).getTick() <= motor.ciclosTranscurridos) {
+                DiarioComandos.Comando comando = comandos.get(siguiente++);
+                grafo.construirNuevoNodo(comando.getX(), comando.getY(), comando.getTipo());
+            }
+            if (motor.ciclosTranscurridos >= tickFinal || !motor.tick()) {
+                break;
+            }
+        }
+        return motor;
+    }
+
+    public int getCiclosTranscurridos() {
+        return ciclosTranscurridos;
+    }
+
+    public GrafoColonia getGrafoColonia() {
+        return grafoColonia;
+    }
+
+    public PerfilTick getPerfil() {
+        return perfil;
+    }
+}
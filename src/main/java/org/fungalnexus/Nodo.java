@@ -1,131 +1,127 @@
 package org.fungalnexus;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
-
+import java.util.RandomAccess;
+
+/**
+ * Vista de un nodo de la colonia.
+ *
+ * Los datos viven en AlmacenNodos (arreglos primitivos indexados por id); esta clase
+ * solo guarda el almacén y el id, para que la interfaz y el resto del código sigan
+ * trabajando con objetos. Se obtiene con {@link AlmacenNodos#vista(int)}.
+ */
 public class Nodo {
 
-    // --- 1. Propiedades del Grafo (Fijas) ---
-    private final int x; // Coordenada X en el grid
-    private final int y; // Coordenada Y en el grid
-    private TipoNodo tipo;
-    private TipoNodo tipoOriginal;
-    private final List<Nodo> vecinos; // Lista de Nodos adyacentes (Hifas)
-
-    // --- 2. Propiedades de la Jugabilidad (Variables) ---
-    private double salud; // Puntos de salud actuales (Máx: TipoNodo.getSaludBase())
-    private double nivelInfeccion; // 0.0 a 1.0 (cuán infectado está)
-    private boolean esBacteriaCompletada = false;
-
-    // Propiedades Específicas del Tipo
-    private double tasaProduccion;
-    private double radio;
-
+    private final AlmacenNodos almacen;
+    private final int id;
 
     // --- Constructor ---
-    public Nodo(int x, int y, double radioInicial, TipoNodo tipo, double tasaProduccion) {
-        this.x = x;
-        this.y = y;
-        this.tipo = tipo;
-        this.tipoOriginal = tipo;
-        this.vecinos = new ArrayList<>();
-        this.radio = radioInicial;
+    Nodo(AlmacenNodos almacen, int id) {
+        this.almacen = almacen;
+        this.id = id;
+    }
 
-        // Inicialización basada en el Enum
-        this.salud = tipo.getSaludBase();
-        this.nivelInfeccion = 0.0;
-        this.tasaProduccion = tasaProduccion; // Puede variar dependiendo del nivel de upgrade
+    public int getId() {
+        return id;
     }
 
     // --- Métodos del Grafo ---
 
-    public void agregarVecino(Nodo vecino) {
-        if (vecino != null && !vecinos.contains(vecino)) {
-            vecinos.add(vecino);
-        }
-    }
-
-    // Metodo para la transformación
-    public void setEsBacteriaCompletada(boolean estado) {
-        this.esBacteriaCompletada = estado;
-        // Una vez transformado, pierde su función y capacidad de curación
-        this.tasaProduccion = 0;
-        // Opcional: Cambiar su tipo para la lógica futura, aunque la bandera es suficiente.
+    // Lista de Nodos adyacentes (Hifas), sin copiar la adyacencia
+    public List<Nodo> getVecinos() {
+        return new Vecinos();
     }
 
     public boolean esBacteriaCompletada() {
-        return esBacteriaCompletada;
+        return almacen.esBacteria(id);
     }
 
     // --- Getters Esenciales ---
 
     public int getX() {
-        return x;
+        return almacen.getX(id);
     }
 
     public int getY() {
-        return y;
+        return almacen.getY(id);
     }
 
     public double getRadio() {
-        return radio;
+        return almacen.getRadio(id);
     }
 
     public TipoNodo getTipo() {
-        return tipo;
+        return almacen.getTipo(id);
     }
 
     public TipoNodo getTipoOriginal() {
-        return tipoOriginal;
-    }
-
-    public List<Nodo> getVecinos() {
-        return vecinos;
+        return almacen.getTipoOriginal(id);
     }
 
     public double getSalud() {
-        return salud;
+        return almacen.getSalud(id);
     }
 
     public double getNivelInfeccion() {
-        return nivelInfeccion;
+        return almacen.getInfeccion(id);
     }
 
     public double getTasaProduccion() {
-        return tasaProduccion;
+        return almacen.getTasa(id);
     }
 
     public double getTasaDefensa() {
-        return this.tasaProduccion;
+        return almacen.getTasa(id);
     }
 
     // --- Setters / Lógica del Juego ---
 
     public void recibirDano(double dano) {
-        this.salud = Math.max(0, this.salud - dano);
+        almacen.recibirDano(id, dano);
     }
 
     public void setNivelInfeccion(double nivelInfeccion) {
-        this.nivelInfeccion = Math.min(1.0, Math.max(0.0, nivelInfeccion)); // Asegura que esté entre 0 y 1
+        almacen.setInfeccion(id, nivelInfeccion); // Asegura que esté entre 0 y 1
     }
 
     public void setSalud(double salud) {
-        this.salud = salud;
+        almacen.setSalud(id, salud);
     }
 
-    //Implementacion del metodo equals y hashCode es crucial para usar Mapas y Sets con nodos
+    // Dos vistas son iguales si apuntan al mismo id del mismo almacén.
+    // El id es denso y único, así que como hash no tiene colisiones.
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Nodo nodo = (Nodo) o;
-        // Dos nodos son iguales si están en la misma posición (asumiendo que solo hay un nodo por celda del grid)
-        return x == nodo.x && y == nodo.y;
+        return id == nodo.id && almacen == nodo.almacen;
     }
 
     @Override
     public int hashCode() {
-        // Hash basado en las coordenadas
-        return 31 * x + y;
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return getTipo() + "#" + id + " (" + getX() + ", " + getY() + ")";
+    }
+
+    // Vista de solo lectura sobre el tramo de adyacencia del almacén
+    private final class Vecinos extends AbstractList<Nodo> implements RandomAccess {
+        @Override
+        public Nodo get(int indice) {
+            if (indice < 0 || indice >= size()) {
+                throw new IndexOutOfBoundsException("Vecino " + indice + " fuera de " + size());
+            }
+            return almacen.vista(almacen.getVecino(id, indice));
+        }
+
+        @Override
+        public int size() {
+            return almacen.getGrado(id);
+        }
     }
-}
\ No newline at end of file
+}
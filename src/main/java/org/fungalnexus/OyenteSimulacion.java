@@ -0,0 +1,27 @@
+package org.fungalnexus;
+
+import java.util.Collection;
+
+/**
+ * Recibe los eventos que produce GrafoColonia durante un tick.
+ * Permite que la simulación no dependa de JavaFX: la vista (PanelJuegoFX)
+ * implementa esta interfaz, y en modo headless se puede omitir o usar un contador.
+ */
+public interface OyenteSimulacion {
+
+    // Se emite cada vez que un recurso (nutriente o defensa) empieza a viajar por una ruta de hifas.
+    // La ruta se recorre en orden [origen, ..., destino]; puede estar compartida, no se modifica
+    void particulaCreada(double origenX, double origenY, Collection<Nodo> ruta, TipoRecurso tipo);
+
+    // Un nodo llegó a salud 0 y se convirtió en bacteria
+    default void nodoTransformado(Nodo nodo) {
+    }
+
+    // Nuevo foco de infección (inicial o externa)
+    default void infeccionIniciada(Nodo nodo) {
+    }
+
+    // El núcleo se transformó: fin de la partida
+    default void partidaTerminada() {
+    }
+}
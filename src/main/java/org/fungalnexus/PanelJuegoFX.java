@@ -1,17 +1,21 @@
 package org.fungalnexus;
 
 import javafx.animation.KeyFrame;
-import javafx.scene.Node;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
-import javafx.scene.shape.Line;
 import javafx.scene.input.MouseEvent;
 import javafx.animation.Timeline;
 import javafx.scene.control.Label;
 import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
 import javafx.util.Duration;
 
 import org.fungalnexus.Nodo;
@@ -19,31 +23,87 @@ import org.fungalnexus.TipoNodo;
 
 import java.util.*;
 
+/**
+ * Vista de la partida. El mundo no tiene bordes: una cámara (arrastrar para desplazar,
+ * rueda para acercar) decide qué parte se ve, y cada frame se dibujan en un único Canvas
+ * solo las hifas, nodos y partículas que caen en esa parte, pidiéndole al índice espacial
+ * los nodos del rectángulo visible. El costo de un frame depende de lo que se ve, no del
+ * tamaño de la colonia. Con poco zoom se dibuja un glifo por grupo de nodos en lugar de
+ * cada sprite (ver dibujarGrupos).
+ *
+ * La simulación corre en otro hilo (HiloSimulacion): el panel dibuja su propia réplica de la
+ * colonia (VistaColonia), actualizada con cada estado publicado, y los clics se encolan como
+ * comandos de construcción.
+ */
 public class PanelJuegoFX extends Pane {
 
-    private GrafoColonia grafoColonia;
+    private static final double FACTOR_ZOOM_RUEDA = 1.1;  // Por cada "clic" de la rueda
+    private static final int MARGEN_SPRITE = Configuracion.GRID_SIZE * 2; // El sprite se dibuja corrido hacia arriba del nodo
+
+    // Con menos zoom que esto la colonia se dibuja por grupos (ver ResumenBloques), no nodo por nodo
+    private static final double ZOOM_DETALLE = 0.5;
+    private static final double LADO_MINIMO_GRUPO = 48; // Píxeles de pantalla por bloque resumido
+    private static final Map<TipoNodo, Color> COLOR_GRUPO = new EnumMap<>(TipoNodo.class);
+
+    static {
+        // Los colores de los sprites de cada tipo
+        COLOR_GRUPO.put(TipoNodo.NUCLEO, Color.MEDIUMPURPLE);
+        COLOR_GRUPO.put(TipoNodo.EXTRACTOR, Color.MEDIUMSEAGREEN);
+        COLOR_GRUPO.put(TipoNodo.DEFENSA, Color.CORNFLOWERBLUE);
+        COLOR_GRUPO.put(TipoNodo.ALMACENAMIENTO, Color.GOLDENROD);
+    }
+
+    private final VistaColonia vista = new VistaColonia();
+    private HiloSimulacion hiloSimulacion; // Los clics de construcción se encolan para la simulación
     private final ConstruccionManager construccionManager;
     private final Circle ghostPreview; // El objeto visual fantasma
 
-    private final Map<Nodo, ImageView> nodoToImageViewMap = new HashMap<>();
+    // Texturas decodificadas una sola vez (antes se leía un PNG por nodo en cada frame)
+    private final CacheSprites cacheSprites = new CacheSprites();
+
     private ImageView gameOverImageView;
-    private final Map<Nodo, List<Line>> nodoToHifasMap = new HashMap<>();
 
-    private final List<ParticulaRecurso> particulasActivas;
+    // Mundo (hifas, nodos y partículas) dibujado por frame en un Canvas del tamaño del panel
+    private final Camara camara = new Camara();
+    private final Canvas capaMundo;
+    private final ListaEnteros visibles = new ListaEnteros();
+    private final ListaEnteros gruposVisibles = new ListaEnteros();
+
+    // Partículas en arreglos primitivos, con presupuesto (una muestra de los recursos en viaje)
+    private final SistemaParticulas sistemaParticulas;
+
+    // Flujo reciente por hifa; en modo flujo se dibuja animado sobre las hifas en lugar de partículas
+    private static final double MEDIA_VIDA_FLUJO = 3.0;  // Segundos
+    private static final double FLUJO_MINIMO_VISIBLE = 0.05;
+    private static final double VELOCIDAD_FLUJO = 40.0;  // Píxeles del mundo por segundo
+    private FlujoHifas flujoHifas;
+    private boolean modoFlujo = false;
+    private final ListaEnteros aristasVisibles = new ListaEnteros();
+
+    // Arrastre de la cámara
+    private double arrastreX;
+    private double arrastreY;
 
     private Label timerLabel;
     private Timeline timeline;
     private long tiempoTranscurridoSegundos = 0;
 
-    public PanelJuegoFX(GrafoColonia grafoColonia, ConstruccionManager construccionManager) {
-        this.grafoColonia = grafoColonia;
+    public PanelJuegoFX(ConstruccionManager construccionManager) {
         this.construccionManager = construccionManager;
-        this.particulasActivas = new ArrayList<>();
+        this.sistemaParticulas = new SistemaParticulas(new TablaRutas(vista.getAlmacen()));
+        this.flujoHifas = new FlujoHifas(vista.getAlmacen(), MEDIA_VIDA_FLUJO);
 
         // Configuración inicial del Pane
         this.setPrefSize(Configuracion.MAPA_WIDTH, Configuracion.MAPA_HEIGHT);
         this.setStyle("-fx-background-color: #333333;"); // Fondo oscuro para el micelio
 
+        // Capa del mundo: ocupa todo el panel y no intercepta los clics
+        this.capaMundo = new Canvas(Configuracion.MAPA_WIDTH, Configuracion.MAPA_HEIGHT);
+        this.capaMundo.widthProperty().bind(this.widthProperty());
+        this.capaMundo.heightProperty().bind(this.heightProperty());
+        this.capaMundo.setMouseTransparent(true);
+        this.getChildren().add(capaMundo);
+
         inicializarCronometro();
 
         // Inicializar el Ghost Preview (se oculta hasta que se active el modo)
@@ -53,14 +113,54 @@ public class PanelJuegoFX extends Pane {
         // --- Manejo de Eventos del Ratón ---
         this.setOnMouseMoved(this::handleMouseMoved);
         this.setOnMouseClicked(this::handleMouseClicked);
+        this.setOnMousePressed(this::handleMousePressed);
+        this.setOnMouseDragged(this::handleMouseDragged);
+        this.setOnScroll(this::handleScroll);
 
     }
 
-    public void setGrafoColonia(GrafoColonia grafoColonia) {
-        this.grafoColonia = grafoColonia;
-        // Dibujar el estado inicial (solo el núcleo)
-        dibujarColoniaInicial();
-        iniciarCronometro();
+    public void setHiloSimulacion(HiloSimulacion hiloSimulacion) {
+        this.hiloSimulacion = hiloSimulacion;
+    }
+
+    /**
+     * Incorpora un estado publicado por la simulación y crea las partículas que trae.
+     * El primer estado centra la cámara en el núcleo.
+     */
+    public void aplicarEstado(EstadoVista estado) {
+        boolean primero = vista.estaVacia();
+        vista.aplicar(estado);
+        HiloSimulacion.CambiosVista cambios;
+        while ((cambios = hiloSimulacion.siguientesCambios(estado)) != null) {
+            vista.aplicarCambios(cambios);
+        }
+        if (primero) {
+            AlmacenNodos almacen = vista.getAlmacen();
+            int nucleo = vista.getIdNucleo();
+            camara.centrarEn(almacen.getX(nucleo), almacen.getY(nucleo), Configuracion.MAPA_WIDTH, Configuracion.MAPA_HEIGHT);
+        }
+
+        HiloSimulacion.EventoParticula evento;
+        while ((evento = hiloSimulacion.siguienteParticula(estado)) != null) {
+            crearParticula(evento);
+        }
+    }
+
+    public VistaColonia getVista() {
+        return vista;
+    }
+
+    public Camara getCamara() {
+        return camara;
+    }
+
+    // Modo flujo: sin partículas nuevas; cada hifa muestra el recurso que pasa por ella
+    public void setModoFlujo(boolean modoFlujo) {
+        this.modoFlujo = modoFlujo;
+    }
+
+    public boolean isModoFlujo() {
+        return modoFlujo;
     }
 
     private void inicializarCronometro() {
@@ -95,7 +195,7 @@ public class PanelJuegoFX extends Pane {
     public void detenerCronometro() {
         if (timeline != null) {
             timeline.stop();
-            System.out.println("Partida terminada. Tiempo total: " + timerLabel.getText());
+            RegistroEventos.global().info(RegistroEventos.Categoria.PARTIDA, "Partida terminada. Tiempo total: " + timerLabel.getText());
         }
     }
 
@@ -108,12 +208,20 @@ public class PanelJuegoFX extends Pane {
         timerLabel.setText("Tiempo: " + tiempoFormateado);
     }
 
-    public void crearParticula(double startX, double startY, List<Nodo> ruta, TipoRecurso tipo) {
-        if (ruta == null || ruta.size() < 2) return; // Asegurar que haya una ruta válida
+    private void crearParticula(HiloSimulacion.EventoParticula evento) {
+        // Los ids de la ruta son los mismos en la réplica que en la simulación
+        int[] ids = evento.getRuta();
+        if (ids.length < 2) return; // Asegurar que haya una ruta válida
 
-        ParticulaRecurso particula = new ParticulaRecurso(startX, startY, ruta, tipo);
-        particulasActivas.add(particula);
-        this.getChildren().add(particula);
+        // El flujo de defensa cuenta todos los envíos; las partículas son solo una muestra.
+        // El de nutrientes no hace falta contarlo: llega resuelto en cada estado (FlujoMaximo)
+        double ahora = System.nanoTime() / 1e9;
+        if (evento.getTipo() == TipoRecurso.DEFENSA) {
+            flujoHifas.registrarRuta(ids, evento.getTipo(), ahora);
+        }
+        if (!modoFlujo) {
+            sistemaParticulas.crear(ids, evento.getTipo(), ahora);
+        }
     }
 
     private Circle crearGhostPreview() {
@@ -121,27 +229,40 @@ public class PanelJuegoFX extends Pane {
         circle.setFill(Color.WHITE.deriveColor(0, 1.0, 1.0, 0.3)); // Color blanco semi-transparente
         circle.setStroke(Color.WHITE);
         circle.setVisible(false);
+        circle.setMouseTransparent(true);
         return circle;
     }
 
+    // Centro de la celda del grid (en coordenadas del mundo) que contiene el punto de pantalla
+    private int celdaMundoX(double pantallaX) {
+        int x = (int) Math.floor(camara.aMundoX(pantallaX));
+        return Math.floorDiv(x, Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
+    }
+
+    private int celdaMundoY(double pantallaY) {
+        int y = (int) Math.floor(camara.aMundoY(pantallaY));
+        return Math.floorDiv(y, Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
+    }
+
     // --- Manejo del Movimiento del Ratón (GHOST PREVIEW) ---
     private void handleMouseMoved(MouseEvent event) {
         if (construccionManager.estaEnModoConstruccion()) {
 
             // 1. Determinar la posición del grid más cercana
-            int xGrid = ((int) event.getX() / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
-            int yGrid = ((int) event.getY() / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
+            int xGrid = celdaMundoX(event.getX());
+            int yGrid = celdaMundoY(event.getY());
 
-            // 2. Mover el fantasma a la posición del grid
-            ghostPreview.setCenterX(xGrid);
-            ghostPreview.setCenterY(yGrid);
+            // 2. Mover el fantasma a la posición del grid (en pantalla)
+            ghostPreview.setCenterX(camara.aPantallaX(xGrid));
+            ghostPreview.setCenterY(camara.aPantallaY(yGrid));
+            ghostPreview.setRadius(Configuracion.NODO_RADIO * camara.getZoom());
             ghostPreview.setVisible(true);
 
             // Actualizar el color del fantasma si no hay suficientes nutrientes
             double costo = construccionManager.getCostoSeleccionado();
 
-            if (grafoColonia.getNutrientesTotales() < costo) {
-                // No hay recursos: cambiar el color a rojo
+            if (vista.getNutrientes() < costo || vista.estaCeldaOcupada(xGrid, yGrid)) {
+                // No hay recursos o la celda ya tiene un nodo: cambiar el color a rojo
                 ghostPreview.setStroke(Color.RED);
                 ghostPreview.setFill(Color.RED.deriveColor(0, 1.0, 1.0, 0.3));
             } else {
@@ -155,112 +276,49 @@ public class PanelJuegoFX extends Pane {
         }
     }
 
-    // --- Manejo del Clic (CONSTRUCCIÓN) ---
-    private void handleMouseClicked(MouseEvent event) {
-        if (!construccionManager.estaEnModoConstruccion()) {
-            return;
-        }
-
-        // 1. Posición final del grid
-        int xGrid = ((int) event.getX() / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
-        int yGrid = ((int) event.getY() / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
-
-        TipoNodo tipo = construccionManager.getNodoSeleccionado();
-        Nodo nuevoNodo = grafoColonia.construirNuevoNodo(xGrid, yGrid, tipo);
-
-        if (nuevoNodo != null) {
-            dibujarNuevoNodo(nuevoNodo);
-        } else {
-            // Notificar al usuario que no hay recursos
-            System.out.println("No se puede construir. Nutrientes insuficientes.");
-        }
+    // --- Cámara: arrastrar desplaza (con el botón derecho o central siempre; con el izquierdo fuera del modo construcción) ---
+    private void handleMousePressed(MouseEvent event) {
+        arrastreX = event.getX();
+        arrastreY = event.getY();
     }
 
-    // --- Métodos de Dibujo ---
-
-    private void dibujarColoniaInicial() {
-        Nodo nucleo = grafoColonia.getNucleo();
-
-        String rutaImagen = obtenerRutaDeImagenPorTipo(nucleo);
-        Image imagen = new Image(getClass().getResourceAsStream(rutaImagen));
-        ImageView imageView = new ImageView(imagen);
-
-        imageView.setX(nucleo.getX() - (nucleo.getRadio() * 1.5));
-        imageView.setY(nucleo.getY() - (nucleo.getRadio() * 2.5));
-        imageView.setFitWidth(nucleo.getRadio() * 10);
-        imageView.setFitHeight(nucleo.getRadio() * 10);
-        this.getChildren().add(imageView);
-
-        nodoToImageViewMap.put(nucleo, imageView);
+    private void handleMouseDragged(MouseEvent event) {
+        boolean puedeArrastrar = event.getButton() != MouseButton.PRIMARY || !construccionManager.estaEnModoConstruccion();
+        if (puedeArrastrar) {
+            camara.desplazar(event.getX() - arrastreX, event.getY() - arrastreY);
+            ghostPreview.setVisible(false);
+        }
+        arrastreX = event.getX();
+        arrastreY = event.getY();
     }
 
-    private void dibujarNuevoNodo(Nodo nuevoNodo) {
-
-        String rutaImagen = obtenerRutaDeImagenPorTipo(nuevoNodo);
-
-        Image imagen = new Image(
-                getClass().getResourceAsStream(rutaImagen)
-        );
-
-        ImageView imageView = new ImageView(imagen);
-
-        imageView.setX(nuevoNodo.getX() - (nuevoNodo.getRadio() * 1.5)); // Centrar la imagen
-        imageView.setY(nuevoNodo.getY() - (nuevoNodo.getRadio() * 2.5));
-        imageView.setFitWidth(nuevoNodo.getRadio() * 3);  // Ajustar tamaño
-        imageView.setFitHeight(nuevoNodo.getRadio() * 3);
-        this.getChildren().add(imageView);
-
-        Nodo padre = nuevoNodo.getVecinos().get(0);
-        this.nodoToImageViewMap.put(nuevoNodo, imageView);
-
-        Line hifaFX = new Line(nuevoNodo.getX(), nuevoNodo.getY(), padre.getX(), padre.getY());
-        hifaFX.setStroke(Color.TAN);
-        hifaFX.setStrokeWidth(2.0);
-
-        nodoToHifasMap.computeIfAbsent(nuevoNodo, k -> new ArrayList<>()).add(hifaFX);
-
-        nodoToHifasMap.computeIfAbsent(padre, k -> new ArrayList<>()).add(hifaFX);
-
-        // Añadir la hifa *debajo* del nodo para que no lo cubra
-        this.getChildren().add(0, hifaFX);
+    // La rueda acerca o aleja alrededor del cursor
+    private void handleScroll(ScrollEvent event) {
+        if (event.getDeltaY() == 0) {
+            return;
+        }
+        double factor = event.getDeltaY() > 0 ? FACTOR_ZOOM_RUEDA : 1 / FACTOR_ZOOM_RUEDA;
+        camara.acercar(factor, event.getX(), event.getY());
+        ghostPreview.setVisible(false);
+        event.consume();
     }
 
-    private String obtenerRutaDeImagenPorTipo(Nodo nodo) {
-
-        // 1. Verificar si el nodo ha sido completamente transformado en bacteria
-        if (nodo.esBacteriaCompletada()) {
-
-            // Retornar la imagen de la bacteria correspondiente al tipo original
-            switch (nodo.getTipoOriginal()) { // Asume que tienes un getTipoOriginal()
-                case EXTRACTOR:
-                    return "/gmushroom_bug.png";
-                case DEFENSA:
-                    return "/bmushroom_bug.png";
-                case ALMACENAMIENTO:
-                    return "/ymushroom_bug.png";
-                case NUCLEO:
-                    return "/pmushroom_bug.png";
-                default:
-                    // Si el tipo transformado no es específico, usa una imagen genérica de Bacteria
-                    return "/gmushroom_bug.png";
-            }
+    // --- Manejo del Clic (CONSTRUCCIÓN) ---
+    private void handleMouseClicked(MouseEvent event) {
+        // Soltar después de arrastrar la cámara no construye
+        if (!construccionManager.estaEnModoConstruccion() || event.getButton() != MouseButton.PRIMARY
+                || !event.isStillSincePress()) {
+            return;
         }
 
-        // 2. Si no es una bacteria completada, retorna la imagen normal basada en el tipo actual
-        switch (nodo.getTipo()) {
-            case NUCLEO:
-                return "/pmushroom.png";
-            case EXTRACTOR:
-                return "/gmushroom.png";
-            case DEFENSA:
-                return "/bmushroom.png";
-            case ALMACENAMIENTO:
-                return "/ymushroom.png";
-            default:
-                return "/gmushroom.png";
-        }
-    }
+        // 1. Posición final del grid
+        int xGrid = celdaMundoX(event.getX());
+        int yGrid = celdaMundoY(event.getY());
 
+        // Se aplica en el hilo de simulación, entre ticks; el nodo aparece con el siguiente estado publicado
+        TipoNodo tipo = construccionManager.getNodoSeleccionado();
+        hiloSimulacion.encolarConstruccion(xGrid, yGrid, tipo);
+    }
 
     public void mostrarPantallaGameOver() {
 
@@ -277,7 +335,7 @@ public class PanelJuegoFX extends Pane {
         try {
             imagen = new Image(getClass().getResourceAsStream(rutaImagen));
         } catch (NullPointerException e) {
-            System.err.println("Error al cargar la imagen de Game Over. Ruta no encontrada: " + rutaImagen);
+            RegistroEventos.global().error(RegistroEventos.Categoria.SISTEMA, "Error al cargar la imagen de Game Over. Ruta no encontrada: " + rutaImagen);
             return;
         }
 
@@ -304,58 +362,221 @@ public class PanelJuegoFX extends Pane {
         gameOverImageView.toFront();
     }
 
+    public int getParticulasActivas() {
+        return sistemaParticulas.getCantidadActivas();
+    }
+
     public void actualizarVista() {
+        // Ubicar todas las partículas según el tiempo (las que llegan vuelven al pool); se dibujan solo las visibles
+        sistemaParticulas.avanzar(System.nanoTime() / 1e9);
+        // La simulación solo manda las partículas que todavía caben (en modo flujo, ninguna de nutrientes)
+        if (hiloSimulacion != null) {
+            hiloSimulacion.setCupoParticulas(modoFlujo ? 0
+                    : sistemaParticulas.getPresupuesto() - sistemaParticulas.getCantidadActivas());
+        }
 
-        // Iteramos sobre el mapa de rastreo existente, sin modificarlo.
-        for (Map.Entry<Nodo, ImageView> entry : nodoToImageViewMap.entrySet()) {
-            Nodo nodo = entry.getKey();
-            ImageView imageView = entry.getValue();
+        GraphicsContext gc = capaMundo.getGraphicsContext2D();
+        gc.setTransform(1, 0, 0, 1, 0, 0);
+        gc.clearRect(0, 0, capaMundo.getWidth(), capaMundo.getHeight());
+        if (vista.estaVacia()) {
+            return;
+        }
 
-            // 1. Obtener la ruta de imagen actualizada (cambia si el nodo muere o no)
-            String nuevaRuta = obtenerRutaDeImagenPorTipo(nodo);
+        // Rectángulo visible en coordenadas del mundo
+        double minX = camara.aMundoX(0);
+        double minY = camara.aMundoY(0);
+        double maxX = camara.aMundoX(capaMundo.getWidth());
+        double maxY = camara.aMundoY(capaMundo.getHeight());
 
-            // **A. Actualización de Imagen (Si el estado cambia)**
-            // (Podrías optimizar esto para solo cargar si la ruta ha cambiado, pero por ahora es simple)
-            Image nuevaImagen = new Image(getClass().getResourceAsStream(nuevaRuta));
-            imageView.setImage(nuevaImagen);
+        // De lejos los sprites y las partículas serían puntos: se dibuja un glifo por grupo de nodos
+        double zoom = camara.getZoom();
+        if (zoom < ZOOM_DETALLE) {
+            dibujarGrupos(gc, minX, minY, maxX, maxY);
+            return;
+        }
 
-            // 2. Lógica de Transformación y Estado
-            if (nodo.esBacteriaCompletada()) {
+        // Desde aquí se dibuja en coordenadas del mundo
+        gc.setTransform(zoom, 0, 0, zoom, -camara.getOrigenX() * zoom, -camara.getOrigenY() * zoom);
 
-                imageView.setOpacity(1.0);
+        dibujarNodosVisibles(gc, minX, minY, maxX, maxY);
+        if (!modoFlujo) {
+            dibujarParticulas(gc, minX, minY, maxX, maxY);
+        }
+    }
 
-                if (nodo.getTipoOriginal() == TipoNodo.NUCLEO) {
-                    imageView.setFitWidth(nodo.getRadio() * 3);
-                    imageView.setFitHeight(nodo.getRadio() * 3);
-                } else {
-                    imageView.setFitWidth(nodo.getRadio() * 3);
-                    imageView.setFitHeight(nodo.getRadio() * 3);
-                }
+    private void dibujarNodosVisibles(GraphicsContext gc, double minX, double minY, double maxX, double maxY) {
+        AlmacenNodos almacen = vista.getAlmacen();
+        int consultaMinX = (int) Math.floor(minX);
+        int consultaMinY = (int) Math.floor(minY);
+        int consultaMaxX = (int) Math.ceil(maxX);
+        int consultaMaxY = (int) Math.ceil(maxY);
+
+        // 1. Hifas debajo de los nodos. El índice de hifas encuentra también las que cruzan la
+        // pantalla con los dos extremos fuera, sin agrandar la consulta por la hifa más larga
+        gc.setStroke(Color.TAN);
+        gc.setLineWidth(2.0);
+        aristasVisibles.limpiar();
+        vista.hifasEnRectangulo(consultaMinX, consultaMinY, consultaMaxX, consultaMaxY, aristasVisibles);
+        int dibujadas = 0;
+        for (int i = 0; i < aristasVisibles.size(); i++) {
+            int arista = aristasVisibles.get(i);
+            int a = almacen.getExtremoA(arista);
+            int b = almacen.getExtremoB(arista);
+            int x = almacen.getX(a);
+            int y = almacen.getY(a);
+            int vx = almacen.getX(b);
+            int vy = almacen.getY(b);
+            if (Math.max(x, vx) < minX || Math.min(x, vx) > maxX || Math.max(y, vy) < minY || Math.min(y, vy) > maxY) {
+                continue; // La caja de la hifa no toca la pantalla
+            }
+            gc.strokeLine(x, y, vx, vy);
+            aristasVisibles.set(dibujadas++, arista);
+        }
+        aristasVisibles.truncar(dibujadas);
+        if (modoFlujo) {
+            dibujarFlujo(gc, almacen);
+        }
 
-            } else {
-                // El nodo está VIVO o en proceso de INFECCIÓN/TRANSFORMACIÓN
-                double nivelInfeccion = nodo.getNivelInfeccion();
-
-                if (nivelInfeccion > 0) {
-                    // Parpadeo: usa el seno para crear un efecto de pulsación entre 0.4 y 0.8
-                    imageView.setOpacity(0.4 + Math.abs(Math.sin(System.currentTimeMillis() / 250.0)) * 0.4);
-                } else {
-                    imageView.setOpacity(1.0); // Completamente opaco cuando está sano
-                }
-
-                imageView.setFitWidth(nodo.getRadio() * 3);
-                imageView.setFitHeight(nodo.getRadio() * 3);
+        // 2. Nodos: el sprite ocupa 3 radios, corrido hacia arriba del centro del nodo
+        visibles.limpiar();
+        vista.nodosEnRectangulo(consultaMinX - MARGEN_SPRITE, consultaMinY - MARGEN_SPRITE,
+                consultaMaxX + MARGEN_SPRITE, consultaMaxY + MARGEN_SPRITE, visibles);
+        double parpadeo = 0.4 + Math.abs(Math.sin(System.currentTimeMillis() / 250.0)) * 0.4;
+        for (int i = 0; i < visibles.size(); i++) {
+            int id = visibles.get(i);
+            int x = almacen.getX(id);
+            int y = almacen.getY(id);
+            double radio = almacen.getRadio(id);
+
+            // Un nodo infectado (todavía vivo) parpadea entre 0.4 y 0.8 de opacidad
+            boolean parpadea = !almacen.esBacteria(id) && almacen.getInfeccion(id) > 0;
+            gc.setGlobalAlpha(parpadea ? parpadeo : 1.0);
+            gc.drawImage(cacheSprites.obtener(almacen, id), x - radio * 1.5, y - radio * 2.5, radio * 3, radio * 3);
+        }
+        gc.setGlobalAlpha(1.0);
+    }
+
+    /**
+     * Un círculo por bloque del resumen jerárquico, en el centroide de sus nodos: el color es el
+     * tipo dominante, el tamaño crece con la cantidad de nodos, el anillo rojo con la infección
+     * promedio y el centro oscuro con la fracción de bacterias. El nivel se elige para que los
+     * bloques midan al menos LADO_MINIMO_GRUPO en pantalla, así que la cantidad de glifos
+     * depende del tamaño de la pantalla, no del zoom ni de la colonia.
+     */
+    private void dibujarGrupos(GraphicsContext gc, double minX, double minY, double maxX, double maxY) {
+        ResumenBloques resumen = vista.getAlmacen().getResumenBloques();
+        double zoom = camara.getZoom();
+        int nivel = resumen.nivelPara(zoom, LADO_MINIMO_GRUPO);
+        double ladoPantalla = resumen.getLadoBloque(nivel) * zoom;
+
+        gruposVisibles.limpiar();
+        resumen.consultar(nivel, minX, minY, maxX, maxY, gruposVisibles);
+
+        gc.setFont(Font.font("Arial", 11));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        for (int i = 0; i < gruposVisibles.size(); i++) {
+            int grupo = gruposVisibles.get(i);
+            int cantidad = resumen.getCantidadNodos(grupo);
+            double x = camara.aPantallaX(resumen.getCentroX(grupo));
+            double y = camara.aPantallaY(resumen.getCentroY(grupo));
+            double radio = Math.min(ladoPantalla * 0.45, 5 + 3 * Math.log(1 + cantidad) / Math.log(2));
+
+            gc.setFill(COLOR_GRUPO.getOrDefault(resumen.getTipoDominante(grupo), Color.GRAY));
+            gc.fillOval(x - radio, y - radio, radio * 2, radio * 2);
+
+            double fraccionBacterias = (double) resumen.getBacterias(grupo) / cantidad;
+            if (fraccionBacterias > 0) {
+                double radioBacterias = radio * Math.sqrt(fraccionBacterias);
+                gc.setFill(Color.rgb(60, 20, 40, 0.85));
+                gc.fillOval(x - radioBacterias, y - radioBacterias, radioBacterias * 2, radioBacterias * 2);
+            }
+
+            double infeccion = resumen.getInfeccionPromedio(grupo);
+            if (infeccion > 0) {
+                gc.setStroke(Color.RED.deriveColor(0, 1.0, 1.0, Math.min(1.0, 0.3 + infeccion)));
+                gc.setLineWidth(1 + 4 * infeccion);
+                gc.strokeOval(x - radio, y - radio, radio * 2, radio * 2);
+            }
+
+            if (radio >= 12) {
+                gc.setFill(Color.WHITE);
+                gc.fillText(Integer.toString(cantidad), x, y);
+            }
+        }
+    }
+
+    /**
+     * Trazos que avanzan sobre cada hifa visible en el sentido del recurso. Los nutrientes salen
+     * del flujo máximo de la simulación: más opacos cuanto más cerca de la capacidad de la hifa,
+     * y en naranja las hifas saturadas (los cuellos de botella). Las defensas, en cian, salen del
+     * flujo reciente de partículas: más gruesas y opacas cuanto más pasa.
+     */
+    private void dibujarFlujo(GraphicsContext gc, AlmacenNodos almacen) {
+        double ahora = System.nanoTime() / 1e9;
+        double fase = (ahora * VELOCIDAD_FLUJO) % 16; // Período del patrón de trazos (8 + 8)
+        double capacidadHifa = vista.getCapacidadHifa();
+        gc.setLineDashes(8, 8);
+        gc.setLineDashOffset(-fase);
+        for (int i = 0; i < aristasVisibles.size(); i++) {
+            int arista = aristasVisibles.get(i);
+            double flujo = vista.getFlujoNutrientes(arista);
+            double magnitud = Math.abs(flujo);
+            if (magnitud < FLUJO_MINIMO_VISIBLE) {
+                continue;
+            }
+            double uso = Math.min(1.0, magnitud / capacidadHifa);
+            Color color = uso >= 1.0 ? Color.ORANGE : Color.YELLOW;
+            gc.setStroke(color.deriveColor(0, 1.0, 1.0, 0.35 + 0.65 * uso));
+            gc.setLineWidth(1.5 + 3.0 * uso);
+            trazarEnSentido(gc, almacen, arista, flujo);
+        }
+        for (int i = 0; i < aristasVisibles.size(); i++) {
+            int arista = aristasVisibles.get(i);
+            double flujo = flujoHifas.getFlujo(arista, TipoRecurso.DEFENSA, ahora);
+            double magnitud = Math.abs(flujo);
+            if (magnitud < FLUJO_MINIMO_VISIBLE) {
+                continue;
             }
+            gc.setStroke(Color.CYAN.deriveColor(0, 1.0, 1.0, 0.35 + Math.min(0.65, magnitud / 8)));
+            gc.setLineWidth(1.5 + Math.min(4.0, Math.log(1 + magnitud) / Math.log(2)));
+            trazarEnSentido(gc, almacen, arista, flujo);
         }
+        gc.setLineDashes(null);
+        gc.setLineDashOffset(0);
+    }
+
+    // Se traza en el sentido del flujo: el desplazamiento negativo mueve los trazos hacia el final
+    private static void trazarEnSentido(GraphicsContext gc, AlmacenNodos almacen, int arista, double flujo) {
+        int desde = flujo > 0 ? almacen.getExtremoA(arista) : almacen.getExtremoB(arista);
+        int hasta = flujo > 0 ? almacen.getExtremoB(arista) : almacen.getExtremoA(arista);
+        gc.strokeLine(almacen.getX(desde), almacen.getY(desde), almacen.getX(hasta), almacen.getY(hasta));
+    }
 
-        Iterator<ParticulaRecurso> iterator = particulasActivas.iterator();
-        while (iterator.hasNext()) {
-            ParticulaRecurso particula = iterator.next();
-            if (particula.mover()) {
-                // La partícula ha llegado a su destino
-                this.getChildren().remove(particula); // Remover visualmente
-                iterator.remove(); // Remover de la lista activa
+    private void dibujarParticulas(GraphicsContext gc, double minX, double minY, double maxX, double maxY) {
+        int cantidad = sistemaParticulas.getCantidadActivas();
+        double radio = 3.0; // Radio pequeño de 3px
+        minX -= radio;
+        minY -= radio;
+        maxX += radio;
+        maxY += radio;
+
+        // Una pasada por color para no cambiar el relleno en cada partícula
+        gc.setFill(Color.YELLOW);
+        for (int i = 0; i < cantidad; i++) {
+            double x = sistemaParticulas.getX(i);
+            double y = sistemaParticulas.getY(i);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY && sistemaParticulas.esTipo(i, TipoRecurso.NUTRIENTE)) {
+                gc.fillOval(x - radio, y - radio, radio * 2, radio * 2);
+            }
+        }
+        gc.setFill(Color.CYAN);
+        for (int i = 0; i < cantidad; i++) {
+            double x = sistemaParticulas.getX(i);
+            double y = sistemaParticulas.getY(i);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY && sistemaParticulas.esTipo(i, TipoRecurso.DEFENSA)) {
+                gc.fillOval(x - radio, y - radio, radio * 2, radio * 2);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Constantes de balance de una simulación concreta.
+ *
+ * Los valores por defecto son los de Configuracion; cada GrafoColonia guarda los suyos, así
+ * que varias simulaciones con distinto balance pueden correr a la vez en el mismo proceso
+ * (ver BarridoSimulaciones). Es inmutable: {@link #con(Parametro, double)} devuelve una copia.
+ *
+ * Viajan con la partida: el diario los anota como texto ("NOMBRE=valor", ver DiarioComandos)
+ * y las instantáneas como vector por ordinal (ver InstantaneaColonia), para que reproducir o
+ * cargar siga con el mismo balance.
+ */
+public final class ParametrosSimulacion {
+
+    public enum Parametro {
+        FACTOR_PROPAGACION_BACTERIA(Configuracion.FACTOR_PROPAGACION_BACTERIA),
+        DANO_BACTERIA_POR_CICLO(Configuracion.DANO_BACTERIA_POR_CICLO),
+        COSTO_DEFENSA_POR_COMBATE(Configuracion.COSTO_DEFENSA_POR_COMBATE),
+        CAPACIDAD_MAXIMA_DEFENSA(Configuracion.CAPACIDAD_MAXIMA_DEFENSA),
+        TASA_SANACION_INFECCION(Configuracion.TASA_SANACION_INFECCION),
+        PROBABILIDAD_INFECCION_EXTERNA(Configuracion.PROBABILIDAD_INFECCION_EXTERNA),
+        CICLO_GRACIA_INICIAL(Configuracion.CICLO_GRACIA_INICIAL),
+        CAPACIDAD_HIFA(Configuracion.CAPACIDAD_HIFA);
+
+        private final double porDefecto;
+
+        Parametro(double porDefecto) {
+            this.porDefecto = porDefecto;
+        }
+
+        public double getPorDefecto() {
+            return porDefecto;
+        }
+    }
+
+    private static final Parametro[] PARAMETROS = Parametro.values();
+
+    public static final ParametrosSimulacion PREDETERMINADOS = new ParametrosSimulacion(valoresPorDefecto());
+
+    private final double[] valores; // Por ordinal de Parametro
+
+    private ParametrosSimulacion(double[] valores) {
+        this.valores = valores;
+    }
+
+    // Copia con un parámetro cambiado
+    public ParametrosSimulacion con(Parametro parametro, double valor) {
+        double[] copia = Arrays.copyOf(valores, valores.length);
+        copia[parametro.ordinal()] = valor;
+        return new ParametrosSimulacion(copia);
+    }
+
+    /**
+     * Copia con la asignación "NOMBRE=valor" aplicada (el formato de --param y del diario).
+     * @throws IllegalArgumentException si el nombre no existe o el valor no es un número.
+     */
+    public ParametrosSimulacion con(String asignacion) {
+        String[] partes = asignacion.split("=", 2);
+        if (partes.length != 2) {
+            throw new IllegalArgumentException("Se esperaba NOMBRE=valor: " + asignacion);
+        }
+        return con(Parametro.valueOf(partes[0].trim()), Double.parseDouble(partes[1].trim()));
+    }
+
+    /**
+     * Parámetros a partir de los valores guardados por ordinal. Si el vector es más corto
+     * (guardado antes de que existieran los últimos parámetros), el resto queda por defecto.
+     */
+    static ParametrosSimulacion desdeValores(double[] guardados) {
+        double[] valores = valoresPorDefecto();
+        System.arraycopy(guardados, 0, valores, 0, Math.min(guardados.length, valores.length));
+        return new ParametrosSimulacion(valores);
+    }
+
+    // Todos los valores por ordinal de Parametro
+    double[] getValores() {
+        return Arrays.copyOf(valores, valores.length);
+    }
+
+    public double get(Parametro parametro) {
+        return valores[parametro.ordinal()];
+    }
+
+    public double getFactorPropagacionBacteria() {
+        return get(Parametro.FACTOR_PROPAGACION_BACTERIA);
+    }
+
+    public double getDanoBacteriaPorCiclo() {
+        return get(Parametro.DANO_BACTERIA_POR_CICLO);
+    }
+
+    public double getCostoDefensaPorCombate() {
+        return get(Parametro.COSTO_DEFENSA_POR_COMBATE);
+    }
+
+    public double getCapacidadMaximaDefensa() {
+        return get(Parametro.CAPACIDAD_MAXIMA_DEFENSA);
+    }
+
+    public double getTasaSanacionInfeccion() {
+        return get(Parametro.TASA_SANACION_INFECCION);
+    }
+
+    public double getProbabilidadInfeccionExterna() {
+        return get(Parametro.PROBABILIDAD_INFECCION_EXTERNA);
+    }
+
+    public int getCicloGraciaInicial() {
+        return (int) get(Parametro.CICLO_GRACIA_INICIAL);
+    }
+
+    public double getCapacidadHifa() {
+        return get(Parametro.CAPACIDAD_HIFA);
+    }
+
+    // Solo los parámetros que difieren de los valores por defecto, p. ej. "DANO_BACTERIA_POR_CICLO=2"
+    @Override
+    public String toString() {
+        String cambios = describirCambios();
+        return cambios.isEmpty() ? "(por defecto)" : cambios;
+    }
+
+    /**
+     * Las asignaciones "NOMBRE=valor" que difieren de los valores por defecto, separadas por
+     * espacios ("" si no hay ninguna). Los valores se escriben de forma que releerlos con
+     * {@link #con(String)} da exactamente el mismo double.
+     */
+    public String describirCambios() {
+        StringBuilder texto = new StringBuilder();
+        for (Parametro parametro : PARAMETROS) {
+            double valor = get(parametro);
+            if (valor != parametro.getPorDefecto()) {
+                if (texto.length() > 0) {
+                    texto.append(' ');
+                }
+                texto.append(parametro.name()).append('=').append(String.format(Locale.ROOT, "%s", valor));
+            }
+        }
+        return texto.toString();
+    }
+
+    private static double[] valoresPorDefecto() {
+        double[] valores = new double[PARAMETROS.length];
+        for (Parametro parametro : PARAMETROS) {
+            valores[parametro.ordinal()] = parametro.getPorDefecto();
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,243 @@
+package org.fungalnexus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Instrumentación integrada del game loop: cuánto tarda cada fase del tick y cada frame.
+ *
+ * Cada fase se mide con System.nanoTime y va a un histograma de latencias (p50/p99/máx) sin
+ * asignar memoria. Si hay una grabación de Flight Recorder activa, además se emite un evento
+ * JFR por fase, por frame y por tick (ver EventosPerfil). Los contadores de la colonia
+ * (partículas, infectados, búsquedas BFS) se muestrean al terminar cada tick.
+ *
+ * Opcionalmente vuelca un CSV cada cierto intervalo con las estadísticas de ese intervalo,
+ * una fila por fase.
+ *
+ * No es seguro entre hilos: cada hilo lleva su propio perfil. El del motor mide el tick en el
+ * hilo de simulación; la vista crea otro, sin grafo, para FRAME y ETIQUETAS_UI en el hilo de
+ * JavaFX, con su propio CSV. Así ningún histograma se escribe desde un hilo y se lee o
+ * reinicia desde otro.
+ */
+public class PerfilTick {
+
+    public enum Fase {
+        TICK,
+        RECURSOS,
+        PRIMERA_INFECCION,
+        INFECCION_COMBATE,
+        ETIQUETAS_UI,
+        FRAME
+    }
+
+    private static final Fase[] FASES = Fase.values();
+    private static final String CABECERA_CSV =
+            "marca_ms,tick,fase,muestras,p50_us,p99_us,max_us,promedio_us,particulas,infectados_max,busquedas_bfs";
+
+    private final GrafoColonia grafo; // null en el perfil de la vista: sin contadores de la colonia
+
+    // Histogramas de toda la partida y del intervalo de volcado en curso
+    private final HistogramaLatencias[] totales = new HistogramaLatencias[FASES.length];
+    private final HistogramaLatencias[] intervalo = new HistogramaLatencias[FASES.length];
+
+    private final long[] inicios = new long[FASES.length];
+    private final EventosPerfil.FaseTick[] eventosEnCurso = new EventosPerfil.FaseTick[FASES.length];
+    private EventosPerfil.Frame frameEnCurso;
+
+    private int tick = 0;
+
+    // Contadores del intervalo: el grafo los lleva acumulados, aquí se guarda el valor del último volcado
+    private int infectadosMaximo = 0;
+    private long particulasAlVolcar = 0;
+    private long busquedasAlVolcar = 0;
+
+    // Volcado periódico a CSV (null: desactivado)
+    private Path archivoCsv;
+    private long intervaloVolcadoNanos;
+    private long ultimoVolcado;
+
+    public PerfilTick(GrafoColonia grafo) {
+        this.grafo = grafo;
+        for (int i = 0; i < FASES.length; i++) {
+            totales[i] = new HistogramaLatencias();
+            intervalo[i] = new HistogramaLatencias();
+        }
+    }
+
+    // Perfil de un hilo que no ejecuta ticks (la vista): solo fases y frames
+    public PerfilTick() {
+        this(null);
+    }
+
+    /**
+     * Vuelca las estadísticas al archivo cada 'intervaloMillis' (medido al terminar los ticks o los frames),
+     * agregando filas al final. La cabecera se escribe si el archivo no existía.
+     */
+    public void setVolcadoCsv(Path archivo, long intervaloMillis) {
+        this.archivoCsv = archivo;
+        this.intervaloVolcadoNanos = intervaloMillis * 1_000_000L;
+        this.ultimoVolcado = System.nanoTime();
+    }
+
+    public void iniciar(Fase fase) {
+        int f = fase.ordinal();
+        EventosPerfil.FaseTick evento = new EventosPerfil.FaseTick();
+        if (evento.isEnabled()) {
+            evento.begin();
+            eventosEnCurso[f] = evento;
+        }
+        inicios[f] = System.nanoTime();
+    }
+
+    public void terminar(Fase fase) {
+        int f = fase.ordinal();
+        long duracion = System.nanoTime() - inicios[f];
+        totales[f].registrar(duracion);
+        intervalo[f].registrar(duracion);
+
+        EventosPerfil.FaseTick evento = eventosEnCurso[f];
+        if (evento != null) {
+            eventosEnCurso[f] = null;
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.fase = fase.name();
+                evento.tick = tick;
+                evento.commit();
+            }
+        }
+    }
+
+    public void iniciarFrame() {
+        EventosPerfil.Frame evento = new EventosPerfil.Frame();
+        if (evento.isEnabled()) {
+            evento.begin();
+            frameEnCurso = evento;
+        }
+        inicios[Fase.FRAME.ordinal()] = System.nanoTime();
+    }
+
+    public void terminarFrame(int particulasEnVuelo) {
+        int f = Fase.FRAME.ordinal();
+        long duracion = System.nanoTime() - inicios[f];
+        totales[f].registrar(duracion);
+        intervalo[f].registrar(duracion);
+
+        EventosPerfil.Frame evento = frameEnCurso;
+        if (evento != null) {
+            frameEnCurso = null;
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.particulas = particulasEnVuelo;
+                evento.commit();
+            }
+        }
+        volcarSiCorresponde();
+    }
+
+    /**
+     * Cierra la fase TICK, muestrea los contadores y, si corresponde, vuelca el CSV.
+     * @param tickTerminado número del tick que acaba de ejecutarse.
+     */
+    public void tickTerminado(int tickTerminado) {
+        terminar(Fase.TICK);
+        this.tick = tickTerminado + 1;
+
+        int infectados = grafo.getNodosInfectados().size();
+        infectadosMaximo = Math.max(infectadosMaximo, infectados);
+
+        EventosPerfil.Contadores contadores = new EventosPerfil.Contadores();
+        if (contadores.shouldCommit()) {
+            contadores.tick = tickTerminado;
+            contadores.infectados = infectados;
+            contadores.particulas = grafo.getParticulasEmitidas();
+            contadores.busquedasBfs = grafo.getBusquedasBfs();
+            contadores.commit();
+        }
+
+        volcarSiCorresponde();
+    }
+
+    private void volcarSiCorresponde() {
+        if (archivoCsv != null && System.nanoTime() - ultimoVolcado >= intervaloVolcadoNanos) {
+            volcarCsv();
+        }
+    }
+
+    /**
+     * Agrega al CSV una fila por fase con muestras en el intervalo y empieza un intervalo nuevo.
+     * Un error de disco desactiva el volcado sin detener la partida.
+     */
+    public void volcarCsv() {
+        if (archivoCsv == null) {
+            return;
+        }
+        long particulas = grafo != null ? grafo.getParticulasEmitidas() : 0;
+        long busquedas = grafo != null ? grafo.getBusquedasBfs() : 0;
+        long marca = System.currentTimeMillis();
+        try {
+            if (archivoCsv.getParent() != null) {
+                Files.createDirectories(archivoCsv.getParent());
+            }
+            boolean nuevo = !Files.exists(archivoCsv);
+            try (BufferedWriter escritor = Files.newBufferedWriter(archivoCsv, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (nuevo) {
+                    escritor.write(CABECERA_CSV);
+                    escritor.newLine();
+                }
+                for (Fase fase : FASES) {
+                    HistogramaLatencias histograma = intervalo[fase.ordinal()];
+                    if (histograma.getCantidad() == 0) {
+                        continue;
+                    }
+                    escritor.write(String.format(Locale.ROOT, "%d,%d,%s,%d,%.1f,%.1f,%.1f,%.1f,%d,%d,%d",
+                            marca, tick, fase.name(), histograma.getCantidad(),
+                            histograma.percentil(0.50) / 1e3, histograma.percentil(0.99) / 1e3,
+                            histograma.getMaximo() / 1e3, histograma.getPromedio() / 1e3,
+                            particulas - particulasAlVolcar, infectadosMaximo, busquedas - busquedasAlVolcar));
+                    escritor.newLine();
+                }
+            }
+        } catch (IOException e) {
+            RegistroEventos.global().error(RegistroEventos.Categoria.SISTEMA,
+                    "No se pudo escribir el perfil en " + archivoCsv + ", se desactiva: " + e.getMessage());
+            archivoCsv = null;
+        }
+
+        for (HistogramaLatencias histograma : intervalo) {
+            histograma.reiniciar();
+        }
+        infectadosMaximo = 0;
+        particulasAlVolcar = particulas;
+        busquedasAlVolcar = busquedas;
+        ultimoVolcado = System.nanoTime();
+    }
+
+    // Estadísticas de toda la partida
+    public HistogramaLatencias getHistograma(Fase fase) {
+        return totales[fase.ordinal()];
+    }
+
+    /**
+     * Tabla legible con p50/p99/máx de cada fase medida, en microsegundos.
+     */
+    public String resumen() {
+        StringBuilder texto = new StringBuilder(String.format(Locale.ROOT, "%-18s %9s %10s %10s %10s%n",
+                "Fase", "muestras", "p50 us", "p99 us", "max us"));
+        for (Fase fase : FASES) {
+            HistogramaLatencias histograma = totales[fase.ordinal()];
+            if (histograma.getCantidad() == 0) {
+                continue;
+            }
+            texto.append(String.format(Locale.ROOT, "%-18s %9d %10.1f %10.1f %10.1f%n",
+                    fase.name(), histograma.getCantidad(), histograma.percentil(0.50) / 1e3,
+                    histograma.percentil(0.99) / 1e3, histograma.getMaximo() / 1e3));
+        }
+        return texto.toString();
+    }
+}
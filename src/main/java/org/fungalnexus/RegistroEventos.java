@@ -0,0 +1,404 @@
+package org.fungalnexus;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de eventos del juego, asíncrono y con límite de frecuencia por categoría.
+ *
+ * Publicar nunca bloquea: el mensaje se copia a un búfer circular acotado (varios productores,
+ * un consumidor, sin locks) y un hilo aparte lo escribe al archivo y/o a la consola.
+ * Si el búfer está lleno el mensaje se descarta y se cuenta. Cada categoría tiene un
+ * límite de mensajes por segundo con ráfaga (cubeta de fichas); lo que excede se suprime
+ * y el hilo escritor deja una línea por segundo con la cantidad suprimida.
+ *
+ * Los mensajes caros de armar en caminos calientes se protegen con {@link #admite}:
+ * <pre>
+ * if (registro.admite(Nivel.DEPURACION, Categoria.PARTICULAS)) {
+ *     registro.publicar(Nivel.DEPURACION, Categoria.PARTICULAS, "..." + origen + "...");
+ * }
+ * </pre>
+ */
+public final class RegistroEventos implements AutoCloseable {
+
+    public enum Nivel {
+        DEPURACION,
+        INFO,
+        AVISO,
+        ERROR
+    }
+
+    public enum Categoria {
+        PARTIDA,
+        RECURSOS,
+        INFECCION,
+        COMBATE,
+        PARTICULAS,
+        CONSTRUCCION,
+        SISTEMA
+    }
+
+    private static final Categoria[] CATEGORIAS = Categoria.values();
+    private static final int CAPACIDAD_POR_DEFECTO = 1 << 14;
+    private static final long ESPERA_ESCRITOR_NANOS = 20_000_000L;
+    private static final long INTERVALO_SUPRIMIDOS_NANOS = 1_000_000_000L;
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // Registro compartido por todo el juego; por defecto solo consola, nivel INFO
+    private static volatile RegistroEventos global;
+
+    // --- Búfer circular: cada ranura tiene su número de secuencia (cola acotada de Vyukov) ---
+    private final int mascara;
+    private final Entrada[] entradas;
+    private final AtomicLongArray secuencias;
+    private final AtomicLong posicionProductores = new AtomicLong();
+    private long posicionConsumidor = 0; // Solo la toca el hilo escritor
+
+    // --- Filtros ---
+    private final Nivel nivelArchivo;
+    private final Nivel nivelConsola;
+    private final Nivel nivelMinimo;
+    private final LimiteFrecuencia[] limites = new LimiteFrecuencia[CATEGORIAS.length];
+    private final AtomicLong[] suprimidos = new AtomicLong[CATEGORIAS.length];
+    private final AtomicLong descartados = new AtomicLong();
+
+    // --- Destinos (solo los usa el hilo escritor) ---
+    private final Path archivo;
+    private BufferedWriter escritor;
+    private final PrintStream consola = System.out;
+
+    private final Thread hiloEscritor;
+    private volatile boolean cerrado = false;
+
+    // Mensaje copiado en una ranura; los campos se publican con la secuencia de la ranura
+    private static final class Entrada {
+        long marcaMillis;
+        Nivel nivel;
+        Categoria categoria;
+        String mensaje;
+    }
+
+    /**
+     * @param archivo destino de los mensajes (null: solo consola); se agrega al final si existe.
+     * @param nivelArchivo nivel mínimo que va al archivo.
+     * @param nivelConsola nivel mínimo que va a la consola (null: nada a la consola).
+     */
+    public RegistroEventos(Path archivo, Nivel nivelArchivo, Nivel nivelConsola) {
+        this(CAPACIDAD_POR_DEFECTO, archivo, nivelArchivo, nivelConsola);
+    }
+
+    public RegistroEventos(int capacidad, Path archivo, Nivel nivelArchivo, Nivel nivelConsola) {
+        int tamano = Integer.highestOneBit(Math.max(2, capacidad - 1) << 1);
+        this.mascara = tamano - 1;
+        this.entradas = new Entrada[tamano];
+        this.secuencias = new AtomicLongArray(tamano);
+        for (int i = 0; i < tamano; i++) {
+            entradas[i] = new Entrada();
+            secuencias.set(i, i);
+        }
+
+        this.archivo = archivo;
+        this.nivelArchivo = nivelArchivo;
+        this.nivelConsola = nivelConsola;
+        Nivel minimo = Nivel.ERROR;
+        if (archivo != null && nivelArchivo.compareTo(minimo) < 0) {
+            minimo = nivelArchivo;
+        }
+        if (nivelConsola != null && nivelConsola.compareTo(minimo) < 0) {
+            minimo = nivelConsola;
+        }
+        this.nivelMinimo = minimo;
+
+        for (Categoria categoria : CATEGORIAS) {
+            limites[categoria.ordinal()] = new LimiteFrecuencia(20.0, 50);
+            suprimidos[categoria.ordinal()] = new AtomicLong();
+        }
+        // Categorías que se disparan por tick o por nodo durante un brote
+        setLimite(Categoria.RECURSOS, 1.0, 1);
+        setLimite(Categoria.PARTICULAS, 5.0, 10);
+        setLimite(Categoria.COMBATE, 10.0, 30);
+
+        this.hiloEscritor = new Thread(this::escribirPendientes, "registro-eventos");
+        this.hiloEscritor.setDaemon(true);
+        this.hiloEscritor.start();
+    }
+
+    /**
+     * Registro compartido. Si nadie lo configuró, crea uno que solo escribe a la consola desde nivel INFO.
+     */
+    public static RegistroEventos global() {
+        RegistroEventos registro = global;
+        if (registro == null) {
+            synchronized (RegistroEventos.class) {
+                if (global == null) {
+                    global = new RegistroEventos(null, Nivel.INFO, Nivel.INFO);
+                }
+                registro = global;
+            }
+        }
+        return registro;
+    }
+
+    /**
+     * Reemplaza el registro compartido (el anterior se cierra después de vaciarse).
+     */
+    public static synchronized RegistroEventos configurarGlobal(Path archivo, Nivel nivelArchivo, Nivel nivelConsola) {
+        RegistroEventos anterior = global;
+        global = new RegistroEventos(archivo, nivelArchivo, nivelConsola);
+        if (anterior != null) {
+            anterior.close();
+        }
+        return global;
+    }
+
+    public void setLimite(Categoria categoria, double mensajesPorSegundo, int rafaga) {
+        limites[categoria.ordinal()] = new LimiteFrecuencia(mensajesPorSegundo, rafaga);
+    }
+
+    /**
+     * Indica si un mensaje de ese nivel y categoría se va a registrar, y si es así consume
+     * su ficha del límite de frecuencia. Si devuelve true hay que llamar a publicar.
+     */
+    public boolean admite(Nivel nivel, Categoria categoria) {
+        if (nivel.compareTo(nivelMinimo) < 0) {
+            return false;
+        }
+        int c = categoria.ordinal();
+        if (nivel != Nivel.ERROR && !limites[c].tomarFicha(System.nanoTime())) {
+            suprimidos[c].incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copia el mensaje al búfer sin esperar (ya filtrado con admite).
+     * @return false si el búfer estaba lleno y el mensaje se descartó.
+     */
+    public boolean publicar(Nivel nivel, Categoria categoria, String mensaje) {
+        long posicion = posicionProductores.get();
+        while (true) {
+            int ranura = (int) posicion & mascara;
+            long diferencia = secuencias.get(ranura) - posicion;
+            if (diferencia == 0) {
+                if (posicionProductores.compareAndSet(posicion, posicion + 1)) {
+                    break;
+                }
+                posicion = posicionProductores.get();
+            } else if (diferencia < 0) {
+                descartados.incrementAndGet(); // Lleno: el escritor no alcanza a vaciar
+                return false;
+            } else {
+                posicion = posicionProductores.get(); // Otro productor tomó la ranura
+            }
+        }
+        int ranura = (int) posicion & mascara;
+        Entrada entrada = entradas[ranura];
+        entrada.marcaMillis = System.currentTimeMillis();
+        entrada.nivel = nivel;
+        entrada.categoria = categoria;
+        entrada.mensaje = mensaje;
+        secuencias.lazySet(ranura, posicion + 1);
+        return true;
+    }
+
+    public void registrar(Nivel nivel, Categoria categoria, String mensaje) {
+        if (admite(nivel, categoria)) {
+            publicar(nivel, categoria, mensaje);
+        }
+    }
+
+    public void depuracion(Categoria categoria, String mensaje) {
+        registrar(Nivel.DEPURACION, categoria, mensaje);
+    }
+
+    public void info(Categoria categoria, String mensaje) {
+        registrar(Nivel.INFO, categoria, mensaje);
+    }
+
+    public void aviso(Categoria categoria, String mensaje) {
+        registrar(Nivel.AVISO, categoria, mensaje);
+    }
+
+    public void error(Categoria categoria, String mensaje) {
+        registrar(Nivel.ERROR, categoria, mensaje);
+    }
+
+    // Mensajes perdidos porque el búfer estaba lleno
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Espera a que el hilo escritor vacíe el búfer, escribe lo pendiente y cierra el archivo.
+     */
+    @Override
+    public void close() {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        LockSupport.unpark(hiloEscritor);
+        try {
+            hiloEscritor.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Hilo escritor ---
+
+    private void escribirPendientes() {
+        abrirArchivo();
+        long ultimoResumen = System.nanoTime();
+        while (true) {
+            boolean terminar = cerrado; // Leído antes de vaciar: lo publicado antes de cerrar se escribe
+            int escritos = vaciarBufer();
+
+            long ahora = System.nanoTime();
+            if (terminar || ahora - ultimoResumen >= INTERVALO_SUPRIMIDOS_NANOS) {
+                escribirSuprimidos();
+                ultimoResumen = ahora;
+            }
+            if (terminar) {
+                break;
+            }
+            if (escritos == 0) {
+                vaciarArchivo();
+                LockSupport.parkNanos(this, ESPERA_ESCRITOR_NANOS);
+            }
+        }
+        cerrarArchivo();
+    }
+
+    private int vaciarBufer() {
+        int escritos = 0;
+        while (true) {
+            int ranura = (int) posicionConsumidor & mascara;
+            if (secuencias.get(ranura) != posicionConsumidor + 1) {
+                return escritos; // Vacío (o el productor aún no terminó de copiar)
+            }
+            Entrada entrada = entradas[ranura];
+            escribirLinea(entrada.marcaMillis, entrada.nivel, entrada.categoria, entrada.mensaje);
+            entrada.mensaje = null;
+            secuencias.lazySet(ranura, posicionConsumidor + mascara + 1);
+            posicionConsumidor++;
+            escritos++;
+        }
+    }
+
+    private void escribirSuprimidos() {
+        for (Categoria categoria : CATEGORIAS) {
+            long cantidad = suprimidos[categoria.ordinal()].getAndSet(0);
+            if (cantidad > 0) {
+                escribirLinea(System.currentTimeMillis(), Nivel.INFO, categoria,
+                        cantidad + " mensajes suprimidos por límite de frecuencia");
+            }
+        }
+        long perdidos = descartados.getAndSet(0);
+        if (perdidos > 0) {
+            escribirLinea(System.currentTimeMillis(), Nivel.AVISO, Categoria.SISTEMA,
+                    perdidos + " mensajes descartados: búfer del registro lleno");
+        }
+    }
+
+    private void escribirLinea(long marcaMillis, Nivel nivel, Categoria categoria, String mensaje) {
+        String linea = null;
+        if (escritor != null && nivel.compareTo(nivelArchivo) >= 0) {
+            linea = formatear(marcaMillis, nivel, categoria, mensaje);
+            try {
+                escritor.write(linea);
+                escritor.newLine();
+            } catch (IOException e) {
+                System.err.println("No se pudo escribir el registro, se continúa solo con la consola: " + e.getMessage());
+                cerrarArchivo();
+            }
+        }
+        if (nivelConsola != null && nivel.compareTo(nivelConsola) >= 0) {
+            consola.println(linea != null ? linea : formatear(marcaMillis, nivel, categoria, mensaje));
+        }
+    }
+
+    private static String formatear(long marcaMillis, Nivel nivel, Categoria categoria, String mensaje) {
+        String hora = LocalDateTime.ofInstant(Instant.ofEpochMilli(marcaMillis), ZoneId.systemDefault()).format(FORMATO_HORA);
+        return String.format("%s %-10s %-12s %s", hora, nivel, categoria, mensaje);
+    }
+
+    private void abrirArchivo() {
+        if (archivo == null) {
+            return;
+        }
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("No se pudo abrir el registro " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    private void vaciarArchivo() {
+        if (escritor != null) {
+            try {
+                escritor.flush();
+            } catch (IOException e) {
+                cerrarArchivo();
+            }
+        }
+    }
+
+    private void cerrarArchivo() {
+        if (escritor != null) {
+            try {
+                escritor.close();
+            } catch (IOException e) {
+                System.err.println("No se pudo cerrar el registro: " + e.getMessage());
+            }
+            escritor = null;
+        }
+        consola.flush();
+    }
+
+    /**
+     * Cubeta de fichas sin locks (GCRA): guarda el instante teórico en que la cubeta vuelve a estar
+     * llena. Tomar una ficha lo adelanta un intervalo; se rechaza si adelantarlo supera la ráfaga.
+     */
+    static final class LimiteFrecuencia {
+        private final long intervaloNanos;
+        private final long toleranciaNanos;
+        private final AtomicLong instanteLleno = new AtomicLong(Long.MIN_VALUE);
+
+        LimiteFrecuencia(double porSegundo, int rafaga) {
+            this.intervaloNanos = (long) (1e9 / porSegundo);
+            this.toleranciaNanos = intervaloNanos * Math.max(1, rafaga);
+        }
+
+        boolean tomarFicha(long ahora) {
+            while (true) {
+                long actual = instanteLleno.get();
+                long base = (actual == Long.MIN_VALUE || actual < ahora) ? ahora : actual;
+                long siguiente = base + intervaloNanos;
+                if (siguiente - ahora > toleranciaNanos) {
+                    return false;
+                }
+                if (instanteLleno.compareAndSet(actual, siguiente)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Resumen jerárquico de la colonia por bloques de la grilla, para dibujarla de lejos.
+ *
+ * El nivel 0 agrupa bloques de 4x4 celdas y cada nivel siguiente junta 2x2 bloques del
+ * anterior. Cada bloque guarda cuántos nodos tiene, cuántos de cada tipo (original), cuántos
+ * son bacteria, la suma de sus niveles de infección y la suma de sus posiciones (para dibujar
+ * el grupo en su centroide). AlmacenNodos lo actualiza en cada alta, cambio de infección y
+ * transformación, subiendo por la cadena de padres: O(NIVELES) por cambio, sin buscar en mapas.
+ *
+ * Los bloques viven en arreglos primitivos paralelos indexados por un número de ranura;
+ * un mapa por nivel traduce las coordenadas del bloque a su ranura.
+ */
+public class ResumenBloques {
+
+    public static final int NIVELES = 8;
+    public static final int CELDAS_NIVEL_0 = 4; // Lado de un bloque de nivel 0, en celdas
+    public static final int SIN_BLOQUE = -1;
+
+    private static final TipoNodo[] TIPOS = TipoNodo.values();
+    // La infección se suma en punto fijo: los cambios se restan y suman exactos, sin deriva de redondeo
+    private static final double ESCALA_INFECCION = 1 << 20;
+    private static final int CAPACIDAD_INICIAL = 64;
+
+    private final int tamanoCelda;
+    private final MapaLongEntero[] bloquesPorNivel = new MapaLongEntero[NIVELES];
+
+    // --- Por ranura de bloque ---
+    private int cantidadBloques = 0;
+    private int[] padre;
+    private int[] nodos;
+    private int[] bacterias;
+    private int[] conteoTipos; // TIPOS.length enteros por bloque
+    private long[] sumaInfeccion;
+    private long[] sumaX;
+    private long[] sumaY;
+
+    // Bloque de nivel 0 de cada nodo (por id)
+    private int[] bloqueDeNodo = new int[CAPACIDAD_INICIAL];
+
+    public ResumenBloques(int tamanoCelda) {
+        this.tamanoCelda = tamanoCelda;
+        for (int nivel = 0; nivel < NIVELES; nivel++) {
+            bloquesPorNivel[nivel] = new MapaLongEntero();
+        }
+        crecerBloques(CAPACIDAD_INICIAL);
+    }
+
+    // --- Actualización (la llama AlmacenNodos) ---
+
+    void agregarNodo(int id, int x, int y, int tipoOriginal, boolean esBacteria, double infeccion) {
+        if (id >= bloqueDeNodo.length) {
+            bloqueDeNodo = Arrays.copyOf(bloqueDeNodo, Math.max(id + 1, bloqueDeNodo.length * 2));
+        }
+        int bx = Math.floorDiv(Math.floorDiv(x, tamanoCelda), CELDAS_NIVEL_0);
+        int by = Math.floorDiv(Math.floorDiv(y, tamanoCelda), CELDAS_NIVEL_0);
+        int bloque = obtenerOCrear(0, bx, by);
+        bloqueDeNodo[id] = bloque;
+
+        long infeccionFija = aPuntoFijo(infeccion);
+        for (int b = bloque; b != SIN_BLOQUE; b = padre[b]) {
+            nodos[b]++;
+            conteoTipos[b * TIPOS.length + tipoOriginal]++;
+            if (esBacteria) {
+                bacterias[b]++;
+            }
+            sumaInfeccion[b] += infeccionFija;
+            sumaX[b] += x;
+            sumaY[b] += y;
+        }
+    }
+
+    void cambiarInfeccion(int id, double anterior, double nueva) {
+        long diferencia = aPuntoFijo(nueva) - aPuntoFijo(anterior);
+        if (diferencia == 0) {
+            return;
+        }
+        for (int b = bloqueDeNodo[id]; b != SIN_BLOQUE; b = padre[b]) {
+            sumaInfeccion[b] += diferencia;
+        }
+    }
+
+    void cambiarBacteria(int id, boolean esBacteria) {
+        int diferencia = esBacteria ? 1 : -1;
+        for (int b = bloqueDeNodo[id]; b != SIN_BLOQUE; b = padre[b]) {
+            bacterias[b] += diferencia;
+        }
+    }
+
+    // --- Consultas ---
+
+    // Lado de un bloque del nivel, en píxeles del mundo
+    public int getLadoBloque(int nivel) {
+        return tamanoCelda * (CELDAS_NIVEL_0 << nivel);
+    }
+
+    /**
+     * Nivel más fino cuyos bloques miden al menos 'ladoMinimo' píxeles de pantalla con ese zoom
+     * (el último nivel si ninguno alcanza).
+     */
+    public int nivelPara(double zoom, double ladoMinimo) {
+        for (int nivel = 0; nivel < NIVELES; nivel++) {
+            if (getLadoBloque(nivel) * zoom >= ladoMinimo) {
+                return nivel;
+            }
+        }
+        return NIVELES - 1;
+    }
+
+    /**
+     * Agrega a 'salida' las ranuras de los bloques del nivel que tocan el rectángulo del mundo.
+     * Recorre las coordenadas de bloque del rectángulo: el costo depende de cuántos bloques
+     * caben en él, no de cuántos nodos hay.
+     */
+    public void consultar(int nivel, double minX, double minY, double maxX, double maxY, ListaEnteros salida) {
+        int lado = getLadoBloque(nivel);
+        int desdeX = (int) Math.floor(minX / lado);
+        int hastaX = (int) Math.floor(maxX / lado);
+        int desdeY = (int) Math.floor(minY / lado);
+        int hastaY = (int) Math.floor(maxY / lado);
+        MapaLongEntero bloques = bloquesPorNivel[nivel];
+        for (int by = desdeY; by <= hastaY; by++) {
+            for (int bx = desdeX; bx <= hastaX; bx++) {
+                int bloque = bloques.get(clave(bx, by));
+                if (bloque != MapaLongEntero.AUSENTE) {
+                    salida.agregar(bloque);
+                }
+            }
+        }
+    }
+
+    public int getCantidadNodos(int bloque) {
+        return nodos[bloque];
+    }
+
+    public int getBacterias(int bloque) {
+        return bacterias[bloque];
+    }
+
+    public int getConteo(int bloque, TipoNodo tipoNodo) {
+        return conteoTipos[bloque * TIPOS.length + tipoNodo.ordinal()];
+    }
+
+    // Tipo (original) con más nodos en el bloque; a igual cantidad, el de menor ordinal
+    public TipoNodo getTipoDominante(int bloque) {
+        int base = bloque * TIPOS.length;
+        int mejor = 0;
+        for (int t = 1; t < TIPOS.length; t++) {
+            if (conteoTipos[base + t] > conteoTipos[base + mejor]) {
+                mejor = t;
+            }
+        }
+        return TIPOS[mejor];
+    }
+
+    public double getInfeccionPromedio(int bloque) {
+        return nodos[bloque] == 0 ? 0.0 : sumaInfeccion[bloque] / ESCALA_INFECCION / nodos[bloque];
+    }
+
+    public double getCentroX(int bloque) {
+        return (double) sumaX[bloque] / nodos[bloque];
+    }
+
+    public double getCentroY(int bloque) {
+        return (double) sumaY[bloque] / nodos[bloque];
+    }
+
+    // --- Internos ---
+
+    // Ranura del bloque (creándolo, y a sus ancestros, si no existía)
+    private int obtenerOCrear(int nivel, int bx, int by) {
+        long clave = clave(bx, by);
+        int bloque = bloquesPorNivel[nivel].get(clave);
+        if (bloque != MapaLongEntero.AUSENTE) {
+            return bloque;
+        }
+        if (cantidadBloques == nodos.length) {
+            crecerBloques(nodos.length * 2);
+        }
+        bloque = cantidadBloques++;
+        bloquesPorNivel[nivel].putSiAusente(clave, bloque);
+        // El padre agrupa 2x2 bloques: >> 1 redondea hacia abajo también con coordenadas negativas
+        // (se calcula antes de escribir: crear el padre puede reemplazar los arreglos)
+        int bloquePadre = nivel + 1 < NIVELES ? obtenerOCrear(nivel + 1, bx >> 1, by >> 1) : SIN_BLOQUE;
+        padre[bloque] = bloquePadre;
+        return bloque;
+    }
+
+    private void crecerBloques(int capacidad) {
+        padre = padre == null ? new int[capacidad] : Arrays.copyOf(padre, capacidad);
+        nodos = nodos == null ? new int[capacidad] : Arrays.copyOf(nodos, capacidad);
+        bacterias = bacterias == null ? new int[capacidad] : Arrays.copyOf(bacterias, capacidad);
+        conteoTipos = conteoTipos == null ? new int[capacidad * TIPOS.length] : Arrays.copyOf(conteoTipos, capacidad * TIPOS.length);
+        sumaInfeccion = sumaInfeccion == null ? new long[capacidad] : Arrays.copyOf(sumaInfeccion, capacidad);
+        sumaX = sumaX == null ? new long[capacidad] : Arrays.copyOf(sumaX, capacidad);
+        sumaY = sumaY == null ? new long[capacidad] : Arrays.copyOf(sumaY, capacidad);
+    }
+
+    private static long aPuntoFijo(double infeccion) {
+        return Math.round(infeccion * ESCALA_INFECCION);
+    }
+
+    private static long clave(int bx, int by) {
+        return ((long) bx << 32) | (by & 0xFFFFFFFFL);
+    }
+}
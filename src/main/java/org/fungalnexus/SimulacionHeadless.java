@@ -0,0 +1,213 @@
+package org.fungalnexus;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Punto de entrada sin interfaz gráfica: no inicializa el toolkit de JavaFX,
+ * por lo que puede correr en CI o en máquinas sin pantalla.
+ *
+ * Uso: SimulacionHeadless [ticks] [nodosObjetivo] [--semilla N] [--diario archivo]
+ *                          [--cargar partida] [--guardar partida] [--perfil archivo.csv]
+ *                          [--registro archivo.log] [--bot]
+ *                          [--param NOMBRE=valor]...
+ *      SimulacionHeadless --reproducir archivo
+ *
+ * La colonia crece en espiral alrededor del núcleo a medida que hay nutrientes (o, con --bot,
+ * la hace crecer JugadorBot con todas sus estrategias), y los ticks se ejecutan tan rápido
+ * como sea posible (no 1 por segundo).
+ */
+public class SimulacionHeadless {
+
+    // Cuenta las partículas sin dibujarlas, para que las rutas se calculen igual que en la ventana
+    private static class ContadorEventos implements OyenteSimulacion {
+        long particulasNutriente = 0;
+        long particulasDefensa = 0;
+        long transformaciones = 0;
+
+        @Override
+        public void particulaCreada(double origenX, double origenY, Collection<Nodo> ruta, TipoRecurso tipo) {
+            if (tipo == TipoRecurso.NUTRIENTE) {
+                particulasNutriente++;
+            } else {
+                particulasDefensa++;
+            }
+        }
+
+        @Override
+        public void nodoTransformado(Nodo nodo) {
+            transformaciones++;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Opciones: --semilla N, --diario archivo (graba los comandos), --reproducir archivo,
+        // --cargar / --guardar partida (instantánea binaria, ver ArchivoPartida),
+        // --perfil archivo.csv (duración de las fases del tick, un volcado por segundo),
+        // --registro archivo.log (todos los eventos de la partida; a la consola solo los avisos),
+        // --bot (el jugador automático construye en lugar de la apertura en espiral),
+        // --param NOMBRE=valor (cambia un parámetro de balance, ver ParametrosSimulacion)
+        List<String> posicionales = new ArrayList<>();
+        Long semilla = null;
+        Path archivoDiario = null;
+        Path archivoReproducir = null;
+        Path archivoCargar = null;
+        Path archivoGuardar = null;
+        Path archivoPerfil = null;
+        Path archivoRegistro = null;
+        boolean conBot = false;
+        ParametrosSimulacion parametros = ParametrosSimulacion.PREDETERMINADOS;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--semilla":
+                    semilla = Long.parseLong(args[++i]);
+                    break;
+                case "--diario":
+                    archivoDiario = Path.of(args[++i]);
+                    break;
+                case "--reproducir":
+                    archivoReproducir = Path.of(args[++i]);
+                    break;
+                case "--cargar":
+                    archivoCargar = Path.of(args[++i]);
+                    break;
+                case "--guardar":
+                    archivoGuardar = Path.of(args[++i]);
+                    break;
+                case "--perfil":
+                    archivoPerfil = Path.of(args[++i]);
+                    break;
+                case "--registro":
+                    archivoRegistro = Path.of(args[++i]);
+                    break;
+                case "--bot":
+                    conBot = true;
+                    break;
+                case "--param":
+                    parametros = parametros.con(args[++i]);
+                    break;
+                default:
+                    posicionales.add(args[i]);
+            }
+        }
+
+        RegistroEventos registro = RegistroEventos.configurarGlobal(archivoRegistro,
+                RegistroEventos.Nivel.DEPURACION, RegistroEventos.Nivel.AVISO);
+
+        if (archivoReproducir != null) {
+            reproducir(archivoReproducir, registro);
+            return;
+        }
+
+        int ticks = posicionales.size() > 0 ? Integer.parseInt(posicionales.get(0)) : 10_000;
+        int nodosObjetivo = posicionales.size() > 1 ? Integer.parseInt(posicionales.get(1)) : 200;
+
+        int centroX = Configuracion.MAPA_WIDTH / 2;
+        int centroY = Configuracion.MAPA_HEIGHT / 2;
+        int nucleoX = ((centroX / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE) + Configuracion.GRID_SIZE / 2;
+        int nucleoY = ((centroY / Configuracion.GRID_SIZE) * Configuracion.GRID_SIZE) + Configuracion.GRID_SIZE / 2;
+
+        ContadorEventos contador = new ContadorEventos();
+        MotorSimulacion motor;
+        if (archivoCargar != null) {
+            long inicioCarga = System.nanoTime();
+            motor = ArchivoPartida.cargar(archivoCargar, contador);
+            if (parametros != ParametrosSimulacion.PREDETERMINADOS) {
+                // La partida sigue con el balance con que se guardó
+                registro.aviso(RegistroEventos.Categoria.SISTEMA, "--param se ignora al continuar una partida cargada; "
+                        + "se usan los parámetros guardados: " + motor.getGrafoColonia().getParametros());
+            }
+            System.out.printf("Partida cargada: %d nodos, tick %d, en %.3f s%n",
+                    motor.getGrafoColonia().getCantidadNodos(), motor.getCiclosTranscurridos(),
+                    (System.nanoTime() - inicioCarga) / 1e9);
+            nucleoX = motor.getGrafoColonia().getNucleo().getX();
+            nucleoY = motor.getGrafoColonia().getNucleo().getY();
+        } else {
+            motor = new MotorSimulacion(new GrafoColonia(nucleoX, nucleoY, contador,
+                    semilla != null ? semilla : System.nanoTime(), parametros));
+        }
+        GrafoColonia grafo = motor.getGrafoColonia();
+        if (archivoDiario != null) {
+            // El diario reproduce desde el tick 0: no sirve para una partida cargada
+            if (archivoCargar != null) {
+                registro.aviso(RegistroEventos.Categoria.SISTEMA, "--diario se ignora al continuar una partida cargada.");
+            } else {
+                motor.setDiario(DiarioComandos.crearArchivo(archivoDiario, grafo.getSemilla(), nucleoX, nucleoY,
+                        grafo.getParametros()));
+            }
+        }
+
+        if (archivoPerfil != null) {
+            motor.getPerfil().setVolcadoCsv(archivoPerfil, 1000);
+        }
+
+        int construidos = grafo.getCantidadNodos(); // El núcleo, o lo ya construido en la partida cargada
+        JugadorBot bot = conBot ? new JugadorBot(motor, grafo.getSemilla()) : null;
+
+        long inicio = System.nanoTime();
+        int ejecutados = 0;
+        while (ejecutados < ticks && !grafo.isGameOver()) {
+
+            if (bot != null) {
+                bot.jugarTurno(nodosObjetivo);
+            } else {
+                // Apertura automática: ocupar la siguiente celda de la espiral mientras alcancen los nutrientes
+                construidos = GeneradorColonias.abrirEnEspiral(motor, nucleoX, nucleoY, construidos, nodosObjetivo);
+            }
+
+            motor.tick();
+            ejecutados++;
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        if (motor.getDiario() != null) {
+            motor.getDiario().cerrar(motor.getCiclosTranscurridos());
+        }
+        motor.getPerfil().volcarCsv();
+        registro.close(); // Los avisos pendientes salen antes del resumen
+
+        System.out.printf("Ticks ejecutados: %d en %.3f s (%.0f ticks/s)%n", ejecutados, segundos, ejecutados / segundos);
+        imprimirResumen(motor, contador);
+
+        if (archivoGuardar != null) {
+            long inicioGuardado = System.nanoTime();
+            ArchivoPartida.guardar(motor, archivoGuardar);
+            System.out.printf("Partida guardada en %s en %.3f s%n", archivoGuardar, (System.nanoTime() - inicioGuardado) / 1e9);
+        }
+    }
+
+    // Re-ejecuta un diario grabado (por la ventana o por este mismo modo) a máxima velocidad
+    private static void reproducir(Path archivo, RegistroEventos registro) throws IOException {
+        DiarioComandos diario = DiarioComandos.leer(archivo);
+        ContadorEventos contador = new ContadorEventos();
+
+        long inicio = System.nanoTime();
+        MotorSimulacion motor = MotorSimulacion.reproducir(diario, contador);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        registro.close();
+
+        System.out.printf("Reproducidos %d comandos y %d ticks en %.3f s (semilla %d, parámetros %s)%n",
+                diario.getComandos().size(), motor.getCiclosTranscurridos(), segundos, diario.getSemilla(),
+                diario.getParametros());
+        imprimirResumen(motor, contador);
+    }
+
+    private static void imprimirResumen(MotorSimulacion motor, ContadorEventos contador) {
+        GrafoColonia grafo = motor.getGrafoColonia();
+        System.out.printf("Nodos: %d | Infectados: %d | Transformados: %d%n",
+                grafo.getCantidadNodos(), grafo.getNodosInfectados().size(), contador.transformaciones);
+        System.out.printf("Nutrientes: %.1f / %.0f | Defensas: %.1f%n",
+                grafo.getNutrientesTotales(), grafo.getCapacidadNutrienteTotal(), grafo.getDefensasTotales());
+        System.out.printf("Entrega al núcleo: %.1f de %.1f por tick | Nodos aislados: %d%n",
+                grafo.getProduccionEntregada(), grafo.getAlmacen().getAgregados().getProduccion(TipoNodo.EXTRACTOR),
+                grafo.getNodosAislados().size());
+        System.out.printf("Partículas: %d nutriente, %d defensa%n",
+                contador.particulasNutriente, contador.particulasDefensa);
+        if (grafo.isGameOver()) {
+            System.out.println("Partida terminada en el tick " + motor.getCiclosTranscurridos());
+        }
+        System.out.print(motor.getPerfil().resumen());
+    }
+}
@@ -0,0 +1,187 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Motor de partículas de recursos (nutrientes y defensas) que viajan por las hifas.
+ *
+ * Las partículas no son objetos: su estado vive en arreglos primitivos paralelos
+ * (struct-of-arrays) indexados por una ranura. Las ranuras libres se reciclan con una
+ * pila (free-list) y las vivas se recorren en un arreglo denso, así que crear, mover y
+ * retirar partículas no genera basura ni cambios en el scene graph.
+ * No depende de JavaFX: PanelJuegoFX las dibuja en un único Canvas.
+ *
+ * Cada partícula guarda solo su ruta (internada en TablaRutas), el instante en que salió y su
+ * velocidad en píxeles por segundo. Su posición sale del tiempo transcurrido: distancia
+ * recorrida y búsqueda binaria sobre las longitudes acumuladas de la ruta. Así la velocidad
+ * no depende de los frames por segundo y un frame lento no atrasa a las partículas.
+ *
+ * La cantidad de partículas vivas tiene un tope (presupuesto). A partir de la mitad del
+ * presupuesto las nuevas se aceptan con probabilidad decreciente, así que lo que se ve es una
+ * muestra de todos los recursos en viaje y no solo los primeros en salir; el volumen total
+ * lo muestra FlujoHifas.
+ */
+public class SistemaParticulas {
+
+    public static final double VELOCIDAD_POR_DEFECTO = 180.0; // Píxeles por segundo (3 px por frame a 60 FPS)
+    private static final int CAPACIDAD_INICIAL = 1024;
+    public static final int PRESUPUESTO_POR_DEFECTO = 600;
+
+    private final TablaRutas tablaRutas;
+
+    // --- Estado por ranura ---
+    private int[] ruta;           // Id en la tabla de rutas
+    private double[] inicio;      // Segundos
+    private double[] velocidad;   // Píxeles por segundo
+    private byte[] tipo;          // Ordinal de TipoRecurso
+
+    // --- Ranuras vivas (densas) y libres (pila) ---
+    private int[] activas;
+    private int cantidadActivas = 0;
+    private int[] libres;
+    private int cantidadLibres;
+
+    // Posición de cada activa en el último avanzar (por índice denso); se recalcula en cada frame
+    private double[] posX;
+    private double[] posY;
+
+    private int presupuesto = PRESUPUESTO_POR_DEFECTO;
+    private long descartadas = 0;
+    // Azar propio de la vista: no toca el generador de la simulación
+    private final Aleatorio aleatorio = new Aleatorio(0x5EED_F10DL);
+
+    public SistemaParticulas(TablaRutas tablaRutas) {
+        this(tablaRutas, CAPACIDAD_INICIAL);
+    }
+
+    public SistemaParticulas(TablaRutas tablaRutas, int capacidadInicial) {
+        this.tablaRutas = tablaRutas;
+        redimensionar(Math.max(1, capacidadInicial));
+    }
+
+    public boolean crear(int[] idsRuta, TipoRecurso tipoRecurso, double ahoraSegundos) {
+        return crear(idsRuta, tipoRecurso, ahoraSegundos, VELOCIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * Lanza una partícula desde el primer nodo de la ruta hacia el último.
+     * @return false si la ruta no tiene al menos dos nodos o si la partícula quedó fuera del muestreo.
+     */
+    public boolean crear(int[] idsRuta, TipoRecurso tipoRecurso, double ahoraSegundos, double pixelesPorSegundo) {
+        if (idsRuta == null || idsRuta.length < 2) {
+            return false;
+        }
+        if (!admitirMuestra()) {
+            descartadas++;
+            return false;
+        }
+        if (cantidadLibres == 0) {
+            redimensionar(ruta.length * 2);
+        }
+
+        int ranura = libres[--cantidadLibres];
+        ruta[ranura] = tablaRutas.adquirir(idsRuta);
+        inicio[ranura] = ahoraSegundos;
+        velocidad[ranura] = pixelesPorSegundo;
+        tipo[ranura] = (byte) tipoRecurso.ordinal();
+
+        // Hasta el próximo avanzar, en el origen
+        tablaRutas.ubicar(ruta[ranura], 0, posX, posY, cantidadActivas);
+        activas[cantidadActivas++] = ranura;
+        return true;
+    }
+
+    /**
+     * Ubica todas las partículas en el instante dado. Las que ya llegaron al final de su
+     * ruta sueltan la ruta y vuelven a la free-list.
+     */
+    public void avanzar(double ahoraSegundos) {
+        int i = 0;
+        while (i < cantidadActivas) {
+            int ranura = activas[i];
+            int r = ruta[ranura];
+            double distancia = (ahoraSegundos - inicio[ranura]) * velocidad[ranura];
+            if (distancia >= tablaRutas.getLargo(r)) {
+                // Llegó: ocupar su lugar con la última activa y liberar la ranura
+                activas[i] = activas[--cantidadActivas];
+                tablaRutas.liberar(r);
+                libres[cantidadLibres++] = ranura;
+            } else {
+                tablaRutas.ubicar(r, distancia, posX, posY, i);
+                i++;
+            }
+        }
+    }
+
+    // Entre la mitad y el total del presupuesto, la probabilidad de aceptar baja linealmente hasta 0
+    private boolean admitirMuestra() {
+        int mitad = presupuesto / 2;
+        if (cantidadActivas < mitad) {
+            return true;
+        }
+        if (cantidadActivas >= presupuesto) {
+            return false;
+        }
+        return aleatorio.siguienteDouble() * (presupuesto - mitad) < presupuesto - cantidadActivas;
+    }
+
+    public void setPresupuesto(int presupuesto) {
+        this.presupuesto = Math.max(0, presupuesto);
+    }
+
+    public int getPresupuesto() {
+        return presupuesto;
+    }
+
+    // Partículas no creadas por el presupuesto (su recurso viaja igual; solo no se dibuja)
+    public long getDescartadas() {
+        return descartadas;
+    }
+
+    // --- Acceso para el dibujo (índice denso 0..getCantidadActivas()-1) ---
+
+    public int getCantidadActivas() {
+        return cantidadActivas;
+    }
+
+    // Posición calculada en el último avanzar
+    public double getX(int indiceActiva) {
+        return posX[indiceActiva];
+    }
+
+    public double getY(int indiceActiva) {
+        return posY[indiceActiva];
+    }
+
+    public boolean esTipo(int indiceActiva, TipoRecurso tipoRecurso) {
+        return tipo[activas[indiceActiva]] == tipoRecurso.ordinal();
+    }
+
+    // Crece en bloques (x2) y agrega las nuevas ranuras a la free-list
+    private void redimensionar(int nuevaCapacidad) {
+        int capacidadAnterior = ruta == null ? 0 : ruta.length;
+        if (ruta == null) {
+            ruta = new int[nuevaCapacidad];
+            inicio = new double[nuevaCapacidad];
+            velocidad = new double[nuevaCapacidad];
+            tipo = new byte[nuevaCapacidad];
+            activas = new int[nuevaCapacidad];
+            libres = new int[nuevaCapacidad];
+            posX = new double[nuevaCapacidad];
+            posY = new double[nuevaCapacidad];
+        } else {
+            ruta = Arrays.copyOf(ruta, nuevaCapacidad);
+            inicio = Arrays.copyOf(inicio, nuevaCapacidad);
+            velocidad = Arrays.copyOf(velocidad, nuevaCapacidad);
+            tipo = Arrays.copyOf(tipo, nuevaCapacidad);
+            activas = Arrays.copyOf(activas, nuevaCapacidad);
+            libres = Arrays.copyOf(libres, nuevaCapacidad);
+            posX = Arrays.copyOf(posX, nuevaCapacidad);
+            posY = Arrays.copyOf(posY, nuevaCapacidad);
+        }
+        // Apilar en orden inverso para que las ranuras bajas se usen primero
+        for (int ranura = nuevaCapacidad - 1; ranura >= capacidadAnterior; ranura--) {
+            libres[cantidadLibres++] = ranura;
+        }
+    }
+}
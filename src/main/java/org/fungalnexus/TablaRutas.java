@@ -0,0 +1,152 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Rutas de partículas internadas: cada secuencia distinta de nodos se guarda una sola vez,
+ * como polilínea con las coordenadas de sus puntos y la longitud acumulada hasta cada uno.
+ *
+ * Los extractores emiten la misma ruta hacia el núcleo en cada tick, así que cientos de
+ * partículas comparten unas pocas rutas. Las rutas se buscan por una huella de 64 bits de
+ * sus ids (MapaLongEntero) y se comparan completas; si dos rutas distintas chocan en la huella
+ * la segunda queda sin compartir. Cada ruta cuenta sus referencias y su ranura se recicla
+ * cuando la suelta la última partícula. Los nodos no se mueven, así que una ruta no caduca.
+ */
+public class TablaRutas {
+
+    private static final int CAPACIDAD_INICIAL = 64;
+
+    private final AlmacenNodos almacen;
+    private final MapaLongEntero porHuella = new MapaLongEntero();
+
+    // --- Por ranura de ruta ---
+    private int[][] ids = new int[CAPACIDAD_INICIAL][];
+    private double[][] puntosX = new double[CAPACIDAD_INICIAL][];
+    private double[][] puntosY = new double[CAPACIDAD_INICIAL][];
+    private double[][] acumulado = new double[CAPACIDAD_INICIAL][]; // Longitud desde el origen hasta cada punto
+    private long[] huella = new long[CAPACIDAD_INICIAL];
+    private int[] referencias = new int[CAPACIDAD_INICIAL];
+
+    private int ranurasUsadas = 0;
+    private final ListaEnteros libres = new ListaEnteros();
+
+    public TablaRutas(AlmacenNodos almacen) {
+        this.almacen = almacen;
+    }
+
+    /**
+     * La ruta [origen, ..., destino] internada, con una referencia más.
+     * Cada llamada se equilibra con un {@link #liberar(int)}.
+     */
+    public int adquirir(int[] idsRuta) {
+        long clave = huella(idsRuta);
+        int existente = porHuella.get(clave);
+        if (existente != MapaLongEntero.AUSENTE && Arrays.equals(ids[existente], idsRuta)) {
+            referencias[existente]++;
+            return existente;
+        }
+
+        int ruta = reservarRanura();
+        int n = idsRuta.length;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] largos = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = almacen.getX(idsRuta[i]);
+            ys[i] = almacen.getY(idsRuta[i]);
+            if (i > 0) {
+                largos[i] = largos[i - 1] + Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+            }
+        }
+        ids[ruta] = idsRuta.clone();
+        puntosX[ruta] = xs;
+        puntosY[ruta] = ys;
+        acumulado[ruta] = largos;
+        huella[ruta] = clave;
+        referencias[ruta] = 1;
+        if (existente == MapaLongEntero.AUSENTE) {
+            porHuella.put(clave, ruta);
+        }
+        return ruta;
+    }
+
+    public void liberar(int ruta) {
+        if (--referencias[ruta] > 0) {
+            return;
+        }
+        if (porHuella.get(huella[ruta]) == ruta) {
+            porHuella.quitar(huella[ruta]);
+        }
+        ids[ruta] = null;
+        puntosX[ruta] = null;
+        puntosY[ruta] = null;
+        acumulado[ruta] = null;
+        libres.agregar(ruta);
+    }
+
+    public double getLargo(int ruta) {
+        double[] largos = acumulado[ruta];
+        return largos[largos.length - 1];
+    }
+
+    /**
+     * Escribe en (salidaX[indice], salidaY[indice]) el punto a 'distancia' del origen de la ruta,
+     * buscando el tramo por búsqueda binaria sobre las longitudes acumuladas.
+     * Distancias fuera de [0, largo] quedan en el extremo correspondiente.
+     */
+    public void ubicar(int ruta, double distancia, double[] salidaX, double[] salidaY, int indice) {
+        double[] largos = acumulado[ruta];
+        double[] xs = puntosX[ruta];
+        double[] ys = puntosY[ruta];
+        int ultimo = largos.length - 1;
+        if (distancia >= largos[ultimo]) {
+            salidaX[indice] = xs[ultimo];
+            salidaY[indice] = ys[ultimo];
+            return;
+        }
+        if (distancia <= 0) {
+            salidaX[indice] = xs[0];
+            salidaY[indice] = ys[0];
+            return;
+        }
+        // Tramo k: largos[k] <= distancia < largos[k + 1]
+        int posicion = Arrays.binarySearch(largos, 0, largos.length, distancia);
+        int k = posicion >= 0 ? posicion : -posicion - 2;
+        double tramo = largos[k + 1] - largos[k];
+        double t = tramo > 0 ? (distancia - largos[k]) / tramo : 0.0;
+        salidaX[indice] = xs[k] + (xs[k + 1] - xs[k]) * t;
+        salidaY[indice] = ys[k] + (ys[k + 1] - ys[k]) * t;
+    }
+
+    // Rutas con al menos una referencia
+    public int getCantidad() {
+        return ranurasUsadas - libres.size();
+    }
+
+    private int reservarRanura() {
+        if (!libres.isEmpty()) {
+            int ruta = libres.get(libres.size() - 1);
+            libres.truncar(libres.size() - 1);
+            return ruta;
+        }
+        if (ranurasUsadas == ids.length) {
+            int capacidad = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacidad);
+            puntosX = Arrays.copyOf(puntosX, capacidad);
+            puntosY = Arrays.copyOf(puntosY, capacidad);
+            acumulado = Arrays.copyOf(acumulado, capacidad);
+            huella = Arrays.copyOf(huella, capacidad);
+            referencias = Arrays.copyOf(referencias, capacidad);
+        }
+        return ranurasUsadas++;
+    }
+
+    // Long.MIN_VALUE es la marca de vacío de MapaLongEntero: nunca se usa como huella
+    private static long huella(int[] idsRuta) {
+        long h = idsRuta.length;
+        for (int id : idsRuta) {
+            h = Aleatorio.mezclar(h ^ id);
+        }
+        return h == Long.MIN_VALUE ? 0 : h;
+    }
+}
@@ -0,0 +1,58 @@
+package org.fungalnexus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Triple búfer sin locks entre un productor y un consumidor.
+ *
+ * El productor escribe siempre en su propio búfer y al publicarlo lo intercambia por el
+ * intermedio; el consumidor, cuando hay uno nuevo, intercambia el suyo por el intermedio.
+ * Ninguno espera al otro: el consumidor lee siempre el último estado completo publicado
+ * (los intermedios que no alcanzó a ver se pisan) y el productor nunca escribe sobre el
+ * búfer que se está leyendo. El intercambio atómico del índice intermedio publica el
+ * contenido escrito antes (happens-before).
+ */
+final class TripleBufer<T> {
+
+    private static final int NUEVO = 4;   // Bit: el intermedio tiene algo que el consumidor no vio
+    private static final int INDICE = 3;
+
+    private final Object[] buferes = new Object[3];
+    private final AtomicInteger intermedio = new AtomicInteger(1);
+    private int escritura = 0; // Solo lo usa el productor
+    private int lectura = 2;   // Solo lo usa el consumidor
+
+    TripleBufer(Supplier<T> fabrica) {
+        for (int i = 0; i < buferes.length; i++) {
+            buferes[i] = fabrica.get();
+        }
+    }
+
+    // --- Productor ---
+
+    // Búfer donde escribir el próximo estado (el mismo hasta llamar a publicar)
+    @SuppressWarnings("unchecked")
+    T paraEscribir() {
+        return (T) buferes[escritura];
+    }
+
+    void publicar() {
+        escritura = intermedio.getAndSet(escritura | NUEVO) & INDICE;
+    }
+
+    // --- Consumidor ---
+
+    /**
+     * El último estado publicado si hay uno que el consumidor todavía no tomó, o null.
+     * El anterior devuelto deja de ser válido (el productor lo reutiliza).
+     */
+    @SuppressWarnings("unchecked")
+    T tomarNuevo() {
+        if ((intermedio.get() & NUEVO) == 0) {
+            return null;
+        }
+        lectura = intermedio.getAndSet(lectura) & INDICE;
+        return (T) buferes[lectura];
+    }
+}
@@ -0,0 +1,143 @@
+package org.fungalnexus;
+
+import java.util.Arrays;
+
+/**
+ * Réplica de la colonia del lado de la vista, actualizada con cada EstadoVista (nodos e hifas
+ * nuevos, totales) y con los lotes de cambios que lo acompañan (infección, bacteria, flujo).
+ *
+ * Tiene su propio AlmacenNodos (con su resumen por bloques), IndiceEspacial e IndiceHifas, así que el
+ * dibujo, el fantasma de construcción y las consultas por rectángulo nunca tocan las
+ * estructuras que el hilo de simulación está modificando. Solo la usa el hilo de JavaFX.
+ */
+public class VistaColonia {
+
+    private static final TipoNodo[] TIPOS = TipoNodo.values();
+    // Celdas del índice de hifas: una hifa típica cae en una o dos
+    private static final int TAMANO_CELDA_HIFAS = Configuracion.GRID_SIZE * 4;
+
+    private final AlmacenNodos almacen = new AlmacenNodos();
+    private final IndiceEspacial indiceEspacial = new IndiceEspacial(almacen);
+    private final IndiceHifas indiceHifas = new IndiceHifas(almacen, TAMANO_CELDA_HIFAS);
+
+    private int tick;
+    private double nutrientes;
+    private double capacidadNutrientes;
+    private double defensas;
+    private double saludNucleo;
+    private boolean gameOver;
+    private int idNucleo = -1;
+    private double produccionEntregada;
+    private double capacidadHifa;
+
+    // Flujo de nutrientes por hifa del último estado (ver FlujoMaximo)
+    private float[] flujoNutrientes = new float[0];
+
+    /**
+     * Agrega los nodos e hifas nuevos y copia los totales. Los ids y el orden de las hifas
+     * coinciden con los de la simulación. Después se aplican los lotes de cambios del estado.
+     */
+    public void aplicar(EstadoVista estado) {
+        for (int id = almacen.getCantidad(); id < estado.getCantidadNodos(); id++) {
+            almacen.agregar(estado.getX(id), estado.getY(id), TIPOS[estado.getTipo(id)], 0);
+            indiceEspacial.agregar(id);
+        }
+        for (int arista = almacen.getCantidadAristas(); arista < estado.getCantidadAristas(); arista++) {
+            almacen.conectar(estado.getExtremoA(arista), estado.getExtremoB(arista));
+            indiceHifas.agregar(arista);
+        }
+        if (flujoNutrientes.length < estado.getCantidadAristas()) {
+            flujoNutrientes = Arrays.copyOf(flujoNutrientes, Math.max(estado.getCantidadAristas(), flujoNutrientes.length * 2));
+        }
+
+        tick = estado.getTick();
+        nutrientes = estado.getNutrientes();
+        capacidadNutrientes = estado.getCapacidadNutrientes();
+        defensas = estado.getDefensas();
+        saludNucleo = estado.getSaludNucleo();
+        gameOver = estado.isGameOver();
+        idNucleo = estado.getIdNucleo();
+        produccionEntregada = estado.getProduccionEntregada();
+        capacidadHifa = estado.getCapacidadHifa();
+    }
+
+    // Un lote de HiloSimulacion; sus nodos e hifas ya están en la réplica. Cuesta lo que trae el lote
+    public void aplicarCambios(HiloSimulacion.CambiosVista cambios) {
+        for (int i = 0; i < cambios.getCantidadNodos(); i++) {
+            int id = cambios.getNodo(i);
+            if (almacen.esBacteria(id) != cambios.esBacteria(i)) {
+                almacen.setBacteria(id, cambios.esBacteria(i));
+            }
+            float infeccion = cambios.getInfeccion(i);
+            if (almacen.getInfeccion(id) != infeccion) {
+                almacen.setInfeccion(id, infeccion);
+            }
+        }
+        for (int i = 0; i < cambios.getCantidadAristas(); i++) {
+            flujoNutrientes[cambios.getArista(i)] = cambios.getFlujoNutrientes(i);
+        }
+    }
+
+    public boolean estaVacia() {
+        return almacen.getCantidad() == 0;
+    }
+
+    public AlmacenNodos getAlmacen() {
+        return almacen;
+    }
+
+    public boolean estaCeldaOcupada(int x, int y) {
+        return indiceEspacial.estaOcupada(x, y);
+    }
+
+    public void nodosEnRectangulo(int minX, int minY, int maxX, int maxY, ListaEnteros salida) {
+        indiceEspacial.consultarRectangulo(minX, minY, maxX, maxY, salida);
+    }
+
+    // Hifas que pueden cruzar el rectángulo, aunque sus dos extremos queden fuera de él
+    public void hifasEnRectangulo(int minX, int minY, int maxX, int maxY, ListaEnteros salida) {
+        indiceHifas.consultarRectangulo(minX, minY, maxX, maxY, salida);
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public double getNutrientes() {
+        return nutrientes;
+    }
+
+    public double getCapacidadNutrientes() {
+        return capacidadNutrientes;
+    }
+
+    public double getDefensas() {
+        return defensas;
+    }
+
+    public double getSaludNucleo() {
+        return saludNucleo;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getIdNucleo() {
+        return idNucleo;
+    }
+
+    // Nutrientes por tick que llegan al núcleo
+    public double getProduccionEntregada() {
+        return produccionEntregada;
+    }
+
+    public double getCapacidadHifa() {
+        return capacidadHifa;
+    }
+
+    // Nutrientes por tick por la hifa: positivo de extremoA a extremoB
+    public double getFlujoNutrientes(int arista) {
+        return arista < flujoNutrientes.length ? flujoNutrientes[arista] : 0.0;
+    }
+}
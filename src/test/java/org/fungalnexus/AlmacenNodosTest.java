@@ -0,0 +1,169 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas del almacenamiento compacto de nodos.
+ */
+public class AlmacenNodosTest
+    extends TestCase
+{
+    public AlmacenNodosTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( AlmacenNodosTest.class );
+    }
+
+    public void testAdyacenciaSobreviveReubicaciones()
+    {
+        AlmacenNodos almacen = new AlmacenNodos( 2 );
+        int centro = almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        for ( int i = 1; i <= 40; i++ )
+        {
+            int hoja = almacen.agregar( i, 0, TipoNodo.EXTRACTOR, 1 );
+            assertTrue( almacen.conectar( centro, hoja ) >= 0 );
+        }
+        assertEquals( -1, almacen.conectar( centro, 5 ) );
+        assertEquals( -1, almacen.conectar( 5, 5 ) );
+
+        assertEquals( 40, almacen.getGrado( centro ) );
+        assertEquals( 40, almacen.getCantidadAristas() );
+        for ( int k = 0; k < 40; k++ )
+        {
+            int vecino = almacen.getVecino( centro, k );
+            assertEquals( k + 1, vecino );
+            assertEquals( 1, almacen.getGrado( vecino ) );
+            assertEquals( centro, almacen.getVecino( vecino, 0 ) );
+
+            int arista = almacen.getAristaVecino( centro, k );
+            assertEquals( centro, almacen.getExtremoA( arista ) );
+            assertEquals( vecino, almacen.getExtremoB( arista ) );
+        }
+        assertSame( almacen.vista( 7 ), almacen.vista( 7 ) );
+        assertEquals( 40, almacen.vista( centro ).getVecinos().size() );
+    }
+
+    public void testAgregadosSiguenConstruccionYTransformacion()
+    {
+        AlmacenNodos almacen = new AlmacenNodos();
+        almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        int extractor = almacen.agregar( 30, 0, TipoNodo.EXTRACTOR, TipoNodo.EXTRACTOR.getTasaProduccion() );
+        almacen.agregar( 60, 0, TipoNodo.EXTRACTOR, TipoNodo.EXTRACTOR.getTasaProduccion() );
+        int almacenamiento = almacen.agregar( 90, 0, TipoNodo.ALMACENAMIENTO, 0 );
+
+        AgregadosEconomia agregados = almacen.getAgregados();
+        assertEquals( 2, agregados.getVivos( TipoNodo.EXTRACTOR ) );
+        assertEquals( 2 * TipoNodo.EXTRACTOR.getTasaProduccion(), agregados.getProduccion( TipoNodo.EXTRACTOR ), 0.0 );
+        assertEquals( TipoNodo.NUCLEO.getCapacidadNutriente() + TipoNodo.ALMACENAMIENTO.getCapacidadNutriente(),
+                      agregados.getCapacidadTotal(), 0.0 );
+
+        almacen.setBacteria( extractor, true );
+        almacen.setBacteria( almacenamiento, true );
+        almacen.setBacteria( almacenamiento, true ); // Repetir no descuenta dos veces
+
+        assertEquals( 1, agregados.getVivos( TipoNodo.EXTRACTOR ) );
+        assertEquals( TipoNodo.EXTRACTOR.getTasaProduccion(), agregados.getProduccion( TipoNodo.EXTRACTOR ), 0.0 );
+        assertEquals( 0, agregados.getVivos( TipoNodo.ALMACENAMIENTO ) );
+        assertEquals( TipoNodo.NUCLEO.getCapacidadNutriente(), agregados.getCapacidadTotal(), 0.0 );
+    }
+
+    public void testPeriferiaCoincideConRecorridoCompleto()
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 2000, GeneradorColonias.Topologia.ARBUSTO );
+        AlmacenNodos almacen = grafo.getAlmacen();
+        java.util.Random random = new java.util.Random( 7 );
+        for ( int paso = 0; paso < 3000; paso++ )
+        {
+            int id = random.nextInt( almacen.getCantidad() );
+            switch ( random.nextInt( 3 ) )
+            {
+                case 0:
+                    almacen.setInfeccion( id, 0.1 );
+                    break;
+                case 1:
+                    almacen.setInfeccion( id, 0 );
+                    break;
+                default:
+                    almacen.setBacteria( id, random.nextBoolean() );
+            }
+        }
+
+        ConjuntoIndexado periferia = almacen.getPeriferia();
+        int esperadas = 0;
+        for ( int id = 0; id < almacen.getCantidad(); id++ )
+        {
+            boolean hojaSana = almacen.getGrado( id ) == 1 && almacen.getInfeccion( id ) == 0
+                    && !almacen.esBacteria( id ) && !almacen.esTipo( id, TipoNodo.NUCLEO );
+            assertEquals( hojaSana, periferia.contiene( id ) );
+            if ( hojaSana )
+            {
+                esperadas++;
+            }
+        }
+        assertEquals( esperadas, periferia.size() );
+        assertTrue( esperadas > 0 );
+    }
+
+    public void testResumenBloquesCoincideConConteoDirecto()
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 3000, GeneradorColonias.Topologia.ARBUSTO );
+        AlmacenNodos almacen = grafo.getAlmacen();
+        java.util.Random random = new java.util.Random( 11 );
+        for ( int paso = 0; paso < 5000; paso++ )
+        {
+            int id = random.nextInt( almacen.getCantidad() );
+            if ( random.nextInt( 4 ) == 0 )
+            {
+                almacen.setBacteria( id, random.nextBoolean() );
+            }
+            else
+            {
+                almacen.setInfeccion( id, random.nextDouble() );
+            }
+        }
+
+        ResumenBloques resumen = almacen.getResumenBloques();
+        ListaEnteros bloques = new ListaEnteros();
+        for ( int nivel = 0; nivel < ResumenBloques.NIVELES; nivel++ )
+        {
+            int lado = resumen.getLadoBloque( nivel );
+            bloques.limpiar();
+            resumen.consultar( nivel, -5000, -5000, 5000, 5000, bloques );
+
+            // Cada bloque contra sus nodos (el centroide de un bloque cae dentro de él)
+            int nodosEnBloques = 0;
+            for ( int i = 0; i < bloques.size(); i++ )
+            {
+                int bloque = bloques.get( i );
+                long bx = (long) Math.floor( resumen.getCentroX( bloque ) / lado );
+                long by = (long) Math.floor( resumen.getCentroY( bloque ) / lado );
+                int nodos = 0;
+                int bacterias = 0;
+                int extractores = 0;
+                double infeccion = 0;
+                for ( int id = 0; id < almacen.getCantidad(); id++ )
+                {
+                    if ( Math.floorDiv( almacen.getX( id ), lado ) == bx && Math.floorDiv( almacen.getY( id ), lado ) == by )
+                    {
+                        nodos++;
+                        bacterias += almacen.esBacteria( id ) ? 1 : 0;
+                        extractores += almacen.getTipoOriginal( id ) == TipoNodo.EXTRACTOR ? 1 : 0;
+                        infeccion += almacen.getInfeccion( id );
+                    }
+                }
+                assertEquals( nodos, resumen.getCantidadNodos( bloque ) );
+                assertEquals( bacterias, resumen.getBacterias( bloque ) );
+                assertEquals( extractores, resumen.getConteo( bloque, TipoNodo.EXTRACTOR ) );
+                assertEquals( infeccion / nodos, resumen.getInfeccionPromedio( bloque ), 1e-5 );
+                nodosEnBloques += nodos;
+            }
+            assertEquals( almacen.getCantidad(), nodosEnBloques );
+        }
+    }
+}
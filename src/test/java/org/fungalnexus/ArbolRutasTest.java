@@ -0,0 +1,143 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * Pruebas del bosque de rutas con nodos bacteria bloqueados.
+ */
+public class ArbolRutasTest
+    extends TestCase
+{
+    public ArbolRutasTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ArbolRutasTest.class );
+    }
+
+    public void testCadenaCortadaQuedaAislada()
+    {
+        // 0 - 1 - 2 - 3, con un desvío 1 - 4 - 2
+        AlmacenNodos almacen = new AlmacenNodos();
+        for ( int i = 0; i < 5; i++ )
+        {
+            almacen.agregar( i * 30, 0, i == 0 ? TipoNodo.NUCLEO : TipoNodo.EXTRACTOR, 1 );
+        }
+        ArbolRutas arbol = new ArbolRutas( almacen, 0 );
+        int[][] hifas = { { 0, 1 }, { 1, 2 }, { 2, 3 }, { 1, 4 }, { 4, 2 } };
+        for ( int[] hifa : hifas )
+        {
+            almacen.conectar( hifa[0], hifa[1] );
+            arbol.aristaAgregada( hifa[0], hifa[1] );
+        }
+        assertEquals( 3, arbol.getDistancia( 3 ) );
+        assertEquals( 4, arbol.rutaHaciaRaiz( 3 ).size() );
+
+        // El 2 cae: el 3 ya no tiene camino
+        almacen.setBacteria( 2, true );
+        ListaEnteros cortados = new ListaEnteros();
+        assertEquals( 1, arbol.nodoBloqueado( 2, cortados ) );
+        assertEquals( 3, cortados.get( 0 ) );
+        assertFalse( arbol.estaConectado( 2 ) );
+        assertNull( arbol.rutaHaciaRaiz( 3 ) );
+        assertTrue( arbol.getAislados().contiene( 3 ) );
+
+        // El 1 cae: el desvío 4 queda colgando solo del 2
+        almacen.setBacteria( 1, true );
+        assertEquals( 1, arbol.nodoBloqueado( 1, null ) );
+        assertEquals( 2, arbol.getAislados().size() );
+
+        // El 2 se recupera: el 3 vuelve por el desvío
+        almacen.setBacteria( 2, false );
+        arbol.nodoDesbloqueado( 2 );
+        assertFalse( arbol.estaConectado( 2 ) );
+        almacen.setBacteria( 1, false );
+        arbol.nodoDesbloqueado( 1 );
+        assertEquals( 3, arbol.getDistancia( 3 ) );
+        assertTrue( arbol.getAislados().isEmpty() );
+        Nodo ultimo = null;
+        for ( Nodo nodo : arbol.rutaHaciaRaiz( 3 ) )
+        {
+            ultimo = nodo;
+        }
+        assertEquals( 0, ultimo.getId() );
+    }
+
+    public void testReparacionIncrementalIgualAlRecalculoCompleto()
+    {
+        Random random = new Random( 23 );
+        AlmacenNodos almacen = new AlmacenNodos();
+        ListaEnteros raices = new ListaEnteros();
+        almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        raices.agregar( 0 );
+        ArbolRutas incremental = new ArbolRutas( almacen, 0 );
+
+        // Árbol aleatorio con hifas extra que cierran ciclos, y un segundo origen
+        for ( int id = 1; id < 2000; id++ )
+        {
+            almacen.agregar( id * 30, 0, TipoNodo.EXTRACTOR, 1 );
+            int padre = random.nextInt( id );
+            almacen.conectar( padre, id );
+            incremental.aristaAgregada( padre, id );
+            if ( id % 4 == 0 )
+            {
+                int otro = random.nextInt( id );
+                if ( almacen.conectar( otro, id ) >= 0 )
+                {
+                    incremental.aristaAgregada( otro, id );
+                }
+            }
+            if ( id == 1000 )
+            {
+                incremental.agregarRaiz( id );
+                raices.agregar( id );
+            }
+        }
+
+        for ( int paso = 0; paso < 300; paso++ )
+        {
+            int id = 1 + random.nextInt( 1999 );
+            if ( almacen.esBacteria( id ) )
+            {
+                almacen.setBacteria( id, false );
+                incremental.nodoDesbloqueado( id );
+            }
+            else
+            {
+                almacen.setBacteria( id, true );
+                incremental.nodoBloqueado( id, null );
+            }
+            // Las rutas cacheadas nunca pasan por una bacteria
+            Collection<Nodo> ruta = incremental.rutaHaciaRaiz( random.nextInt( 2000 ) );
+            if ( ruta != null )
+            {
+                for ( Nodo nodo : ruta )
+                {
+                    assertFalse( almacen.esBacteria( nodo.getId() ) );
+                }
+            }
+        }
+
+        ArbolRutas completo = new ArbolRutas( almacen );
+        completo.reiniciar( raices );
+        for ( int id = 0; id < 2000; id++ )
+        {
+            assertEquals( "nodo " + id, completo.getDistancia( id ), incremental.getDistancia( id ) );
+            assertEquals( "nodo " + id, completo.getAislados().contiene( id ), incremental.getAislados().contiene( id ) );
+            int padre = incremental.getPadre( id );
+            if ( padre >= 0 )
+            {
+                assertEquals( incremental.getDistancia( id ), incremental.getDistancia( padre ) + 1 );
+            }
+        }
+        assertTrue( completo.getAislados().size() > 0 );
+    }
+}
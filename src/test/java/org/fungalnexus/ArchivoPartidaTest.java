@@ -0,0 +1,155 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Una partida guardada y cargada debe seguir exactamente igual que la original.
+ */
+public class ArchivoPartidaTest
+    extends TestCase
+{
+    private Path directorio;
+
+    public ArchivoPartidaTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ArchivoPartidaTest.class );
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        directorio = Files.createTempDirectory( "fungalnexus-partida" );
+    }
+
+    @Override
+    protected void tearDown() throws IOException
+    {
+        try ( DirectoryStream<Path> archivos = Files.newDirectoryStream( directorio ) )
+        {
+            for ( Path archivo : archivos )
+            {
+                Files.delete( archivo );
+            }
+        }
+        Files.delete( directorio );
+    }
+
+    public void testCargarContinuaLaPartidaExacta() throws IOException
+    {
+        MotorSimulacion original = new MotorSimulacion( new GrafoColonia( 405, 315, null, 77L ) );
+        int[] construidos = { 1 };
+        // Guardar con la infección ya en curso
+        avanzar( original, construidos, 300 );
+        assertFalse( original.getGrafoColonia().getNodosInfectados().isEmpty() );
+
+        Path archivo = directorio.resolve( "partida.fnx" );
+        ArchivoPartida.guardar( original, archivo );
+        MotorSimulacion cargado = ArchivoPartida.cargar( archivo, null );
+        assertMismoEstado( original, cargado );
+
+        int[] construidosCargado = { construidos[0] };
+        avanzar( original, construidos, 1500 );
+        avanzar( cargado, construidosCargado, 1500 );
+        assertMismoEstado( original, cargado );
+    }
+
+    public void testCargarConservaLosParametros() throws IOException
+    {
+        ParametrosSimulacion parametros = ParametrosSimulacion.PREDETERMINADOS
+                .con( ParametrosSimulacion.Parametro.FACTOR_PROPAGACION_BACTERIA, 0.013 )
+                .con( ParametrosSimulacion.Parametro.TASA_SANACION_INFECCION, 0.21 )
+                .con( ParametrosSimulacion.Parametro.CAPACIDAD_HIFA, 6.5 );
+        MotorSimulacion original = new MotorSimulacion( new GrafoColonia( 405, 315, null, 63L, parametros ) );
+        int[] construidos = { 1 };
+        avanzar( original, construidos, 300 );
+
+        Path archivo = directorio.resolve( "partida.fnx" );
+        ArchivoPartida.guardar( original, archivo );
+        MotorSimulacion cargado = ArchivoPartida.cargar( archivo, null );
+        assertEquals( parametros.describirCambios(), cargado.getGrafoColonia().getParametros().describirCambios() );
+
+        // Con los valores por defecto la continuación se separaría de la original
+        int[] construidosCargado = { construidos[0] };
+        avanzar( original, construidos, 1500 );
+        avanzar( cargado, construidosCargado, 1500 );
+        assertMismoEstado( original, cargado );
+    }
+
+    public void testDeltaSoloGuardaLoModificado() throws IOException
+    {
+        MotorSimulacion original = new MotorSimulacion( new GrafoColonia( 405, 315, null, 91L ) );
+        int[] construidos = { 1 };
+        avanzar( original, construidos, 150 );
+
+        long idBase = ArchivoPartida.nuevoIdBase();
+        Path completa = directorio.resolve( AutoGuardado.ARCHIVO_COMPLETA );
+        Path delta = directorio.resolve( AutoGuardado.ARCHIVO_DELTA );
+        InstantaneaColonia.capturarCompleta( original, idBase ).escribir( completa );
+        original.getGrafoColonia().getAlmacen().fijarBase();
+
+        avanzar( original, construidos, 40 );
+        InstantaneaColonia cambios = InstantaneaColonia.capturarDelta( original, idBase );
+        assertTrue( cambios.getRegistros() < original.getGrafoColonia().getCantidadNodos() );
+        cambios.escribir( delta );
+
+        MotorSimulacion cargado = AutoGuardado.cargarUltima( directorio, null );
+        assertMismoEstado( original, cargado );
+
+        // Una delta de otra base no se aplica
+        InstantaneaColonia.capturarDelta( original, idBase + 1 ).escribir( delta );
+        MotorSimulacion soloCompleta = AutoGuardado.cargarUltima( directorio, null );
+        assertEquals( 150, soloCompleta.getCiclosTranscurridos() );
+    }
+
+    // Crece en espiral mientras alcancen los nutrientes, como la apertura del modo headless
+    private static void avanzar( MotorSimulacion motor, int[] construidos, int ticks )
+    {
+        GrafoColonia grafo = motor.getGrafoColonia();
+        for ( int i = 0; i < ticks && !grafo.isGameOver(); i++ )
+        {
+            TipoNodo tipo = GeneradorColonias.tipoPorIndice( construidos[0] );
+            if ( construidos[0] < 150 && grafo.getNutrientesTotales() >= tipo.getCosto() )
+            {
+                int[] celda = GeneradorColonias.celdaEnEspiral( construidos[0]++ );
+                motor.construir( 405 + celda[0] * Configuracion.GRID_SIZE, 315 + celda[1] * Configuracion.GRID_SIZE, tipo );
+            }
+            motor.tick();
+        }
+    }
+
+    private static void assertMismoEstado( MotorSimulacion esperado, MotorSimulacion actual )
+    {
+        GrafoColonia a = esperado.getGrafoColonia();
+        GrafoColonia b = actual.getGrafoColonia();
+        assertEquals( esperado.getCiclosTranscurridos(), actual.getCiclosTranscurridos() );
+        assertEquals( a.isGameOver(), b.isGameOver() );
+        assertEquals( a.getNutrientesTotales(), b.getNutrientesTotales(), 0.0 );
+        assertEquals( a.getDefensasTotales(), b.getDefensasTotales(), 0.0 );
+        assertEquals( a.getCapacidadNutrienteTotal(), b.getCapacidadNutrienteTotal(), 1e-9 );
+        assertEquals( a.getCantidadNodos(), b.getCantidadNodos() );
+        assertEquals( a.getAlmacen().getCantidadAristas(), b.getAlmacen().getCantidadAristas() );
+        for ( int id = 0; id < a.getCantidadNodos(); id++ )
+        {
+            assertEquals( a.getAlmacen().getSalud( id ), b.getAlmacen().getSalud( id ), 0.0 );
+            assertEquals( a.getAlmacen().getInfeccion( id ), b.getAlmacen().getInfeccion( id ), 0.0 );
+            assertEquals( a.getAlmacen().esBacteria( id ), b.getAlmacen().esBacteria( id ) );
+        }
+        assertEquals( a.getNodosInfectados().size(), b.getNodosInfectados().size() );
+        for ( int i = 0; i < a.getNodosInfectados().size(); i++ )
+        {
+            assertEquals( a.getNodosInfectados().get( i ).getId(), b.getNodosInfectados().get( i ).getId() );
+        }
+    }
+}
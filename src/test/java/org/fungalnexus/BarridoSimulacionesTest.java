@@ -0,0 +1,64 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pruebas de los parámetros por simulación y del barrido en paralelo.
+ */
+public class BarridoSimulacionesTest
+    extends TestCase
+{
+    public BarridoSimulacionesTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( BarridoSimulacionesTest.class );
+    }
+
+    public void testGrillaEsElProductoCartesiano()
+    {
+        Map<ParametrosSimulacion.Parametro, double[]> valores = new LinkedHashMap<>();
+        valores.put( ParametrosSimulacion.Parametro.DANO_BACTERIA_POR_CICLO, new double[]{ 2, 4, 8 } );
+        valores.put( ParametrosSimulacion.Parametro.CICLO_GRACIA_INICIAL, new double[]{ 30, 90 } );
+
+        List<ParametrosSimulacion> grilla = BarridoSimulaciones.grilla( valores );
+        assertEquals( 6, grilla.size() );
+        assertEquals( 4.0, grilla.get( 2 ).getDanoBacteriaPorCiclo(), 0.0 );
+        assertEquals( 30, grilla.get( 2 ).getCicloGraciaInicial() );
+        assertEquals( 8.0, grilla.get( 5 ).getDanoBacteriaPorCiclo(), 0.0 );
+        assertEquals( 90, grilla.get( 5 ).getCicloGraciaInicial() );
+        // Lo que no se barre queda en su valor por defecto
+        assertEquals( Configuracion.FACTOR_PROPAGACION_BACTERIA, grilla.get( 5 ).getFactorPropagacionBacteria(), 0.0 );
+    }
+
+    public void testBarridoParaleloCoincideConCorridasSueltas() throws InterruptedException
+    {
+        List<ParametrosSimulacion> combinaciones = List.of(
+                ParametrosSimulacion.PREDETERMINADOS,
+                ParametrosSimulacion.PREDETERMINADOS.con( ParametrosSimulacion.Parametro.DANO_BACTERIA_POR_CICLO, 1.0 ) );
+
+        List<BarridoSimulaciones.Resultado> resultados =
+                new BarridoSimulaciones( 600, 60, 3 ).ejecutar( combinaciones, 10, 13 );
+        assertEquals( 8, resultados.size() );
+
+        for ( BarridoSimulaciones.Resultado resultado : resultados )
+        {
+            BarridoSimulaciones.Resultado solo = BarridoSimulaciones.simular( resultado.getCombinacion(),
+                    combinaciones.get( resultado.getCombinacion() ), resultado.getSemilla(), 600, 60 );
+            assertEquals( solo.getTicks(), resultado.getTicks() );
+            assertEquals( solo.getInfectadosPico(), resultado.getInfectadosPico() );
+            assertEquals( solo.getNodos(), resultado.getNodos() );
+        }
+        assertEquals( 10L, resultados.get( 0 ).getSemilla() );
+        assertEquals( 1, resultados.get( 7 ).getCombinacion() );
+    }
+}
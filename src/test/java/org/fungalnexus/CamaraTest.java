@@ -0,0 +1,55 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Conversiones entre pantalla y mundo de la cámara.
+ */
+public class CamaraTest
+    extends TestCase
+{
+    public CamaraTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( CamaraTest.class );
+    }
+
+    public void testZoomDejaFijoElPuntoBajoElCursor()
+    {
+        Camara camara = new Camara( 100, -50 );
+        double mundoX = camara.aMundoX( 300 );
+        double mundoY = camara.aMundoY( 200 );
+
+        camara.acercar( 2.0, 300, 200 );
+        assertEquals( 2.0, camara.getZoom(), 1e-12 );
+        assertEquals( mundoX, camara.aMundoX( 300 ), 1e-9 );
+        assertEquals( mundoY, camara.aMundoY( 200 ), 1e-9 );
+        assertEquals( 300, camara.aPantallaX( mundoX ), 1e-9 );
+
+        // El zoom queda acotado
+        for ( int i = 0; i < 50; i++ )
+        {
+            camara.acercar( 0.5, 0, 0 );
+        }
+        assertEquals( Camara.ZOOM_MINIMO, camara.getZoom(), 1e-12 );
+    }
+
+    public void testDesplazarYCentrar()
+    {
+        Camara camara = new Camara();
+        camara.acercar( 2.0, 0, 0 );
+        // Arrastrar 100 px a la derecha muestra 50 unidades más a la izquierda del mundo
+        camara.desplazar( 100, 0 );
+        assertEquals( -50, camara.aMundoX( 0 ), 1e-9 );
+
+        camara.centrarEn( 405, 315, 800, 600 );
+        assertEquals( 405, camara.aMundoX( 400 ), 1e-9 );
+        assertEquals( 315, camara.aMundoY( 300 ), 1e-9 );
+    }
+}
@@ -0,0 +1,75 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Pruebas de la fase de combate con doble búfer.
+ */
+public class FaseCombateTest
+    extends TestCase
+{
+    public FaseCombateTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( FaseCombateTest.class );
+    }
+
+    public void testModoParaleloCoincideConSecuencial()
+    {
+        GrafoColonia secuencial = coloniaInfectada();
+        GrafoColonia paralelo = coloniaInfectada();
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        paralelo.setModoParalelo( true, pool );
+
+        MotorSimulacion motorSecuencial = new MotorSimulacion( secuencial );
+        MotorSimulacion motorParalelo = new MotorSimulacion( paralelo );
+        try
+        {
+            for ( int tick = 0; tick < 120; tick++ )
+            {
+                motorSecuencial.tick();
+                motorParalelo.tick();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        assertTrue( secuencial.getNodosInfectados().size() >= 4096 );
+        assertEquals( secuencial.isGameOver(), paralelo.isGameOver() );
+        assertEquals( secuencial.getDefensasTotales(), paralelo.getDefensasTotales(), 0.0 );
+        assertEquals( secuencial.getNodosInfectados().size(), paralelo.getNodosInfectados().size() );
+        for ( int i = 0; i < secuencial.getNodosInfectados().size(); i++ )
+        {
+            assertEquals( secuencial.getNodosInfectados().get( i ).getId(), paralelo.getNodosInfectados().get( i ).getId() );
+        }
+        AlmacenNodos a = secuencial.getAlmacen();
+        AlmacenNodos b = paralelo.getAlmacen();
+        for ( int id = 0; id < a.getCantidad(); id++ )
+        {
+            assertEquals( a.getSalud( id ), b.getSalud( id ), 0.0 );
+            assertEquals( a.getInfeccion( id ), b.getInfeccion( id ), 0.0 );
+            assertEquals( a.esBacteria( id ), b.esBacteria( id ) );
+        }
+    }
+
+    // Colonia de 20k nodos con uno de cada tres infectado (misma semilla en cada llamada)
+    private static GrafoColonia coloniaInfectada()
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 20000, GeneradorColonias.Topologia.ARBUSTO );
+        for ( int id = 1; id < grafo.getCantidadNodos(); id += 3 )
+        {
+            grafo.infectar( grafo.getAlmacen().vista( id ) );
+        }
+        return grafo;
+    }
+}
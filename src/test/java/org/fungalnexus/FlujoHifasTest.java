@@ -0,0 +1,76 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contadores de flujo por hifa y presupuesto de partículas de la vista.
+ */
+public class FlujoHifasTest
+    extends TestCase
+{
+    public FlujoHifasTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( FlujoHifasTest.class );
+    }
+
+    public void testFlujoConSentidoYDecaimiento()
+    {
+        AlmacenNodos almacen = new AlmacenNodos();
+        int a = almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        int b = almacen.agregar( 30, 0, TipoNodo.EXTRACTOR, 1 );
+        int c = almacen.agregar( 60, 0, TipoNodo.EXTRACTOR, 1 );
+        int ab = almacen.conectar( a, b );
+        int bc = almacen.conectar( b, c );
+
+        FlujoHifas flujo = new FlujoHifas( almacen, 2.0 );
+        List<Nodo> haciaElNucleo = Arrays.asList( almacen.vista( c ), almacen.vista( b ), almacen.vista( a ) );
+        flujo.registrarRuta( haciaElNucleo, TipoRecurso.NUTRIENTE, 10.0 );
+        flujo.registrarRuta( haciaElNucleo, TipoRecurso.NUTRIENTE, 10.0 );
+
+        // Las hifas se crearon a->b y b->c: el nutriente va en contra
+        assertEquals( -2.0, flujo.getFlujo( ab, TipoRecurso.NUTRIENTE, 10.0 ), 1e-12 );
+        assertEquals( -2.0, flujo.getFlujo( bc, TipoRecurso.NUTRIENTE, 10.0 ), 1e-12 );
+        assertEquals( 0.0, flujo.getFlujo( ab, TipoRecurso.DEFENSA, 10.0 ), 0.0 );
+
+        // Una media vida después queda la mitad; un recurso en sentido contrario resta
+        assertEquals( -1.0, flujo.getFlujo( ab, TipoRecurso.NUTRIENTE, 12.0 ), 1e-12 );
+        flujo.registrarRuta( Arrays.asList( almacen.vista( a ), almacen.vista( b ) ), TipoRecurso.NUTRIENTE, 12.0 );
+        assertEquals( 0.0, flujo.getFlujo( ab, TipoRecurso.NUTRIENTE, 12.0 ), 1e-12 );
+        assertEquals( -0.5, flujo.getFlujo( bc, TipoRecurso.NUTRIENTE, 14.0 ), 1e-12 );
+    }
+
+    public void testPresupuestoDeParticulasEsUnTope()
+    {
+        AlmacenNodos almacen = new AlmacenNodos();
+        int a = almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        int b = almacen.agregar( 3000, 0, TipoNodo.EXTRACTOR, 1 );
+        almacen.conectar( a, b );
+        int[] ruta = { b, a };
+
+        SistemaParticulas particulas = new SistemaParticulas( new TablaRutas( almacen ) );
+        particulas.setPresupuesto( 100 );
+        int creadas = 0;
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            if ( particulas.crear( ruta, TipoRecurso.NUTRIENTE, 0.0 ) )
+            {
+                creadas++;
+            }
+        }
+        assertEquals( creadas, particulas.getCantidadActivas() );
+        assertTrue( creadas <= 100 );
+        // Hasta la mitad del presupuesto se aceptan todas
+        assertTrue( creadas >= 50 );
+        assertEquals( 10_000 - creadas, particulas.getDescartadas() );
+    }
+}
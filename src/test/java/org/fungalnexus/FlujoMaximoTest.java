@@ -0,0 +1,128 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.Random;
+
+/**
+ * Pruebas del flujo máximo de nutrientes con capacidad por hifa.
+ */
+public class FlujoMaximoTest
+    extends TestCase
+{
+    public FlujoMaximoTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( FlujoMaximoTest.class );
+    }
+
+    public void testCuelloDeBotellaYDesvioAlBloquear()
+    {
+        // Núcleo 0; 1 y 2 son enlaces; 3, 4 y 5 extractores de tasa 4 colgando de 1; 2 une 3 con 0
+        AlmacenNodos almacen = new AlmacenNodos();
+        almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        almacen.agregar( 30, 0, TipoNodo.ALMACENAMIENTO, 0 );
+        almacen.agregar( 0, 30, TipoNodo.ALMACENAMIENTO, 0 );
+        for ( int i = 0; i < 3; i++ )
+        {
+            almacen.agregar( 60, i * 30, TipoNodo.EXTRACTOR, 4 );
+        }
+        FlujoMaximo flujo = new FlujoMaximo( almacen, 0, 6.0 );
+        int[][] hifas = { { 0, 1 }, { 1, 3 }, { 1, 4 }, { 1, 5 } };
+        for ( int[] hifa : hifas )
+        {
+            almacen.conectar( hifa[0], hifa[1] );
+            flujo.aristaAgregada();
+        }
+        // Una sola hifa de capacidad 6 hacia el núcleo
+        assertEquals( 6.0, flujo.actualizar(), 1e-9 );
+        assertEquals( -6.0, flujo.getFlujo( 0 ), 1e-9 ); // De 1 hacia 0: de extremoB a extremoA
+
+        // Un segundo camino 3 - 2 - 0
+        int a = almacen.conectar( 3, 2 );
+        int b = almacen.conectar( 2, 0 );
+        flujo.aristaAgregada();
+        assertEquals( 12.0, flujo.actualizar(), 1e-9 );
+        assertEquals( 6.0, flujo.getFlujo( a ), 1e-9 );
+        assertEquals( 6.0, flujo.getFlujo( b ), 1e-9 ); // De 2 hacia 0: de extremoA a extremoB
+
+        // El 1 cae: solo queda el extractor 3 por el desvío
+        almacen.setBacteria( 1, true );
+        flujo.nodoBloqueado( 1 );
+        assertEquals( 4.0, flujo.actualizar(), 1e-9 );
+        assertEquals( 0.0, flujo.getFlujo( 0 ), 0.0 );
+        assertEquals( 4.0, flujo.getFlujo( b ), 1e-9 );
+    }
+
+    public void testIncrementalIgualAlCalculoDesdeCero()
+    {
+        Random random = new Random( 31 );
+        AlmacenNodos almacen = new AlmacenNodos();
+        almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        FlujoMaximo incremental = new FlujoMaximo( almacen, 0, 10.0 );
+
+        for ( int id = 1; id < 3000; id++ )
+        {
+            boolean extractor = random.nextInt( 3 ) > 0;
+            almacen.agregar( id * 30, 0, extractor ? TipoNodo.EXTRACTOR : TipoNodo.ALMACENAMIENTO, extractor ? 4 : 0 );
+            almacen.conectar( random.nextInt( id ), id );
+            if ( id % 3 == 0 )
+            {
+                almacen.conectar( random.nextInt( id ), id );
+            }
+            incremental.aristaAgregada();
+            if ( id % 50 == 0 )
+            {
+                int caido = 1 + random.nextInt( id );
+                if ( !almacen.esBacteria( caido ) )
+                {
+                    almacen.setBacteria( caido, true );
+                    incremental.nodoBloqueado( caido );
+                }
+            }
+            if ( id % 7 == 0 )
+            {
+                incremental.actualizar();
+                verificarConservacion( almacen, incremental );
+            }
+        }
+        incremental.actualizar();
+        verificarConservacion( almacen, incremental );
+
+        FlujoMaximo desdeCero = new FlujoMaximo( almacen, 0, 10.0 );
+        assertEquals( desdeCero.actualizar(), incremental.getTotal(), 1e-6 );
+        assertTrue( incremental.getTotal() > 0 );
+    }
+
+    // Capacidad respetada, nada por nodos bacteria y lo que llega al núcleo es lo que sale de la fuente
+    private static void verificarConservacion( AlmacenNodos almacen, FlujoMaximo flujo )
+    {
+        double[] neto = new double[almacen.getCantidad()];
+        for ( int arista = 0; arista < almacen.getCantidadAristas(); arista++ )
+        {
+            double f = flujo.getFlujo( arista );
+            assertTrue( Math.abs( f ) <= flujo.getCapacidadHifa() + 1e-9 );
+            int a = almacen.getExtremoA( arista );
+            int b = almacen.getExtremoB( arista );
+            if ( almacen.esBacteria( a ) || almacen.esBacteria( b ) )
+            {
+                assertEquals( 0.0, f, 0.0 );
+            }
+            neto[a] -= f;
+            neto[b] += f;
+        }
+        assertEquals( flujo.getTotal(), neto[0], 1e-6 );
+        for ( int id = 1; id < neto.length; id++ )
+        {
+            // Un extractor puede sacar hasta su tasa; los demás nodos solo dejan pasar
+            double maximo = almacen.getTipoOriginal( id ) == TipoNodo.EXTRACTOR ? almacen.getTasa( id ) : 0.0;
+            assertTrue( "nodo " + id, neto[id] <= 1e-6 && -neto[id] <= maximo + 1e-6 );
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pruebas del generador de colonias sintéticas.
+ */
+public class GeneradorColoniasTest
+    extends TestCase
+{
+    public GeneradorColoniasTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( GeneradorColoniasTest.class );
+    }
+
+    public void testEspiralNoRepiteCeldas()
+    {
+        Set<Long> vistas = new HashSet<>();
+        for ( int i = 0; i < 49; i++ )
+        {
+            int[] celda = GeneradorColonias.celdaEnEspiral( i );
+            assertTrue( Math.max( Math.abs( celda[0] ), Math.abs( celda[1] ) ) <= 3 );
+            assertTrue( vistas.add( ( (long) celda[0] << 32 ) | ( celda[1] & 0xFFFFFFFFL ) ) );
+        }
+    }
+
+    public void testCadenaTieneUnaSolaRutaLarga()
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 500, GeneradorColonias.Topologia.CADENA );
+        assertEquals( 500, grafo.getCantidadNodos() );
+
+        Nodo ultimo = grafo.getAlmacen().vista( 499 );
+        assertEquals( 500, grafo.encontrarRutaAlNucleo( ultimo ).size() );
+    }
+
+    public void testArbustoConectaTodosLosNodos()
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 500, GeneradorColonias.Topologia.ARBUSTO );
+        assertEquals( 500, grafo.getCantidadNodos() );
+        assertEquals( 499, grafo.getAlmacen().getCantidadAristas() );
+        for ( int id = 0; id < 500; id++ )
+        {
+            assertNotNull( grafo.encontrarRutaAlNucleo( grafo.getAlmacen().vista( id ) ) );
+        }
+    }
+}
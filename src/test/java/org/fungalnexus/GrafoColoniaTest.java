@@ -0,0 +1,96 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pruebas de las reglas de la colonia que cruzan varias estructuras a la vez.
+ */
+public class GrafoColoniaTest
+    extends TestCase
+{
+    public GrafoColoniaTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( GrafoColoniaTest.class );
+    }
+
+    public void testSanarRestauraRutasDefensasYFlujo()
+    {
+        // Cadena: cada nodo corta a todos los que vienen detrás; el 4 es la primera DEFENSA
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 30, GeneradorColonias.Topologia.CADENA );
+        AlmacenNodos almacen = grafo.getAlmacen();
+        assertEquals( TipoNodo.DEFENSA, almacen.getTipo( 4 ) );
+        grafo.actualizarRecursos();
+        double entregada = grafo.getProduccionEntregada();
+
+        grafo.setBacteria( 4, true );
+        grafo.actualizarRecursos();
+        assertFalse( grafo.estaConectadoAlNucleo( almacen.vista( 29 ) ) );
+        assertTrue( grafo.getProduccionEntregada() < entregada );
+
+        grafo.setBacteria( 4, false );
+        grafo.actualizarRecursos();
+        assertFalse( almacen.esBacteria( 4 ) );
+        assertEquals( TipoNodo.DEFENSA.getSaludBase(), almacen.getSalud( 4 ), 0.0 );
+        assertTrue( grafo.getNodosAislados().isEmpty() );
+
+        // Lo mismo que una colonia armada desde cero sobre el mismo almacén
+        GrafoColonia desdeCero = new GrafoColonia( almacen, null, 1L, ParametrosSimulacion.PREDETERMINADOS );
+        desdeCero.actualizarRecursos();
+        assertEquals( desdeCero.getProduccionEntregada(), grafo.getProduccionEntregada(), 1e-9 );
+        for ( int id = 0; id < almacen.getCantidad(); id++ )
+        {
+            Nodo nodo = almacen.vista( id );
+            Collection<Nodo> ruta = grafo.encontrarRutaAlNucleo( nodo );
+            assertEquals( desdeCero.encontrarRutaAlNucleo( nodo ).size(), ruta.size() );
+
+            // La DEFENSA sanada vuelve a defender desde sí misma
+            List<Nodo> defensa = grafo.encontrarRutaDesdeTipo( nodo, TipoNodo.DEFENSA );
+            assertEquals( desdeCero.encontrarRutaDesdeTipo( nodo, TipoNodo.DEFENSA ).size(), defensa.size() );
+        }
+        assertEquals( 1, grafo.encontrarRutaDesdeTipo( almacen.vista( 4 ), TipoNodo.DEFENSA ).size() );
+    }
+
+    public void testCuradosSalenSinAlterarLaPrioridadDeDefensa()
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 10, GeneradorColonias.Topologia.CADENA );
+        AlmacenNodos almacen = grafo.getAlmacen();
+        for ( int id = 1; id <= 4; id++ )
+        {
+            grafo.infectar( almacen.vista( id ) );
+        }
+
+        // El 2 se cura; con un costo de defensa inalcanzable nadie más cambia en el tick
+        almacen.setInfeccion( 2, 0.0 );
+        grafo.actualizarInfeccionYCombate( 0.0, 0.0, Double.MAX_VALUE, 0 );
+
+        // El presupuesto recorre la lista en orden: los infectados más antiguos siguen primero
+        List<Nodo> infectados = grafo.getNodosInfectados();
+        assertEquals( 3, infectados.size() );
+        assertEquals( 1, infectados.get( 0 ).getId() );
+        assertEquals( 3, infectados.get( 1 ).getId() );
+        assertEquals( 4, infectados.get( 2 ).getId() );
+    }
+
+    public void testAlmacenamientoTransformadoRecortaLosNutrientes()
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 10, GeneradorColonias.Topologia.CADENA );
+        AlmacenNodos almacen = grafo.getAlmacen();
+        assertEquals( TipoNodo.ALMACENAMIENTO, almacen.getTipo( 5 ) );
+        double capacidad = grafo.getCapacidadNutrienteTotal();
+        grafo.setNutrientesTotales( capacidad );
+
+        grafo.setBacteria( 5, true );
+        assertEquals( capacidad - TipoNodo.ALMACENAMIENTO.getCapacidadNutriente(), grafo.getCapacidadNutrienteTotal(), 1e-9 );
+        assertEquals( grafo.getCapacidadNutrienteTotal(), grafo.getNutrientesTotales(), 0.0 );
+    }
+}
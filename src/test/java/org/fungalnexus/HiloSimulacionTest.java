@@ -0,0 +1,176 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Pruebas del hilo de simulación y del triple búfer que lo separa de la vista.
+ */
+public class HiloSimulacionTest
+    extends TestCase
+{
+    public HiloSimulacionTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( HiloSimulacionTest.class );
+    }
+
+    public void testTripleBuferEntregaSoloElUltimoPublicado()
+    {
+        TripleBufer<int[]> bufer = new TripleBufer<>( () -> new int[1] );
+        assertNull( bufer.tomarNuevo() );
+
+        bufer.paraEscribir()[0] = 1;
+        bufer.publicar();
+        bufer.paraEscribir()[0] = 2;
+        bufer.publicar();
+
+        int[] leido = bufer.tomarNuevo();
+        assertEquals( 2, leido[0] );
+        assertNull( bufer.tomarNuevo() );
+
+        // El productor nunca recibe el búfer que el consumidor está leyendo
+        bufer.paraEscribir()[0] = 3;
+        assertEquals( 2, leido[0] );
+        bufer.publicar();
+        assertEquals( 3, bufer.tomarNuevo()[0] );
+    }
+
+    public void testConstruccionEncoladaLlegaALaVista() throws InterruptedException
+    {
+        GrafoColonia grafo = new GrafoColonia( 405, 315, null, 1L );
+        MotorSimulacion motor = new MotorSimulacion( grafo );
+        // Un tick por hora: después del primero solo la construcción produce estados nuevos
+        HiloSimulacion hilo = new HiloSimulacion( motor, 3_600_000_000_000L, null );
+        VistaColonia vista = new VistaColonia();
+        hilo.iniciar();
+        try
+        {
+            hilo.encolarConstruccion( 405 + Configuracion.GRID_SIZE, 315, TipoNodo.EXTRACTOR );
+
+            long limite = System.nanoTime() + 10_000_000_000L;
+            while ( vista.getAlmacen().getCantidad() < 2 && System.nanoTime() < limite )
+            {
+                EstadoVista estado = hilo.tomarEstadoNuevo();
+                if ( estado != null )
+                {
+                    vista.aplicar( estado );
+                }
+                Thread.sleep( 1 );
+            }
+        }
+        finally
+        {
+            hilo.detener();
+        }
+
+        assertEquals( 2, vista.getAlmacen().getCantidad() );
+        assertEquals( 1, vista.getAlmacen().getCantidadAristas() );
+        assertTrue( vista.estaCeldaOcupada( 405 + Configuracion.GRID_SIZE, 315 ) );
+        assertEquals( TipoNodo.EXTRACTOR, vista.getAlmacen().getTipoOriginal( 1 ) );
+    }
+
+    public void testNutrientesSeMuestreanSegunElCupo() throws InterruptedException
+    {
+        // Cadena de 20000 nodos: copiar la ruta de cada extractor serían decenas de millones de ids por tick
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 20_000, GeneradorColonias.Topologia.CADENA );
+        MotorSimulacion motor = new MotorSimulacion( grafo );
+        HiloSimulacion hilo = new HiloSimulacion( motor, 3_600_000_000_000L, null );
+        hilo.setCupoParticulas( 40 );
+        hilo.iniciar();
+        EstadoVista estado = null;
+        try
+        {
+            // El primer tick se ejecuta enseguida y sale en la segunda publicación
+            long limite = System.nanoTime() + 10_000_000_000L;
+            while ( ( estado == null || estado.getSecuencia() < 2 ) && System.nanoTime() < limite )
+            {
+                EstadoVista nuevo = hilo.tomarEstadoNuevo();
+                if ( nuevo != null )
+                {
+                    estado = nuevo;
+                }
+                Thread.sleep( 1 );
+            }
+        }
+        finally
+        {
+            hilo.detener();
+        }
+        assertEquals( 2, estado.getSecuencia() );
+
+        int nutrientes = 0;
+        HiloSimulacion.EventoParticula evento;
+        while ( ( evento = hilo.siguienteParticula( estado ) ) != null )
+        {
+            assertEquals( TipoRecurso.NUTRIENTE, evento.getTipo() );
+            int[] ruta = evento.getRuta();
+            assertEquals( 0, ruta[ruta.length - 1] );
+            nutrientes++;
+        }
+        // Miles de extractores ofrecieron su partícula; solo la muestra llegó a la vista
+        assertEquals( 40, nutrientes );
+    }
+
+    public void testLosCambiosLleganAunqueSeSalteenEstados() throws InterruptedException
+    {
+        GrafoColonia grafo = GeneradorColonias.generar( 0, 0, 400, GeneradorColonias.Topologia.ARBUSTO );
+        MotorSimulacion motor = new MotorSimulacion( grafo );
+        // La infección y el flujo previos al hilo llegan con la primera publicación
+        for ( int i = 0; i < 300; i++ )
+        {
+            motor.tick();
+        }
+        assertFalse( grafo.getNodosInfectados().isEmpty() );
+
+        // Un tick por milisegundo y la vista solo mira cada 20: se pierde la mayoría de los estados
+        HiloSimulacion hilo = new HiloSimulacion( motor, 1_000_000L, null );
+        VistaColonia vista = new VistaColonia();
+        hilo.iniciar();
+        try
+        {
+            for ( int i = 0; i < 15; i++ )
+            {
+                Thread.sleep( 20 );
+                aplicar( hilo, vista, hilo.tomarEstadoNuevo() );
+            }
+        }
+        finally
+        {
+            hilo.detener();
+        }
+        aplicar( hilo, vista, hilo.tomarEstadoNuevo() );
+
+        AlmacenNodos simulado = grafo.getAlmacen();
+        AlmacenNodos replica = vista.getAlmacen();
+        assertEquals( simulado.getCantidad(), replica.getCantidad() );
+        for ( int id = 0; id < simulado.getCantidad(); id++ )
+        {
+            assertEquals( (float) simulado.getInfeccion( id ), replica.getInfeccion( id ), 0.0 );
+            assertEquals( simulado.esBacteria( id ), replica.esBacteria( id ) );
+        }
+        for ( int arista = 0; arista < simulado.getCantidadAristas(); arista++ )
+        {
+            assertEquals( (float) grafo.getFlujoNutrientes( arista ), vista.getFlujoNutrientes( arista ), 0.0 );
+        }
+    }
+
+    private static void aplicar( HiloSimulacion hilo, VistaColonia vista, EstadoVista estado )
+    {
+        if ( estado == null )
+        {
+            return;
+        }
+        vista.aplicar( estado );
+        HiloSimulacion.CambiosVista cambios;
+        while ( ( cambios = hilo.siguientesCambios( estado ) ) != null )
+        {
+            vista.aplicarCambios( cambios );
+        }
+    }
+}
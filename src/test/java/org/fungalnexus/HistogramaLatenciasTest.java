@@ -0,0 +1,58 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Percentiles del histograma logarítmico contra los valores exactos.
+ */
+public class HistogramaLatenciasTest
+    extends TestCase
+{
+    public HistogramaLatenciasTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( HistogramaLatenciasTest.class );
+    }
+
+    public void testPercentilesDentroDelErrorDeCubeta()
+    {
+        HistogramaLatencias histograma = new HistogramaLatencias();
+        // 1..100000 ns: el percentil p exacto es p * 100000
+        for ( long valor = 1; valor <= 100_000; valor++ )
+        {
+            histograma.registrar( valor );
+        }
+
+        assertEquals( 100_000, histograma.getCantidad() );
+        assertEquals( 100_000, histograma.getMaximo() );
+        assertEquals( 50_000.5, histograma.getPromedio(), 1e-9 );
+        assertEquals( 50_000, histograma.percentil( 0.50 ), 50_000 * 0.035 );
+        assertEquals( 99_000, histograma.percentil( 0.99 ), 99_000 * 0.035 );
+        assertTrue( histograma.percentil( 0.50 ) >= 50_000 );
+        assertEquals( 100_000, histograma.percentil( 1.0 ) );
+
+        histograma.reiniciar();
+        assertEquals( 0, histograma.getCantidad() );
+        assertEquals( 0, histograma.percentil( 0.99 ) );
+    }
+
+    public void testCubetasContiguas()
+    {
+        // Cada valor cae en una cubeta cuyo límite superior lo cubre, y las cubetas no se solapan
+        long anterior = -1;
+        for ( int cubeta = 0; cubeta < 600; cubeta++ )
+        {
+            long limite = HistogramaLatencias.limiteSuperior( cubeta );
+            assertTrue( limite > anterior );
+            assertEquals( cubeta, HistogramaLatencias.cubeta( limite ) );
+            assertEquals( cubeta, HistogramaLatencias.cubeta( anterior + 1 ) );
+            anterior = limite;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Pruebas del índice espacial de grilla.
+ */
+public class IndiceEspacialTest
+    extends TestCase
+{
+    public IndiceEspacialTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( IndiceEspacialTest.class );
+    }
+
+    public void testCeldaOcupadaRechazaSegundoNodo()
+    {
+        GrafoColonia grafo = new GrafoColonia( 405, 315 );
+        assertTrue( grafo.estaCeldaOcupada( 405, 315 ) );
+
+        double antes = grafo.getNutrientesTotales();
+        assertNull( grafo.construirNuevoNodo( 405, 315, TipoNodo.EXTRACTOR ) );
+        assertEquals( antes, grafo.getNutrientesTotales(), 0.0 );
+    }
+
+    public void testMasCercanoCoincideConBusquedaExhaustiva()
+    {
+        Random random = new Random( 42 );
+        AlmacenNodos almacen = new AlmacenNodos();
+        IndiceEspacial indice = new IndiceEspacial( almacen );
+        List<Integer> nodos = new ArrayList<>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            int x = ( random.nextInt( 200 ) - 100 ) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
+            int y = ( random.nextInt( 200 ) - 100 ) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
+            int id = almacen.agregar( x, y, TipoNodo.EXTRACTOR, 0 );
+            if ( indice.agregar( id ) )
+            {
+                nodos.add( id );
+            }
+        }
+
+        for ( int i = 0; i < 2000; i++ )
+        {
+            int x = random.nextInt( 9000 ) - 4500;
+            int y = random.nextInt( 9000 ) - 4500;
+
+            long esperada = Long.MAX_VALUE;
+            for ( int id : nodos )
+            {
+                long dx = almacen.getX( id ) - x;
+                long dy = almacen.getY( id ) - y;
+                esperada = Math.min( esperada, dx * dx + dy * dy );
+            }
+
+            int encontrado = indice.masCercano( x, y );
+            assertTrue( encontrado != IndiceEspacial.SIN_NODO );
+            long dx = almacen.getX( encontrado ) - x;
+            long dy = almacen.getY( encontrado ) - y;
+            assertEquals( esperada, dx * dx + dy * dy );
+        }
+    }
+
+    public void testRectanguloCoincideConBusquedaExhaustiva()
+    {
+        Random random = new Random( 7 );
+        AlmacenNodos almacen = new AlmacenNodos();
+        IndiceEspacial indice = new IndiceEspacial( almacen );
+        List<Integer> nodos = new ArrayList<>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            int x = ( random.nextInt( 100 ) - 50 ) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
+            int y = ( random.nextInt( 100 ) - 50 ) * Configuracion.GRID_SIZE + Configuracion.GRID_SIZE / 2;
+            int id = almacen.agregar( x, y, TipoNodo.EXTRACTOR, 0 );
+            if ( indice.agregar( id ) )
+            {
+                nodos.add( id );
+            }
+        }
+
+        ListaEnteros encontrados = new ListaEnteros();
+        for ( int i = 0; i < 200; i++ )
+        {
+            int minX = random.nextInt( 4000 ) - 2000;
+            int minY = random.nextInt( 4000 ) - 2000;
+            int maxX = minX + random.nextInt( 900 );
+            int maxY = minY + random.nextInt( 700 );
+
+            encontrados.limpiar();
+            indice.consultarRectangulo( minX, minY, maxX, maxY, encontrados );
+
+            int esperados = 0;
+            for ( int id : nodos )
+            {
+                int x = almacen.getX( id );
+                int y = almacen.getY( id );
+                if ( x >= minX && x <= maxX && y >= minY && y <= maxY )
+                {
+                    esperados++;
+                    assertTrue( encontrados.contiene( id ) );
+                }
+            }
+            assertEquals( esperados, encontrados.size() );
+        }
+    }
+
+    public void testHifasSeEncuentranEnTodaCeldaQueCruzan()
+    {
+        Random random = new Random( 11 );
+        AlmacenNodos almacen = new AlmacenNodos();
+        IndiceHifas indice = new IndiceHifas( almacen, Configuracion.GRID_SIZE * 4 );
+        for ( int i = 0; i < 300; i++ )
+        {
+            // La mitad sobre la grilla, donde las hifas pasan justo por las esquinas de las celdas
+            int x = ( random.nextInt( 100 ) - 50 ) * Configuracion.GRID_SIZE;
+            int y = ( random.nextInt( 100 ) - 50 ) * Configuracion.GRID_SIZE;
+            if ( i % 2 == 1 )
+            {
+                x += random.nextInt( Configuracion.GRID_SIZE );
+                y += random.nextInt( Configuracion.GRID_SIZE );
+            }
+            almacen.agregar( x, y, TipoNodo.EXTRACTOR, 0 );
+        }
+        // Hifas de cualquier largo, incluso de un extremo a otro de la colonia
+        for ( int i = 0; i < 400; i++ )
+        {
+            int arista = almacen.conectar( random.nextInt( 300 ), random.nextInt( 300 ) );
+            if ( arista >= 0 )
+            {
+                indice.agregar( arista );
+            }
+        }
+
+        ListaEnteros encontradas = new ListaEnteros();
+        for ( int i = 0; i < 300; i++ )
+        {
+            int minX = random.nextInt( 3000 ) - 1500;
+            int minY = random.nextInt( 3000 ) - 1500;
+            int maxX = minX + random.nextInt( 300 );
+            int maxY = minY + random.nextInt( 200 );
+
+            encontradas.limpiar();
+            indice.consultarRectangulo( minX, minY, maxX, maxY, encontradas );
+
+            int distintas = 0;
+            for ( int arista = 0; arista < almacen.getCantidadAristas(); arista++ )
+            {
+                int a = almacen.getExtremoA( arista );
+                int b = almacen.getExtremoB( arista );
+                boolean encontrada = encontradas.contiene( arista );
+                if ( encontrada )
+                {
+                    distintas++;
+                }
+                if ( cruza( almacen.getX( a ), almacen.getY( a ), almacen.getX( b ), almacen.getY( b ), minX, minY, maxX, maxY ) )
+                {
+                    assertTrue( encontrada );
+                }
+            }
+            // Cada hifa una sola vez
+            assertEquals( distintas, encontradas.size() );
+        }
+    }
+
+    // Recorte de Liang-Barsky: el segmento toca el rectángulo (bordes incluidos)
+    private static boolean cruza( double x0, double y0, double x1, double y1, int minX, int minY, int maxX, int maxY )
+    {
+        double desde = 0.0;
+        double hasta = 1.0;
+        double[] p = { x0 - x1, x1 - x0, y0 - y1, y1 - y0 };
+        double[] q = { x0 - minX, maxX - x0, y0 - minY, maxY - y0 };
+        for ( int k = 0; k < 4; k++ )
+        {
+            if ( p[k] == 0 )
+            {
+                if ( q[k] < 0 )
+                {
+                    return false;
+                }
+            }
+            else if ( p[k] < 0 )
+            {
+                desde = Math.max( desde, q[k] / p[k] );
+            }
+            else
+            {
+                hasta = Math.min( hasta, q[k] / p[k] );
+            }
+        }
+        return desde <= hasta;
+    }
+}
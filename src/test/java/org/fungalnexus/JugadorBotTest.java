@@ -0,0 +1,75 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.EnumSet;
+
+/**
+ * Pruebas del jugador automático del modo headless.
+ */
+public class JugadorBotTest
+    extends TestCase
+{
+    public JugadorBotTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( JugadorBotTest.class );
+    }
+
+    private static MotorSimulacion motorSinInfeccion( long semilla )
+    {
+        // Hifas sin cuello de botella: la prueba mide al bot, no la red
+        ParametrosSimulacion parametros = ParametrosSimulacion.PREDETERMINADOS
+                .con( ParametrosSimulacion.Parametro.CICLO_GRACIA_INICIAL, 1_000_000 )
+                .con( ParametrosSimulacion.Parametro.CAPACIDAD_HIFA, 1e9 );
+        return new MotorSimulacion( new GrafoColonia( 405, 315, null, semilla, parametros ) );
+    }
+
+    public void testCreceHastaElObjetivoDeFormaReproducible()
+    {
+        MotorSimulacion motorA = motorSinInfeccion( 3L );
+        MotorSimulacion motorB = motorSinInfeccion( 3L );
+        new JugadorBot( motorA, 9L ).jugar( 400, 5_000 );
+        new JugadorBot( motorB, 9L ).jugar( 400, 5_000 );
+
+        AlmacenNodos a = motorA.getGrafoColonia().getAlmacen();
+        AlmacenNodos b = motorB.getGrafoColonia().getAlmacen();
+        assertEquals( 5_000, a.getCantidad() );
+        assertTrue( a.getIdsPorTipo( TipoNodo.ALMACENAMIENTO ).size() > 0 );
+        assertEquals( b.getCantidad(), a.getCantidad() );
+        for ( int id = 0; id < a.getCantidad(); id++ )
+        {
+            assertEquals( b.getX( id ), a.getX( id ) );
+            assertEquals( b.getY( id ), a.getY( id ) );
+            assertEquals( b.getTipo( id ), a.getTipo( id ) );
+        }
+    }
+
+    public void testConstruyeDefensasAlrededorDeLaInfeccion()
+    {
+        MotorSimulacion motor = motorSinInfeccion( 4L );
+        GrafoColonia grafo = motor.getGrafoColonia();
+        JugadorBot bot = new JugadorBot( motor, 1L,
+                EnumSet.of( JugadorBot.Estrategia.EXPANSION_EXTRACTORES, JugadorBot.Estrategia.ANILLOS_DEFENSA ) );
+        bot.jugar( 300, 400 );
+        assertEquals( 0, grafo.getAlmacen().getIdsPorTipo( TipoNodo.DEFENSA ).size() );
+
+        Nodo foco = grafo.getAlmacen().vista( 200 );
+        grafo.infectar( foco );
+        grafo.setNutrientesTotales( TipoNodo.DEFENSA.getCosto() );
+        assertEquals( 1, bot.jugarTurno( 1_000 ) );
+
+        ListaEnteros defensas = grafo.getAlmacen().getIdsPorTipo( TipoNodo.DEFENSA );
+        assertEquals( 1, defensas.size() );
+        int defensa = defensas.get( 0 );
+        int distancia = Math.max( Math.abs( grafo.getAlmacen().getX( defensa ) - foco.getX() ),
+                Math.abs( grafo.getAlmacen().getY( defensa ) - foco.getY() ) );
+        assertEquals( 2 * Configuracion.GRID_SIZE, distancia );
+    }
+}
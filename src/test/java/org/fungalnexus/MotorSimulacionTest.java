@@ -0,0 +1,136 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Pruebas del motor headless (sin toolkit de JavaFX).
+ */
+public class MotorSimulacionTest
+    extends TestCase
+{
+    public MotorSimulacionTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( MotorSimulacionTest.class );
+    }
+
+    public void testEjecutaTicksSinVista()
+    {
+        GrafoColonia grafo = new GrafoColonia( 405, 315 );
+        MotorSimulacion motor = new MotorSimulacion( grafo );
+
+        assertEquals( 500, motor.ejecutarTicks( 500 ) );
+        assertEquals( 500, motor.getCiclosTranscurridos() );
+        assertFalse( grafo.isGameOver() );
+    }
+
+    public void testExtractorEmiteParticulasAlOyente()
+    {
+        final int[] particulas = { 0 };
+        GrafoColonia grafo = new GrafoColonia( 405, 315, new OyenteSimulacion()
+        {
+            @Override
+            public void particulaCreada( double origenX, double origenY, Collection<Nodo> ruta, TipoRecurso tipo )
+            {
+                assertEquals( TipoRecurso.NUTRIENTE, tipo );
+                particulas[0]++;
+            }
+        } );
+        assertNotNull( grafo.construirNuevoNodo( 435, 315, TipoNodo.EXTRACTOR ) );
+
+        MotorSimulacion motor = new MotorSimulacion( grafo );
+        motor.ejecutarTicks( 3 );
+
+        assertEquals( 3, particulas[0] );
+        assertEquals( 25.0 + 3 * TipoNodo.EXTRACTOR.getTasaProduccion(), grafo.getNutrientesTotales(), 1e-9 );
+    }
+
+    public void testDiarioReproduceLaPartidaExacta()
+    {
+        GrafoColonia grafo = new GrafoColonia( 405, 315, null, 1234L );
+        MotorSimulacion motor = new MotorSimulacion( grafo );
+        motor.setDiario( new DiarioComandos( grafo.getSemilla(), 405, 315 ) );
+        jugar( motor );
+
+        assertReproduccionExacta( motor, MotorSimulacion.reproducir( motor.getDiario(), null ) );
+    }
+
+    public void testDiarioEnArchivoConservaLosParametros() throws IOException
+    {
+        ParametrosSimulacion parametros = ParametrosSimulacion.PREDETERMINADOS
+                .con( ParametrosSimulacion.Parametro.DANO_BACTERIA_POR_CICLO, 0.37 )
+                .con( ParametrosSimulacion.Parametro.CAPACIDAD_HIFA, 7.1 )
+                .con( ParametrosSimulacion.Parametro.CICLO_GRACIA_INICIAL, 90 );
+        GrafoColonia grafo = new GrafoColonia( 405, 315, null, 4321L, parametros );
+        MotorSimulacion motor = new MotorSimulacion( grafo );
+
+        Path directorio = Files.createTempDirectory( "fungalnexus-diario" );
+        Path archivo = directorio.resolve( "partida.diario" );
+        try
+        {
+            motor.setDiario( DiarioComandos.crearArchivo( archivo, grafo.getSemilla(), 405, 315, parametros ) );
+            jugar( motor );
+
+            // Se reproduce desde el archivo: los parámetros tienen que salir de la línea "parametros"
+            DiarioComandos leido = DiarioComandos.leer( archivo );
+            assertEquals( parametros.describirCambios(), leido.getParametros().describirCambios() );
+            assertReproduccionExacta( motor, MotorSimulacion.reproducir( leido, null ) );
+        }
+        finally
+        {
+            Files.deleteIfExists( archivo );
+            Files.delete( directorio );
+        }
+    }
+
+    // Crece en espiral a medida que hay nutrientes, hasta que la infección termine la partida
+    private static void jugar( MotorSimulacion motor )
+    {
+        GrafoColonia grafo = motor.getGrafoColonia();
+        int construidos = 1;
+        while ( motor.getCiclosTranscurridos() < 3000 && !grafo.isGameOver() )
+        {
+            TipoNodo tipo = GeneradorColonias.tipoPorIndice( construidos );
+            if ( construidos < 120 && grafo.getNutrientesTotales() >= tipo.getCosto() )
+            {
+                int[] celda = GeneradorColonias.celdaEnEspiral( construidos++ );
+                motor.construir( 405 + celda[0] * Configuracion.GRID_SIZE, 315 + celda[1] * Configuracion.GRID_SIZE, tipo );
+            }
+            motor.tick();
+        }
+        motor.getDiario().cerrar( motor.getCiclosTranscurridos() );
+    }
+
+    private static void assertReproduccionExacta( MotorSimulacion motor, MotorSimulacion reproducido )
+    {
+        GrafoColonia grafo = motor.getGrafoColonia();
+        GrafoColonia copia = reproducido.getGrafoColonia();
+
+        assertEquals( motor.getCiclosTranscurridos(), reproducido.getCiclosTranscurridos() );
+        assertEquals( grafo.isGameOver(), copia.isGameOver() );
+        assertEquals( grafo.getCantidadNodos(), copia.getCantidadNodos() );
+        assertEquals( grafo.getNutrientesTotales(), copia.getNutrientesTotales(), 0.0 );
+        assertEquals( grafo.getDefensasTotales(), copia.getDefensasTotales(), 0.0 );
+        assertEquals( grafo.getNodosInfectados().size(), copia.getNodosInfectados().size() );
+        for ( int i = 0; i < grafo.getNodosInfectados().size(); i++ )
+        {
+            assertEquals( grafo.getNodosInfectados().get( i ).getId(), copia.getNodosInfectados().get( i ).getId() );
+        }
+        for ( int id = 0; id < grafo.getCantidadNodos(); id++ )
+        {
+            assertEquals( grafo.getAlmacen().getSalud( id ), copia.getAlmacen().getSalud( id ), 0.0 );
+            assertEquals( grafo.getAlmacen().getInfeccion( id ), copia.getAlmacen().getInfeccion( id ), 0.0 );
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Límite de frecuencia por categoría y búfer que descarta en vez de bloquear.
+ */
+public class RegistroEventosTest
+    extends TestCase
+{
+    public RegistroEventosTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( RegistroEventosTest.class );
+    }
+
+    public void testLimiteAdmiteLaRafagaYLuegoUnoPorIntervalo()
+    {
+        RegistroEventos.LimiteFrecuencia limite = new RegistroEventos.LimiteFrecuencia( 2.0, 3 );
+        long segundo = 1_000_000_000L;
+        long t = 10 * segundo;
+
+        assertTrue( limite.tomarFicha( t ) );
+        assertTrue( limite.tomarFicha( t ) );
+        assertTrue( limite.tomarFicha( t ) );
+        assertFalse( limite.tomarFicha( t ) );
+
+        // Medio segundo después se repuso una ficha (2 por segundo)
+        assertTrue( limite.tomarFicha( t + segundo / 2 ) );
+        assertFalse( limite.tomarFicha( t + segundo / 2 ) );
+
+        // Tras mucho tiempo quieto vuelve la ráfaga completa, no más
+        long despues = t + 60 * segundo;
+        assertTrue( limite.tomarFicha( despues ) );
+        assertTrue( limite.tomarFicha( despues ) );
+        assertTrue( limite.tomarFicha( despues ) );
+        assertFalse( limite.tomarFicha( despues ) );
+    }
+
+    public void testBuferLlenoDescartaYCuentaSinPerderMensajes() throws IOException
+    {
+        Path archivo = Files.createTempFile( "fungalnexus-registro", ".log" );
+        int mensajes = 20_000;
+        try
+        {
+            RegistroEventos registro = new RegistroEventos( 16, archivo, RegistroEventos.Nivel.DEPURACION, null );
+            int aceptados = 0;
+            for ( int i = 0; i < mensajes; i++ )
+            {
+                if ( registro.publicar( RegistroEventos.Nivel.INFO, RegistroEventos.Categoria.SISTEMA, "mensaje " + i ) )
+                {
+                    aceptados++;
+                }
+            }
+            registro.close();
+
+            // Cada mensaje quedó escrito o contado en la línea de descartados
+            List<String> lineas = Files.readAllLines( archivo, StandardCharsets.UTF_8 );
+            int escritos = 0;
+            long descartados = 0;
+            for ( String linea : lineas )
+            {
+                if ( linea.contains( " mensaje " ) )
+                {
+                    escritos++;
+                }
+                else if ( linea.contains( "mensajes descartados" ) )
+                {
+                    String texto = linea.substring( 0, linea.indexOf( " mensajes descartados" ) );
+                    descartados += Long.parseLong( texto.substring( texto.lastIndexOf( ' ' ) + 1 ) );
+                }
+            }
+            assertEquals( aceptados, escritos );
+            assertEquals( mensajes, escritos + descartados );
+        }
+        finally
+        {
+            Files.deleteIfExists( archivo );
+        }
+    }
+
+    public void testMensajesBajoElNivelNoConsumenFichas()
+    {
+        RegistroEventos registro = new RegistroEventos( null, RegistroEventos.Nivel.DEPURACION, RegistroEventos.Nivel.AVISO );
+        try
+        {
+            registro.setLimite( RegistroEventos.Categoria.PARTICULAS, 1.0, 1 );
+            assertFalse( registro.admite( RegistroEventos.Nivel.DEPURACION, RegistroEventos.Categoria.PARTICULAS ) );
+            assertTrue( registro.admite( RegistroEventos.Nivel.AVISO, RegistroEventos.Categoria.PARTICULAS ) );
+            assertFalse( registro.admite( RegistroEventos.Nivel.AVISO, RegistroEventos.Categoria.PARTICULAS ) );
+            // ERROR no se limita
+            assertTrue( registro.admite( RegistroEventos.Nivel.ERROR, RegistroEventos.Categoria.PARTICULAS ) );
+        }
+        finally
+        {
+            registro.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.fungalnexus;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Pruebas de las rutas internadas y del movimiento de partículas por tiempo.
+ */
+public class TablaRutasTest
+    extends TestCase
+{
+    public TablaRutasTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( TablaRutasTest.class );
+    }
+
+    public void testRutasIgualesSeCompartenYSeReciclan()
+    {
+        AlmacenNodos almacen = new AlmacenNodos();
+        int a = almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        int b = almacen.agregar( 30, 0, TipoNodo.EXTRACTOR, 1 );
+        int c = almacen.agregar( 30, 40, TipoNodo.EXTRACTOR, 1 );
+        TablaRutas tabla = new TablaRutas( almacen );
+
+        int r1 = tabla.adquirir( new int[]{ c, b, a } );
+        int r2 = tabla.adquirir( new int[]{ c, b, a } );
+        int r3 = tabla.adquirir( new int[]{ b, a } );
+        assertEquals( r1, r2 );
+        assertTrue( r1 != r3 );
+        assertEquals( 2, tabla.getCantidad() );
+        assertEquals( 70.0, tabla.getLargo( r1 ), 1e-12 );
+
+        tabla.liberar( r1 );
+        assertEquals( 2, tabla.getCantidad() );
+        tabla.liberar( r2 );
+        assertEquals( 1, tabla.getCantidad() );
+        // La ranura liberada se reutiliza con la ruta nueva
+        assertEquals( r1, tabla.adquirir( new int[]{ a, b } ) );
+    }
+
+    public void testPosicionDependeDelTiempoYNoDeLosFrames()
+    {
+        AlmacenNodos almacen = new AlmacenNodos();
+        int a = almacen.agregar( 0, 0, TipoNodo.NUCLEO, 0 );
+        int b = almacen.agregar( 300, 0, TipoNodo.EXTRACTOR, 1 );
+        int c = almacen.agregar( 300, 400, TipoNodo.EXTRACTOR, 1 );
+        int[] ruta = { c, b, a };
+
+        SistemaParticulas muchosFrames = new SistemaParticulas( new TablaRutas( almacen ) );
+        SistemaParticulas unFrame = new SistemaParticulas( new TablaRutas( almacen ) );
+        muchosFrames.crear( ruta, TipoRecurso.NUTRIENTE, 10.0, 100.0 );
+        unFrame.crear( ruta, TipoRecurso.NUTRIENTE, 10.0, 100.0 );
+        for ( int frame = 1; frame <= 300; frame++ )
+        {
+            muchosFrames.avanzar( 10.0 + frame / 60.0 );
+        }
+        unFrame.avanzar( 15.0 );
+
+        // 5 s a 100 px/s: 400 px de bajada y 100 px por la segunda hifa
+        assertEquals( 200.0, unFrame.getX( 0 ), 1e-9 );
+        assertEquals( 0.0, unFrame.getY( 0 ), 1e-9 );
+        assertEquals( unFrame.getX( 0 ), muchosFrames.getX( 0 ), 1e-9 );
+        assertEquals( unFrame.getY( 0 ), muchosFrames.getY( 0 ), 1e-9 );
+
+        // A los 7 s ya recorrió los 700 px y se retira
+        unFrame.avanzar( 17.0 );
+        assertEquals( 0, unFrame.getCantidadActivas() );
+    }
+
+    public void testQuitarDelMapaConservaLasDemasClaves()
+    {
+        Random random = new Random( 11 );
+        MapaLongEntero mapa = new MapaLongEntero( 8 );
+        Map<Long, Integer> esperado = new HashMap<>();
+        for ( int i = 0; i < 20_000; i++ )
+        {
+            long clave = random.nextInt( 500 );
+            if ( random.nextBoolean() )
+            {
+                mapa.put( clave, i );
+                esperado.put( clave, i );
+            }
+            else
+            {
+                Integer previo = esperado.remove( clave );
+                assertEquals( previo == null ? MapaLongEntero.AUSENTE : previo.intValue(), mapa.quitar( clave ) );
+            }
+        }
+        assertEquals( esperado.size(), mapa.size() );
+        for ( long clave = 0; clave < 500; clave++ )
+        {
+            Integer valor = esperado.get( clave );
+            assertEquals( valor == null ? MapaLongEntero.AUSENTE : valor.intValue(), mapa.get( clave ) );
+        }
+    }
+}